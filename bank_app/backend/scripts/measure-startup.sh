@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+# Compares start-up time and resident memory of the backend images:
+#   jar    - Dockerfile (fat jar on eclipse-temurin:17-jre)
+#   cds    - Dockerfile.cds (unpacked jar with an AppCDS archive)
+#   native - Dockerfile.native (GraalVM native image)
+#
+# Usage: scripts/measure-startup.sh [runs] [variant ...]
+#
+# Each variant is built once and started <runs> times (default 5). Start-up
+# time is the "process running for" figure Spring logs once the application
+# is ready; RSS is read from /proc/1/status a few seconds later. No database
+# is needed: connection failures during start-up are logged and retried.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${1:-5}
+shift || true
+VARIANTS=("$@")
+if [ ${#VARIANTS[@]} -eq 0 ]; then
+    VARIANTS=(jar cds native)
+fi
+
+dockerfile() {
+    case "$1" in
+        jar) echo Dockerfile ;;
+        cds) echo Dockerfile.cds ;;
+        native) echo Dockerfile.native ;;
+        *) echo "Unknown variant $1" >&2; exit 1 ;;
+    esac
+}
+
+printf "| %-7s | %-6s | %-22s | %-14s |\n" variant runs "startup (s, median)" "RSS (MB, median)"
+printf "|---------|--------|------------------------|----------------|\n"
+for variant in "${VARIANTS[@]}"; do
+    image="bank-backend-startup:$variant"
+    docker build -q -f "$(dockerfile "$variant")" -t "$image" . > /dev/null
+    startups=()
+    rss=()
+    for run in $(seq "$RUNS"); do
+        container=$(docker run -d "$image")
+        started=""
+        for _ in $(seq 600); do
+            started=$(docker logs "$container" 2>&1 | sed -n 's/.*process running for \([0-9.]*\).*/\1/p' | head -1)
+            if [ -n "$started" ]; then
+                break
+            fi
+            sleep 0.1
+        done
+        sleep 3
+        kb=$(docker exec "$container" sh -c "grep VmRSS /proc/1/status" | awk '{print $2}')
+        docker rm -f "$container" > /dev/null
+        if [ -z "$started" ]; then
+            echo "$variant run $run did not start within 60 s" >&2
+            continue
+        fi
+        startups+=("$started")
+        rss+=("$((kb / 1024))")
+    done
+    median_startup=$(printf "%s\n" "${startups[@]}" | sort -n | awk '{a[NR]=$1} END {print a[int((NR+1)/2)]}')
+    median_rss=$(printf "%s\n" "${rss[@]}" | sort -n | awk '{a[NR]=$1} END {print a[int((NR+1)/2)]}')
+    printf "| %-7s | %-6s | %-22s | %-14s |\n" "$variant" "${#startups[@]}" "$median_startup" "$median_rss"
+done
@@ -1,9 +1,14 @@
 package io.synthesized.sample.bank;
 
+import io.synthesized.sample.bank.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class BankApplication {
     public static void main(String[] args) {
         SpringApplication.run(BankApplication.class, args);
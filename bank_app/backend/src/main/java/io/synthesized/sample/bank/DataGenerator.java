@@ -0,0 +1,33 @@
+package io.synthesized.sample.bank;
+
+import io.synthesized.sample.bank.generator.DatasetGenerator;
+import io.synthesized.sample.bank.generator.GeneratorOptions;
+
+/**
+ * Command line entry point for generating large synthetic bank datasets,
+ * e.g. for capacity tests:
+ *
+ * <pre>
+ * ./gradlew generateData -PgeneratorArgs="--url=jdbc:postgresql://localhost:5438/bank_testing --transactions=100000000"
+ * </pre>
+ *
+ * Runs without starting the Spring application.
+ */
+public class DataGenerator {
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1 && ("--help".equals(args[0]) || "-h".equals(args[0]))) {
+            System.out.println(GeneratorOptions.usage());
+            return;
+        }
+        GeneratorOptions options;
+        try {
+            options = GeneratorOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(GeneratorOptions.usage());
+            System.exit(2);
+            return;
+        }
+        new DatasetGenerator(options).run();
+    }
+}
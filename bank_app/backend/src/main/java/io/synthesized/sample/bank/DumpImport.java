@@ -0,0 +1,43 @@
+package io.synthesized.sample.bank;
+
+import io.synthesized.sample.bank.importer.CopyCache;
+import io.synthesized.sample.bank.importer.DumpImporter;
+import io.synthesized.sample.bank.importer.ImportOptions;
+
+import java.sql.DriverManager;
+import java.util.List;
+
+/**
+ * Command line entry point for loading the seed and prod SQL dumps with COPY
+ * into databases that already have the schema, e.g. after starting postgres
+ * with {@code BANK_SKIP_DATA_LOAD=true}:
+ *
+ * <pre>
+ * ./gradlew importDumps -PimportArgs="--threads=8"
+ * </pre>
+ *
+ * Runs without starting the Spring application.
+ */
+public class DumpImport {
+    public static void main(String[] args) {
+        if (args.length == 1 && ("--help".equals(args[0]) || "-h".equals(args[0]))) {
+            System.out.println(ImportOptions.usage());
+            return;
+        }
+        ImportOptions options;
+        try {
+            options = ImportOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(ImportOptions.usage());
+            System.exit(2);
+            return;
+        }
+        List<DumpImporter.Target> targets = options.loads.stream()
+            .map(load -> new DumpImporter.Target(load.database(),
+                () -> DriverManager.getConnection(options.url(load.database()), options.user, options.password),
+                load.dump()))
+            .toList();
+        new DumpImporter(new CopyCache(options.cacheDir), options.threads, options.deferConstraints).importAll(targets);
+    }
+}
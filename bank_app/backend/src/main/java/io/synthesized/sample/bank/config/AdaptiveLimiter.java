@@ -0,0 +1,160 @@
+package io.synthesized.sample.bank.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit with a bounded wait queue whose limit follows observed
+ * latency (additive increase, multiplicative decrease).
+ *
+ * <p>While requests complete within {@code latencyThreshold} and the limit
+ * is actually being used, it grows by about one per limit's worth of
+ * completions. A slow or failed request shrinks it by {@code backoffRatio},
+ * at most once per threshold period, so a burst of slow requests that were
+ * all admitted together counts as one signal.
+ */
+public class AdaptiveLimiter {
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long queueTimeoutNanos;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long lastDecreaseNanos;
+    private long admitted;
+    private long rejected;
+
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                           long queueTimeoutMs, long latencyThresholdMs, double backoffRatio) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.maxQueue = Math.max(0, maxQueue);
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMs);
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.backoffRatio = backoffRatio;
+        this.lastDecreaseNanos = System.nanoTime() - latencyThresholdNanos;
+    }
+
+    /**
+     * Takes a slot, waiting in the queue for up to the queue timeout.
+     *
+     * @return false if the queue is full or the wait timed out
+     */
+    public boolean acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                admitted++;
+                return true;
+            }
+            if (queued >= maxQueue) {
+                rejected++;
+                return false;
+            }
+            queued++;
+            try {
+                long remaining = queueTimeoutNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        rejected++;
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                admitted++;
+                return true;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns a slot and feeds the request's outcome into the limit. */
+    public void release(long latencyNanos, boolean failed) {
+        lock.lock();
+        try {
+            inFlight--;
+            long now = System.nanoTime();
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                if (now - lastDecreaseNanos >= latencyThresholdNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = now;
+                }
+            } else if (inFlight + 1 >= limit / 2) {
+                // Only grow while the limit is what constrains throughput
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Suggested client back-off after a rejection, in whole seconds. */
+    public long retryAfterSeconds() {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(latencyThresholdNanos));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAdmitted() {
+        lock.lock();
+        try {
+            return admitted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package io.synthesized.sample.bank.config;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Gives each database its own bulkhead: API requests are admitted through
+ * the {@link AdaptiveLimiter} of the database named by their
+ * {@code database} parameter, so a flood of slow PROD searches queues and
+ * is shed on its own instead of occupying every servlet thread. Requests
+ * that cannot be admitted get 503 with a Retry-After header.
+ *
+ * <p>Every setting under {@code bank.bulkhead} can be overridden per
+ * database, e.g. {@code bank.bulkhead.prod.max-limit}.
+ */
+@Component
+public class BulkheadInterceptor implements AsyncHandlerInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(BulkheadInterceptor.class);
+    private static final String PERMIT_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".permit";
+
+    private record Permit(AdaptiveLimiter limiter, long startedNanos) {
+    }
+
+    private final Map<DatabaseType, AdaptiveLimiter> limiters = new EnumMap<>(DatabaseType.class);
+    private final boolean enabled;
+
+    public BulkheadInterceptor(Environment environment) {
+        this.enabled = environment.getProperty("bank.bulkhead.enabled", Boolean.class, true);
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            String prefix = "bank.bulkhead." + databaseType.name().toLowerCase() + ".";
+            limiters.put(databaseType, new AdaptiveLimiter(
+                databaseType.name(),
+                setting(environment, prefix, "initial-limit", Integer.class, 20),
+                setting(environment, prefix, "min-limit", Integer.class, 2),
+                setting(environment, prefix, "max-limit", Integer.class, 100),
+                setting(environment, prefix, "max-queue", Integer.class, 50),
+                setting(environment, prefix, "queue-timeout-ms", Long.class, 500L),
+                setting(environment, prefix, "latency-threshold-ms", Long.class, 1000L),
+                setting(environment, prefix, "backoff-ratio", Double.class, 0.9)));
+        }
+    }
+
+    private static <T> T setting(Environment environment, String databasePrefix, String name, Class<T> type, T defaultValue) {
+        T shared = environment.getProperty("bank.bulkhead." + name, type, defaultValue);
+        return environment.getProperty(databasePrefix + name, type, shared);
+    }
+
+    public Map<DatabaseType, AdaptiveLimiter> getLimiters() {
+        return limiters;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        // Async dispatches (e.g. streamed responses) continue under the permit of the original request
+        if (!enabled || request.getDispatcherType() == DispatcherType.ASYNC || request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            return true;
+        }
+        DatabaseType databaseType = resolveDatabase(request);
+        if (databaseType == null) {
+            return true;
+        }
+        AdaptiveLimiter limiter = limiters.get(databaseType);
+        if (!limiter.acquire()) {
+            logger.warn("Bulkhead {} saturated (limit {}, queued {}), rejecting {} {}",
+                databaseType, limiter.getLimit(), limiter.getQueued(), request.getMethod(), request.getRequestURI());
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", String.valueOf(limiter.retryAfterSeconds()));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\": \"Too many concurrent requests for database " + databaseType
+                + ", retry later\"}");
+            return false;
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, new Permit(limiter, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.isAsyncStarted()) {
+            // Released when the async dispatch completes
+            return;
+        }
+        Object attribute = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (attribute instanceof Permit permit) {
+            request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+            // A cancelled query says nothing about the database's capacity
+            boolean failed = (ex != null || response.getStatus() >= 500) && !QueryCancellationInterceptor.isCancelled(request);
+            permit.limiter().release(System.nanoTime() - permit.startedNanos(), failed);
+        }
+    }
+
+    private static DatabaseType resolveDatabase(HttpServletRequest request) {
+        String database = request.getParameter("database");
+        if (database == null || database.isEmpty()) {
+            return DatabaseType.TESTING;
+        }
+        try {
+            return DatabaseType.valueOf(database.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            // Let the controller report the invalid parameter
+            return null;
+        }
+    }
+}
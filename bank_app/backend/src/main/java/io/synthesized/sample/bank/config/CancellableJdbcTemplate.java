@@ -0,0 +1,34 @@
+package io.synthesized.sample.bank.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * JdbcTemplate that applies the current request's {@link QueryContext}: its
+ * statement timeout, and registration of each statement so that it can be
+ * cancelled when the request is superseded or abandoned. Outside a request
+ * (scheduled jobs, start-up) statements run as before.
+ */
+public class CancellableJdbcTemplate extends JdbcTemplate {
+
+    public CancellableJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        super.applyStatementSettings(stmt);
+        QueryContext context = QueryContext.current();
+        if (context == null) {
+            return;
+        }
+        int timeout = context.getTimeoutSeconds();
+        if (timeout > 0 && (stmt.getQueryTimeout() == 0 || stmt.getQueryTimeout() > timeout)) {
+            stmt.setQueryTimeout(timeout);
+        }
+        context.register(stmt);
+    }
+}
@@ -0,0 +1,64 @@
+package io.synthesized.sample.bank.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Answers requests whose queries were cancelled by
+ * {@link QueryCancellationInterceptor} with 499 (Client Closed Request)
+ * instead of the 500 their failed query (SQLState 57014) turns into. The
+ * client has moved on and nobody reads the response; it is not a server
+ * error. Controllers keep their generic error handling, only the status
+ * they set is replaced.
+ */
+@Component
+public class CancelledRequestFilter extends OncePerRequestFilter {
+    public static final int CLIENT_CLOSED_REQUEST = 499;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        filterChain.doFilter(request, new CancellationAwareResponse(request, response));
+    }
+
+    // Streamed pages fail on the async dispatch
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private static final class CancellationAwareResponse extends HttpServletResponseWrapper {
+        private final HttpServletRequest request;
+
+        CancellationAwareResponse(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public void setStatus(int status) {
+            super.setStatus(map(status));
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            super.sendError(map(status));
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            super.sendError(map(status), message);
+        }
+
+        private int map(int status) {
+            return status >= 500 && QueryCancellationInterceptor.isCancelled(request) ? CLIENT_CLOSED_REQUEST : status;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.synthesized.sample.bank.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/** Time spent waiting for a pooled connection, including a wait for a database reset to finish. */
+@Name("io.synthesized.bank.ConnectionAcquire")
+@Label("Connection Acquire")
+@Category({"Bank", "Database"})
+@Description("Wait for a connection from one of the bank database pools")
+@StackTrace(false)
+@Threshold("1 ms")
+public class ConnectionAcquireEvent extends jdk.jfr.Event {
+    @Label("Database")
+    public String database;
+
+    @Label("Pool")
+    public String pool;
+
+    @Label("Active Connections")
+    @Description("Connections in use when this one was handed out")
+    public int activeConnections;
+
+    @Label("Waiting Threads")
+    @Description("Other threads still waiting for a connection of the pool")
+    public int waitingThreads;
+
+    @Label("Failed")
+    public boolean failed;
+}
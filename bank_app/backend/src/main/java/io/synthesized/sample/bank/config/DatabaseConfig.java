@@ -8,7 +8,10 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import com.zaxxer.hikari.HikariDataSource;
+
 import javax.sql.DataSource;
+import java.time.Duration;
 
 @Configuration
 public class DatabaseConfig {
@@ -40,50 +43,59 @@ public class DatabaseConfig {
     @Value("${spring.datasource.prod.password}")
     private String prodPassword;
 
+    @Value("${bank.admin.reset-pause-timeout-ms:30000}")
+    private long resetPauseTimeoutMs;
+
     @Bean
-    public DataSource seedDataSource() {
-        return DataSourceBuilder.create()
-                .url(seedUrl)
-                .username(seedUsername)
-                .password(seedPassword)
-                .driverClassName("org.postgresql.Driver")
-                .build();
+    public ResettableDataSource seedDataSource() {
+        return resettableDataSource("seed", seedUrl, seedUsername, seedPassword);
     }
 
     @Bean
-    public DataSource prodDataSource() {
-        return DataSourceBuilder.create()
-                .url(prodUrl)
-                .username(prodUsername)
-                .password(prodPassword)
-                .driverClassName("org.postgresql.Driver")
-                .build();
+    public ResettableDataSource prodDataSource() {
+        return resettableDataSource("prod", prodUrl, prodUsername, prodPassword);
     }
 
     @Bean
     @Primary
-    public DataSource testingDataSource() {
-        return DataSourceBuilder.create()
-                .url(testingUrl)
-                .username(testingUsername)
-                .password(testingPassword)
-                .driverClassName("org.postgresql.Driver")
-                .build();
+    public ResettableDataSource testingDataSource() {
+        return resettableDataSource("testing", testingUrl, testingUsername, testingPassword);
+    }
+
+    // Each pool is wrapped so it can be drained and recreated when its
+    // database is restored from a snapshot or cloned
+    private ResettableDataSource resettableDataSource(String name, String url, String username, String password) {
+        return new ResettableDataSource(
+            name,
+            url,
+            () -> {
+                HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(url)
+                    .username(username)
+                    .password(password)
+                    .driverClassName("org.postgresql.Driver")
+                    .build();
+                pool.setPoolName(name + "-pool");
+                return pool;
+            },
+            Duration.ofMillis(resetPauseTimeoutMs)
+        );
     }
 
     @Bean    
     public JdbcTemplate seedJdbcTemplate(@Qualifier("seedDataSource") DataSource dataSource) {
-        return new JdbcTemplate(dataSource);
+        return new CancellableJdbcTemplate(dataSource);
     }
 
     @Bean
     public JdbcTemplate prodJdbcTemplate(@Qualifier("prodDataSource") DataSource dataSource) {
-        return new JdbcTemplate(dataSource);
+        return new CancellableJdbcTemplate(dataSource);
     }
 
     @Bean
     @Primary
     public JdbcTemplate testingJdbcTemplate(@Qualifier("testingDataSource") DataSource dataSource) {
-        return new JdbcTemplate(dataSource);
+        return new CancellableJdbcTemplate(dataSource);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,98 @@
+package io.synthesized.sample.bank.config;
+
+import io.synthesized.sample.bank.importer.CopyCache;
+import io.synthesized.sample.bank.importer.DumpImporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Loads the seed and prod dumps with {@link DumpImporter} at start-up, for
+ * stacks where postgres only creates the schema ({@code BANK_SKIP_DATA_LOAD}).
+ * A database is only loaded while all of its bank tables are empty, so
+ * restarts and databases loaded by psql are left alone; a failed import
+ * empties them again, so the next start retries it.
+ *
+ * <p>{@code bank.import.enabled} is checked at run time rather than with a
+ * bean condition, which a native image would fix at build time.
+ */
+@Component
+public class DumpImportRunner implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(DumpImportRunner.class);
+    private static final List<String> BANK_TABLES = List.of(
+        "bank.branches", "bank.customers", "bank.accounts", "bank.transactions", "bank.transaction_metadata");
+
+    private final ResettableDataSource seedDataSource;
+    private final ResettableDataSource prodDataSource;
+    private final Path sqlDirectory;
+    private final Path cacheDirectory;
+    private final int threads;
+    private final boolean deferConstraints;
+    private final boolean enabled;
+
+    public DumpImportRunner(
+            @Qualifier("seedDataSource") ResettableDataSource seedDataSource,
+            @Qualifier("prodDataSource") ResettableDataSource prodDataSource,
+            @Value("${bank.import.sql-dir:../database/sql}") String sqlDirectory,
+            @Value("${bank.import.cache-dir:${java.io.tmpdir}/bank-import-cache}") String cacheDirectory,
+            @Value("${bank.import.threads:4}") int threads,
+            @Value("${bank.import.defer-constraints:true}") boolean deferConstraints,
+            @Value("${bank.import.enabled:false}") boolean enabled) {
+        this.seedDataSource = seedDataSource;
+        this.prodDataSource = prodDataSource;
+        this.sqlDirectory = Path.of(sqlDirectory);
+        this.cacheDirectory = Path.of(cacheDirectory);
+        this.threads = threads;
+        this.deferConstraints = deferConstraints;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        List<DumpImporter.Target> targets = new ArrayList<>();
+        addIfEmpty(targets, seedDataSource, "seed_bank_db.sql");
+        addIfEmpty(targets, prodDataSource, "prod_bank_db.sql");
+        if (targets.isEmpty()) {
+            logger.info("Dump import skipped, all databases already contain data");
+            return;
+        }
+        new DumpImporter(new CopyCache(cacheDirectory), threads, deferConstraints).importAll(targets);
+    }
+
+    private void addIfEmpty(List<DumpImporter.Target> targets, ResettableDataSource dataSource, String dumpFile) {
+        Path dump = sqlDirectory.resolve(dumpFile);
+        if (!Files.isReadable(dump)) {
+            logger.warn("Dump {} not found, not importing into {}", dump, dataSource.getDatabaseName());
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "SELECT " + BANK_TABLES.stream().map(table -> "EXISTS (SELECT 1 FROM " + table + ")")
+                     .collect(Collectors.joining(" OR ")))) {
+            rs.next();
+            if (!rs.getBoolean(1)) {
+                targets.add(new DumpImporter.Target(dataSource.getDatabaseName(), dataSource::getConnection, dump));
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not check {} for existing data, not importing: {}", dataSource.getDatabaseName(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package io.synthesized.sample.bank.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Emits a {@link JdbcQueryEvent} for every statement run on the connections
+ * it wraps. {@link ResettableDataSource} only wraps a connection while a
+ * flight recording has the event enabled, so outside of recordings
+ * connections are handed out as they are and the query path is unchanged.
+ *
+ * <p>A query's event lasts until its result set has been read to the end or
+ * closed, so that it covers fetching the rows as well. The SQL fingerprint
+ * and the caller, found by walking the stack, are only worked out for events
+ * above the threshold.
+ */
+final class JdbcEventRecorder {
+    private static final String BACKEND_PACKAGE = "io.synthesized.sample.bank.";
+    // Frames of these classes are between the caller and the driver
+    private static final Set<String> INFRASTRUCTURE = Set.of(
+        JdbcEventRecorder.class.getName(), ResettableDataSource.class.getName(),
+        CancellableJdbcTemplate.class.getName(), QueryContext.class.getName());
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$.])\\d+(?:\\.\\d+)?");
+    private static final Pattern VALUE_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern VALUE_LISTS = Pattern.compile("\\(\\.\\.\\.\\)(?:\\s*,\\s*\\(\\.\\.\\.\\))+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_SQL_LENGTH = 2000;
+
+    private JdbcEventRecorder() {
+    }
+
+    /** {@code connection} itself, or a wrapper recording its statements while the event is enabled. */
+    static Connection record(Connection connection, String database) {
+        if (!new JdbcQueryEvent().isEnabled()) {
+            return connection;
+        }
+        return proxy(Connection.class, new ConnectionHandler(connection, database));
+    }
+
+    /**
+     * Statement text without its literals, so that statements differing only
+     * in inlined values or in the number of bound parameters and rows group
+     * together.
+     */
+    static String fingerprint(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = VALUE_LIST.matcher(normalized).replaceAll("(...)");
+        normalized = VALUE_LISTS.matcher(normalized).replaceAll("(...), ...");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        return normalized.length() > MAX_SQL_LENGTH ? normalized.substring(0, MAX_SQL_LENGTH) : normalized;
+    }
+
+    // E.g. CustomerRepository.findAll, also for the lambdas and callbacks declared in it
+    private static String caller() {
+        return STACK_WALKER.walk(frames -> frames
+            .filter(frame -> frame.getClassName().startsWith(BACKEND_PACKAGE)
+                && !INFRASTRUCTURE.contains(outerClassName(frame.getClassName())))
+            .findFirst()
+            .map(frame -> {
+                String className = outerClassName(frame.getClassName());
+                String method = frame.getMethodName();
+                if (method.startsWith("lambda$")) {
+                    int end = method.indexOf('$', "lambda$".length());
+                    method = method.substring("lambda$".length(), end > 0 ? end : method.length());
+                }
+                return className.substring(className.lastIndexOf('.') + 1) + "." + method;
+            })
+            .orElse(null));
+    }
+
+    private static String outerClassName(String className) {
+        int nested = className.indexOf('$');
+        return nested >= 0 ? className.substring(0, nested) : className;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(JdbcEventRecorder.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // equals and hashCode compare the wrappers, everything else goes to the wrapped object
+    private static Object invokeOn(Object target, Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        return invokeTarget(target, method, args);
+    }
+
+    private record ConnectionHandler(Connection connection, String database) implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = invokeOn(connection, proxy, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> proxy(Statement.class,
+                    new StatementHandler((Statement) result, database, null));
+                case "prepareStatement" -> proxy(PreparedStatement.class,
+                    new StatementHandler((Statement) result, database, (String) args[0]));
+                case "prepareCall" -> proxy(CallableStatement.class,
+                    new StatementHandler((Statement) result, database, (String) args[0]));
+                default -> result;
+            };
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String database;
+        private final String preparedSql;
+        private String batchSql;
+        private int batchSize;
+        private ResultSetHandler open;
+
+        StatementHandler(Statement statement, String database, String preparedSql) {
+            this.statement = statement;
+            this.database = database;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            switch (name) {
+                case "addBatch" -> {
+                    batchSize++;
+                    if (batchSql == null && args != null && args.length == 1) {
+                        batchSql = (String) args[0];
+                    }
+                }
+                case "clearBatch" -> {
+                    batchSize = 0;
+                    batchSql = null;
+                }
+                case "close" -> finishOpen();
+                default -> {
+                }
+            }
+            return invokeOn(statement, proxy, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finishOpen();
+            String name = method.getName();
+            boolean batch = name.endsWith("Batch");
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text
+                : preparedSql != null ? preparedSql : batch ? batchSql : null;
+            JdbcQueryEvent event = new JdbcQueryEvent();
+            event.batchSize = batch ? batchSize : 0;
+            if (batch) {
+                batchSize = 0;
+                batchSql = null;
+            }
+            event.begin();
+            Object result;
+            try {
+                result = invokeTarget(statement, method, args);
+            } catch (Throwable e) {
+                event.failed = true;
+                commit(event, sql, -1);
+                throw e;
+            }
+            if (result instanceof ResultSet resultSet) {
+                open = new ResultSetHandler(resultSet, this, event, sql);
+                return proxy(ResultSet.class, open);
+            }
+            commit(event, sql, rows(name, result));
+            return result;
+        }
+
+        private long rows(String name, Object result) throws SQLException {
+            if (result instanceof Number count) {
+                return count.longValue();
+            }
+            if (result instanceof int[] counts) {
+                return sum(Arrays.stream(counts).asLongStream().toArray());
+            }
+            if (result instanceof long[] counts) {
+                return sum(counts);
+            }
+            // execute(): an update count unless it produced a result set
+            return name.equals("execute") && Boolean.FALSE.equals(result) ? statement.getUpdateCount() : -1;
+        }
+
+        // Drivers may report SUCCESS_NO_INFO instead of a count
+        private static long sum(long[] counts) {
+            long rows = 0;
+            for (long count : counts) {
+                if (count < 0) {
+                    return -1;
+                }
+                rows += count;
+            }
+            return rows;
+        }
+
+        private void finishOpen() {
+            if (open != null) {
+                open.finish();
+            }
+        }
+
+        void commit(JdbcQueryEvent event, String sql, long rows) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.database = database;
+                event.sql = fingerprint(sql);
+                event.caller = caller();
+                event.endpoint = QueryContext.currentEndpoint();
+                event.rows = rows;
+                event.commit();
+            }
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final StatementHandler statement;
+        private final JdbcQueryEvent event;
+        private final String sql;
+        private long rows;
+        private boolean finished;
+
+        ResultSetHandler(ResultSet resultSet, StatementHandler statement, JdbcQueryEvent event, String sql) {
+            this.resultSet = resultSet;
+            this.statement = statement;
+            this.event = event;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close")) {
+                finish();
+            }
+            Object result;
+            try {
+                result = invokeOn(resultSet, proxy, method, args);
+            } catch (Throwable e) {
+                if (name.equals("next")) {
+                    event.failed = true;
+                    finish();
+                }
+                throw e;
+            }
+            if (name.equals("next")) {
+                if (Boolean.TRUE.equals(result)) {
+                    rows++;
+                } else {
+                    finish();
+                }
+            }
+            return result;
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                statement.commit(event, sql, rows);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.synthesized.sample.bank.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A statement run against one of the bank databases, from execution until
+ * its result set was read to the end or closed. Recorded by the connections
+ * {@link JdbcEventRecorder} hands out while the event is enabled.
+ */
+@Name("io.synthesized.bank.JdbcQuery")
+@Label("JDBC Query")
+@Category({"Bank", "Database"})
+@Description("SQL statement run by the backend, with the database, calling method and rows read or changed")
+@StackTrace(false)
+@Threshold("5 ms")
+public class JdbcQueryEvent extends jdk.jfr.Event {
+    @Label("Database")
+    public String database;
+
+    @Label("SQL Fingerprint")
+    @Description("Statement with literals replaced by ? and whitespace collapsed")
+    public String sql;
+
+    @Label("Caller")
+    @Description("Backend method that ran the statement, usually a repository method")
+    public String caller;
+
+    @Label("Endpoint")
+    @Description("Request mapping being served, if any")
+    public String endpoint;
+
+    @Label("Rows")
+    @Description("Rows read from the result set or changed; -1 if the driver did not report them")
+    public long rows = -1;
+
+    @Label("Batch Size")
+    @Description("Parameter sets sent with executeBatch; 0 for a single execution")
+    public int batchSize;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,69 @@
+package io.synthesized.sample.bank.config;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Reflection and resource hints for the native image (see build.gradle,
+ * {@code -Pnative}). Spring AOT covers beans and the declared types of
+ * request and response bodies, but not objects serialized from inside maps
+ * and {@code ResponseEntity<?>}, the OpenAPI annotations springdoc reads at
+ * run time, or resources looked up by pattern.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+    private static final String MODEL_PACKAGE = "io.synthesized.sample.bank.model";
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // All models are serialized or deserialized by Jackson somewhere, often
+        // nested in a Map, so register the whole package rather than a list to
+        // keep in sync. Runs at build time, where classpath scanning works.
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+        scanner.addIncludeFilter((reader, factory) -> true);
+        for (BeanDefinition model : scanner.findCandidateComponents(MODEL_PACKAGE)) {
+            hints.reflection().registerType(TypeReference.of(model.getBeanClassName()), MemberCategory.values());
+        }
+
+        for (Class<?> annotation : List.of(Operation.class, Parameter.class, ApiResponse.class, Content.class,
+                Schema.class, ArraySchema.class, ExampleObject.class, Tag.class,
+                io.swagger.v3.oas.annotations.parameters.RequestBody.class)) {
+            hints.reflection().registerType(annotation, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        // Loaded with a classpath pattern by OpsSchemaInitializer
+        hints.resources().registerPattern("db/ops/*.sql");
+        hints.resources().registerPattern("db/ops/indexes/*.sql");
+
+        // Flight recording settings, and the JDBC wrappers JdbcEventRecorder creates while recording
+        hints.resources().registerPattern("jfr/*.jfc");
+        for (Class<?> jdbcType : List.of(Connection.class, Statement.class, PreparedStatement.class,
+                CallableStatement.class, ResultSet.class)) {
+            hints.proxies().registerJdkProxy(jdbcType);
+        }
+
+        // pgjdbc is loaded by class name from the JDBC URL
+        hints.reflection().registerType(TypeReference.of("org.postgresql.Driver"), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.resources().registerResourceBundle("org.postgresql.translation.messages");
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,203 @@
+package io.synthesized.sample.bank.config;
+
+import io.synthesized.sample.bank.model.DatabaseResetEvent;
+import io.synthesized.sample.bank.model.DatabaseType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the idempotent scripts under {@code db/ops} to every database once
+ * the application is up. The scripts create backend-owned objects (schema
+ * bank_ops, plus triggers and indexes the backend relies on in the bank
+ * schema) and can safely be re-run after a Synthesized workflow has
+ * recreated the bank schema.
+ * <p>
+ * Indexes on the bank tables are built from {@code db/ops/indexes}, one
+ * {@code CREATE INDEX CONCURRENTLY} per script named after the index, so
+ * that building them does not block writes. Each runs as its own statement,
+ * since a concurrent build cannot be part of a transaction block. An invalid
+ * index left behind by an interrupted build is dropped and built again.
+ * PostgreSQL cannot build an index on a partitioned table concurrently, so
+ * there the index is created on the parent alone and each partition's index
+ * is built concurrently and attached to it.
+ */
+@Component
+public class OpsSchemaInitializer {
+    private static final Logger logger = LoggerFactory.getLogger(OpsSchemaInitializer.class);
+    private static final String SCRIPT_LOCATION = "classpath:db/ops/*.sql";
+    private static final String INDEX_SCRIPT_LOCATION = "classpath:db/ops/indexes/*.sql";
+    private static final Pattern INDEX_STATEMENT = Pattern.compile(
+        "CREATE INDEX CONCURRENTLY IF NOT EXISTS (\\w+)\\s+ON bank\\.(\\w+)\\s*(\\(.*\\))\\s*;", Pattern.DOTALL);
+
+    private final JdbcTemplate seedJdbcTemplate;
+    private final JdbcTemplate testingJdbcTemplate;
+    private final JdbcTemplate prodJdbcTemplate;
+
+    public OpsSchemaInitializer(
+            @Qualifier("seedJdbcTemplate") JdbcTemplate seedJdbcTemplate,
+            @Qualifier("testingJdbcTemplate") JdbcTemplate testingJdbcTemplate,
+            @Qualifier("prodJdbcTemplate") JdbcTemplate prodJdbcTemplate) {
+        this.seedJdbcTemplate = seedJdbcTemplate;
+        this.testingJdbcTemplate = testingJdbcTemplate;
+        this.prodJdbcTemplate = prodJdbcTemplate;
+    }
+
+    private JdbcTemplate getJdbcTemplate(DatabaseType databaseType) {
+        return switch (databaseType) {
+            case SEED -> seedJdbcTemplate;
+            case TESTING -> testingJdbcTemplate;
+            case PROD -> prodJdbcTemplate;
+        };
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeAll() {
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            initialize(databaseType);
+        }
+    }
+
+    @EventListener
+    public void onDatabaseReset(DatabaseResetEvent event) {
+        initialize(event.databaseType());
+    }
+
+    /**
+     * Runs all ops scripts against one database. Failures are logged rather
+     * than thrown so an unavailable database does not prevent start-up.
+     */
+    public boolean initialize(DatabaseType databaseType) {
+        try {
+            Resource[] scripts = new PathMatchingResourcePatternResolver().getResources(SCRIPT_LOCATION);
+            Arrays.sort(scripts, Comparator.comparing(Resource::getFilename));
+            for (Resource script : scripts) {
+                // Executed as a single multi-statement string: pgjdbc understands
+                // dollar-quoted function bodies, Spring's script splitter does not.
+                getJdbcTemplate(databaseType).execute(read(script));
+            }
+            Resource[] indexScripts = new PathMatchingResourcePatternResolver().getResources(INDEX_SCRIPT_LOCATION);
+            Arrays.sort(indexScripts, Comparator.comparing(Resource::getFilename));
+            for (Resource script : indexScripts) {
+                buildIndex(databaseType, script);
+            }
+            logger.info("Applied {} ops scripts and {} index scripts to database {}",
+                scripts.length, indexScripts.length, databaseType);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Could not apply ops scripts to database {}: {}", databaseType, e.getMessage());
+            return false;
+        }
+    }
+
+    private void buildIndex(DatabaseType databaseType, Resource script) throws IOException {
+        String index = script.getFilename().replaceFirst("\\.sql$", "");
+        String sql = read(script);
+        Matcher statement = INDEX_STATEMENT.matcher(sql);
+        if (!statement.find() || !statement.group(1).equals(index)) {
+            throw new IllegalStateException("Index script " + script.getFilename()
+                + " must hold a single CREATE INDEX CONCURRENTLY IF NOT EXISTS " + index + " ON bank.<table> (...)");
+        }
+        String table = statement.group(2);
+        String columns = statement.group(3);
+        JdbcTemplate jdbcTemplate = getJdbcTemplate(databaseType);
+        Boolean partitioned = jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass(?) AND relkind = 'p')",
+            Boolean.class,
+            "bank." + table
+        );
+        if (Boolean.TRUE.equals(partitioned)) {
+            buildPartitionedIndex(databaseType, index, table, columns);
+        } else {
+            dropIfInvalid(databaseType, index);
+            jdbcTemplate.execute(sql);
+        }
+    }
+
+    /**
+     * Creates the index on the parent only (empty and invalid at first), then
+     * builds the index of every partition that has none attached yet
+     * concurrently and attaches it. The parent index becomes valid once all
+     * partitions have theirs; partitions created later inherit it.
+     */
+    private void buildPartitionedIndex(DatabaseType databaseType, String index, String table, String columns) {
+        JdbcTemplate jdbcTemplate = getJdbcTemplate(databaseType);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + index + " ON ONLY bank." + table + " " + columns);
+        String suffix = index.startsWith(table + "_") ? index.substring(table.length() + 1) : index;
+        List<Map<String, Object>> partitions = jdbcTemplate.queryForList(
+            """
+            SELECT c.relname, c.relkind = 'p' AS partitioned
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = to_regclass(?)
+              AND NOT EXISTS (
+                  SELECT 1 FROM pg_inherits ii
+                  JOIN pg_index x ON x.indexrelid = ii.inhrelid
+                  WHERE ii.inhparent = to_regclass(?) AND x.indrelid = c.oid
+              )
+            ORDER BY c.relname
+            """,
+            "bank." + table,
+            "bank." + index
+        );
+        for (Map<String, Object> row : partitions) {
+            String partition = (String) row.get("relname");
+            String partitionIndex = partition + "_" + suffix;
+            if (Boolean.TRUE.equals(row.get("partitioned"))) {
+                // Sub-partitioned: the same restriction applies, so it is built in one go
+                jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + partitionIndex + " ON bank." + partition + " " + columns);
+            } else {
+                dropIfInvalid(databaseType, partitionIndex);
+                jdbcTemplate.execute(
+                    "CREATE INDEX CONCURRENTLY IF NOT EXISTS " + partitionIndex + " ON bank." + partition + " " + columns);
+            }
+            jdbcTemplate.execute("ALTER INDEX bank." + index + " ATTACH PARTITION bank." + partitionIndex);
+        }
+        if (!partitions.isEmpty()) {
+            logger.info("Attached index bank.{} of {} partitions in database {}", index, partitions.size(), databaseType);
+        }
+    }
+
+    // Only for indexes of plain tables: DROP INDEX CONCURRENTLY is not supported on partitioned ones
+    private void dropIfInvalid(DatabaseType databaseType, String index) {
+        JdbcTemplate jdbcTemplate = getJdbcTemplate(databaseType);
+        Boolean invalid = jdbcTemplate.queryForObject(
+            """
+            SELECT EXISTS (
+                SELECT 1 FROM pg_index i
+                JOIN pg_class c ON c.oid = i.indexrelid
+                JOIN pg_namespace n ON n.oid = c.relnamespace
+                WHERE n.nspname = 'bank' AND c.relname = ? AND NOT i.indisvalid
+            )
+            """,
+            Boolean.class,
+            index
+        );
+        if (Boolean.TRUE.equals(invalid)) {
+            logger.info("Rebuilding invalid index bank.{} in database {}", index, databaseType);
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS bank." + index);
+        }
+    }
+
+    private static String read(Resource script) throws IOException {
+        try (InputStream in = script.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package io.synthesized.sample.bank.config;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Sets up a {@link QueryContext} for each API request and cancels queries
+ * nobody will read.
+ *
+ * <p>Clients tag searches with {@code X-Client-Id} (one per browser tab) and
+ * {@code X-Search-Slot} (e.g. "transactions"). A new request in a slot
+ * cancels the statements of the previous one, which the client has already
+ * abandoned, and {@link #cancel(String, String, String)} lets a client cancel its
+ * slot when it navigates away. The servlet API does not report a client
+ * disconnect while a blocking request runs, so the statement timeout is the
+ * bound for everything else.
+ *
+ * <p>The client ID is chosen by the client and not authenticated. Slots are
+ * therefore also keyed by the caller's remote address, so that nobody can
+ * cancel searches from another machine by sending its client ID. Callers
+ * behind one address (e.g. a shared proxy) can still cancel each other's
+ * searches, so this is meant for trusted networks only.
+ *
+ * <p>A cancelled request is answered with 499 by {@link CancelledRequestFilter}
+ * and does not count as a failure for the bulkhead.
+ */
+@Component
+public class QueryCancellationInterceptor implements AsyncHandlerInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(QueryCancellationInterceptor.class);
+    public static final String CLIENT_HEADER = "X-Client-Id";
+    public static final String SLOT_HEADER = "X-Search-Slot";
+    private static final String SLOT_ATTRIBUTE = QueryCancellationInterceptor.class.getName() + ".slot";
+    private static final String CONTEXT_ATTRIBUTE = QueryCancellationInterceptor.class.getName() + ".context";
+
+    private final Environment environment;
+    private final ConcurrentMap<String, QueryContext> slots = new ConcurrentHashMap<>();
+
+    public QueryCancellationInterceptor(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        QueryContext context = new QueryContext(timeoutSeconds(request, handler), endpoint(request));
+        String slot = slotKey(request.getRemoteAddr(), request.getHeader(CLIENT_HEADER), request.getHeader(SLOT_HEADER));
+        if (slot != null) {
+            QueryContext superseded = slots.put(slot, context);
+            if (superseded != null) {
+                logger.debug("Cancelling superseded request in slot {}", slot);
+                superseded.cancel();
+            }
+            request.setAttribute(SLOT_ATTRIBUTE, slot);
+        }
+        request.setAttribute(CONTEXT_ATTRIBUTE, context);
+        QueryContext.bind(context);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryContext.unbind();
+        // A streamed page stays cancellable in its slot until the response is complete, however it ends
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                releaseSlot(request);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                releaseSlot(request);
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                releaseSlot(request);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryContext.unbind();
+        releaseSlot(request);
+    }
+
+    // The context comes from the request, not the thread: async dispatches do not bind it
+    private void releaseSlot(HttpServletRequest request) {
+        Object slot = request.getAttribute(SLOT_ATTRIBUTE);
+        Object context = request.getAttribute(CONTEXT_ATTRIBUTE);
+        if (slot != null && context != null) {
+            slots.remove((String) slot, context);
+        }
+    }
+
+    /** Whether the request's queries were cancelled because it was superseded or abandoned. */
+    public static boolean isCancelled(HttpServletRequest request) {
+        return request.getAttribute(CONTEXT_ATTRIBUTE) instanceof QueryContext context && context.isCancelled();
+    }
+
+    /** Cancels the request running in a client's slot, if any; only callers from the same address can. */
+    public boolean cancel(String remoteAddress, String clientId, String slot) {
+        String key = slotKey(remoteAddress, clientId, slot);
+        QueryContext context = key == null ? null : slots.remove(key);
+        if (context == null) {
+            return false;
+        }
+        context.cancel();
+        return true;
+    }
+
+    // The mapping rather than the URI, so that recordings group requests by endpoint
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+
+    private static String slotKey(String remoteAddress, String clientId, String slot) {
+        if (clientId == null || clientId.isBlank() || slot == null || slot.isBlank()) {
+            return null;
+        }
+        return remoteAddress + "/" + clientId + ":" + slot;
+    }
+
+    private int timeoutSeconds(HttpServletRequest request, Object handler) {
+        String database = request.getParameter("database");
+        String databasePrefix = "bank.query-timeout."
+            + (database == null || database.isEmpty() ? DatabaseType.TESTING.name() : database).toLowerCase() + ".";
+        Long timeoutMs = null;
+        if (handler instanceof HandlerMethod handlerMethod) {
+            QueryTimeout queryTimeout = handlerMethod.getMethodAnnotation(QueryTimeout.class);
+            if (queryTimeout != null) {
+                timeoutMs = environment.getProperty(databasePrefix + queryTimeout.value() + "-ms", Long.class,
+                    environment.getProperty("bank.query-timeout." + queryTimeout.value() + "-ms", Long.class));
+            }
+        }
+        if (timeoutMs == null) {
+            timeoutMs = environment.getProperty(databasePrefix + "default-ms", Long.class,
+                environment.getProperty("bank.query-timeout.default-ms", Long.class, 0L));
+        }
+        // JDBC query timeouts have whole-second granularity
+        return timeoutMs <= 0 ? 0 : (int) Math.max(1, (timeoutMs + 999) / 1000);
+    }
+}
@@ -0,0 +1,101 @@
+package io.synthesized.sample.bank.config;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query settings of the request being handled on the current thread: the
+ * statement timeout and the statements it has run, so that they can be
+ * cancelled from another thread when the request is superseded or abandoned.
+ * Its endpoint labels the flight recorder events of the work done for it.
+ */
+public final class QueryContext {
+    private static final ThreadLocal<QueryContext> CURRENT = new ThreadLocal<>();
+
+    private final int timeoutSeconds;
+    private final String endpoint;
+    private final List<Statement> statements = new ArrayList<>();
+    private volatile boolean cancelled;
+
+    public QueryContext(int timeoutSeconds) {
+        this(timeoutSeconds, null);
+    }
+
+    public QueryContext(int timeoutSeconds, String endpoint) {
+        this.timeoutSeconds = timeoutSeconds;
+        this.endpoint = endpoint;
+    }
+
+    public static QueryContext current() {
+        return CURRENT.get();
+    }
+
+    /** Makes {@code context} the current thread's context, e.g. for a background job. */
+    public static void bind(QueryContext context) {
+        CURRENT.set(context);
+    }
+
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    /** E.g. {@code GET /api/customers/{customerId}}, or the kind of background work; null if unknown. */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /** The endpoint of the current thread's context, if any. */
+    public static String currentEndpoint() {
+        QueryContext context = CURRENT.get();
+        return context == null ? null : context.endpoint;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** Whether the current thread's context was cancelled, so that its failures are expected. */
+    public static boolean isCurrentCancelled() {
+        QueryContext context = CURRENT.get();
+        return context != null && context.cancelled;
+    }
+
+    /** Tracks a statement about to run; fails at once if the request was already cancelled. */
+    synchronized void register(Statement statement) throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Query cancelled: the request was superseded or abandoned", "57014");
+        }
+        statements.removeIf(QueryContext::isClosed);
+        statements.add(statement);
+    }
+
+    /** Cancels the statements still running for this request and any it would run later. */
+    public synchronized void cancel() {
+        cancelled = true;
+        for (Statement statement : statements) {
+            // A closed statement may share its connection with someone else's query by now
+            if (!isClosed(statement)) {
+                try {
+                    statement.cancel();
+                } catch (SQLException e) {
+                    // Finished in the meantime
+                }
+            }
+        }
+        statements.clear();
+    }
+
+    private static boolean isClosed(Statement statement) {
+        try {
+            return statement.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+}
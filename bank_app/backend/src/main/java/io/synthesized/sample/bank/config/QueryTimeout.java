@@ -0,0 +1,18 @@
+package io.synthesized.sample.bank.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the query timeout of an endpoint. The timeout is read from
+ * {@code bank.query-timeout.<database>.<value>-ms}, then
+ * {@code bank.query-timeout.<value>-ms}, then the database's and finally the
+ * global {@code default-ms}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryTimeout {
+    String value();
+}
@@ -0,0 +1,42 @@
+package io.synthesized.sample.bank.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * The JSON message converter, recording a {@link ResponseSerializationEvent}
+ * for each response body it writes.
+ */
+public class RecordingJacksonConverter extends MappingJackson2HttpMessageConverter {
+
+    public RecordingJacksonConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        ResponseSerializationEvent event = new ResponseSerializationEvent();
+        event.begin();
+        boolean failed = true;
+        try {
+            super.writeInternal(object, type, outputMessage);
+            failed = false;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                Object body = object instanceof MappingJacksonValue value ? value.getValue() : object;
+                event.endpoint = QueryContext.currentEndpoint();
+                event.type = body.getClass().getSimpleName();
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package io.synthesized.sample.bank.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A DataSource whose underlying Hikari pool can be drained, closed and
+ * recreated while the application keeps running. This is what allows the
+ * database behind it to be dropped and recreated (snapshot restore, clone).
+ *
+ * <p>While a reset is in progress, callers of {@link #getConnection()} wait
+ * for the new pool instead of failing, up to the pause timeout.
+ *
+ * <p>Connection waits are recorded as {@link ConnectionAcquireEvent}s, and
+ * during a flight recording the connections record their statements (see
+ * {@link JdbcEventRecorder}).
+ */
+public class ResettableDataSource implements DataSource, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ResettableDataSource.class);
+
+    private final String name;
+    private final String jdbcUrl;
+    private final Supplier<HikariDataSource> poolFactory;
+    private final Duration pauseTimeout;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition resumed = lock.newCondition();
+    private volatile HikariDataSource pool;
+    private volatile boolean paused;
+    private volatile boolean closed;
+
+    public ResettableDataSource(String name, String jdbcUrl, Supplier<HikariDataSource> poolFactory, Duration pauseTimeout) {
+        this.name = name;
+        this.jdbcUrl = jdbcUrl;
+        this.poolFactory = poolFactory;
+        this.pauseTimeout = pauseTimeout;
+        this.pool = poolFactory.get();
+    }
+
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    /** Database name from the JDBC URL, e.g. bank_testing. */
+    public String getDatabaseName() {
+        String path = jdbcUrl.substring(jdbcUrl.indexOf("//") + 2);
+        path = path.substring(path.indexOf('/') + 1);
+        int params = path.indexOf('?');
+        return params >= 0 ? path.substring(0, params) : path;
+    }
+
+    /**
+     * Opens an unpooled connection with the same server and credentials but
+     * to another database, e.g. the maintenance database used to drop and
+     * create this one.
+     */
+    public Connection openConnectionTo(String database) throws SQLException {
+        String url = jdbcUrl.replaceFirst("//([^/]+)/[^?]*", "//$1/" + database);
+        return DriverManager.getConnection(url, pool.getUsername(), pool.getPassword());
+    }
+
+    /**
+     * Runs {@code action} with this pool drained and closed, then opens a
+     * fresh pool. New connection requests block for the duration; borrowed
+     * connections get {@code drainTimeout} to be returned before the pool is
+     * closed regardless (the action is expected to terminate their backends).
+     */
+    public <T> T withPoolClosed(Duration drainTimeout, Supplier<T> action) {
+        lock.lock();
+        try {
+            if (paused) {
+                throw new IllegalStateException("A reset of " + name + " is already in progress");
+            }
+            paused = true;
+        } finally {
+            lock.unlock();
+        }
+
+        HikariDataSource previous = pool;
+        try {
+            awaitDrained(previous, drainTimeout);
+            previous.close();
+            logger.info("Closed connection pool for {}", name);
+            return action.get();
+        } finally {
+            lock.lock();
+            try {
+                pool = poolFactory.get();
+                logger.info("Reopened connection pool for {}", name);
+            } catch (RuntimeException e) {
+                // Left closed; the next getConnection() tries to open it again
+                logger.error("Could not reopen connection pool for {}: {}", name, e.getMessage());
+            } finally {
+                paused = false;
+                resumed.signalAll();
+                lock.unlock();
+            }
+        }
+    }
+
+    private void awaitDrained(HikariDataSource previous, Duration drainTimeout) {
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        while (previous.getHikariPoolMXBean() != null
+                && previous.getHikariPoolMXBean().getActiveConnections() > 0
+                && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (previous.getHikariPoolMXBean() != null && previous.getHikariPoolMXBean().getActiveConnections() > 0) {
+            logger.warn("{} connections to {} still in use after {}; closing pool anyway",
+                previous.getHikariPoolMXBean().getActiveConnections(), name, drainTimeout);
+        }
+    }
+
+    private HikariDataSource currentPool() throws SQLException {
+        if (!paused) {
+            HikariDataSource current = pool;
+            return current.isClosed() ? reopen() : current;
+        }
+        lock.lock();
+        try {
+            long remaining = pauseTimeout.toNanos();
+            while (paused) {
+                if (remaining <= 0) {
+                    throw new SQLTransientConnectionException(name + " is being reset, try again shortly");
+                }
+                remaining = resumed.awaitNanos(remaining);
+            }
+            return pool.isClosed() ? reopen() : pool;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for " + name + " to be reset", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // After a reset that could not reopen the pool, e.g. because the database was still unreachable
+    private HikariDataSource reopen() throws SQLException {
+        lock.lock();
+        try {
+            if (pool.isClosed() && !closed) {
+                try {
+                    pool = poolFactory.get();
+                    logger.info("Reopened connection pool for {}", name);
+                } catch (RuntimeException e) {
+                    throw new SQLTransientConnectionException("Could not reopen connection pool for " + name
+                        + ": " + e.getMessage(), e);
+                }
+            }
+            return pool;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public HikariDataSource getPool() {
+        return pool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ConnectionAcquireEvent event = new ConnectionAcquireEvent();
+        event.begin();
+        Connection connection = null;
+        try {
+            HikariDataSource current = currentPool();
+            try {
+                connection = current.getConnection();
+            } catch (SQLException e) {
+                // Lost the race with a reset that closed this pool; wait for the new one
+                if (!current.isClosed()) {
+                    throw e;
+                }
+                connection = currentPool().getConnection();
+            }
+        } finally {
+            recordAcquire(event, connection == null);
+        }
+        return JdbcEventRecorder.record(connection, database());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        ConnectionAcquireEvent event = new ConnectionAcquireEvent();
+        event.begin();
+        Connection connection = null;
+        try {
+            HikariDataSource current = currentPool();
+            try {
+                connection = current.getConnection(username, password);
+            } catch (SQLException e) {
+                if (!current.isClosed()) {
+                    throw e;
+                }
+                connection = currentPool().getConnection(username, password);
+            }
+        } finally {
+            recordAcquire(event, connection == null);
+        }
+        return JdbcEventRecorder.record(connection, database());
+    }
+
+    private void recordAcquire(ConnectionAcquireEvent event, boolean failed) {
+        event.end();
+        if (event.shouldCommit()) {
+            HikariDataSource current = pool;
+            event.database = database();
+            event.pool = current.getPoolName();
+            HikariPoolMXBean poolBean = current.getHikariPoolMXBean();
+            if (poolBean != null) {
+                event.activeConnections = poolBean.getActiveConnections();
+                event.waitingThreads = poolBean.getThreadsAwaitingConnection();
+            }
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    // The DatabaseType name, as the pools are named after it
+    private String database() {
+        return name.toUpperCase(Locale.ROOT);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return pool.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        pool.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        pool.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return pool.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return pool.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || pool.isWrapperFor(iface);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        pool.close();
+    }
+
+    @Override
+    public String toString() {
+        return "ResettableDataSource[" + name + ", " + jdbcUrl + "]";
+    }
+}
@@ -0,0 +1,33 @@
+package io.synthesized.sample.bank.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Writing a JSON response body. For streamed pages this includes reading the
+ * rows, since they are written as they arrive from the database.
+ */
+@Name("io.synthesized.bank.ResponseSerialization")
+@Label("Response Serialization")
+@Category({"Bank", "Web"})
+@Description("JSON response body written by Jackson, or a list page streamed from its result set")
+@StackTrace(false)
+@Threshold("5 ms")
+public class ResponseSerializationEvent extends jdk.jfr.Event {
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Body Type")
+    @Description("Class of the serialized object, or the items field of a streamed page")
+    public String type;
+
+    @Label("Streamed")
+    public boolean streamed;
+
+    @Label("Failed")
+    public boolean failed;
+}
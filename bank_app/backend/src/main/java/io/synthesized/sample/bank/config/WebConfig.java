@@ -1,14 +1,18 @@
 package io.synthesized.sample.bank.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig {
     @Bean
-    public WebMvcConfigurer corsConfigurer() {
+    public WebMvcConfigurer corsConfigurer(BulkheadInterceptor bulkheadInterceptor,
+                                           QueryCancellationInterceptor queryCancellationInterceptor) {
         return new WebMvcConfigurer() {
             @Override
             public void addCorsMappings(CorsRegistry registry) {
@@ -17,6 +21,24 @@ public class WebConfig {
                         .allowedMethods("*")
                         .allowedHeaders("*");
             }
+
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                // Administration and diffs are rare, long-running operations
+                // and change feeds are open for minutes; none of them may be
+                // shed or hold a bulkhead slot
+                registry.addInterceptor(bulkheadInterceptor)
+                        .addPathPatterns("/api/**")
+                        .excludePathPatterns("/api/admin/**", "/api/diff/**", "/api/changes/**");
+                registry.addInterceptor(queryCancellationInterceptor)
+                        .addPathPatterns("/api/**");
+            }
         };
     }
+
+    // Takes the place of Spring Boot's converter, with the same ObjectMapper
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new RecordingJacksonConverter(objectMapper);
+    }
 } 
\ No newline at end of file
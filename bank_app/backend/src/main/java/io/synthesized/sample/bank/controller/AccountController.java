@@ -1,12 +1,19 @@
 package io.synthesized.sample.bank.controller;
 
+import io.synthesized.sample.bank.config.QueryContext;
+import io.synthesized.sample.bank.config.QueryTimeout;
 import io.synthesized.sample.bank.model.Account;
 import io.synthesized.sample.bank.model.AccountResponse;
+import io.synthesized.sample.bank.model.AccountStatusChangeRequest;
+import io.synthesized.sample.bank.model.AccountStatusChangeResult;
+import io.synthesized.sample.bank.model.BatchGetRequest;
 import io.synthesized.sample.bank.model.DatabaseType;
 import io.synthesized.sample.bank.service.AccountService;
+import io.synthesized.sample.bank.service.BatchLookup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
@@ -36,7 +43,7 @@ public class AccountController {
 
     @Operation(
         summary = "Get accounts with filters",
-        description = "Retrieves a paginated list of accounts with optional filters for account type, status, accountId, and search query. Supports sorting and pagination.",
+        description = "Retrieves a paginated list of accounts with optional filters for account type, status, accountId, and search query. Supports sorting and pagination. Large pages (bank.streaming.min-page-size rows or more) are streamed from the database as they are read.",
         responses = {
             @ApiResponse(
                 responseCode = "200",
@@ -47,6 +54,15 @@ public class AccountController {
                     examples = @ExampleObject(value = "{\"accounts\": [{\"accountId\": 1, \"customerId\": 1, \"accountType\": \"Checking\", \"status\": \"Active\", \"balance\": 1000.00}], \"totalCount\": 1}")
                 )
             ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid account type, status, sort field or sort order",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Invalid sort field: name\"}")
+                )
+            ),
             @ApiResponse(
                 responseCode = "500",
                 description = "Internal server error",
@@ -59,6 +75,7 @@ public class AccountController {
         }
     )
     @GetMapping
+    @QueryTimeout("accounts-search")
     public ResponseEntity<?> getAccounts(
             @Parameter(hidden = true)
             @RequestParam(defaultValue = "TESTING") DatabaseType database,
@@ -98,12 +115,26 @@ public class AccountController {
         try {
             logger.info("Getting accounts with filters - database: {}, page: {}, size: {}, sortBy: {}, sortOrder: {}, accountType: {}, status: {}, accountId: {}, search: '{}'",
                     database, page, size, sortBy, sortOrder, accountType, status, accountId, search);
+            if (accountService.isStreamed(size)) {
+                // Large pages go from the result set straight to the response
+                return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(accountService.streamAccountsByFilters(
+                        database, page, size, sortBy, sortOrder, accountType, status, accountId, search));
+            }
             AccountResponse response = accountService.getAccountsByFilters(
                 database, page, size, sortBy, sortOrder, accountType, status, accountId, search);
             logger.info("Found {} accounts", response.getTotalCount());
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
-            logger.error("Error getting accounts", e);
+            if (QueryContext.isCurrentCancelled()) {
+                // Superseded by the client's next search; answered with 499
+                logger.debug("Cancelled getting accounts: {}", e.getMessage());
+            } else {
+                logger.error("Error getting accounts", e);
+            }
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
@@ -175,6 +206,149 @@ public class AccountController {
         }
     }
 
+    @Operation(
+        summary = "Get an account",
+        description = "Retrieves a single account by its ID. Frequently requested accounts are served from an in-memory cache.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Account retrieved successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = Account.class),
+                    examples = @ExampleObject(value = "{\"accountId\": 1, \"customerId\": 1, \"accountType\": \"Checking\", \"status\": \"Active\", \"balance\": 1000.00}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "404",
+                description = "Account not found",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Account not found with ID: 1\"}")
+                )
+            )
+        }
+    )
+    @GetMapping("/{accountId}")
+    public ResponseEntity<?> getAccount(
+            @Parameter(description = "ID of the account to retrieve", required = true, example = "1")
+            @PathVariable Integer accountId,
+            @Parameter(hidden = true)
+            @RequestParam(defaultValue = "TESTING") DatabaseType database) {
+        Account account = accountService.getAccount(accountId, database);
+        if (account == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse("Account not found with ID: " + accountId));
+        }
+        return ResponseEntity.ok(account);
+    }
+
+    @Operation(
+        summary = "Get accounts by IDs",
+        description = "Multi-get: retrieves the given accounts with a single query instead of one request per account. Accounts are returned in request order with duplicates collapsed; IDs that do not exist are listed in missingIds.",
+        requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            required = true,
+            description = "IDs of the accounts to retrieve",
+            content = @Content(
+                schema = @Schema(implementation = BatchGetRequest.class),
+                examples = @ExampleObject(value = "{\"ids\": [3, 1, 42]}")
+            )
+        ),
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Accounts retrieved successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"accounts\": [{\"accountId\": 3, \"customerId\": 1, \"accountType\": \"Checking\", \"status\": \"Active\", \"balance\": 1000.00}], \"missingIds\": [42]}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "No IDs or too many IDs",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"At most 500 IDs can be requested at once\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/batch-get")
+    public ResponseEntity<?> getAccountsByIds(
+            @RequestBody BatchGetRequest request,
+            @Parameter(hidden = true)
+            @RequestParam(defaultValue = "TESTING") DatabaseType database) {
+        try {
+            BatchLookup.Result<Account> result = accountService.getAccountsByIds(request.getIds(), database);
+            Map<String, Object> response = new HashMap<>();
+            response.put("accounts", result.found());
+            response.put("missingIds", result.missingIds());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    @Operation(
+        summary = "Change the status of many accounts",
+        description = "Sets the status of the accounts given by ID, or of all accounts matching a filter (e.g. every Dormant Savings account), in one database transaction. Each batch of accounts is locked, updated and read back by a single UPDATE ... RETURNING statement. Returns the outcome per account.",
+        requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            required = true,
+            description = "New status and either accountIds or filter criteria",
+            content = @Content(
+                schema = @Schema(implementation = AccountStatusChangeRequest.class),
+                examples = {
+                    @ExampleObject(name = "By ID", value = "{\"status\": \"Frozen\", \"accountIds\": [3, 1, 42]}"),
+                    @ExampleObject(name = "By filter", value = "{\"status\": \"Closed\", \"accountType\": \"Savings\", \"currentStatus\": \"Dormant\"}")
+                }
+            )
+        ),
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Statuses changed",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = AccountStatusChangeResult.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid status, missing or conflicting selection, or too many accounts",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"The filter matches more than 10000 accounts; narrow it down or change them in several requests\"}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "500",
+                description = "Internal server error; no status was changed",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Failed to change account statuses\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/status-changes")
+    public ResponseEntity<?> changeAccountStatuses(
+            @RequestBody AccountStatusChangeRequest request,
+            @Parameter(hidden = true)
+            @RequestParam(defaultValue = "TESTING") DatabaseType database) {
+        try {
+            return ResponseEntity.ok(accountService.changeAccountStatuses(request, database));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error changing account statuses", e);
+            return ResponseEntity.internalServerError()
+                .body(new ErrorResponse("Failed to change account statuses: " + e.getMessage()));
+        }
+    }
+
     @Operation(
         summary = "Update account status",
         description = "Updates the status of an existing account.",
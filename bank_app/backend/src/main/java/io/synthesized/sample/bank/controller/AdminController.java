@@ -0,0 +1,465 @@
+package io.synthesized.sample.bank.controller;
+
+import io.synthesized.sample.bank.config.AdaptiveLimiter;
+import io.synthesized.sample.bank.config.BulkheadInterceptor;
+import io.synthesized.sample.bank.model.BulkheadStatus;
+import io.synthesized.sample.bank.model.CacheStatistics;
+import io.synthesized.sample.bank.model.DatabaseSnapshot;
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.ErrorResponse;
+import io.synthesized.sample.bank.model.RecordingStatus;
+import io.synthesized.sample.bank.service.DatabaseSnapshotService;
+import io.synthesized.sample.bank.service.EntityCache;
+import io.synthesized.sample.bank.service.FlightRecordingService;
+import io.synthesized.sample.bank.service.PageCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@RestController
+@RequestMapping("/api/admin")
+@Tag(name = "Administration", description = "APIs for snapshotting, restoring and cloning the bank databases")
+@CrossOrigin(origins = "*")
+public class AdminController {
+    private final DatabaseSnapshotService snapshotService;
+    private final EntityCache entityCache;
+    private final PageCache pageCache;
+    private final BulkheadInterceptor bulkheadInterceptor;
+    private final FlightRecordingService flightRecordingService;
+    private static final Logger log = LoggerFactory.getLogger(AdminController.class);
+
+    @Autowired
+    public AdminController(DatabaseSnapshotService snapshotService, EntityCache entityCache, PageCache pageCache,
+                           BulkheadInterceptor bulkheadInterceptor, FlightRecordingService flightRecordingService) {
+        this.snapshotService = snapshotService;
+        this.entityCache = entityCache;
+        this.pageCache = pageCache;
+        this.bulkheadInterceptor = bulkheadInterceptor;
+        this.flightRecordingService = flightRecordingService;
+    }
+
+    @Operation(
+        summary = "List snapshots",
+        description = "Lists the snapshots taken of a database.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Snapshots retrieved successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = DatabaseSnapshot.class)),
+                    examples = @ExampleObject(value = "[{\"database\": \"TESTING\", \"name\": \"baseline\", \"databaseName\": \"bank_testing_snap_baseline\", \"sizeBytes\": 9437184}]")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "500",
+                description = "Internal server error",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Failed to list snapshots\"}")
+                )
+            )
+        }
+    )
+    @GetMapping("/snapshots")
+    public ResponseEntity<?> listSnapshots(
+        @Parameter(description = "Database whose snapshots to list", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType database) {
+        try {
+            return ResponseEntity.ok(snapshotService.listSnapshots(database));
+        } catch (Exception e) {
+            log.error("Error listing snapshots", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponse("Failed to list snapshots: " + e.getMessage()));
+        }
+    }
+
+    @Operation(
+        summary = "Create a snapshot",
+        description = "Copies the current contents of a database into a named snapshot using CREATE DATABASE ... TEMPLATE. An existing snapshot with the same name is replaced. The database's connections are briefly drained while the copy is made.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Snapshot created successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = DatabaseSnapshot.class),
+                    examples = @ExampleObject(value = "{\"database\": \"TESTING\", \"name\": \"baseline\", \"databaseName\": \"bank_testing_snap_baseline\", \"sizeBytes\": 9437184}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid snapshot name",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Invalid snapshot name: Base-Line. Use 1-32 lowercase letters, digits or underscores\"}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "409",
+                description = "Operation not allowed on this database or already in progress",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Cannot snapshot PROD unless bank.admin.allow-prod-reset is enabled\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/snapshots")
+    public ResponseEntity<?> createSnapshot(
+        @Parameter(description = "Database to snapshot", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType database,
+        @Parameter(description = "Snapshot name (lowercase letters, digits and underscores)", example = "baseline", required = true)
+        @RequestParam String name) {
+        log.info("Creating snapshot '{}' of {}", name, database);
+        try {
+            return ResponseEntity.ok(snapshotService.createSnapshot(database, name));
+        } catch (Exception e) {
+            return errorResponse("Failed to create snapshot", e);
+        }
+    }
+
+    @Operation(
+        summary = "Restore a snapshot",
+        description = "Replaces a database with the contents of one of its snapshots. The snapshot itself is kept, so it can be restored again for the next test cycle.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Snapshot restored successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"message\": \"Snapshot restored successfully\", \"elapsedMs\": 1840}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Snapshot not found or invalid name",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Snapshot not found: baseline\"}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "409",
+                description = "Operation not allowed on this database or already in progress",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Cannot restore PROD unless bank.admin.allow-prod-reset is enabled\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/snapshots/{name}/restore")
+    public ResponseEntity<?> restoreSnapshot(
+        @Parameter(description = "Database to restore", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType database,
+        @Parameter(description = "Snapshot name", example = "baseline")
+        @PathVariable String name) {
+        log.info("Restoring {} from snapshot '{}'", database, name);
+        try {
+            long started = System.currentTimeMillis();
+            snapshotService.restoreSnapshot(database, name);
+            return ResponseEntity.ok(Map.of(
+                "message", "Snapshot restored successfully",
+                "elapsedMs", System.currentTimeMillis() - started));
+        } catch (Exception e) {
+            return errorResponse("Failed to restore snapshot", e);
+        }
+    }
+
+    @Operation(
+        summary = "Delete a snapshot",
+        description = "Drops a snapshot database.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Snapshot deleted successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"message\": \"Snapshot deleted successfully\"}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid snapshot name",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Invalid snapshot name: Base-Line. Use 1-32 lowercase letters, digits or underscores\"}")
+                )
+            )
+        }
+    )
+    @DeleteMapping("/snapshots/{name}")
+    public ResponseEntity<?> deleteSnapshot(
+        @Parameter(description = "Database the snapshot belongs to", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType database,
+        @Parameter(description = "Snapshot name", example = "baseline")
+        @PathVariable String name) {
+        try {
+            snapshotService.deleteSnapshot(database, name);
+            return ResponseEntity.ok(Map.of("message", "Snapshot deleted successfully"));
+        } catch (Exception e) {
+            return errorResponse("Failed to delete snapshot", e);
+        }
+    }
+
+    @Operation(
+        summary = "Clone a database",
+        description = "Replaces the target database with a copy of the source database, e.g. to reset TESTING from PROD in seconds instead of running a workflow. Connections to both databases are briefly drained and other sessions on the source are terminated, so PROD can only be the source or target with bank.admin.allow-prod-reset enabled.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Database cloned successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"message\": \"Database cloned successfully\", \"elapsedMs\": 2310}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid request parameters",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Source and target databases must differ\"}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "409",
+                description = "Operation not allowed on this database or already in progress",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Cannot clone into PROD unless bank.admin.allow-prod-reset is enabled\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/clone")
+    public ResponseEntity<?> cloneDatabase(
+        @Parameter(description = "Database to copy from", example = "PROD")
+        @RequestParam(defaultValue = "PROD") DatabaseType source,
+        @Parameter(description = "Database to replace", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType target) {
+        log.info("Cloning {} into {}", source, target);
+        try {
+            long started = System.currentTimeMillis();
+            snapshotService.cloneDatabase(source, target);
+            return ResponseEntity.ok(Map.of(
+                "message", "Database cloned successfully",
+                "elapsedMs", System.currentTimeMillis() - started));
+        } catch (Exception e) {
+            return errorResponse("Failed to clone database", e);
+        }
+    }
+
+    @Operation(
+        summary = "Get cache statistics",
+        description = "Returns size and hit/miss statistics of the customer and account caches and of the list page cache since start-up.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Statistics retrieved successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = CacheStatistics.class)),
+                    examples = @ExampleObject(value = "[{\"name\": \"customers\", \"size\": 812, \"weightedSize\": 1630, \"maximumWeight\": 50000, \"hits\": 10452, \"misses\": 903, \"hitRate\": 0.92, \"evictions\": 0}]")
+                )
+            )
+        }
+    )
+    @GetMapping("/caches")
+    public ResponseEntity<?> getCacheStatistics() {
+        List<CacheStatistics> statistics = new ArrayList<>(entityCache.getStatistics());
+        statistics.add(pageCache.getStatistics());
+        return ResponseEntity.ok(statistics);
+    }
+
+    @Operation(
+        summary = "Get bulkhead status",
+        description = "Returns the current adaptive concurrency limit, load and rejection count of each database's request bulkhead.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Status retrieved successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = BulkheadStatus.class)),
+                    examples = @ExampleObject(value = "[{\"database\": \"PROD\", \"limit\": 14, \"inFlight\": 9, \"queued\": 0, \"admitted\": 48211, \"rejected\": 37}]")
+                )
+            )
+        }
+    )
+    @GetMapping("/bulkheads")
+    public ResponseEntity<?> getBulkheads() {
+        List<BulkheadStatus> statuses = new ArrayList<>();
+        bulkheadInterceptor.getLimiters().forEach((database, limiter) -> statuses.add(status(database, limiter)));
+        return ResponseEntity.ok(statuses);
+    }
+
+    @Operation(
+        summary = "Get flight recording status",
+        description = "Returns the state and size of the backend's Java Flight Recorder recording.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Status retrieved successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = RecordingStatus.class),
+                    examples = @ExampleObject(value = "{\"name\": \"bank\", \"state\": \"RUNNING\", \"startedAt\": \"2024-03-01T09:30:00\", \"maxAgeMinutes\": 60, \"maxSizeBytes\": 262144000, \"sizeBytes\": 18874368}")
+                )
+            )
+        }
+    )
+    @GetMapping("/recording")
+    public ResponseEntity<?> getRecording() {
+        return ResponseEntity.ok(flightRecordingService.getStatus());
+    }
+
+    @Operation(
+        summary = "Start the flight recording",
+        description = "Starts a continuous Java Flight Recorder recording with the JDK's default settings plus the backend's JDBC query, connection acquisition and response serialization events (jfr/bank.jfc). It keeps the last bank.jfr.max-age-minutes. Starting a running recording has no effect.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Recording running",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = RecordingStatus.class),
+                    examples = @ExampleObject(value = "{\"name\": \"bank\", \"state\": \"RUNNING\", \"startedAt\": \"2024-03-01T09:30:00\", \"maxAgeMinutes\": 60, \"maxSizeBytes\": 262144000, \"sizeBytes\": 0}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "409",
+                description = "Flight Recorder not available",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Java Flight Recorder is not available in this JVM\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/recording/start")
+    public ResponseEntity<?> startRecording() {
+        try {
+            return ResponseEntity.ok(flightRecordingService.start());
+        } catch (Exception e) {
+            return errorResponse("Failed to start flight recording", e);
+        }
+    }
+
+    @Operation(
+        summary = "Stop the flight recording",
+        description = "Stops recording. What was recorded can still be dumped until the recording is started again.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Recording stopped",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = RecordingStatus.class),
+                    examples = @ExampleObject(value = "{\"name\": \"bank\", \"state\": \"STOPPED\", \"startedAt\": \"2024-03-01T09:30:00\", \"maxAgeMinutes\": 60, \"maxSizeBytes\": 262144000, \"sizeBytes\": 18874368}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "409",
+                description = "No recording running",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"No flight recording is running\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/recording/stop")
+    public ResponseEntity<?> stopRecording() {
+        try {
+            return ResponseEntity.ok(flightRecordingService.stop());
+        } catch (Exception e) {
+            return errorResponse("Failed to stop flight recording", e);
+        }
+    }
+
+    @Operation(
+        summary = "Dump the flight recording",
+        description = "Writes what the recording holds to a .jfr file, kept in bank.jfr.dump-dir, and downloads it. Open it in JDK Mission Control or summarize it with jfr print --events io.synthesized.bank.JdbcQuery.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Recording file",
+                content = @Content(mediaType = "application/octet-stream")
+            ),
+            @ApiResponse(
+                responseCode = "409",
+                description = "No recording started",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"No flight recording has been started\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/recording/dump")
+    public ResponseEntity<?> dumpRecording() {
+        try {
+            Path file = flightRecordingService.dump();
+            return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(new FileSystemResource(file));
+        } catch (Exception e) {
+            return errorResponse("Failed to dump flight recording", e);
+        }
+    }
+
+    private static BulkheadStatus status(DatabaseType database, AdaptiveLimiter limiter) {
+        BulkheadStatus status = new BulkheadStatus();
+        status.setDatabase(database);
+        status.setLimit(limiter.getLimit());
+        status.setInFlight(limiter.getInFlight());
+        status.setQueued(limiter.getQueued());
+        status.setAdmitted(limiter.getAdmitted());
+        status.setRejected(limiter.getRejected());
+        return status;
+    }
+
+    private ResponseEntity<ErrorResponse> errorResponse(String message, Exception e) {
+        if (e instanceof IllegalArgumentException) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+        if (e instanceof IllegalStateException) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        }
+        log.error(message, e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+            .body(new ErrorResponse(message + ": " + e.getMessage()));
+    }
+}
@@ -0,0 +1,67 @@
+package io.synthesized.sample.bank.controller;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.service.ChangeFeedService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+
+@RestController
+@RequestMapping("/api/changes")
+@Tag(name = "Change Feed", description = "APIs for following changes to the bank data as they happen")
+@CrossOrigin(origins = "*")
+public class ChangeController {
+    private final ChangeFeedService changeFeedService;
+    private static final Logger log = LoggerFactory.getLogger(ChangeController.class);
+
+    @Autowired
+    public ChangeController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    @Operation(
+        summary = "Stream changes",
+        description = "Opens a Server-Sent Events stream of the changes made to a database, including those made outside the API such as by Synthesized workflows. "
+            + "Each modifying statement on customers, accounts, transactions or branches produces one 'change' event listing up to 100 affected IDs, "
+            + "the change in row count and, for accounts, the change in total balance and per-status counts. "
+            + "A 'resync' event means changes may have been missed (e.g. the database was reset) and the client should reload.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Event stream opened",
+                content = @Content(
+                    mediaType = "text/event-stream",
+                    examples = @ExampleObject(value = "event:change\ndata:{\"entity\": \"accounts\", \"operation\": \"UPDATE\", \"count\": 1, \"countDelta\": 0, \"ids\": [42], \"truncated\": false, \"balanceDelta\": -150.00, \"statusDeltas\": {}}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "503",
+                description = "Too many open streams; retry after the number of seconds in the Retry-After header"
+            )
+        }
+    )
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+        @Parameter(description = "Database to follow", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType database) {
+        try {
+            return ResponseEntity.ok(changeFeedService.subscribe(database));
+        } catch (IllegalStateException e) {
+            // No body: EventSource clients cannot read one
+            log.warn("Rejected change feed subscriber for {}: {}", database, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+}
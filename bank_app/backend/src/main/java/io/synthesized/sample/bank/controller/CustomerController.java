@@ -1,10 +1,20 @@
 package io.synthesized.sample.bank.controller;
 
+import io.synthesized.sample.bank.config.QueryTimeout;
 import io.synthesized.sample.bank.model.Customer;
+import io.synthesized.sample.bank.model.CustomerOverview;
+import io.synthesized.sample.bank.model.CustomerSummaryFilter;
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.service.BatchLookup;
+import io.synthesized.sample.bank.service.CustomerOverviewService;
 import io.synthesized.sample.bank.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.List;
 import java.util.HashMap;
@@ -25,15 +35,17 @@ import io.synthesized.sample.bank.model.ErrorResponse;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CustomerOverviewService customerOverviewService;
 
     @Autowired
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService, CustomerOverviewService customerOverviewService) {
         this.customerService = customerService;
+        this.customerOverviewService = customerOverviewService;
     }
 
     @Operation(
         summary = "Get customers with filters",
-        description = "Retrieves a paginated list of customers with optional filters for customer type, search query, and customerId. Supports sorting and pagination.",
+        description = "Retrieves a paginated list of customers with optional filters for customer type, search query, customerId and the customer summary fields (account count, total balance, last transaction date). Supports sorting and pagination; sorting and filtering on summary fields use the summary table's indexes. Large pages (bank.streaming.min-page-size rows or more) are streamed from the database as they are read.",
         responses = {
             @ApiResponse(
                 responseCode = "200",
@@ -43,6 +55,15 @@ public class CustomerController {
                     examples = @ExampleObject(value = "{\"customers\": [{\"customer_id\": 1, \"first_name\": \"John\", \"last_name\": \"Doe\", \"email\": \"john@example.com\", \"phone\": \"1234567890\", \"customer_type\": \"Individual\"}], \"totalCount\": 1}")
                 )
             ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid customer type, customer ID, sort field or sort order",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Invalid customer type 'Corporate'. Allowed values: Individual, Business, VIP, Government, Nonprofit\"}")
+                )
+            ),
             @ApiResponse(
                 responseCode = "500",
                 description = "Internal server error",
@@ -55,7 +76,8 @@ public class CustomerController {
         }
     )
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getCustomers(
+    @QueryTimeout("customers-search")
+    public ResponseEntity<?> getCustomers(
             @Parameter(hidden = true)
             @RequestParam(defaultValue = "TESTING") String database,
             @Parameter(description = "Page number for pagination", example = "0")
@@ -63,10 +85,10 @@ public class CustomerController {
             @Parameter(description = "Page size for pagination", example = "10")
             @RequestParam(defaultValue = "10") int size,
             @Parameter(
-                description = "Field to sort by. Allowed values: customer_id, first_name, last_name, email, phone, customer_type, created_at.",
+                description = "Field to sort by. Allowed values: customer_id, first_name, last_name, email, phone, customer_type, created_at, account_count, total_balance, last_transaction_date.",
                 example = "customer_id",
                 required = false,                
-                schema = @Schema(allowableValues = {"customer_id", "first_name", "last_name", "email", "phone", "customer_type", "created_at"})
+                schema = @Schema(allowableValues = {"customer_id", "first_name", "last_name", "email", "phone", "customer_type", "created_at", "account_count", "total_balance", "last_transaction_date"})
             )
             @RequestParam(defaultValue = "customer_id") String sortBy,
             @Parameter(
@@ -85,21 +107,85 @@ public class CustomerController {
             @Parameter(description = "Search query for customer name or other fields", required = false)
             @RequestParam(required = false) String searchQuery,
             @Parameter(description = "Filter by customer ID", required = false)
-            @RequestParam(required = false) String customerId) {
+            @RequestParam(required = false) String customerId,
+            @Parameter(description = "Minimum number of accounts", required = false)
+            @RequestParam(required = false) Integer minAccounts,
+            @Parameter(description = "Maximum number of accounts", required = false)
+            @RequestParam(required = false) Integer maxAccounts,
+            @Parameter(description = "Minimum total balance across the customer's accounts", required = false)
+            @RequestParam(required = false) BigDecimal minBalance,
+            @Parameter(description = "Maximum total balance across the customer's accounts", required = false)
+            @RequestParam(required = false) BigDecimal maxBalance,
+            @Parameter(description = "Earliest last transaction date (inclusive)", example = "2024-01-01T00:00:00", required = false)
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime lastTransactionFrom,
+            @Parameter(description = "Latest last transaction date (inclusive)", example = "2024-12-31T23:59:59", required = false)
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime lastTransactionTo) {
         try {
-            List<Customer> customers = customerService.getCustomers(database, page, size, sortBy, sortOrder, customerType, searchQuery, customerId);
-            int totalCount = customerService.count(database, customerType, searchQuery, customerId);
+            CustomerSummaryFilter summaryFilter = new CustomerSummaryFilter(minAccounts, maxAccounts, minBalance, maxBalance,
+                lastTransactionFrom, lastTransactionTo);
+            if (customerService.isStreamed(size)) {
+                // Large pages go from the result set straight to the response
+                return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(customerService.streamCustomers(database, page, size, sortBy, sortOrder, customerType, searchQuery, customerId,
+                        summaryFilter));
+            }
+            List<Customer> customers = customerService.getCustomers(database, page, size, sortBy, sortOrder, customerType, searchQuery, customerId,
+                summaryFilter);
+            int totalCount = customerService.count(database, sortBy, customerType, searchQuery, customerId, summaryFilter);
             
             Map<String, Object> response = new HashMap<>();
             response.put("customers", customers);
             response.put("totalCount", totalCount);
             
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    @Operation(
+        summary = "Get customers by IDs",
+        description = "Multi-get: retrieves the given customers with a single query instead of one request per customer. Customers are returned in request order with duplicates collapsed; IDs that do not exist are listed in missingIds. Cached customers are served from memory.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Customers retrieved successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"customers\": [{\"customerId\": 3, \"firstName\": \"John\", \"lastName\": \"Doe\", \"email\": \"john@example.com\", \"phone\": \"1234567890\", \"customerType\": \"Individual\", \"createdAt\": \"2024-05-01T12:00:00\", \"accountIds\": [7]}], \"missingIds\": [42]}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "No IDs or too many IDs",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"At most 500 IDs can be requested at once\"}")
+                )
+            )
+        }
+    )
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getCustomersByIds(
+            @Parameter(hidden = true)
+            @RequestParam(defaultValue = "TESTING") String database,
+            @Parameter(description = "Comma-separated customer IDs", required = true, example = "3,1,42")
+            @RequestParam List<Long> ids) {
+        try {
+            BatchLookup.Result<Customer> result = customerService.getCustomersByIds(database, ids);
+            Map<String, Object> response = new HashMap<>();
+            response.put("customers", result.found());
+            response.put("missingIds", result.missingIds());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
     @Operation(
         summary = "Get customer by ID",
         description = "Retrieves a single customer by their ID.",
@@ -134,6 +220,57 @@ public class CustomerController {
         return ResponseEntity.ok(customer);
     }
 
+    @Operation(
+        summary = "Get a customer overview",
+        description = "Retrieves a customer together with their accounts and the latest transactions of each account in one request. The overview is assembled with a fixed number of queries: one for the customer, one for all of their accounts and one LATERAL top-N query for the transactions of all accounts.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Overview retrieved successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = CustomerOverview.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid number of transactions",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"transactions must be between 0 and 50\"}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "404",
+                description = "Customer not found",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Customer not found with ID: 1\"}")
+                )
+            )
+        }
+    )
+    @GetMapping("/{customerId}/overview")
+    public ResponseEntity<?> getCustomerOverview(
+            @Parameter(hidden = true)
+            @RequestParam(defaultValue = "TESTING") DatabaseType database,
+            @Parameter(description = "ID of the customer", required = true, example = "1")
+            @PathVariable Long customerId,
+            @Parameter(description = "Number of latest transactions to include per account", example = "5")
+            @RequestParam(defaultValue = "5") int transactions) {
+        try {
+            CustomerOverview overview = customerOverviewService.getOverview(database, customerId, transactions);
+            if (overview == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse("Customer not found with ID: " + customerId));
+            }
+            return ResponseEntity.ok(overview);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
     @Operation(
         summary = "Create a new customer",
         description = "Creates a new customer with the provided customer details.",
@@ -176,13 +313,17 @@ public class CustomerController {
         }
     )
     @PostMapping
-    public ResponseEntity<Customer> createCustomer(
+    public ResponseEntity<?> createCustomer(
             @Parameter(hidden = true)
             @RequestParam(defaultValue = "TESTING") String database,
             @Parameter(description = "Customer object to create", required = true)
             @RequestBody Customer customer) {
-        Customer createdCustomer = customerService.createCustomer(database, customer);
-        return ResponseEntity.ok(createdCustomer);
+        try {
+            Customer createdCustomer = customerService.createCustomer(database, customer);
+            return ResponseEntity.ok(createdCustomer);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
     }
 
     @Operation(
@@ -0,0 +1,101 @@
+package io.synthesized.sample.bank.controller;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.DiffResult;
+import io.synthesized.sample.bank.model.ErrorResponse;
+import io.synthesized.sample.bank.service.DiffService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.Arrays;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@RestController
+@RequestMapping("/api/diff")
+@Tag(name = "Dataset Diff", description = "APIs for comparing bank data between the SEED, TESTING and PROD databases")
+@CrossOrigin(origins = "*")
+public class DiffController {
+    private final DiffService diffService;
+    private static final Logger log = LoggerFactory.getLogger(DiffController.class);
+
+    @Autowired
+    public DiffController(DiffService diffService) {
+        this.diffService = diffService;
+    }
+
+    @Operation(
+        summary = "Compare two databases",
+        description = "Compares the bank tables of two databases row by row, matched on primary key. Key ranges are checksummed on both sides in parallel and only mismatching ranges are drilled into, so identical tables are confirmed with a single aggregate query per side.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Comparison completed",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = DiffResult.class),
+                    examples = @ExampleObject(value = "{\"left\": \"PROD\", \"right\": \"TESTING\", \"elapsedMs\": 840, \"tables\": [{\"table\": \"customers\", \"keyColumn\": \"customer_id\", \"leftRowCount\": 100, \"rightRowCount\": 99, \"identical\": false, \"mismatchedRanges\": 2, \"missingInLeftCount\": 0, \"missingInRightCount\": 1, \"changedCount\": 1, \"missingInLeft\": [], \"missingInRight\": [57], \"changed\": [12], \"truncated\": false}]}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid request parameters",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Unknown table: users. Allowed values: branches, customers, accounts, transactions, transaction_metadata\"}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "500",
+                description = "Internal server error",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Failed to compare databases\"}")
+                )
+            )
+        }
+    )
+    @GetMapping
+    public ResponseEntity<?> diff(
+        @Parameter(
+            description = "Left-hand database",
+            example = "PROD",
+            schema = @Schema(allowableValues = {"SEED", "TESTING", "PROD"})
+        )
+        @RequestParam(defaultValue = "PROD") DatabaseType left,
+        @Parameter(
+            description = "Right-hand database",
+            example = "TESTING",
+            schema = @Schema(allowableValues = {"SEED", "TESTING", "PROD"})
+        )
+        @RequestParam(defaultValue = "TESTING") DatabaseType right,
+        @Parameter(description = "Comma-separated list of tables to compare. Allowed values: branches, customers, accounts, transactions, transaction_metadata. Defaults to all.", example = "customers,accounts")
+        @RequestParam(required = false) String tables,
+        @Parameter(description = "Stop drilling into a table after this many differing keys have been found", example = "100")
+        @RequestParam(defaultValue = "100") int maxDifferences) {
+        log.info("Comparing databases - left: {}, right: {}, tables: '{}', maxDifferences: {}", left, right, tables, maxDifferences);
+        try {
+            List<String> tableList = tables == null || tables.isEmpty()
+                ? List.of()
+                : Arrays.stream(tables.split(",")).map(String::trim).filter(t -> !t.isEmpty()).toList();
+            return ResponseEntity.ok(diffService.diff(left, right, tableList, maxDifferences));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error comparing databases", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponse("Failed to compare databases: " + e.getMessage()));
+        }
+    }
+}
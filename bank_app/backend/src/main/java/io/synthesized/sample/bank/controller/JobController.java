@@ -0,0 +1,446 @@
+package io.synthesized.sample.bank.controller;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.ErrorResponse;
+import io.synthesized.sample.bank.model.Job;
+import io.synthesized.sample.bank.service.BulkJobService;
+import io.synthesized.sample.bank.service.JobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@RestController
+@RequestMapping("/api/jobs")
+@Tag(name = "Jobs", description = "APIs for running long bulk operations asynchronously and tracking their progress")
+@CrossOrigin(origins = "*")
+public class JobController {
+    private static final String JOB_EXAMPLE = "{\"jobId\": \"3f1c8a52-4e0b-4d8e-9a61-0c2f7d5b9e13\", \"database\": \"TESTING\", \"type\": \"delete-transactions\", \"status\": \"QUEUED\", \"parameters\": {\"before\": \"2023-01-01T00:00:00\"}, \"totalItems\": null, \"processedItems\": 0, \"failedItems\": 0, \"cancelRequested\": false, \"createdAt\": \"2024-03-01T10:15:30\"}";
+
+    private final JobService jobService;
+    private final BulkJobService bulkJobService;
+    private static final Logger log = LoggerFactory.getLogger(JobController.class);
+
+    @Autowired
+    public JobController(JobService jobService, BulkJobService bulkJobService) {
+        this.jobService = jobService;
+        this.bulkJobService = bulkJobService;
+    }
+
+    @Operation(
+        summary = "List jobs",
+        description = "Lists the most recent jobs run against a database, newest first.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Jobs retrieved successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = Job.class))
+                )
+            ),
+            @ApiResponse(
+                responseCode = "500",
+                description = "Internal server error",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Failed to list jobs\"}")
+                )
+            )
+        }
+    )
+    @GetMapping
+    public ResponseEntity<?> listJobs(
+        @Parameter(description = "Database whose jobs to list", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType database,
+        @Parameter(description = "Maximum number of jobs to return", example = "50")
+        @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(jobService.listJobs(database, Math.max(1, Math.min(limit, 500))));
+        } catch (Exception e) {
+            return errorResponse("Failed to list jobs", e);
+        }
+    }
+
+    @Operation(
+        summary = "Get a job",
+        description = "Returns the state and progress of a job. While the job runs, processedItems and failedItems are updated after each chunk.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Job retrieved successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = Job.class),
+                    examples = @ExampleObject(value = "{\"jobId\": \"3f1c8a52-4e0b-4d8e-9a61-0c2f7d5b9e13\", \"database\": \"TESTING\", \"type\": \"delete-transactions\", \"status\": \"RUNNING\", \"parameters\": {\"before\": \"2023-01-01T00:00:00\"}, \"totalItems\": 120000, \"processedItems\": 45000, \"failedItems\": 0, \"cancelRequested\": false, \"createdAt\": \"2024-03-01T10:15:30\", \"startedAt\": \"2024-03-01T10:15:30\"}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "404",
+                description = "Job not found",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Job not found: 3f1c8a52-4e0b-4d8e-9a61-0c2f7d5b9e13\"}")
+                )
+            )
+        }
+    )
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJob(
+        @Parameter(description = "Database the job runs against", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType database,
+        @Parameter(description = "Job ID", example = "3f1c8a52-4e0b-4d8e-9a61-0c2f7d5b9e13")
+        @PathVariable UUID jobId) {
+        try {
+            return jobService.getJob(database, jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse("Job not found: " + jobId)));
+        } catch (Exception e) {
+            return errorResponse("Failed to get job", e);
+        }
+    }
+
+    @Operation(
+        summary = "Cancel a job",
+        description = "Requests cancellation of a queued or running job. A running job stops after its current chunk, and the statement it is running is cancelled; work done in earlier chunks is kept.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Cancellation requested",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = Job.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Job not found",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Job not found: 3f1c8a52-4e0b-4d8e-9a61-0c2f7d5b9e13\"}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "409",
+                description = "Job has already finished",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Job 3f1c8a52-4e0b-4d8e-9a61-0c2f7d5b9e13 has already finished as SUCCEEDED\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/{jobId}/cancel")
+    public ResponseEntity<?> cancelJob(
+        @Parameter(description = "Database the job runs against", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType database,
+        @Parameter(description = "Job ID", example = "3f1c8a52-4e0b-4d8e-9a61-0c2f7d5b9e13")
+        @PathVariable UUID jobId) {
+        try {
+            return ResponseEntity.ok(jobService.cancel(database, jobId));
+        } catch (Exception e) {
+            return errorResponse("Failed to cancel job", e);
+        }
+    }
+
+    @Operation(
+        summary = "Download a job's result",
+        description = "Downloads the file produced by a succeeded job, e.g. the CSV written by an export.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Result file",
+                content = @Content(mediaType = "text/csv")
+            ),
+            @ApiResponse(
+                responseCode = "409",
+                description = "Job has no result (yet)",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Job 3f1c8a52-4e0b-4d8e-9a61-0c2f7d5b9e13 has no result yet\"}")
+                )
+            )
+        }
+    )
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<?> getJobResult(
+        @Parameter(description = "Database the job runs against", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType database,
+        @Parameter(description = "Job ID", example = "3f1c8a52-4e0b-4d8e-9a61-0c2f7d5b9e13")
+        @PathVariable UUID jobId) {
+        try {
+            Path file = jobService.getResultFile(database, jobId);
+            return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .body(new FileSystemResource(file));
+        } catch (Exception e) {
+            return errorResponse("Failed to get job result", e);
+        }
+    }
+
+    @Operation(
+        summary = "Delete transactions in bulk",
+        description = "Starts a job that deletes all transactions dated before a point in time, optionally only of one type and/or account, in chunks of bank.jobs.chunk-size rows.",
+        responses = {
+            @ApiResponse(
+                responseCode = "202",
+                description = "Job accepted",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = Job.class),
+                    examples = @ExampleObject(value = JOB_EXAMPLE)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid request parameters",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Invalid transaction type 'Refund'. Allowed values: Deposit, Withdrawal, Transfer, Payment\"}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "503",
+                description = "Too many jobs queued",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Too many jobs queued, try again later\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/transactions/delete")
+    public ResponseEntity<?> deleteTransactions(
+        @Parameter(description = "Database to delete from", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType database,
+        @Parameter(description = "Delete transactions before this date-time (ISO 8601, exclusive)", example = "2023-01-01T00:00:00", required = true)
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+        @Parameter(description = "Only delete transactions of this type", example = "Deposit", required = false)
+        @RequestParam(required = false) String transactionType,
+        @Parameter(description = "Only delete transactions of this account", example = "1", required = false)
+        @RequestParam(required = false) Integer accountId) {
+        log.info("Submitting bulk delete of {} transactions before {}", database, before);
+        return accepted(() -> bulkJobService.deleteTransactions(database, before, transactionType, accountId));
+    }
+
+    @Operation(
+        summary = "Export transactions",
+        description = "Starts a job that writes transactions to a CSV file, optionally only those before a point in time, of one type and/or of one account. Download the file from /api/jobs/{jobId}/result once the job has succeeded.",
+        responses = {
+            @ApiResponse(
+                responseCode = "202",
+                description = "Job accepted",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = Job.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid request parameters",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Invalid transaction type 'Refund'. Allowed values: Deposit, Withdrawal, Transfer, Payment\"}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "503",
+                description = "Too many jobs queued",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Too many jobs queued, try again later\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/transactions/export")
+    public ResponseEntity<?> exportTransactions(
+        @Parameter(description = "Database to export from", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType database,
+        @Parameter(description = "Only export transactions before this date-time (ISO 8601, exclusive)", example = "2024-01-01T00:00:00", required = false)
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+        @Parameter(description = "Only export transactions of this type", example = "Deposit", required = false)
+        @RequestParam(required = false) String transactionType,
+        @Parameter(description = "Only export transactions of this account", example = "1", required = false)
+        @RequestParam(required = false) Integer accountId) {
+        return accepted(() -> bulkJobService.exportTransactions(database, before, transactionType, accountId));
+    }
+
+    @Operation(
+        summary = "Restore a snapshot asynchronously",
+        description = "Starts a job that replaces a database with one of its snapshots, like POST /api/admin/snapshots/{name}/restore but without holding the request open.",
+        responses = {
+            @ApiResponse(
+                responseCode = "202",
+                description = "Job accepted",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = Job.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "503",
+                description = "Too many jobs queued",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Too many jobs queued, try again later\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/snapshots/{name}/restore")
+    public ResponseEntity<?> restoreSnapshot(
+        @Parameter(description = "Database to restore", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType database,
+        @Parameter(description = "Snapshot name", example = "baseline")
+        @PathVariable String name) {
+        log.info("Submitting restore of {} from snapshot '{}'", database, name);
+        return accepted(() -> bulkJobService.restoreSnapshot(database, name));
+    }
+
+    @Operation(
+        summary = "Clone a database asynchronously",
+        description = "Starts a job that replaces the target database with a copy of the source database, like POST /api/admin/clone. The job is recorded in the target database.",
+        responses = {
+            @ApiResponse(
+                responseCode = "202",
+                description = "Job accepted",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = Job.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid request parameters",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Source and target databases must differ\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/clone")
+    public ResponseEntity<?> cloneDatabase(
+        @Parameter(description = "Database to copy from", example = "PROD")
+        @RequestParam(defaultValue = "PROD") DatabaseType source,
+        @Parameter(description = "Database to replace", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType target) {
+        log.info("Submitting clone of {} into {}", source, target);
+        return accepted(() -> bulkJobService.cloneDatabase(source, target));
+    }
+
+    @Operation(
+        summary = "Rebuild transaction rollups",
+        description = "Starts a job that recounts the hourly and daily transaction rollups from bank.transactions, e.g. after bulk loads or deletes outside the API.",
+        responses = {
+            @ApiResponse(
+                responseCode = "202",
+                description = "Job accepted",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = Job.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "503",
+                description = "Too many jobs queued",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Too many jobs queued, try again later\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<?> rebuildRollups(
+        @Parameter(description = "Database whose rollups to rebuild", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType database) {
+        return accepted(() -> bulkJobService.rebuildRollups(database));
+    }
+
+    @Operation(
+        summary = "Rebuild customer summary",
+        description = "Starts a job that recomputes the per-customer account count, total balance and last transaction date from the bank tables, e.g. after a bulk Synthesized run.",
+        responses = {
+            @ApiResponse(
+                responseCode = "202",
+                description = "Job accepted",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = Job.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "503",
+                description = "Too many jobs queued",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Too many jobs queued, try again later\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/customer-summary/rebuild")
+    public ResponseEntity<?> rebuildCustomerSummary(
+        @Parameter(description = "Database whose customer summary to rebuild", example = "TESTING")
+        @RequestParam(defaultValue = "TESTING") DatabaseType database) {
+        return accepted(() -> bulkJobService.rebuildCustomerSummary(database));
+    }
+
+    private ResponseEntity<?> accepted(Supplier<Job> submit) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(submit.get());
+        } catch (Exception e) {
+            return errorResponse("Failed to submit job", e);
+        }
+    }
+
+    private ResponseEntity<ErrorResponse> errorResponse(String message, Exception e) {
+        if (e instanceof IllegalArgumentException) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+        if (e instanceof IllegalStateException) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        }
+        if (e instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ErrorResponse(e.getMessage()));
+        }
+        log.error(message, e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+            .body(new ErrorResponse(message + ": " + e.getMessage()));
+    }
+}
@@ -0,0 +1,53 @@
+package io.synthesized.sample.bank.controller;
+
+import io.synthesized.sample.bank.config.QueryCancellationInterceptor;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/queries")
+@CrossOrigin(origins = "*")
+@Tag(name = "Queries", description = "APIs for cancelling in-flight searches")
+public class QueryController {
+    private final QueryCancellationInterceptor queryCancellationInterceptor;
+
+    public QueryController(QueryCancellationInterceptor queryCancellationInterceptor) {
+        this.queryCancellationInterceptor = queryCancellationInterceptor;
+    }
+
+    @Operation(
+        summary = "Cancel a search",
+        description = "Cancels the database statements of the request a client is running in a search slot, e.g. when the user navigates away. "
+            + "Parameters are passed in the query string so that browsers can call this with navigator.sendBeacon. "
+            + "Only searches sent from the same remote address can be cancelled; the client ID is not authenticated, "
+            + "so this is meant for trusted networks only.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Cancellation processed",
+                content = @Content(
+                    mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"cancelled\": true}")
+                )
+            )
+        }
+    )
+    @PostMapping("/cancel")
+    public ResponseEntity<?> cancel(
+        HttpServletRequest request,
+        @Parameter(description = "Client ID sent in the X-Client-Id header of the search", required = true, example = "7f3c2a9e")
+        @RequestParam String clientId,
+        @Parameter(description = "Search slot sent in the X-Search-Slot header of the search", required = true, example = "transactions")
+        @RequestParam String slot) {
+        return ResponseEntity.ok(Map.of("cancelled", queryCancellationInterceptor.cancel(request.getRemoteAddr(), clientId, slot)));
+    }
+}
@@ -1,9 +1,14 @@
 package io.synthesized.sample.bank.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import io.synthesized.sample.bank.config.QueryTimeout;
 import io.synthesized.sample.bank.service.StatisticsService;
+import io.synthesized.sample.bank.service.TransactionRollupService;
 import io.synthesized.sample.bank.model.Statistics;
+import io.synthesized.sample.bank.model.TimeSeriesResponse;
 import io.synthesized.sample.bank.model.DatabaseType;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -22,6 +27,9 @@ public class StatisticsController {
     @Autowired
     private StatisticsService statisticsService;
 
+    @Autowired
+    private TransactionRollupService transactionRollupService;
+
     @Operation(
         summary = "Get bank statistics",
         description = "Retrieves statistics about transactions, customers, accounts, and branches.",
@@ -49,6 +57,7 @@ public class StatisticsController {
         }
     )
     @GetMapping
+    @QueryTimeout("statistics")
     public Statistics getStatistics(
         @Parameter(hidden = true)
         @RequestParam(defaultValue = "TESTING") DatabaseType database
@@ -82,9 +91,106 @@ public class StatisticsController {
         }
     )
     @GetMapping("/account-status-counts")
+    @QueryTimeout("statistics")
     public java.util.Map<String, Integer> getAccountStatusCounts(
         @Parameter(hidden = true)
         @RequestParam(defaultValue = "TESTING") DatabaseType database) {
         return statisticsService.getAccountStatusCounts(database);
     }
-} 
\ No newline at end of file
+
+    @Operation(
+        summary = "Get transaction volume time series",
+        description = "Retrieves transaction counts and amounts per hour or day from pre-aggregated rollups. Optionally grouped by transactionType, channel and/or currency, and filtered by the same dimensions.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Successfully retrieved time series",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = TimeSeriesResponse.class),
+                    examples = @ExampleObject(
+                        value = "{\"granularity\": \"day\", \"from\": \"2024-05-01T00:00:00\", \"to\": \"2024-05-02T00:00:00\", \"points\": [{\"bucketStart\": \"2024-05-01T00:00:00\", \"channel\": \"ATM\", \"transactionCount\": 42, \"amount\": 12500.00}]}"
+                    )
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid request parameters",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Invalid granularity: week. Allowed values: hour, day\"}")
+                )
+            )
+        }
+    )
+    @GetMapping("/timeseries")
+    @QueryTimeout("statistics")
+    public ResponseEntity<?> getTimeSeries(
+        @Parameter(hidden = true)
+        @RequestParam(defaultValue = "TESTING") DatabaseType database,
+        @Parameter(description = "Inclusive start (yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss). Defaults to 30 days before 'to'.", example = "2024-01-01")
+        @RequestParam(required = false) String from,
+        @Parameter(description = "Exclusive end (yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss). Defaults to the end of the current bucket.", example = "2025-01-01")
+        @RequestParam(required = false) String to,
+        @Parameter(
+            description = "Bucket size",
+            example = "day",
+            schema = @Schema(allowableValues = {"hour", "day"})
+        )
+        @RequestParam(defaultValue = "day") String granularity,
+        @Parameter(description = "Comma-separated dimensions to group by. Allowed values: transactionType, channel, currency.", example = "channel,currency")
+        @RequestParam(required = false) String groupBy,
+        @Parameter(description = "Filter by transaction type", required = false)
+        @RequestParam(required = false) String transactionType,
+        @Parameter(description = "Filter by channel", required = false)
+        @RequestParam(required = false) String channel,
+        @Parameter(description = "Filter by currency", required = false)
+        @RequestParam(required = false) String currency) {
+        try {
+            return ResponseEntity.ok(transactionRollupService.getTimeSeries(
+                database, from, to, granularity, groupBy, transactionType, channel, currency));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponse("Failed to retrieve time series: " + e.getMessage()));
+        }
+    }
+
+    @Operation(
+        summary = "Rebuild transaction volume rollups",
+        description = "Recomputes the hourly and daily rollups from bank.transactions, e.g. after a bulk load by a Synthesized workflow.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Rollups rebuilt successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"message\": \"Rollups rebuilt successfully\"}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "500",
+                description = "Internal server error",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"Failed to rebuild rollups\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/timeseries/rebuild")
+    public ResponseEntity<?> rebuildTimeSeries(
+        @Parameter(hidden = true)
+        @RequestParam(defaultValue = "TESTING") DatabaseType database) {
+        try {
+            transactionRollupService.rebuild(database);
+            return ResponseEntity.ok(java.util.Map.of("message", "Rollups rebuilt successfully"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponse("Failed to rebuild rollups: " + e.getMessage()));
+        }
+    }
+}
\ No newline at end of file
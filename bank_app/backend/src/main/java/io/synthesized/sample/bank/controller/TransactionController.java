@@ -1,13 +1,20 @@
 package io.synthesized.sample.bank.controller;
 
+import io.synthesized.sample.bank.config.QueryContext;
+import io.synthesized.sample.bank.config.QueryTimeout;
+import io.synthesized.sample.bank.model.BatchGetRequest;
 import io.synthesized.sample.bank.model.Transaction;
 import io.synthesized.sample.bank.model.DatabaseType;
 import io.synthesized.sample.bank.model.TransactionResponse;
 import io.synthesized.sample.bank.model.ErrorResponse;
+import io.synthesized.sample.bank.service.BatchLookup;
 import io.synthesized.sample.bank.service.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import org.slf4j.Logger;
@@ -36,7 +43,7 @@ public class TransactionController {
 
     @Operation(
         summary = "Get transactions with filters",
-        description = "Retrieves a paginated list of transactions with optional filters for transaction type, transactionId, search query, and accountIds. Supports sorting and pagination.",
+        description = "Retrieves a paginated list of transactions with optional filters for transaction type, transactionId, search query, accountIds and a transaction date range. Supports sorting and pagination. Large pages (bank.streaming.min-page-size rows or more) are streamed from the database as they are read.",
         responses = {
             @ApiResponse(
                 responseCode = "200",
@@ -59,6 +66,7 @@ public class TransactionController {
         }
     )
     @GetMapping
+    @QueryTimeout("transactions-search")
     public ResponseEntity<?> getTransactions(
         @Parameter(hidden = true)
         @RequestParam(defaultValue = "TESTING") DatabaseType database,
@@ -90,12 +98,24 @@ public class TransactionController {
         @Parameter(description = "Page size for pagination", example = "10")
         @RequestParam(defaultValue = "10") int size,
         @Parameter(description = "Comma-separated list of account IDs to filter", required = false)
-        @RequestParam(required = false) String accountIds) {
+        @RequestParam(required = false) String accountIds,
+        @Parameter(description = "Only transactions on or after this date-time (ISO 8601)", example = "2024-01-01T00:00:00", required = false)
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateFrom,
+        @Parameter(description = "Only transactions before this date-time (ISO 8601, exclusive)", example = "2024-02-01T00:00:00", required = false)
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateTo) {
         
-        log.info("Getting transactions with filters - database: {}, page: {}, size: {}, sortBy: {}, sortOrder: {}, transactionType: {}, transactionId: {}, search: '{}', accountIds: '{}'",
-                database, page, size, sortBy, sortOrder, transactionType, transactionId, searchQuery, accountIds);
+        log.info("Getting transactions with filters - database: {}, page: {}, size: {}, sortBy: {}, sortOrder: {}, transactionType: {}, transactionId: {}, search: '{}', accountIds: '{}', dateFrom: {}, dateTo: {}",
+                database, page, size, sortBy, sortOrder, transactionType, transactionId, searchQuery, accountIds, dateFrom, dateTo);
         
         try {
+            if (transactionService.isStreamed(size)) {
+                // Large pages go from the result set straight to the response
+                return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(transactionService.streamTransactionsByFilters(
+                        database, transactionType, transactionId, searchQuery, sortBy, sortOrder, page, size,
+                        accountIds, dateFrom, dateTo));
+            }
             TransactionResponse response = transactionService.getTransactionsByFilters(
                 database,
                 transactionType,
@@ -105,18 +125,74 @@ public class TransactionController {
                 sortOrder,
                 page,
                 size,
-                accountIds
+                accountIds,
+                dateFrom,
+                dateTo
             );
             
             log.info("Found {} transactions", response.getTotalCount());
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
-            log.error("Error getting transactions", e);
+            if (QueryContext.isCurrentCancelled()) {
+                // Superseded by the client's next search; answered with 499
+                log.debug("Cancelled getting transactions: {}", e.getMessage());
+            } else {
+                log.error("Error getting transactions", e);
+            }
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ErrorResponse("Error getting transactions: " + e.getMessage()));
         }
     }
 
+    @Operation(
+        summary = "Get transactions by IDs",
+        description = "Multi-get: retrieves the given transactions with a single query instead of one request per transaction. Transactions are returned in request order with duplicates collapsed; IDs that do not exist are listed in missingIds.",
+        requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            required = true,
+            description = "IDs of the transactions to retrieve",
+            content = @Content(
+                schema = @Schema(implementation = BatchGetRequest.class),
+                examples = @ExampleObject(value = "{\"ids\": [3, 1, 42]}")
+            )
+        ),
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Transactions retrieved successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    examples = @ExampleObject(value = "{\"transactions\": [{\"transactionId\": 3, \"accountId\": 1, \"transactionType\": \"Deposit\", \"transactionDate\": \"2024-05-01T12:00:00\", \"amount\": 100.00, \"channel\": \"ATM\", \"currency\": \"USD\"}], \"missingIds\": [42]}")
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "No IDs or too many IDs",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"error\": \"At most 500 IDs can be requested at once\"}")
+                )
+            )
+        }
+    )
+    @PostMapping("/batch-get")
+    public ResponseEntity<?> getTransactionsByIds(
+            @RequestBody BatchGetRequest request,
+            @Parameter(hidden = true)
+            @RequestParam(defaultValue = "TESTING") DatabaseType database) {
+        try {
+            BatchLookup.Result<Transaction> result = transactionService.getTransactionsByIds(request.getIds(), database);
+            Map<String, Object> response = new HashMap<>();
+            response.put("transactions", result.found());
+            response.put("missingIds", result.missingIds());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
     @Operation(
         summary = "Create a new transaction",
         description = "Creates a new transaction with the provided transaction details.",
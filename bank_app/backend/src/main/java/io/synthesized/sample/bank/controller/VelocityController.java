@@ -0,0 +1,75 @@
+package io.synthesized.sample.bank.controller;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.VelocitySnapshot;
+import io.synthesized.sample.bank.service.VelocityTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@RestController
+@RequestMapping("/api/velocity")
+@Tag(name = "Velocity", description = "APIs for inspecting recent per-account transaction velocity")
+@CrossOrigin(origins = "*")
+public class VelocityController {
+    private final VelocityTracker velocityTracker;
+
+    @Autowired
+    public VelocityController(VelocityTracker velocityTracker) {
+        this.velocityTracker = velocityTracker;
+    }
+
+    @Operation(
+        summary = "Get account velocity",
+        description = "Returns the tracked transactions (bank.velocity.transaction-types) of an account within the sliding window, per channel and device type, and the limits the account exceeds. Served from memory.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Velocity retrieved successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = VelocitySnapshot.class)
+                )
+            )
+        }
+    )
+    @GetMapping("/accounts/{accountId}")
+    public ResponseEntity<VelocitySnapshot> getAccountVelocity(
+            @Parameter(description = "ID of the account", required = true, example = "101")
+            @PathVariable int accountId,
+            @Parameter(hidden = true)
+            @RequestParam(defaultValue = "TESTING") DatabaseType database) {
+        return ResponseEntity.ok(velocityTracker.getSnapshot(database, accountId));
+    }
+
+    @Operation(
+        summary = "List flagged accounts",
+        description = "Lists the accounts currently exceeding a velocity limit (bank.velocity.limits.*), busiest first.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Flagged accounts retrieved successfully",
+                content = @Content(
+                    mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = VelocitySnapshot.class))
+                )
+            )
+        }
+    )
+    @GetMapping("/flagged")
+    public ResponseEntity<List<VelocitySnapshot>> getFlaggedAccounts(
+            @Parameter(hidden = true)
+            @RequestParam(defaultValue = "TESTING") DatabaseType database,
+            @Parameter(description = "Maximum number of accounts to return", example = "20")
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(velocityTracker.getFlagged(database, Math.max(0, limit)));
+    }
+} 
\ No newline at end of file
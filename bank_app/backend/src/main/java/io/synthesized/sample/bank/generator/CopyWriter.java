@@ -0,0 +1,100 @@
+package io.synthesized.sample.bank.generator;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Streams rows into a {@code COPY ... FROM STDIN} in PostgreSQL's text
+ * format. Rows are encoded into a reusable buffer and handed to the driver in
+ * large chunks, so loading costs one round trip per chunk rather than per row.
+ */
+final class CopyWriter implements AutoCloseable {
+    private static final int FLUSH_THRESHOLD = 1 << 20;
+
+    private final CopyIn copyIn;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 4096);
+    private boolean firstColumn = true;
+    private long rows;
+
+    CopyWriter(Connection connection, String table, String columns) throws SQLException {
+        this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+            .copyIn("COPY " + table + " (" + columns + ") FROM STDIN");
+    }
+
+    CopyWriter value(String value) {
+        separator();
+        if (value == null) {
+            buffer.append("\\N");
+            return this;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> buffer.append("\\\\");
+                case '\t' -> buffer.append("\\t");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                default -> buffer.append(c);
+            }
+        }
+        return this;
+    }
+
+    CopyWriter value(long value) {
+        separator();
+        buffer.append(value);
+        return this;
+    }
+
+    /** Appends a pre-formatted value that is known not to need escaping (numbers, dates). */
+    CopyWriter raw(CharSequence value) {
+        separator();
+        buffer.append(value);
+        return this;
+    }
+
+    void endRow() throws SQLException {
+        buffer.append('\n');
+        firstColumn = true;
+        rows++;
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    private void separator() {
+        if (!firstColumn) {
+            buffer.append('\t');
+        }
+        firstColumn = false;
+    }
+
+    private void flush() throws SQLException {
+        if (buffer.length() > 0) {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    /** Sends the remaining rows and completes the COPY. */
+    long finish() throws SQLException {
+        flush();
+        return copyIn.endCopy();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (copyIn.isActive()) {
+            copyIn.cancelCopy();
+        }
+    }
+}
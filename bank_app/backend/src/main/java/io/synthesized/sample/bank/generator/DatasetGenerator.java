@@ -0,0 +1,345 @@
+package io.synthesized.sample.bank.generator;
+
+import io.synthesized.sample.bank.importer.ChangeNotificationPause;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates customers, accounts, transactions and transaction metadata and
+ * loads them with COPY.
+ *
+ * <p>Each table is split into ID ranges that are generated and loaded in
+ * parallel, each range on its own connection. Tables are loaded in foreign
+ * key order (customers, accounts, then transactions with their metadata), so
+ * the constraints stay enabled throughout. Generated rows get IDs above the
+ * current maximum unless {@code --truncate=true} empties the tables first.
+ * The change-feed triggers are off during the load (see
+ * {@link ChangeNotificationPause}).
+ */
+public class DatasetGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    private static final long CUSTOMER_SALT = 1;
+    private static final long ACCOUNT_SALT = 2;
+    private static final long TRANSACTION_SALT = 3;
+
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+        "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen",
+        "Daniel", "Nancy", "Matthew", "Lisa", "Anthony", "Betty", "Mark", "Margaret", "Paul", "Sandra"
+    };
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+        "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+        "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis", "Robinson"
+    };
+    private static final String[] CITIES = {
+        "New York", "Los Angeles", "Chicago", "Houston", "Phoenix", "Philadelphia", "San Antonio", "San Diego",
+        "Dallas", "Austin", "London", "Manchester", "Berlin", "Paris", "Madrid", "Tokyo", "Sydney", "Toronto"
+    };
+
+    private final GeneratorOptions options;
+    private final long startEpochSecond;
+    private final long spanSeconds;
+
+    private long customerBase;
+    private long accountBase;
+    private long transactionBase;
+
+    public DatasetGenerator(GeneratorOptions options) {
+        this.options = options;
+        this.startEpochSecond = options.startDate.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        this.spanSeconds = options.endDate.atStartOfDay().toEpochSecond(ZoneOffset.UTC) - startEpochSecond;
+    }
+
+    public void run() throws SQLException, InterruptedException {
+        long started = System.nanoTime();
+        ChangeNotificationPause notifications;
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            if (options.truncate) {
+                logger.info("Truncating bank tables");
+                statement.execute("TRUNCATE bank.transaction_metadata, bank.transactions, bank.accounts, bank.customers RESTART IDENTITY CASCADE");
+            }
+            customerBase = nextId(statement, "bank.customers", "customer_id");
+            accountBase = nextId(statement, "bank.accounts", "account_id");
+            transactionBase = nextId(statement, "bank.transactions", "transaction_id");
+            ensureBranches(statement);
+            notifications = ChangeNotificationPause.disable(connection,
+                List.of("bank.customers", "bank.accounts", "bank.transactions", "bank.transaction_metadata"));
+        }
+
+        long accounts = options.accounts();
+        logger.info("Generating {} customers, {} accounts and {} transactions with {} threads",
+            options.customers, accounts, options.transactions, options.threads);
+
+        try {
+            runPhase("customers", options.customers, this::writeCustomers);
+            runPhase("accounts", accounts, this::writeAccounts);
+            runPhase("transactions", options.transactions, this::writeTransactions);
+        } finally {
+            try (Connection connection = connect()) {
+                notifications.restore(connection);
+            }
+        }
+
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            syncSequence(statement, "bank.customers", "customer_id");
+            syncSequence(statement, "bank.accounts", "account_id");
+            syncSequence(statement, "bank.transactions", "transaction_id");
+            statement.execute("ANALYZE bank.customers, bank.accounts, bank.transactions, bank.transaction_metadata");
+        }
+        logger.info("Dataset generated in {} s", (System.nanoTime() - started) / 1_000_000_000.0);
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(options.url, options.user, options.password);
+    }
+
+    @FunctionalInterface
+    private interface RangeWriter {
+        /** Generates and loads rows with offsets [from, to). */
+        void write(Connection connection, long from, long to) throws SQLException;
+    }
+
+    private void runPhase(String table, long rows, RangeWriter writer) throws SQLException, InterruptedException {
+        if (rows == 0) {
+            return;
+        }
+        long started = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(options.threads);
+        try {
+            List<Future<?>> ranges = new ArrayList<>();
+            for (long from = 0; from < rows; from += options.rangeSize) {
+                long rangeFrom = from;
+                long rangeTo = Math.min(rows, from + options.rangeSize);
+                ranges.add(executor.submit(() -> {
+                    try (Connection connection = connect()) {
+                        writer.write(connection, rangeFrom, rangeTo);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> range : ranges) {
+                range.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new IllegalStateException("Generating " + table + " failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+        logger.info("Loaded {} {} in {} s ({} rows/s)", rows, table, String.format("%.1f", seconds), Math.round(rows / seconds));
+    }
+
+    private void writeCustomers(Connection connection, long from, long to) throws SQLException {
+        RowRandom random = new RowRandom(options.seed);
+        try (CopyWriter copy = new CopyWriter(connection, "bank.customers",
+                "customer_id, first_name, last_name, email, phone, customer_type, created_at")) {
+            for (long i = from; i < to; i++) {
+                long id = customerBase + i;
+                random.reset(CUSTOMER_SALT, id);
+                String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                copy.value(id)
+                    .value(firstName)
+                    .value(lastName)
+                    .value(firstName.toLowerCase() + "." + lastName.toLowerCase() + id + "@example.com")
+                    .value(String.format("555-%03d-%04d", random.nextInt(1000), random.nextInt(10000)))
+                    .value(options.customerTypes.pick(random))
+                    .raw(timestamp(startEpochSecond - (long) (random.nextDouble() * 365 * 86400)));
+                copy.endRow();
+            }
+            copy.finish();
+        }
+    }
+
+    private void writeAccounts(Connection connection, long from, long to) throws SQLException {
+        RowRandom random = new RowRandom(options.seed);
+        try (CopyWriter copy = new CopyWriter(connection, "bank.accounts",
+                "account_id, customer_id, account_type, status, opened_date, balance")) {
+            for (long i = from; i < to; i++) {
+                long id = accountBase + i;
+                random.reset(ACCOUNT_SALT, id);
+                String status = options.accountStatuses.pick(random);
+                long balanceCents = logNormalCents(random, options.balanceMedian, 1.0);
+                copy.value(id)
+                    .value(customerBase + skewedIndex(random, options.customers, options.customerSkew))
+                    .value(options.accountTypes.pick(random))
+                    .value(status)
+                    .raw(timestamp(startEpochSecond - (long) (random.nextDouble() * 365 * 86400)).substring(0, 10))
+                    .raw(decimal("Overdrawn".equals(status) ? -balanceCents / 20 : balanceCents));
+                copy.endRow();
+            }
+            copy.finish();
+        }
+    }
+
+    /** Per-row values shared between the transaction and metadata passes. */
+    private static final class TransactionDraw {
+        long accountId;
+        String type;
+        String channel;
+        String currency;
+        long epochSecond;
+        long amountCents;
+    }
+
+    private void drawTransaction(RowRandom random, long offset, TransactionDraw draw) {
+        random.reset(TRANSACTION_SALT, transactionBase + offset);
+        draw.accountId = accountBase + skewedIndex(random, options.accounts(), options.accountSkew);
+        draw.type = options.transactionTypes.pick(random);
+        draw.channel = options.channels.pick(random);
+        draw.currency = options.currencies.pick(random);
+        // Dates increase with the ID (with jitter inside each slot), like a real ledger
+        draw.epochSecond = startEpochSecond + (long) (spanSeconds * ((offset + random.nextDouble()) / options.transactions));
+        long cents = logNormalCents(random, "Fee".equals(draw.type) ? options.amountMedian / 20 : options.amountMedian, options.amountSigma);
+        draw.amountCents = switch (draw.type) {
+            case "Deposit" -> cents;
+            case "Transfer" -> random.nextInt(2) == 0 ? cents : -cents;
+            default -> -cents;
+        };
+    }
+
+    private void writeTransactions(Connection connection, long from, long to) throws SQLException {
+        RowRandom random = new RowRandom(options.seed);
+        TransactionDraw draw = new TransactionDraw();
+        try (CopyWriter copy = new CopyWriter(connection, "bank.transactions",
+                "transaction_id, account_id, transaction_type, transaction_date, amount, channel, currency")) {
+            for (long i = from; i < to; i++) {
+                drawTransaction(random, i, draw);
+                copy.value(transactionBase + i)
+                    .value(draw.accountId)
+                    .value(draw.type)
+                    .raw(timestamp(draw.epochSecond))
+                    .raw(decimal(draw.amountCents))
+                    .value(draw.channel)
+                    .value(draw.currency);
+                copy.endRow();
+            }
+            copy.finish();
+        }
+
+        // The transactions are committed now, so the metadata foreign key holds;
+        // re-deriving each row from its seed avoids buffering the range
+        try (CopyWriter copy = new CopyWriter(connection, "bank.transaction_metadata",
+                "transaction_id, channel_details, location, device_type, auth_method")) {
+            for (long i = from; i < to; i++) {
+                drawTransaction(random, i, draw);
+                copy.value(transactionBase + i)
+                    .value(channelDetails(random, draw.channel))
+                    .value(CITIES[random.nextInt(CITIES.length)])
+                    .value(deviceType(random, draw.channel))
+                    .value(authMethod(random, draw.channel));
+                copy.endRow();
+            }
+            copy.finish();
+        }
+    }
+
+    private static String channelDetails(RowRandom random, String channel) {
+        return switch (channel) {
+            case "Mobile" -> "Mobile app v" + (1 + random.nextInt(3)) + "." + random.nextInt(10);
+            case "Online" -> random.nextInt(2) == 0 ? "Web banking" : "Online bill pay";
+            case "ATM" -> "ATM #" + (1000 + random.nextInt(9000));
+            case "Branch" -> "Teller station " + (1 + random.nextInt(12));
+            default -> "SWIFT ref " + Long.toHexString(random.nextLong() & 0xFFFFFFFFL).toUpperCase();
+        };
+    }
+
+    private static String deviceType(RowRandom random, String channel) {
+        return switch (channel) {
+            case "Mobile" -> random.nextInt(5) == 0 ? "Tablet" : "Mobile";
+            case "Online" -> random.nextInt(4) == 0 ? "Tablet" : "Desktop";
+            case "ATM" -> "ATM";
+            case "Branch" -> random.nextInt(2) == 0 ? "Kiosk" : "Desktop";
+            default -> "Desktop";
+        };
+    }
+
+    private static String authMethod(RowRandom random, String channel) {
+        return switch (channel) {
+            case "Mobile" -> random.nextInt(2) == 0 ? "Biometric" : "2FA";
+            case "Online" -> random.nextInt(3) == 0 ? "Password" : "2FA";
+            case "ATM" -> random.nextInt(4) == 0 ? "Card" : "PIN";
+            case "Branch" -> random.nextInt(2) == 0 ? "Card" : "PIN";
+            default -> "2FA";
+        };
+    }
+
+    /**
+     * Index in [0, n) drawn from a bounded power law with exponent
+     * {@code skew} (0 is uniform, 1 is Zipf-like). Ranks are scattered over
+     * the ID range so the popular keys are not all the oldest ones.
+     */
+    static long skewedIndex(RowRandom random, long n, double skew) {
+        double u = random.nextDouble();
+        if (skew == 0) {
+            return (long) (u * n);
+        }
+        double x = Math.abs(skew - 1.0) < 1e-9
+            ? Math.pow(n + 1, u)
+            : Math.pow((Math.pow(n + 1, 1 - skew) - 1) * u + 1, 1 / (1 - skew));
+        long rank = Math.max(0, Math.min(n, (long) x) - 1);
+        return Math.floorMod(RowRandom.mix64(rank), n);
+    }
+
+    private static long logNormalCents(RowRandom random, double median, double sigma) {
+        return Math.max(1, Math.round(median * Math.exp(sigma * random.nextGaussian()) * 100));
+    }
+
+    private static String decimal(long cents) {
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        return (cents < 0 ? "-" : "") + (abs / 100) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    private static String timestamp(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC).toString();
+    }
+
+    private static long nextId(Statement statement, String table, String column) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(" + column + ") + 1, 1) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void syncSequence(Statement statement, String table, String column) throws SQLException {
+        statement.execute("SELECT setval(pg_get_serial_sequence('" + table + "', '" + column + "'),"
+            + " (SELECT COALESCE(MAX(" + column + "), 0) + 1 FROM " + table + "), false)");
+    }
+
+    private static void ensureBranches(Statement statement) throws SQLException {
+        statement.execute(
+            """
+            INSERT INTO bank.branches (name, region, manager_name)
+            SELECT v.name, v.region::bank.region_enum, v.manager_name
+            FROM (VALUES
+                ('Downtown Branch', 'North', 'Elena Murphy'),
+                ('Uptown Branch', 'South', 'Greg Shaw'),
+                ('Midtown Branch', 'East', 'Holly Grant'),
+                ('Riverside Branch', 'West', 'Ian Brooks'),
+                ('Central Branch', 'Central', 'Jada Lee')
+            ) AS v(name, region, manager_name)
+            WHERE NOT EXISTS (SELECT 1 FROM bank.branches)
+            """
+        );
+    }
+}
@@ -0,0 +1,139 @@
+package io.synthesized.sample.bank.generator;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options of the dataset generator. Options are given as
+ * {@code --name=value}; anything not given keeps the default below.
+ */
+public class GeneratorOptions {
+    static final List<String> CUSTOMER_TYPES = List.of("Individual", "Business", "VIP", "Government", "Nonprofit");
+    static final List<String> ACCOUNT_TYPES = List.of("Checking", "Savings", "Credit", "Loan", "Investment");
+    static final List<String> ACCOUNT_STATUSES = List.of("Active", "Closed", "Frozen", "Dormant", "Overdrawn");
+    static final List<String> TRANSACTION_TYPES = List.of("Deposit", "Withdrawal", "Transfer", "Payment", "Fee");
+    static final List<String> CHANNELS = List.of("Online", "ATM", "Branch", "Mobile", "Wire");
+    static final List<String> CURRENCIES = List.of("USD", "EUR", "GBP", "JPY", "AUD");
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("url", "jdbc:postgresql://localhost:5438/bank_testing");
+        DEFAULTS.put("user", "apiuser");
+        DEFAULTS.put("password", "apipassword");
+        DEFAULTS.put("customers", "10000");
+        DEFAULTS.put("accounts-per-customer", "2.0");
+        DEFAULTS.put("transactions", "1000000");
+        DEFAULTS.put("threads", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        DEFAULTS.put("range-size", "500000");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("truncate", "false");
+        DEFAULTS.put("start-date", LocalDate.now().minusYears(2).toString());
+        DEFAULTS.put("end-date", LocalDate.now().toString());
+        DEFAULTS.put("account-skew", "1.0");
+        DEFAULTS.put("customer-skew", "0.5");
+        DEFAULTS.put("amount-median", "75");
+        DEFAULTS.put("amount-sigma", "1.1");
+        DEFAULTS.put("balance-median", "5000");
+        DEFAULTS.put("customer-types", "Individual:80,Business:12,VIP:5,Government:1,Nonprofit:2");
+        DEFAULTS.put("account-types", "Checking:45,Savings:30,Credit:15,Loan:6,Investment:4");
+        DEFAULTS.put("account-statuses", "Active:85,Dormant:6,Closed:5,Frozen:2,Overdrawn:2");
+        DEFAULTS.put("transaction-types", "Payment:35,Withdrawal:25,Deposit:25,Transfer:12,Fee:3");
+        DEFAULTS.put("channels", "Mobile:35,Online:30,ATM:20,Branch:10,Wire:5");
+        DEFAULTS.put("currencies", "USD:70,EUR:15,GBP:10,JPY:3,AUD:2");
+    }
+
+    final String url;
+    final String user;
+    final String password;
+    final long customers;
+    final double accountsPerCustomer;
+    final long transactions;
+    final int threads;
+    final long rangeSize;
+    final long seed;
+    final boolean truncate;
+    final LocalDate startDate;
+    final LocalDate endDate;
+    final double accountSkew;
+    final double customerSkew;
+    final double amountMedian;
+    final double amountSigma;
+    final double balanceMedian;
+    final WeightedChoice customerTypes;
+    final WeightedChoice accountTypes;
+    final WeightedChoice accountStatuses;
+    final WeightedChoice transactionTypes;
+    final WeightedChoice channels;
+    final WeightedChoice currencies;
+
+    private GeneratorOptions(Map<String, String> values) {
+        url = values.get("url");
+        user = values.get("user");
+        password = values.get("password");
+        customers = Long.parseLong(values.get("customers"));
+        accountsPerCustomer = Double.parseDouble(values.get("accounts-per-customer"));
+        transactions = Long.parseLong(values.get("transactions"));
+        threads = Math.max(1, Integer.parseInt(values.get("threads")));
+        rangeSize = Math.max(1, Long.parseLong(values.get("range-size")));
+        seed = Long.parseLong(values.get("seed"));
+        truncate = Boolean.parseBoolean(values.get("truncate"));
+        startDate = LocalDate.parse(values.get("start-date"));
+        endDate = LocalDate.parse(values.get("end-date"));
+        accountSkew = Double.parseDouble(values.get("account-skew"));
+        customerSkew = Double.parseDouble(values.get("customer-skew"));
+        amountMedian = Double.parseDouble(values.get("amount-median"));
+        amountSigma = Double.parseDouble(values.get("amount-sigma"));
+        balanceMedian = Double.parseDouble(values.get("balance-median"));
+        customerTypes = WeightedChoice.parse("customer-types", values.get("customer-types"), CUSTOMER_TYPES);
+        accountTypes = WeightedChoice.parse("account-types", values.get("account-types"), ACCOUNT_TYPES);
+        accountStatuses = WeightedChoice.parse("account-statuses", values.get("account-statuses"), ACCOUNT_STATUSES);
+        transactionTypes = WeightedChoice.parse("transaction-types", values.get("transaction-types"), TRANSACTION_TYPES);
+        channels = WeightedChoice.parse("channels", values.get("channels"), CHANNELS);
+        currencies = WeightedChoice.parse("currencies", values.get("currencies"), CURRENCIES);
+
+        if (customers < 1) {
+            throw new IllegalArgumentException("--customers must be at least 1");
+        }
+        if (accountsPerCustomer <= 0) {
+            throw new IllegalArgumentException("--accounts-per-customer must be positive");
+        }
+        if (transactions < 0) {
+            throw new IllegalArgumentException("--transactions must not be negative");
+        }
+        if (!startDate.isBefore(endDate)) {
+            throw new IllegalArgumentException("--start-date must be before --end-date");
+        }
+        if (accountSkew < 0 || customerSkew < 0) {
+            throw new IllegalArgumentException("Skew exponents must not be negative");
+        }
+    }
+
+    public static GeneratorOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Invalid argument '" + arg + "', expected --name=value");
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            if (!DEFAULTS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option --" + name);
+            }
+            values.put(name, arg.substring(arg.indexOf('=') + 1));
+        }
+        return new GeneratorOptions(values);
+    }
+
+    public static String usage() {
+        StringBuilder usage = new StringBuilder("Options (--name=value):\n");
+        DEFAULTS.forEach((name, value) -> usage.append("  --").append(name).append(" (default: ")
+            .append("password".equals(name) ? "****" : value).append(")\n"));
+        return usage.toString();
+    }
+
+    long accounts() {
+        return Math.max(1, Math.round(customers * accountsPerCustomer));
+    }
+}
@@ -0,0 +1,65 @@
+package io.synthesized.sample.bank.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Picks one of a fixed set of values with configurable relative weights,
+ * parsed from a spec such as {@code "Deposit:30,Withdrawal:25,Fee:5"}.
+ */
+final class WeightedChoice {
+    private final String[] values;
+    private final double[] cumulative;
+
+    private WeightedChoice(String[] values, double[] cumulative) {
+        this.values = values;
+        this.cumulative = cumulative;
+    }
+
+    /**
+     * @param allowed the enum labels the database accepts; any other value in
+     *                the spec is rejected so bad input fails before loading
+     */
+    static WeightedChoice parse(String option, String spec, List<String> allowed) {
+        List<String> values = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid " + option + " entry '" + part + "', expected value:weight");
+            }
+            if (!allowed.contains(pair[0])) {
+                throw new IllegalArgumentException("Invalid " + option + " value '" + pair[0] + "'. Allowed values: " + String.join(", ", allowed));
+            }
+            double weight = Double.parseDouble(pair[1]);
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + pair[0] + " in " + option);
+            }
+            values.add(pair[0]);
+            weights.add(weight);
+        }
+
+        double total = weights.stream().mapToDouble(Double::doubleValue).sum();
+        if (total <= 0) {
+            throw new IllegalArgumentException("Weights for " + option + " must not all be zero");
+        }
+        double[] cumulative = new double[weights.size()];
+        double running = 0;
+        for (int i = 0; i < weights.size(); i++) {
+            running += weights.get(i) / total;
+            cumulative[i] = running;
+        }
+        cumulative[cumulative.length - 1] = 1.0;
+        return new WeightedChoice(values.toArray(new String[0]), cumulative);
+    }
+
+    String pick(RowRandom random) {
+        double u = random.nextDouble();
+        for (int i = 0; i < cumulative.length; i++) {
+            if (u < cumulative[i]) {
+                return values[i];
+            }
+        }
+        return values[values.length - 1];
+    }
+}
@@ -0,0 +1,98 @@
+package io.synthesized.sample.bank.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Switches off the change-feed INSERT triggers (bank_ops_notify_insert, see
+ * db/ops/03_change_notifications.sql) of the tables about to be bulk loaded,
+ * and switches them back on afterwards. The triggers are statement level, but
+ * each COPY still collects every row it inserts into a transition table and
+ * the trigger then scans it again to count and aggregate it. Clients get one
+ * {@code truncated} notification per table at the end instead, telling them
+ * to reload.
+ *
+ * <p>While the triggers are off, inserts by anyone else are not reported
+ * either; the closing notification covers those as well.
+ */
+public class ChangeNotificationPause {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeNotificationPause.class);
+
+    private static final String TRIGGER = "bank_ops_notify_insert";
+
+    private record Table(String name, String entity) {
+    }
+
+    private final List<Table> tables;
+
+    private ChangeNotificationPause(List<Table> tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * Disables the trigger on those of {@code tables} (schema-qualified names)
+     * that have it enabled. Tables without it, e.g. before the ops scripts
+     * first ran, are left alone.
+     */
+    public static ChangeNotificationPause disable(Connection connection, List<String> tables) throws SQLException {
+        List<Table> paused = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                """
+                SELECT t.tgrelid::regclass::text, c.relname
+                FROM pg_trigger t
+                JOIN pg_class c ON c.oid = t.tgrelid
+                WHERE t.tgname = ?
+                  AND t.tgenabled <> 'D'
+                  AND t.tgparentid = 0
+                  AND t.tgrelid = ANY(?::regclass[])
+                ORDER BY 1
+                """)) {
+            ps.setString(1, TRIGGER);
+            ps.setArray(2, connection.createArrayOf("text", tables.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    paused.add(new Table(rs.getString(1), rs.getString(2)));
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (Table table : paused) {
+                statement.execute("ALTER TABLE " + table.name() + " DISABLE TRIGGER " + TRIGGER);
+            }
+        }
+        if (!paused.isEmpty()) {
+            logger.info("Disabled change notifications on {} for the load",
+                String.join(", ", paused.stream().map(Table::name).toList()));
+        }
+        return new ChangeNotificationPause(paused);
+    }
+
+    /** Re-enables the triggers and sends one {@code truncated} notification per table. */
+    public void restore(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (Table table : tables) {
+                statement.execute("ALTER TABLE " + table.name() + " ENABLE TRIGGER " + TRIGGER);
+            }
+        }
+        // Same shape as the trigger's TRUNCATE notification
+        try (PreparedStatement ps = connection.prepareStatement(
+                """
+                SELECT pg_notify('bank_changes', jsonb_build_object(
+                    'entity', ?, 'operation', 'INSERT', 'count', NULL, 'countDelta', NULL,
+                    'ids', '[]'::jsonb, 'truncated', TRUE)::text)
+                """)) {
+            for (Table table : tables) {
+                ps.setString(1, table.entity());
+                ps.executeQuery().close();
+            }
+        }
+    }
+}
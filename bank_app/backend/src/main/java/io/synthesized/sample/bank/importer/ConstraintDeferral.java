@@ -0,0 +1,165 @@
+package io.synthesized.sample.bank.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drops the indexes, primary/unique keys and foreign keys of the tables about
+ * to be bulk loaded and recreates them afterwards. Building an index once over
+ * the loaded rows is much cheaper than maintaining it row by row, and foreign
+ * keys are re-added {@code NOT VALID} and then validated, which checks each of
+ * them with a single join instead of a lookup per row.
+ */
+public class ConstraintDeferral {
+    private static final Logger logger = LoggerFactory.getLogger(ConstraintDeferral.class);
+
+    private record Constraint(String table, String name, String definition, boolean partitioned) {
+    }
+
+    private record Index(String name, String definition) {
+    }
+
+    private final List<Constraint> foreignKeys;
+    private final List<Constraint> keys;
+    private final List<Index> indexes;
+
+    private ConstraintDeferral(List<Constraint> foreignKeys, List<Constraint> keys, List<Index> indexes) {
+        this.foreignKeys = foreignKeys;
+        this.keys = keys;
+        this.indexes = indexes;
+    }
+
+    /**
+     * Records the definitions of everything that will be dropped: foreign keys
+     * from or to {@code tables}, primary/unique keys of {@code tables} and any
+     * other index on them. Tables are schema-qualified names.
+     */
+    public static ConstraintDeferral capture(Connection connection, List<String> tables) throws SQLException {
+        Array tableArray = connection.createArrayOf("text", tables.toArray());
+        List<Constraint> foreignKeys = new ArrayList<>();
+        List<Constraint> keys = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                """
+                SELECT c.conrelid::regclass::text, c.conname, pg_get_constraintdef(c.oid), c.contype, r.relkind = 'p'
+                FROM pg_constraint c
+                JOIN pg_class r ON r.oid = c.conrelid
+                WHERE c.conparentid = 0
+                  AND ((c.contype IN ('p', 'u') AND c.conrelid::regclass::text = ANY(?))
+                    OR (c.contype = 'f' AND (c.conrelid::regclass::text = ANY(?) OR c.confrelid::regclass::text = ANY(?))))
+                ORDER BY c.conrelid::regclass::text, c.conname
+                """)) {
+            ps.setArray(1, tableArray);
+            ps.setArray(2, tableArray);
+            ps.setArray(3, tableArray);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Constraint constraint = new Constraint(rs.getString(1), rs.getString(2), rs.getString(3), rs.getBoolean(5));
+                    ("f".equals(rs.getString(4)) ? foreignKeys : keys).add(constraint);
+                }
+            }
+        }
+
+        // Indexes that do not back a constraint; indexes on partitions are
+        // attached to the parent's index and go away with it
+        List<Index> indexes = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                """
+                SELECT i.indexrelid::regclass::text, pg_get_indexdef(i.indexrelid)
+                FROM pg_index i
+                WHERE i.indrelid::regclass::text = ANY(?)
+                  AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid AND c.contype IN ('p', 'u', 'x'))
+                  AND NOT EXISTS (SELECT 1 FROM pg_inherits h WHERE h.inhrelid = i.indexrelid)
+                ORDER BY 1
+                """)) {
+            ps.setArray(1, tableArray);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    indexes.add(new Index(rs.getString(1), rs.getString(2)));
+                }
+            }
+        }
+        return new ConstraintDeferral(foreignKeys, keys, indexes);
+    }
+
+    /** Drops everything that was captured, in a single transaction. */
+    public void drop(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (Constraint fk : foreignKeys) {
+                statement.execute("ALTER TABLE " + fk.table() + " DROP CONSTRAINT " + quote(fk.name()));
+            }
+            for (Constraint key : keys) {
+                statement.execute("ALTER TABLE " + key.table() + " DROP CONSTRAINT " + quote(key.name()));
+            }
+            for (Index index : indexes) {
+                statement.execute("DROP INDEX " + index.name());
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        logger.info("Dropped {} foreign keys, {} keys and {} indexes for the load", foreignKeys.size(), keys.size(), indexes.size());
+    }
+
+    /**
+     * Recreates indexes, then primary/unique keys, then foreign keys, in a
+     * single transaction. A failure (e.g. duplicate keys in the dump) rolls
+     * back all of them and is reported together with the statements, so the
+     * schema can be repaired by hand or the restore repeated once the rows
+     * are fixed.
+     */
+    public void restore(Connection connection) throws SQLException {
+        List<String> statements = new ArrayList<>();
+        for (Index index : indexes) {
+            statements.add(index.definition());
+        }
+        for (Constraint key : keys) {
+            statements.add("ALTER TABLE " + key.table() + " ADD CONSTRAINT " + quote(key.name()) + " " + key.definition());
+        }
+        for (Constraint fk : foreignKeys) {
+            // NOT VALID is not supported on partitioned tables; those are checked when added
+            if (fk.partitioned()) {
+                statements.add("ALTER TABLE " + fk.table() + " ADD CONSTRAINT " + quote(fk.name()) + " " + fk.definition());
+            } else {
+                statements.add("ALTER TABLE " + fk.table() + " ADD CONSTRAINT " + quote(fk.name()) + " " + fk.definition() + " NOT VALID");
+                statements.add("ALTER TABLE " + fk.table() + " VALIDATE CONSTRAINT " + quote(fk.name()));
+            }
+        }
+
+        long started = System.nanoTime();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            logger.error("Failed to restore constraints: {}. Statements to run:\n{}", e.getMessage(),
+                String.join(";\n", statements));
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        logger.info("Rebuilt {} indexes, {} keys and {} foreign keys in {} ms", indexes.size(), keys.size(), foreignKeys.size(),
+            (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
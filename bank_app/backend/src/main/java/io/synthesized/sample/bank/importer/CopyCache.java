@@ -0,0 +1,218 @@
+package io.synthesized.sample.bank.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Converts an INSERT dump into COPY payloads on disk: one or more segment
+ * files per run of INSERT statements into the same table and columns, in dump
+ * order. The conversion is keyed
+ * by the SHA-256 of the dump, so as long as the dump is unchanged later
+ * imports read the payloads straight from the cache and skip parsing.
+ *
+ * <p>Payloads use COPY's text format. PostgreSQL parses it cheaply, and unlike
+ * the binary format it needs no knowledge of the column types, which an
+ * INSERT dump does not carry.
+ */
+public class CopyCache {
+    private static final Logger logger = LoggerFactory.getLogger(CopyCache.class);
+    private static final String MANIFEST = "manifest.tsv";
+    // Large tables are split so that one table can be loaded over several connections
+    private static final long SEGMENT_ROWS = 100_000;
+
+    /** A COPY payload for one table. */
+    public record Segment(String table, List<String> columns, Path file, long rows) {
+        public String copySql() {
+            return "COPY " + table + " (" + String.join(", ", columns.stream().map(CopyCache::quoteIdentifier).toList()) + ") FROM STDIN";
+        }
+    }
+
+    private final Path cacheDirectory;
+
+    public CopyCache(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /** Returns the segments of {@code dump}, converting it first if it is not cached yet. */
+    public List<Segment> segments(Path dump) throws IOException {
+        String digest = digest(dump);
+        String baseName = dump.getFileName().toString().replaceAll("\\.sql$", "");
+        Path directory = cacheDirectory.resolve(baseName + "-" + digest.substring(0, 16));
+        Path manifest = directory.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            logger.info("Using cached COPY payloads for {} from {}", dump, directory);
+            return readManifest(directory);
+        }
+
+        long started = System.nanoTime();
+        // Convert into a scratch directory and move it into place, so an
+        // interrupted conversion never leaves a half-written cache entry
+        Files.createDirectories(cacheDirectory);
+        Path scratch = Files.createTempDirectory(cacheDirectory, baseName + "-tmp");
+        List<Segment> segments = convert(dump, scratch);
+        writeManifest(scratch, segments);
+        try {
+            Files.move(scratch, directory, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Another importer won the race; use its entry
+            deleteRecursively(scratch);
+            return readManifest(directory);
+        }
+        logger.info("Converted {} into {} COPY payloads in {} ms", dump, segments.size(), (System.nanoTime() - started) / 1_000_000);
+        return readManifest(directory);
+    }
+
+    private static List<Segment> convert(Path dump, Path directory) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(dump, StandardCharsets.UTF_8)) {
+            SegmentWriter writer = new SegmentWriter(directory, segments);
+            try {
+                new InsertDumpParser(reader).parse(writer);
+            } finally {
+                writer.close();
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Appends parsed rows to the current segment file, starting a new one when
+     * the target table or columns change or the segment is full.
+     */
+    private static final class SegmentWriter implements InsertDumpParser.Handler {
+        private final Path directory;
+        private final List<Segment> segments;
+        private final StringBuilder line = new StringBuilder();
+        private String table;
+        private List<String> columns;
+        private Path file;
+        private Writer out;
+        private long rows;
+
+        SegmentWriter(Path directory, List<Segment> segments) {
+            this.directory = directory;
+            this.segments = segments;
+        }
+
+        @Override
+        public void statement(String table, List<String> columns) throws IOException {
+            if (table.equals(this.table) && columns.equals(this.columns)) {
+                return;
+            }
+            close();
+            this.table = table;
+            this.columns = List.copyOf(columns);
+            open();
+        }
+
+        private void open() throws IOException {
+            this.file = directory.resolve(String.format("%03d-%s.copy", segments.size(), table));
+            this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            this.rows = 0;
+        }
+
+        @Override
+        public void row(List<String> values) throws IOException {
+            line.setLength(0);
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    line.append('\t');
+                }
+                appendCopyText(line, values.get(i));
+            }
+            line.append('\n');
+            if (rows == SEGMENT_ROWS) {
+                close();
+                open();
+            }
+            out.append(line);
+            rows++;
+        }
+
+        void close() throws IOException {
+            if (out != null) {
+                out.close();
+                segments.add(new Segment(table, columns, file, rows));
+                out = null;
+            }
+        }
+    }
+
+    static void appendCopyText(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("\\N");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static void writeManifest(Path directory, List<Segment> segments) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(directory.resolve(MANIFEST), StandardCharsets.UTF_8)) {
+            for (Segment segment : segments) {
+                out.write(segment.table() + "\t" + String.join(",", segment.columns()) + "\t"
+                    + segment.file().getFileName() + "\t" + segment.rows());
+                out.newLine();
+            }
+        }
+    }
+
+    private static List<Segment> readManifest(Path directory) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        for (String entry : Files.readAllLines(directory.resolve(MANIFEST), StandardCharsets.UTF_8)) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] fields = entry.split("\t");
+            segments.add(new Segment(fields[0], List.of(fields[1].split(",")), directory.resolve(fields[2]), Long.parseLong(fields[3])));
+        }
+        return segments;
+    }
+
+    private static String digest(Path file) throws IOException {
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(((DigestInputStream) in).getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (var paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    static String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
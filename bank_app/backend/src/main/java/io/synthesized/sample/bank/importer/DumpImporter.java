@@ -0,0 +1,215 @@
+package io.synthesized.sample.bank.importer;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads INSERT dumps into one or more databases with COPY.
+ *
+ * <p>Each dump is converted once into COPY segments by {@link CopyCache}.
+ * All target databases are loaded at the same time; within a database the
+ * tables are loaded in parallel over separate connections, with indexes and
+ * constraints dropped for the load and rebuilt afterwards (see
+ * {@link ConstraintDeferral}) and the change-feed triggers off (see
+ * {@link ChangeNotificationPause}). Finally the serial sequences are moved
+ * past the loaded keys, since dumps with explicit IDs never advance them.
+ */
+public class DumpImporter {
+    private static final Logger logger = LoggerFactory.getLogger(DumpImporter.class);
+
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /** A database to load and the dump to load into it. */
+    public record Target(String name, ConnectionFactory connections, Path dump) {
+    }
+
+    private final CopyCache cache;
+    private final int threads;
+    private final boolean deferConstraints;
+
+    public DumpImporter(CopyCache cache, int threads, boolean deferConstraints) {
+        this.cache = cache;
+        this.threads = Math.max(1, threads);
+        this.deferConstraints = deferConstraints;
+    }
+
+    public void importAll(List<Target> targets) {
+        long started = System.nanoTime();
+        // Coordinators mostly wait for loads and index builds, so they get
+        // their own pool and never hold a load thread
+        ExecutorService coordinators = Executors.newFixedThreadPool(Math.max(1, targets.size()));
+        ExecutorService loaders = Executors.newFixedThreadPool(threads);
+        try {
+            List<CompletableFuture<Void>> imports = new ArrayList<>();
+            for (Target target : targets) {
+                imports.add(CompletableFuture.runAsync(() -> importTarget(target, loaders), coordinators));
+            }
+            join(imports);
+        } finally {
+            coordinators.shutdownNow();
+            loaders.shutdownNow();
+        }
+        logger.info("Imported {} databases in {} ms", targets.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void importTarget(Target target, ExecutorService loaders) {
+        long started = System.nanoTime();
+        try {
+            List<CopyCache.Segment> segments = cache.segments(target.dump());
+            Map<String, List<CopyCache.Segment>> segmentsByTable = new LinkedHashMap<>();
+            for (CopyCache.Segment segment : segments) {
+                segmentsByTable.computeIfAbsent(segment.table(), t -> new ArrayList<>()).add(segment);
+            }
+            List<String> tables = List.copyOf(segmentsByTable.keySet());
+
+            ConstraintDeferral deferral = null;
+            ChangeNotificationPause notifications;
+            Map<String, List<String>> serialColumns;
+            try (Connection connection = target.connections().open()) {
+                serialColumns = findSerialColumns(connection, tables);
+                if (deferConstraints) {
+                    deferral = ConstraintDeferral.capture(connection, tables);
+                    deferral.drop(connection);
+                }
+                notifications = ChangeNotificationPause.disable(connection, tables);
+            }
+
+            AtomicLong rows = new AtomicLong();
+            List<CompletableFuture<Void>> loads = new ArrayList<>();
+            segmentsByTable.forEach((table, tableSegments) -> {
+                List<String> serials = serialColumns.getOrDefault(table, List.of());
+                if (tableSegments.stream().allMatch(s -> s.columns().containsAll(serials))) {
+                    for (CopyCache.Segment segment : tableSegments) {
+                        loads.add(CompletableFuture.runAsync(() -> rows.addAndGet(load(target, segment)), loaders));
+                    }
+                } else {
+                    // Rows without explicit keys take them from the sequence in
+                    // load order, and later tables in the dump refer to those
+                    // keys, so such a table is loaded in dump order on one connection
+                    loads.add(CompletableFuture.runAsync(() -> tableSegments.forEach(s -> rows.addAndGet(load(target, s))), loaders));
+                }
+            });
+            try {
+                join(loads);
+                try (Connection connection = target.connections().open()) {
+                    if (deferral != null) {
+                        deferral.restore(connection);
+                    }
+                    resetSequences(connection, serialColumns);
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("ANALYZE " + String.join(", ", tables));
+                    }
+                }
+            } catch (RuntimeException | SQLException e) {
+                discard(target, tables, deferral, e);
+                throw e;
+            } finally {
+                try (Connection connection = target.connections().open()) {
+                    notifications.restore(connection);
+                }
+            }
+            logger.info("Imported {} rows from {} into {} in {} ms", rows.get(), target.dump().getFileName(), target.name(),
+                (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException("Import of " + target.dump() + " into " + target.name() + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Empties the tables of a failed import and puts their constraints back,
+     * so that the database is left as it was found and the next start
+     * imports it again.
+     */
+    private static void discard(Target target, List<String> tables, ConstraintDeferral deferral, Exception failure) {
+        try (Connection connection = target.connections().open()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("TRUNCATE " + String.join(", ", tables));
+            }
+            if (deferral != null) {
+                deferral.restore(connection);
+            }
+            logger.warn("Import into {} failed, emptied {} again", target.name(), String.join(", ", tables));
+        } catch (SQLException | RuntimeException e) {
+            failure.addSuppressed(e);
+            logger.error("Could not clean up {} after the failed import; empty {} and restore its constraints by hand: {}",
+                target.name(), String.join(", ", tables), e.getMessage());
+        }
+    }
+
+    private static long load(Target target, CopyCache.Segment segment) {
+        try (Connection connection = target.connections().open();
+             InputStream in = Files.newInputStream(segment.file())) {
+            connection.setAutoCommit(true);
+            return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(segment.copySql(), in);
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException("Loading " + segment.file().getFileName() + " into " + target.name()
+                + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static Map<String, List<String>> findSerialColumns(Connection connection, List<String> tables) throws SQLException {
+        Map<String, List<String>> serialColumns = new LinkedHashMap<>();
+        Array tableArray = connection.createArrayOf("text", tables.toArray());
+        try (PreparedStatement ps = connection.prepareStatement(
+                """
+                SELECT a.attrelid::regclass::text, a.attname
+                FROM pg_attribute a
+                WHERE a.attrelid::regclass::text = ANY(?)
+                  AND a.attnum > 0 AND NOT a.attisdropped
+                  AND pg_get_serial_sequence(a.attrelid::regclass::text, a.attname) IS NOT NULL
+                """)) {
+            ps.setArray(1, tableArray);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    serialColumns.computeIfAbsent(rs.getString(1), t -> new ArrayList<>()).add(rs.getString(2));
+                }
+            }
+        }
+        return serialColumns;
+    }
+
+    private static void resetSequences(Connection connection, Map<String, List<String>> serialColumns) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (Map.Entry<String, List<String>> entry : serialColumns.entrySet()) {
+                for (String column : entry.getValue()) {
+                    statement.execute("SELECT setval(pg_get_serial_sequence('" + entry.getKey() + "', '" + column + "'), "
+                        + "COALESCE((SELECT MAX(" + column + ") FROM " + entry.getKey() + "), 0) + 1, false)");
+                }
+            }
+        }
+    }
+
+    private static void join(List<CompletableFuture<Void>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
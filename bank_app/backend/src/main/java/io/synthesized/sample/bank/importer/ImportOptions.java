@@ -0,0 +1,86 @@
+package io.synthesized.sample.bank.importer;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options of the dump importer. Options are given as
+ * {@code --name=value}; anything not given keeps the default below.
+ */
+public class ImportOptions {
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("url-template", "jdbc:postgresql://localhost:5438/{database}");
+        DEFAULTS.put("user", "apiuser");
+        DEFAULTS.put("password", "apipassword");
+        DEFAULTS.put("sql-dir", "../database/sql");
+        DEFAULTS.put("load", "bank_seed:seed_bank_db.sql,bank_prod:prod_bank_db.sql");
+        DEFAULTS.put("cache-dir", "build/import-cache");
+        DEFAULTS.put("threads", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        DEFAULTS.put("defer-constraints", "true");
+    }
+
+    /** A database name and the dump to load into it. */
+    public record Load(String database, Path dump) {
+    }
+
+    public final String urlTemplate;
+    public final String user;
+    public final String password;
+    public final List<Load> loads;
+    public final Path cacheDir;
+    public final int threads;
+    public final boolean deferConstraints;
+
+    private ImportOptions(Map<String, String> values) {
+        urlTemplate = values.get("url-template");
+        user = values.get("user");
+        password = values.get("password");
+        cacheDir = Path.of(values.get("cache-dir"));
+        threads = Math.max(1, Integer.parseInt(values.get("threads")));
+        deferConstraints = Boolean.parseBoolean(values.get("defer-constraints"));
+
+        if (!urlTemplate.contains("{database}")) {
+            throw new IllegalArgumentException("--url-template must contain {database}");
+        }
+        Path sqlDir = Path.of(values.get("sql-dir"));
+        loads = new ArrayList<>();
+        for (String load : values.get("load").split(",")) {
+            String[] parts = load.trim().split(":", 2);
+            if (parts.length != 2 || parts[0].isBlank() || parts[1].isBlank()) {
+                throw new IllegalArgumentException("Invalid --load entry '" + load + "', expected database:dump.sql");
+            }
+            loads.add(new Load(parts[0], sqlDir.resolve(parts[1])));
+        }
+    }
+
+    public static ImportOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Invalid argument '" + arg + "', expected --name=value");
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            if (!DEFAULTS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option --" + name);
+            }
+            values.put(name, arg.substring(arg.indexOf('=') + 1));
+        }
+        return new ImportOptions(values);
+    }
+
+    public static String usage() {
+        StringBuilder usage = new StringBuilder("Options (--name=value):\n");
+        DEFAULTS.forEach((name, value) -> usage.append("  --").append(name).append(" (default: ")
+            .append("password".equals(name) ? "****" : value).append(")\n"));
+        return usage.toString();
+    }
+
+    public String url(String database) {
+        return urlTemplate.replace("{database}", database);
+    }
+}
@@ -0,0 +1,285 @@
+package io.synthesized.sample.bank.importer;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser for SQL dumps made of multi-row INSERT statements, such as
+ * database/sql/seed_bank_db.sql and prod_bank_db.sql.
+ *
+ * <p>Supported: {@code --} and block comments, quoted identifiers, string
+ * literals with doubled quotes, numbers, NULL, TRUE/FALSE, and
+ * {@code ::type} casts (which are dropped; COPY converts the text to the
+ * column type anyway). Any other statement is rejected.
+ */
+public class InsertDumpParser {
+
+    public interface Handler {
+        void statement(String table, List<String> columns) throws IOException;
+
+        /** One VALUES tuple; SQL NULL is passed as a null element. */
+        void row(List<String> values) throws IOException;
+    }
+
+    private final PushbackReader in;
+    private int line = 1;
+
+    public InsertDumpParser(Reader reader) {
+        this.in = new PushbackReader(reader, 2);
+    }
+
+    public void parse(Handler handler) throws IOException {
+        while (true) {
+            skipWhitespaceAndComments();
+            int c = peek();
+            if (c == -1) {
+                return;
+            }
+            if (c == ';') {
+                read();
+                continue;
+            }
+            parseInsert(handler);
+        }
+    }
+
+    private void parseInsert(Handler handler) throws IOException {
+        expectKeyword("INSERT");
+        expectKeyword("INTO");
+        String table = readQualifiedName();
+
+        List<String> columns = new ArrayList<>();
+        expect('(');
+        do {
+            columns.add(readIdentifier());
+        } while (consumeIf(','));
+        expect(')');
+        expectKeyword("VALUES");
+        handler.statement(table, columns);
+
+        List<String> values = new ArrayList<>(columns.size());
+        do {
+            values.clear();
+            expect('(');
+            do {
+                values.add(readValue());
+            } while (consumeIf(','));
+            expect(')');
+            if (values.size() != columns.size()) {
+                throw error("Expected " + columns.size() + " values but found " + values.size());
+            }
+            handler.row(values);
+        } while (consumeIf(','));
+
+        skipWhitespaceAndComments();
+        if (peek() != -1 && !consumeIf(';')) {
+            throw error("Expected ';' after VALUES list");
+        }
+    }
+
+    private String readValue() throws IOException {
+        skipWhitespaceAndComments();
+        int c = peek();
+        String value;
+        if (c == '\'') {
+            value = readString();
+        } else if (c == '-' || c == '+' || c == '.' || Character.isDigit(c)) {
+            value = readNumber();
+        } else if (Character.isLetter(c)) {
+            String word = readWord();
+            switch (word.toUpperCase()) {
+                case "NULL" -> value = null;
+                case "TRUE" -> value = "t";
+                case "FALSE" -> value = "f";
+                default -> throw error("Unsupported value '" + word + "'");
+            }
+        } else {
+            throw error("Unexpected character '" + (char) c + "' in VALUES");
+        }
+        skipCast();
+        return value;
+    }
+
+    private void skipCast() throws IOException {
+        skipWhitespaceAndComments();
+        if (peek() != ':') {
+            return;
+        }
+        read();
+        if (read() != ':') {
+            throw error("Expected '::'");
+        }
+        skipWhitespaceAndComments();
+        readQualifiedName();
+        // Array types, e.g. ::text[]
+        while (consumeIf('[')) {
+            expect(']');
+        }
+    }
+
+    private String readString() throws IOException {
+        read();
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw error("Unterminated string literal");
+            }
+            if (c == '\'') {
+                if (peek() == '\'') {
+                    read();
+                    value.append('\'');
+                    continue;
+                }
+                return value.toString();
+            }
+            value.append((char) c);
+        }
+    }
+
+    private String readNumber() throws IOException {
+        StringBuilder value = new StringBuilder();
+        int c = peek();
+        while (c != -1 && (Character.isDigit(c) || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E')) {
+            value.append((char) read());
+            c = peek();
+        }
+        return value.toString();
+    }
+
+    private String readQualifiedName() throws IOException {
+        StringBuilder name = new StringBuilder(readIdentifier());
+        while (peek() == '.') {
+            read();
+            name.append('.').append(readIdentifier());
+        }
+        return name.toString();
+    }
+
+    private String readIdentifier() throws IOException {
+        skipWhitespaceAndComments();
+        if (peek() != '"') {
+            String word = readWord();
+            if (word.isEmpty()) {
+                throw error("Expected identifier");
+            }
+            return word.toLowerCase();
+        }
+        read();
+        StringBuilder identifier = new StringBuilder();
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw error("Unterminated quoted identifier");
+            }
+            if (c == '"') {
+                if (peek() == '"') {
+                    read();
+                    identifier.append('"');
+                    continue;
+                }
+                return identifier.toString();
+            }
+            identifier.append((char) c);
+        }
+    }
+
+    private String readWord() throws IOException {
+        StringBuilder word = new StringBuilder();
+        int c = peek();
+        while (c != -1 && (Character.isLetterOrDigit(c) || c == '_' || c == '$')) {
+            word.append((char) read());
+            c = peek();
+        }
+        return word.toString();
+    }
+
+    private void expectKeyword(String keyword) throws IOException {
+        skipWhitespaceAndComments();
+        String word = readWord();
+        if (!word.equalsIgnoreCase(keyword)) {
+            throw error("Expected " + keyword + " but found '" + word + "' (only INSERT ... VALUES statements are supported)");
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        skipWhitespaceAndComments();
+        int c = read();
+        if (c != expected) {
+            throw error("Expected '" + expected + "' but found " + (c == -1 ? "end of file" : "'" + (char) c + "'"));
+        }
+    }
+
+    private boolean consumeIf(char expected) throws IOException {
+        skipWhitespaceAndComments();
+        if (peek() == expected) {
+            read();
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespaceAndComments() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == -1) {
+                return;
+            }
+            if (Character.isWhitespace(c)) {
+                read();
+            } else if (c == '-') {
+                read();
+                if (peek() != '-') {
+                    in.unread('-');
+                    return;
+                }
+                while (c != -1 && c != '\n') {
+                    c = read();
+                }
+            } else if (c == '/') {
+                read();
+                if (peek() != '*') {
+                    in.unread('/');
+                    return;
+                }
+                read();
+                int previous = 0;
+                while (true) {
+                    c = read();
+                    if (c == -1) {
+                        throw error("Unterminated block comment");
+                    }
+                    if (previous == '*' && c == '/') {
+                        break;
+                    }
+                    previous = c;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private int peek() throws IOException {
+        int c = in.read();
+        if (c != -1) {
+            in.unread(c);
+        }
+        return c;
+    }
+
+    private int read() throws IOException {
+        int c = in.read();
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private IOException error(String message) {
+        return new IOException("Line " + line + ": " + message);
+    }
+}
@@ -0,0 +1,15 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.Data;
+import java.util.List;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Data
+@Schema(description = "An account of a customer overview together with its most recent transactions.")
+public class AccountOverview {
+    @Schema(description = "The account.")
+    private Account account;
+
+    @Schema(description = "Latest transactions of the account, newest first.")
+    private List<Transaction> recentTransactions;
+} 
\ No newline at end of file
@@ -0,0 +1,27 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.Data;
+import java.util.List;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Data
+@Schema(
+    description = "Bulk account status change. The accounts are given either as a list of IDs or as a filter; null filter criteria do not restrict, but at least one is required.",
+    example = "{\"status\": \"Frozen\", \"accountType\": \"Savings\", \"currentStatus\": \"Dormant\"}"
+)
+public class AccountStatusChangeRequest {
+    @Schema(description = "New status. Allowed values: Active, Closed, Frozen, Dormant, Overdrawn.", example = "Frozen", allowableValues = {"Active", "Closed", "Frozen", "Dormant", "Overdrawn"})
+    private String status;
+
+    @Schema(description = "IDs of the accounts to change. Limited by bank.account-status.max-accounts.", example = "[3, 1, 42]")
+    private List<Integer> accountIds;
+
+    @Schema(description = "Filter: only accounts of this type. Allowed values: Checking, Savings, Credit, Loan, Investment.", example = "Savings", allowableValues = {"Checking", "Savings", "Credit", "Loan", "Investment"})
+    private String accountType;
+
+    @Schema(description = "Filter: only accounts currently in this status.", example = "Dormant", allowableValues = {"Active", "Closed", "Frozen", "Dormant", "Overdrawn"})
+    private String currentStatus;
+
+    @Schema(description = "Filter: only accounts of this customer.", example = "1")
+    private Integer customerId;
+} 
\ No newline at end of file
@@ -0,0 +1,27 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.Data;
+import java.util.List;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Data
+@Schema(
+    description = "Result of a bulk account status change, applied in a single database transaction.",
+    example = "{\"status\": \"Frozen\", \"updated\": 1, \"unchanged\": 1, \"notFound\": 1, \"results\": [{\"accountId\": 3, \"outcome\": \"Updated\", \"previousStatus\": \"Dormant\"}, {\"accountId\": 1, \"outcome\": \"Unchanged\", \"previousStatus\": \"Frozen\"}, {\"accountId\": 42, \"outcome\": \"NotFound\", \"previousStatus\": null}]}"
+)
+public class AccountStatusChangeResult {
+    @Schema(description = "The new status.", example = "Frozen")
+    private String status;
+
+    @Schema(description = "Number of accounts whose status was changed.", example = "1")
+    private int updated;
+
+    @Schema(description = "Number of accounts that already had the new status.", example = "1")
+    private int unchanged;
+
+    @Schema(description = "Number of requested IDs without an account.", example = "1")
+    private int notFound;
+
+    @Schema(description = "Outcome per account: in request order for an ID list, in account ID order for a filter.")
+    private List<AccountStatusOutcome> results;
+} 
\ No newline at end of file
@@ -0,0 +1,28 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(
+    description = "What a bulk status change did to one account.",
+    example = "{\"accountId\": 3, \"outcome\": \"Updated\", \"previousStatus\": \"Dormant\"}"
+)
+public class AccountStatusOutcome {
+    public static final String UPDATED = "Updated";
+    public static final String UNCHANGED = "Unchanged";
+    public static final String NOT_FOUND = "NotFound";
+
+    @Schema(description = "ID of the account.", example = "3")
+    private Integer accountId;
+
+    @Schema(description = "Updated, Unchanged (already in the new status) or NotFound.", example = "Updated", allowableValues = {"Updated", "Unchanged", "NotFound"})
+    private String outcome;
+
+    @Schema(description = "Status before the change; null if the account was not found.", example = "Dormant")
+    private String previousStatus;
+} 
\ No newline at end of file
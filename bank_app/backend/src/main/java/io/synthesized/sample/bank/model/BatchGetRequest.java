@@ -0,0 +1,15 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.Data;
+import java.util.List;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Data
+@Schema(
+    description = "IDs to look up in a single multi-get request.",
+    example = "{\"ids\": [3, 1, 42]}"
+)
+public class BatchGetRequest {
+    @Schema(description = "IDs to retrieve. Results keep this order; duplicates are returned once. Limited by bank.batch.max-ids.", example = "[3, 1, 42]")
+    private List<Long> ids;
+} 
\ No newline at end of file
@@ -0,0 +1,29 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.Data;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Data
+@Schema(
+    description = "Current state of the request bulkhead of one database.",
+    example = "{\"database\": \"PROD\", \"limit\": 14, \"inFlight\": 9, \"queued\": 0, \"admitted\": 48211, \"rejected\": 37}"
+)
+public class BulkheadStatus {
+    @Schema(description = "Database the bulkhead admits requests for.", example = "PROD")
+    private DatabaseType database;
+
+    @Schema(description = "Current concurrency limit, adapted to observed latency.", example = "14")
+    private int limit;
+
+    @Schema(description = "Requests currently being processed.", example = "9")
+    private int inFlight;
+
+    @Schema(description = "Requests waiting for a slot.", example = "0")
+    private int queued;
+
+    @Schema(description = "Requests admitted since start-up.", example = "48211")
+    private long admitted;
+
+    @Schema(description = "Requests rejected with 503 since start-up.", example = "37")
+    private long rejected;
+}
@@ -0,0 +1,35 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.Data;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Data
+@Schema(
+    description = "Hit/miss statistics of one in-memory cache since start-up.",
+    example = "{\"name\": \"customers\", \"size\": 812, \"weightedSize\": 1630, \"maximumWeight\": 50000, \"hits\": 10452, \"misses\": 903, \"hitRate\": 0.92, \"evictions\": 0}"
+)
+public class CacheStatistics {
+    @Schema(description = "Cache name.", example = "customers")
+    private String name;
+
+    @Schema(description = "Approximate number of cached entries.", example = "812")
+    private long size;
+
+    @Schema(description = "Total weight of the cached entries.", example = "1630")
+    private long weightedSize;
+
+    @Schema(description = "Weight at which entries start being evicted.", example = "50000")
+    private long maximumWeight;
+
+    @Schema(description = "Lookups served from the cache.", example = "10452")
+    private long hits;
+
+    @Schema(description = "Lookups that had to query the database.", example = "903")
+    private long misses;
+
+    @Schema(description = "Fraction of lookups served from the cache.", example = "0.92")
+    private double hitRate;
+
+    @Schema(description = "Entries evicted to stay within the maximum weight.", example = "0")
+    private long evictions;
+}
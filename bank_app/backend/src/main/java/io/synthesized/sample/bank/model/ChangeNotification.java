@@ -0,0 +1,13 @@
+package io.synthesized.sample.bank.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * The fields of a change feed NOTIFY payload (db/ops/03_change_notifications.sql)
+ * that the caches need; the rest is only relayed to change feed subscribers.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ChangeNotification(String entity, List<Long> ids, List<Long> customerIds, boolean truncated) {
+}
@@ -1,5 +1,6 @@
 package io.synthesized.sample.bank.model;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -33,6 +34,15 @@ public class Customer {
     @Schema(description = "List of account IDs associated with the customer.", example = "[101, 102]")
     private List<Long> accountIds;
 
+    @Schema(description = "Number of accounts the customer holds, from the customer summary. Only set in the customer list.", example = "2", accessMode = Schema.AccessMode.READ_ONLY)
+    private Integer accountCount;
+
+    @Schema(description = "Sum of the balances of the customer's accounts, from the customer summary. Only set in the customer list.", example = "1523.40", accessMode = Schema.AccessMode.READ_ONLY)
+    private BigDecimal totalBalance;
+
+    @Schema(description = "Date of the customer's latest transaction, from the customer summary. Only set in the customer list.", example = "2024-05-20T09:30:00", accessMode = Schema.AccessMode.READ_ONLY)
+    private LocalDateTime lastTransactionDate;
+
     // Getters and Setters
     public Long getCustomerId() {
         return customerId;
@@ -97,4 +107,28 @@ public class Customer {
     public void setAccountIds(List<Long> accountIds) {
         this.accountIds = accountIds;
     }
+
+    public Integer getAccountCount() {
+        return accountCount;
+    }
+
+    public void setAccountCount(Integer accountCount) {
+        this.accountCount = accountCount;
+    }
+
+    public BigDecimal getTotalBalance() {
+        return totalBalance;
+    }
+
+    public void setTotalBalance(BigDecimal totalBalance) {
+        this.totalBalance = totalBalance;
+    }
+
+    public LocalDateTime getLastTransactionDate() {
+        return lastTransactionDate;
+    }
+
+    public void setLastTransactionDate(LocalDateTime lastTransactionDate) {
+        this.lastTransactionDate = lastTransactionDate;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,21 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.Data;
+import java.util.List;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Data
+@Schema(
+    description = "A customer with their accounts and the latest transactions of each account.",
+    example = "{\"customer\": {\"customerId\": 1, \"firstName\": \"John\", \"lastName\": \"Doe\", \"email\": \"john@example.com\", \"phone\": \"1234567890\", \"customerType\": \"Individual\", \"createdAt\": \"2024-05-01T12:00:00\", \"accountIds\": [101]}, \"accounts\": [{\"account\": {\"accountId\": 101, \"customerId\": 1, \"accountType\": \"Checking\", \"status\": \"Active\", \"balance\": 1000.00}, \"recentTransactions\": [{\"transactionId\": 5001, \"accountId\": 101, \"transactionType\": \"Deposit\", \"transactionDate\": \"2024-05-01T12:00:00\", \"amount\": 100.00, \"channel\": \"ATM\", \"currency\": \"USD\"}]}], \"transactionsPerAccount\": 5}"
+)
+public class CustomerOverview {
+    @Schema(description = "The customer.")
+    private Customer customer;
+
+    @Schema(description = "Accounts of the customer, ordered by account ID.")
+    private List<AccountOverview> accounts;
+
+    @Schema(description = "Maximum number of transactions returned per account.", example = "5")
+    private int transactionsPerAccount;
+} 
\ No newline at end of file
@@ -0,0 +1,20 @@
+package io.synthesized.sample.bank.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Customer list filters on the derived fields kept in the customer summary.
+ * Null bounds do not restrict; all bounds are inclusive.
+ */
+public record CustomerSummaryFilter(Integer minAccounts, Integer maxAccounts, BigDecimal minBalance,
+                                    BigDecimal maxBalance, LocalDateTime lastTransactionFrom,
+                                    LocalDateTime lastTransactionTo) {
+
+    public static final CustomerSummaryFilter NONE = new CustomerSummaryFilter(null, null, null, null, null, null);
+
+    public boolean isEmpty() {
+        return minAccounts == null && maxAccounts == null && minBalance == null && maxBalance == null
+            && lastTransactionFrom == null && lastTransactionTo == null;
+    }
+}
@@ -0,0 +1,24 @@
+package io.synthesized.sample.bank.model;
+
+import java.util.List;
+
+/**
+ * Published for each change notification a database sends, whichever
+ * backend instance or tool made the change, so that in-process caches can
+ * drop what it made stale. {@code ids} are the changed rows of
+ * {@code table} and, for accounts, {@code customerIds} their owners; when
+ * {@code allRows} is set the lists are incomplete and every row of the
+ * table must be treated as changed. A null {@code table} stands for all
+ * tables, e.g. after notifications may have been missed.
+ */
+public record DataChangeEvent(DatabaseType databaseType, String table, List<Long> ids, List<Long> customerIds,
+                              boolean allRows) {
+
+    public static DataChangeEvent everything(DatabaseType databaseType) {
+        return new DataChangeEvent(databaseType, null, List.of(), List.of(), true);
+    }
+
+    public boolean affects(String tableName) {
+        return table == null || table.equals(tableName);
+    }
+}
@@ -0,0 +1,8 @@
+package io.synthesized.sample.bank.model;
+
+/**
+ * Published after a database has been replaced wholesale (snapshot restore or
+ * clone), so components holding per-database state can drop it.
+ */
+public record DatabaseResetEvent(DatabaseType databaseType) {
+}
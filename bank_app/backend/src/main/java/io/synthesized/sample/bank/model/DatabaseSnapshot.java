@@ -0,0 +1,23 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.Data;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Data
+@Schema(
+    description = "A snapshot of a bank database, stored as a PostgreSQL template database.",
+    example = "{\"database\": \"TESTING\", \"name\": \"baseline\", \"databaseName\": \"bank_testing_snap_baseline\", \"sizeBytes\": 9437184}"
+)
+public class DatabaseSnapshot {
+    @Schema(description = "Database the snapshot was taken from and can be restored into.", example = "TESTING")
+    private DatabaseType database;
+
+    @Schema(description = "Snapshot name.", example = "baseline")
+    private String name;
+
+    @Schema(description = "Name of the PostgreSQL database holding the snapshot.", example = "bank_testing_snap_baseline")
+    private String databaseName;
+
+    @Schema(description = "Size of the snapshot on disk in bytes.", example = "9437184")
+    private long sizeBytes;
+}
@@ -0,0 +1,24 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.Data;
+import java.util.List;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Data
+@Schema(
+    description = "Result of comparing the bank tables of two databases.",
+    example = "{\"left\": \"PROD\", \"right\": \"TESTING\", \"elapsedMs\": 840, \"tables\": [{\"table\": \"branches\", \"keyColumn\": \"branch_id\", \"leftRowCount\": 5, \"rightRowCount\": 5, \"identical\": true}]}"
+)
+public class DiffResult {
+    @Schema(description = "Left-hand database.", example = "PROD")
+    private DatabaseType left;
+
+    @Schema(description = "Right-hand database.", example = "TESTING")
+    private DatabaseType right;
+
+    @Schema(description = "Wall-clock time taken by the comparison in milliseconds.", example = "840")
+    private long elapsedMs;
+
+    @Schema(description = "Per-table differences, in the order the tables were compared.")
+    private List<TableDiff> tables;
+}
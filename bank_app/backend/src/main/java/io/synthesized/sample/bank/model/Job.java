@@ -0,0 +1,68 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.Data;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Schema(
+    description = "An asynchronous job, e.g. a bulk delete or export, and its progress.",
+    example = "{\"jobId\": \"3f1c8a52-4e0b-4d8e-9a61-0c2f7d5b9e13\", \"database\": \"TESTING\", \"type\": \"delete-transactions\", \"status\": \"RUNNING\", \"parameters\": {\"before\": \"2023-01-01T00:00:00\"}, \"totalItems\": 120000, \"processedItems\": 45000, \"failedItems\": 0, \"message\": null, \"cancelRequested\": false, \"owner\": \"backend-1-5c2e91d0\", \"createdAt\": \"2024-03-01T10:15:30\", \"startedAt\": \"2024-03-01T10:15:30\", \"finishedAt\": null}"
+)
+public class Job {
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    @Schema(description = "Unique identifier of the job.", example = "3f1c8a52-4e0b-4d8e-9a61-0c2f7d5b9e13")
+    private UUID jobId;
+
+    @Schema(description = "Database the job runs against and whose bank_ops.jobs table records it.", example = "TESTING")
+    private DatabaseType database;
+
+    @Schema(description = "Kind of job.", example = "delete-transactions")
+    private String type;
+
+    @Schema(description = "Current state of the job.", example = "RUNNING")
+    private Status status;
+
+    @Schema(description = "Parameters the job was submitted with.")
+    private Map<String, String> parameters;
+
+    @Schema(description = "Number of items the job will process, once known.", example = "120000")
+    private Long totalItems;
+
+    @Schema(description = "Items processed so far.", example = "45000")
+    private long processedItems;
+
+    @Schema(description = "Items that could not be processed.", example = "0")
+    private long failedItems;
+
+    @Schema(description = "Outcome or error message.", example = "Deleted 120000 transactions")
+    private String message;
+
+    @Schema(description = "Name of the file produced by the job, downloadable from /api/jobs/{jobId}/result.", example = "transactions-3f1c8a52.csv")
+    private String resultFile;
+
+    @Schema(description = "Whether cancellation has been requested.", example = "false")
+    private boolean cancelRequested;
+
+    @Schema(description = "Backend instance that runs the job and stores its result file.", example = "backend-1-5c2e91d0")
+    private String owner;
+
+    @Schema(description = "When the job was submitted.", example = "2024-03-01T10:15:30")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "When the job started running.", example = "2024-03-01T10:15:30")
+    private LocalDateTime startedAt;
+
+    @Schema(description = "When the job finished.", example = "2024-03-01T10:16:02")
+    private LocalDateTime finishedAt;
+}
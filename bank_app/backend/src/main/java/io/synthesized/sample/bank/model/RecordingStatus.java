@@ -0,0 +1,31 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.Data;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+@Data
+@Schema(
+    description = "State of the backend's flight recording.",
+    example = "{\"name\": \"bank\", \"state\": \"RUNNING\", \"startedAt\": \"2024-03-01T09:30:00\", \"maxAgeMinutes\": 60, \"maxSizeBytes\": 262144000, \"sizeBytes\": 18874368}"
+)
+public class RecordingStatus {
+    @Schema(description = "Recording name, as listed by jcmd JFR.check.", example = "bank")
+    private String name;
+
+    @Schema(description = "NONE if no recording was started, otherwise NEW, RUNNING, STOPPED or CLOSED.", example = "RUNNING")
+    private String state;
+
+    @Schema(description = "When the recording was started.", example = "2024-03-01T09:30:00")
+    private LocalDateTime startedAt;
+
+    @Schema(description = "Older events are discarded.", example = "60")
+    private long maxAgeMinutes;
+
+    @Schema(description = "Oldest events are discarded once the recording reaches this size.", example = "262144000")
+    private long maxSizeBytes;
+
+    @Schema(description = "Size of the data recorded so far.", example = "18874368")
+    private long sizeBytes;
+} 
\ No newline at end of file
@@ -0,0 +1,52 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Data
+@Schema(
+    description = "Differences found in one table between two databases. Rows are matched by primary key.",
+    example = "{\"table\": \"customers\", \"keyColumn\": \"customer_id\", \"leftRowCount\": 100, \"rightRowCount\": 99, \"identical\": false, \"mismatchedRanges\": 2, \"missingInLeftCount\": 0, \"missingInRightCount\": 1, \"changedCount\": 1, \"missingInLeft\": [], \"missingInRight\": [57], \"changed\": [12], \"truncated\": false}"
+)
+public class TableDiff {
+    @Schema(description = "Table name within the bank schema.", example = "customers")
+    private String table;
+
+    @Schema(description = "Primary key column rows are matched on.", example = "customer_id")
+    private String keyColumn;
+
+    @Schema(description = "Number of rows in the left database.", example = "100")
+    private long leftRowCount;
+
+    @Schema(description = "Number of rows in the right database.", example = "99")
+    private long rightRowCount;
+
+    @Schema(description = "True if every row is present on both sides with identical contents.", example = "false")
+    private boolean identical;
+
+    @Schema(description = "Number of top-level key ranges whose checksums differed.", example = "2")
+    private long mismatchedRanges;
+
+    @Schema(description = "Number of keys present only in the right database.", example = "0")
+    private long missingInLeftCount;
+
+    @Schema(description = "Number of keys present only in the left database.", example = "1")
+    private long missingInRightCount;
+
+    @Schema(description = "Number of keys present on both sides with different row contents.", example = "1")
+    private long changedCount;
+
+    @Schema(description = "Sample of keys present only in the right database.")
+    private List<Long> missingInLeft = new ArrayList<>();
+
+    @Schema(description = "Sample of keys present only in the left database.")
+    private List<Long> missingInRight = new ArrayList<>();
+
+    @Schema(description = "Sample of keys whose row contents differ.")
+    private List<Long> changed = new ArrayList<>();
+
+    @Schema(description = "True if drilling down stopped after maxDifferences; the counts then only cover the ranges inspected.", example = "false")
+    private boolean truncated;
+}
@@ -0,0 +1,31 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Data
+@Schema(
+    description = "Aggregated transaction volume for one time bucket. Dimension fields are only set when grouped by.",
+    example = "{\"bucketStart\": \"2024-05-01T00:00:00\", \"transactionType\": \"Deposit\", \"transactionCount\": 42, \"amount\": 12500.00}"
+)
+public class TimeSeriesPoint {
+    @Schema(description = "Start of the hour or day bucket.", example = "2024-05-01T00:00:00")
+    private LocalDateTime bucketStart;
+
+    @Schema(description = "Transaction type, when grouped by transactionType.", example = "Deposit")
+    private String transactionType;
+
+    @Schema(description = "Channel, when grouped by channel.", example = "ATM")
+    private String channel;
+
+    @Schema(description = "Currency, when grouped by currency.", example = "USD")
+    private String currency;
+
+    @Schema(description = "Number of transactions in the bucket.", example = "42")
+    private long transactionCount;
+
+    @Schema(description = "Sum of transaction amounts in the bucket.", example = "12500.00")
+    private BigDecimal amount;
+}
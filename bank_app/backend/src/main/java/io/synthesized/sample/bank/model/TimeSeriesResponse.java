@@ -0,0 +1,32 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Data
+@Schema(
+    description = "Transaction volume time series served from pre-aggregated rollups.",
+    example = "{\"granularity\": \"day\", \"from\": \"2024-05-01T00:00:00\", \"to\": \"2024-05-02T00:00:00\", \"points\": [{\"bucketStart\": \"2024-05-01T00:00:00\", \"transactionCount\": 42, \"amount\": 12500.00}]}"
+)
+public class TimeSeriesResponse {
+    @Schema(description = "Bucket size. Allowed values: hour, day.", example = "day", allowableValues = {"hour", "day"})
+    private String granularity;
+
+    @Schema(description = "Inclusive start of the requested range.", example = "2024-05-01T00:00:00")
+    private LocalDateTime from;
+
+    @Schema(description = "Exclusive end of the requested range.", example = "2024-05-02T00:00:00")
+    private LocalDateTime to;
+
+    @Schema(description = "Buckets ordered by bucketStart. Empty buckets are omitted.")
+    private List<TimeSeriesPoint> points;
+
+    public TimeSeriesResponse(String granularity, LocalDateTime from, LocalDateTime to, List<TimeSeriesPoint> points) {
+        this.granularity = granularity;
+        this.from = from;
+        this.to = to;
+        this.points = points;
+    }
+}
@@ -0,0 +1,42 @@
+package io.synthesized.sample.bank.model;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Data
+@Schema(
+    description = "Recent activity of one account within the velocity window, as tracked in memory.",
+    example = "{\"accountId\": 101, \"windowSeconds\": 600, \"count\": 23, \"amount\": 4150.00, \"byChannel\": {\"ATM\": 17, \"Online\": 6}, \"byDevice\": {\"ATM\": 17}, \"lastActivity\": \"2024-05-01T12:00:00\", \"flagged\": true, \"reasons\": [\"23 transactions in 600 s exceeds 20\", \"17 ATM transactions in 600 s exceeds 15\"]}"
+)
+public class VelocitySnapshot {
+    @Schema(description = "ID of the account.", example = "101")
+    private Integer accountId;
+
+    @Schema(description = "Length of the sliding window in seconds.", example = "600")
+    private long windowSeconds;
+
+    @Schema(description = "Number of tracked transactions (bank.velocity.transaction-types) in the window.", example = "23")
+    private long count;
+
+    @Schema(description = "Sum of the absolute amounts of those transactions, across currencies.", example = "4150.00")
+    private BigDecimal amount;
+
+    @Schema(description = "Transaction count per channel.")
+    private Map<String, Long> byChannel;
+
+    @Schema(description = "Transaction count per device type, for transactions that have one.")
+    private Map<String, Long> byDevice;
+
+    @Schema(description = "Date of the latest tracked transaction, or null if the account has no activity in the window.")
+    private LocalDateTime lastActivity;
+
+    @Schema(description = "Whether any velocity limit is exceeded.", example = "true")
+    private boolean flagged;
+
+    @Schema(description = "The limits that are exceeded.")
+    private List<String> reasons;
+} 
\ No newline at end of file
@@ -1,30 +1,62 @@
 package io.synthesized.sample.bank.repository;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import io.synthesized.sample.bank.model.Account;
 import io.synthesized.sample.bank.model.DatabaseType;
 import io.synthesized.sample.bank.model.AccountResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Set;
 
 @Repository
 public class AccountRepository {
+    private static final Set<String> SORTABLE_COLUMNS = Set.of("account_id", "customer_id", "account_type", "status", "balance");
+
+    // The fields of Account, in its JSON order
+    private static final List<JsonRowWriter.Column> ACCOUNT_JSON_COLUMNS = List.of(
+        JsonRowWriter.Column.of("account_id", "accountId", JsonRowWriter.Kind.INT),
+        JsonRowWriter.Column.of("customer_id", "customerId", JsonRowWriter.Kind.INT),
+        JsonRowWriter.Column.of("account_type", "accountType", JsonRowWriter.Kind.ENUM),
+        JsonRowWriter.Column.of("status", "status", JsonRowWriter.Kind.ENUM),
+        JsonRowWriter.Column.of("balance", "balance", JsonRowWriter.Kind.NUMERIC));
+
+    /** The count and page queries of a filtered listing; the page query takes two more parameters, LIMIT and OFFSET. */
+    private record FilterQuery(String countSql, String pageSql, List<Object> params, List<Object> pageParams) {
+    }
+
     private final JdbcTemplate seedJdbcTemplate;
     private final JdbcTemplate testingJdbcTemplate;
     private final JdbcTemplate prodJdbcTemplate;
+    private final TransactionRollupRepository rollupRepository;
+    private final CustomerSummaryRepository customerSummaryRepository;
+    private final DataVersions dataVersions;
 
     @Autowired
     public AccountRepository(
             @Qualifier("seedJdbcTemplate") JdbcTemplate seedJdbcTemplate,
             @Qualifier("testingJdbcTemplate") JdbcTemplate testingJdbcTemplate,
-            @Qualifier("prodJdbcTemplate") JdbcTemplate prodJdbcTemplate) {
+            @Qualifier("prodJdbcTemplate") JdbcTemplate prodJdbcTemplate,
+            TransactionRollupRepository rollupRepository,
+            CustomerSummaryRepository customerSummaryRepository,
+            DataVersions dataVersions) {
         this.seedJdbcTemplate = seedJdbcTemplate;
         this.testingJdbcTemplate = testingJdbcTemplate;
         this.prodJdbcTemplate = prodJdbcTemplate;
+        this.rollupRepository = rollupRepository;
+        this.customerSummaryRepository = customerSummaryRepository;
+        this.dataVersions = dataVersions;
     }
 
     private JdbcTemplate getJdbcTemplate(DatabaseType databaseType) {
@@ -45,6 +77,35 @@ public class AccountRepository {
         return account;
     };
 
+    /** Loads the given accounts with a single {@code = ANY(?)} query; IDs that do not exist are simply absent. */
+    public List<Account> findByIds(List<Long> accountIds, DatabaseType databaseType) {
+        return getJdbcTemplate(databaseType).query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                """
+                SELECT account_id, customer_id, account_type, status, balance
+                FROM bank.accounts
+                WHERE account_id = ANY(?)
+                """);
+            ps.setArray(1, connection.createArrayOf("int8", accountIds.toArray()));
+            return ps;
+        }, accountRowMapper);
+    }
+
+    /** Loads the accounts of all given customers with a single {@code = ANY(?)} query, ordered by account ID. */
+    public List<Account> findByCustomerIds(List<Long> customerIds, DatabaseType databaseType) {
+        return getJdbcTemplate(databaseType).query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                """
+                SELECT account_id, customer_id, account_type, status, balance
+                FROM bank.accounts
+                WHERE customer_id = ANY(?)
+                ORDER BY account_id
+                """);
+            ps.setArray(1, connection.createArrayOf("int8", customerIds.toArray()));
+            return ps;
+        }, accountRowMapper);
+    }
+
     public List<Account> findAll(DatabaseType databaseType) {
         return getJdbcTemplate(databaseType).query(
             """
@@ -66,7 +127,77 @@ public class AccountRepository {
             String status,
             String accountId,
             String search) {
+        FilterQuery query = filterQuery(page, size, sortBy, sortOrder, accountType, status, accountId, search);
+        
+        // Get total count
+        int totalCount = getJdbcTemplate(databaseType).queryForObject(
+            query.countSql(), 
+            Integer.class, 
+            query.params().toArray()
+        );
+        
+        // Get paginated data
+        List<Account> accounts = getJdbcTemplate(databaseType).query(
+            query.pageSql(),
+            accountRowMapper,
+            query.pageParams().toArray()
+        );
         
+        return new AccountResponse(accounts, totalCount);
+    }
+
+    /** The total count that {@link #findByFilters} would report for these filters. */
+    public int countByFilters(DatabaseType databaseType, String accountType, String status, String accountId, String search) {
+        FilterQuery query = filterQuery(0, 0, null, "ASC", accountType, status, accountId, search);
+        return getJdbcTemplate(databaseType).queryForObject(query.countSql(), Integer.class, query.params().toArray());
+    }
+
+    /**
+     * Writes the page {@link #findByFilters} would return into {@code generator}
+     * as a sequence of JSON objects, one per row, without mapping the rows to
+     * {@link Account}s first.
+     */
+    public void writeByFilters(
+            DatabaseType databaseType,
+            int page,
+            int size,
+            String sortBy,
+            String sortOrder,
+            String accountType,
+            String status,
+            String accountId,
+            String search,
+            JsonGenerator generator) {
+        FilterQuery query = filterQuery(page, size, sortBy, sortOrder, accountType, status, accountId, search);
+        getJdbcTemplate(databaseType).query(
+            query.pageSql(),
+            new JsonRowWriter(generator, ACCOUNT_JSON_COLUMNS),
+            query.pageParams().toArray()
+        );
+    }
+
+    /**
+     * Rejects a sort field or order the listing does not support. Both end up
+     * in the ORDER BY clause, so only known columns and asc/desc get through.
+     */
+    public static void validateSort(String sortBy, String sortOrder) {
+        if (sortBy != null && !sortBy.isEmpty() && !SORTABLE_COLUMNS.contains(sortBy)) {
+            throw new IllegalArgumentException("Invalid sort field: " + sortBy);
+        }
+        if (sortOrder != null && !"asc".equalsIgnoreCase(sortOrder) && !"desc".equalsIgnoreCase(sortOrder)) {
+            throw new IllegalArgumentException("Invalid sort order: " + sortOrder + " (use asc or desc)");
+        }
+    }
+
+    private FilterQuery filterQuery(
+            int page,
+            int size,
+            String sortBy,
+            String sortOrder,
+            String accountType,
+            String status,
+            String accountId,
+            String search) {
         StringBuilder countQuery = new StringBuilder(
             """
             SELECT COUNT(*)
@@ -121,41 +252,70 @@ public class AccountRepository {
         }
         
         // Add sorting
+        validateSort(sortBy, sortOrder);
+        String direction = "desc".equalsIgnoreCase(sortOrder) ? "DESC" : "ASC";
         if (sortBy != null && !sortBy.isEmpty()) {
-            dataQuery.append(" ORDER BY ").append(sortBy).append(" ").append(sortOrder);
+            dataQuery.append(" ORDER BY ").append(sortBy).append(" ").append(direction);
         } else {
-            dataQuery.append(" ORDER BY account_id ").append(sortOrder);
+            dataQuery.append(" ORDER BY account_id ").append(direction);
         }
         
         // Add pagination
         dataQuery.append(" LIMIT ? OFFSET ?");
-        params.add(size);
-        params.add(page * size);
-        
-        // Get total count
-        int totalCount;
-        if (params.isEmpty()) {
-            totalCount = getJdbcTemplate(databaseType).queryForObject(countQuery.toString(), Integer.class);
-        } else {
-            totalCount = getJdbcTemplate(databaseType).queryForObject(
-                countQuery.toString(), 
-                Integer.class, 
-                params.subList(0, params.size() - 2).toArray()
-            );
-        }
+        List<Object> pageParams = new ArrayList<>(params);
+        pageParams.add(size);
+        pageParams.add(page * size);
         
-        // Get paginated data
-        List<Account> accounts = getJdbcTemplate(databaseType).query(
-            dataQuery.toString(),
-            accountRowMapper,
-            params.toArray()
-        );
-        
-        return new AccountResponse(accounts, totalCount);
+        return new FilterQuery(countQuery.toString(), dataQuery.toString(), params, pageParams);
     }
 
     public Account create(Account account, DatabaseType databaseType) {
-        // Validate required fields
+        return createBatch(List.of(account), databaseType).get(0);
+    }
+
+    /**
+     * Inserts the accounts as one JDBC batch in one commit and returns them,
+     * in the same order, with the IDs the database assigned.
+     */
+    public List<Account> createBatch(List<Account> accounts, DatabaseType databaseType) {
+        accounts.forEach(AccountRepository::validateNew);
+        List<Account> created = inTransaction(databaseType, connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    """
+                    INSERT INTO bank.accounts (
+                        customer_id, account_type, status, balance
+                    ) VALUES (?, ?::bank.account_type_enum, ?::bank.account_status_enum, ?)
+                    """,
+                    new String[] {"account_id"})) {
+                for (Account account : accounts) {
+                    ps.setInt(1, account.getCustomerId());
+                    ps.setString(2, account.getAccountType());
+                    ps.setString(3, account.getStatus());
+                    ps.setBigDecimal(4, account.getBalance());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                // Keys come back in batch order
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (Account account : accounts) {
+                        if (!keys.next()) {
+                            throw new SQLException("Fewer generated keys than inserted accounts");
+                        }
+                        account.setAccountId(keys.getInt(1));
+                    }
+                }
+            }
+            customerSummaryRepository.addAccounts(connection,
+                accounts.stream().map(Account::getCustomerId).toArray(Integer[]::new),
+                accounts.stream().map(Account::getBalance).toArray(BigDecimal[]::new));
+            return accounts;
+        });
+        dataVersions.bump(databaseType, DataVersions.Table.ACCOUNTS);
+        return created;
+    }
+
+    /** Rejects an account that cannot be inserted, so it fails on its own rather than with its batch. */
+    public static void validateNew(Account account) {
         if (account.getCustomerId() == null) {
             throw new IllegalArgumentException("Customer ID is required");
         }
@@ -168,36 +328,10 @@ public class AccountRepository {
         if (account.getBalance() == null) {
             throw new IllegalArgumentException("Balance is required");
         }
-
-        // Get the next available account ID
-        Integer nextId = getJdbcTemplate(databaseType).queryForObject(
-            """
-            SELECT COALESCE(MAX(account_id), 0) + 1
-            FROM bank.accounts
-            """,
-            Integer.class
-        );
-
-        // Insert with the generated ID
-        getJdbcTemplate(databaseType).update(
-            """
-            INSERT INTO bank.accounts (
-                customer_id, account_type, status, balance
-            ) VALUES (?, ?::bank.account_type_enum, ?::bank.account_status_enum, ?)
-            """,
-            account.getCustomerId(),
-            account.getAccountType(),
-            account.getStatus(),
-            account.getBalance()
-        );
-
-        account.setAccountId(nextId);
-        return account;
     }
 
-    public Account updateStatus(Integer accountId, String status, DatabaseType databaseType) {
-        // Validate account exists
-        Account existingAccount = getJdbcTemplate(databaseType).queryForObject(
+    public Account findById(Integer accountId, DatabaseType databaseType) {
+        List<Account> accounts = getJdbcTemplate(databaseType).query(
             """
             SELECT account_id, customer_id, account_type, status, balance
             FROM bank.accounts
@@ -206,31 +340,174 @@ public class AccountRepository {
             accountRowMapper,
             accountId
         );
+        return accounts.isEmpty() ? null : accounts.get(0);
+    }
 
-        if (existingAccount == null) {
-            throw new IllegalArgumentException("Account not found with ID: " + accountId);
-        }
-
-        // Update status
-        getJdbcTemplate(databaseType).update(
+    public Account updateStatus(Integer accountId, String status, DatabaseType databaseType) {
+        // Update and read back in one round trip
+        List<Account> updated = getJdbcTemplate(databaseType).query(
             """
             UPDATE bank.accounts
             SET status = ?::bank.account_status_enum
             WHERE account_id = ?
+            RETURNING account_id, customer_id, account_type, status, balance
             """,
+            accountRowMapper,
             status, accountId
         );
 
-        // Return updated account
-        return getJdbcTemplate(databaseType).queryForObject(
-            """
-            SELECT account_id, customer_id, account_type, status, balance
-            FROM bank.accounts
-            WHERE account_id = ?
-            """,
-            accountRowMapper,
-            accountId
-        );
+        if (updated.isEmpty()) {
+            throw new IllegalArgumentException("Account not found with ID: " + accountId);
+        }
+        dataVersions.bump(databaseType, DataVersions.Table.ACCOUNTS);
+        return updated.get(0);
+    }
+
+    /** An account after a bulk status change, with its status before and whether it was rewritten. */
+    public record StatusChange(Account account, String previousStatus, boolean changed) {
+    }
+
+    /**
+     * Sets the status of the given accounts in one database transaction,
+     * {@code batchSize} IDs per statement, and returns the accounts that
+     * exist in account_id order. IDs are locked in ascending order, like
+     * postings, so concurrent changes cannot deadlock.
+     */
+    public List<StatusChange> updateStatuses(List<Integer> accountIds, String status, int batchSize,
+                                             DatabaseType databaseType) {
+        Integer[] sortedIds = accountIds.stream().distinct().sorted().toArray(Integer[]::new);
+        List<StatusChange> updated = inTransaction(databaseType, connection -> {
+            List<StatusChange> changes = new ArrayList<>(sortedIds.length);
+            try (PreparedStatement ps = connection.prepareStatement(statusChangeSql("account_id = ANY(?)", false))) {
+                for (int from = 0; from < sortedIds.length; from += batchSize) {
+                    Integer[] batch = Arrays.copyOfRange(sortedIds, from, Math.min(from + batchSize, sortedIds.length));
+                    ps.setArray(1, connection.createArrayOf("int4", batch));
+                    ps.setString(2, status);
+                    ps.setString(3, status);
+                    readStatusChanges(ps, status, changes);
+                }
+            }
+            return changes;
+        });
+        dataVersions.bump(databaseType, DataVersions.Table.ACCOUNTS);
+        return updated;
+    }
+
+    /**
+     * Sets the status of every account matching the filter (null criteria do
+     * not restrict) in one database transaction, walking the matches in
+     * account_id order {@code batchSize} at a time. Rolls back and throws
+     * if more than {@code maxAccounts} accounts match.
+     */
+    public List<StatusChange> updateStatusesWhere(String accountType, String currentStatus, Integer customerId,
+                                                  String status, int batchSize, int maxAccounts,
+                                                  DatabaseType databaseType) {
+        StringBuilder where = new StringBuilder("account_id > ?");
+        List<Object> params = new ArrayList<>();
+        if (accountType != null && !accountType.isEmpty()) {
+            where.append(" AND account_type = ?::bank.account_type_enum");
+            params.add(accountType);
+        }
+        if (currentStatus != null && !currentStatus.isEmpty()) {
+            where.append(" AND status = ?::bank.account_status_enum");
+            params.add(currentStatus);
+        }
+        if (customerId != null) {
+            where.append(" AND customer_id = ?");
+            params.add(customerId);
+        }
+        String sql = statusChangeSql(where.toString(), true);
+        List<StatusChange> updated = inTransaction(databaseType, connection -> {
+            List<StatusChange> changes = new ArrayList<>();
+            int afterId = Integer.MIN_VALUE;
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                while (true) {
+                    int index = 1;
+                    ps.setInt(index++, afterId);
+                    for (Object param : params) {
+                        ps.setObject(index++, param);
+                    }
+                    ps.setInt(index++, batchSize);
+                    ps.setString(index++, status);
+                    ps.setString(index, status);
+                    int before = changes.size();
+                    readStatusChanges(ps, status, changes);
+                    if (changes.size() > maxAccounts) {
+                        throw new IllegalArgumentException("The filter matches more than " + maxAccounts
+                            + " accounts; narrow it down or change them in several requests");
+                    }
+                    if (changes.size() - before < batchSize) {
+                        return changes;
+                    }
+                    afterId = changes.get(changes.size() - 1).account().getAccountId();
+                }
+            }
+        });
+        dataVersions.bump(databaseType, DataVersions.Table.ACCOUNTS);
+        return updated;
+    }
+
+    /**
+     * One round trip per batch: lock the selected accounts, rewrite those not
+     * already in the target status, and return every locked account with its
+     * previous status. Parameters: the WHERE clause's, then LIMIT if
+     * {@code limited}, then the new status twice.
+     */
+    private static String statusChangeSql(String where, boolean limited) {
+        return """
+            WITH locked AS (
+                SELECT account_id, customer_id, account_type, status, balance
+                FROM bank.accounts
+                WHERE %s
+                ORDER BY account_id
+                %s
+                FOR UPDATE
+            ), changed AS (
+                UPDATE bank.accounts a
+                SET status = ?::bank.account_status_enum
+                FROM locked
+                WHERE a.account_id = locked.account_id
+                  AND locked.status <> ?::bank.account_status_enum
+                RETURNING a.account_id
+            )
+            SELECT locked.account_id, locked.customer_id, locked.account_type, locked.status AS previous_status,
+                   locked.balance, changed.account_id IS NOT NULL AS changed
+            FROM locked
+            LEFT JOIN changed ON changed.account_id = locked.account_id
+            ORDER BY locked.account_id
+            """.formatted(where, limited ? "LIMIT ?" : "");
+    }
+
+    private static void readStatusChanges(PreparedStatement ps, String status, List<StatusChange> changes)
+            throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Account account = new Account();
+                account.setAccountId(rs.getInt("account_id"));
+                account.setCustomerId(rs.getInt("customer_id"));
+                account.setAccountType(rs.getString("account_type"));
+                account.setStatus(status);
+                account.setBalance(rs.getBigDecimal("balance"));
+                changes.add(new StatusChange(account, rs.getString("previous_status"), rs.getBoolean("changed")));
+            }
+        }
+    }
+
+    private <T> T inTransaction(DatabaseType databaseType, ConnectionCallback<T> work) {
+        return getJdbcTemplate(databaseType).execute((Connection connection) -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                T result = work.doInConnection(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
     }
 
     public java.util.Map<String, Integer> countAccountsByStatus(DatabaseType databaseType) {
@@ -244,21 +521,30 @@ public class AccountRepository {
         });
     }
 
-    public void deleteById(int accountId, DatabaseType databaseType) {
+    /** Deletes an account with its transactions and returns the owning customer's ID, or null if there was no such account. */
+    public Integer deleteById(int accountId, DatabaseType databaseType) {
         // Delete transaction metadata for all transactions of this account
         getJdbcTemplate(databaseType).update(
             "DELETE FROM bank.transaction_metadata WHERE transaction_id IN (SELECT transaction_id FROM bank.transactions WHERE account_id = ?)",
             accountId
         );
-        // Delete related transactions
-        getJdbcTemplate(databaseType).update(
-            "DELETE FROM bank.transactions WHERE account_id = ?",
+        // Delete related transactions, feeding the removed rows into the rollups
+        rollupRepository.recording(databaseType, () -> getJdbcTemplate(databaseType).query(
+            "DELETE FROM bank.transactions WHERE account_id = ? RETURNING transaction_date, transaction_type, channel, currency, amount",
+            rollupRepository.removalRecorder(databaseType),
             accountId
-        );
+        ));
         // Then delete the account
-        getJdbcTemplate(databaseType).update(
-            "DELETE FROM bank.accounts WHERE account_id = ?",
+        List<Integer> customerIds = getJdbcTemplate(databaseType).queryForList(
+            "DELETE FROM bank.accounts WHERE account_id = ? RETURNING customer_id",
+            Integer.class,
             accountId
         );
+        if (customerIds.isEmpty()) {
+            return null;
+        }
+        customerSummaryRepository.refreshCustomers(databaseType, List.of(customerIds.get(0).longValue()));
+        dataVersions.bump(databaseType, DataVersions.Table.ACCOUNTS, DataVersions.Table.TRANSACTIONS);
+        return customerIds.get(0);
     }
 } 
\ No newline at end of file
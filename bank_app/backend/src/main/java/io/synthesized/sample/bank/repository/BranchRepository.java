@@ -15,14 +15,17 @@ public class BranchRepository {
     private final JdbcTemplate seedJdbcTemplate;
     private final JdbcTemplate testingJdbcTemplate;
     private final JdbcTemplate prodJdbcTemplate;
+    private final DataVersions dataVersions;
 
     public BranchRepository(
             @Qualifier("seedJdbcTemplate") JdbcTemplate seedJdbcTemplate,
             @Qualifier("testingJdbcTemplate") JdbcTemplate testingJdbcTemplate,
-            @Qualifier("prodJdbcTemplate") JdbcTemplate prodJdbcTemplate) {
+            @Qualifier("prodJdbcTemplate") JdbcTemplate prodJdbcTemplate,
+            DataVersions dataVersions) {
         this.seedJdbcTemplate = seedJdbcTemplate;
         this.testingJdbcTemplate = testingJdbcTemplate;
         this.prodJdbcTemplate = prodJdbcTemplate;
+        this.dataVersions = dataVersions;
     }
 
     private JdbcTemplate getJdbcTemplate(DatabaseType databaseType) {
@@ -54,6 +57,7 @@ public class BranchRepository {
             "UPDATE bank.branches SET manager_name = ? WHERE branch_id = ?",
             managerName, branchId
         );
+        dataVersions.bump(databaseType, DataVersions.Table.BRANCHES);
     }
 
     public void deleteById(DatabaseType databaseType, Integer branchId) {
@@ -61,16 +65,19 @@ public class BranchRepository {
             "DELETE FROM bank.branches WHERE branch_id = ?",
             branchId
         );
+        dataVersions.bump(databaseType, DataVersions.Table.BRANCHES);
     }
 
     public Branch create(DatabaseType databaseType, Branch branch) {
         String sql = "INSERT INTO bank.branches (name, region, manager_name) VALUES (?, ?::bank.region_enum, ?) RETURNING branch_id, name, region, manager_name";
-        return getJdbcTemplate(databaseType).queryForObject(
+        Branch created = getJdbcTemplate(databaseType).queryForObject(
             sql,
             branchRowMapper,
             branch.getName(),
             branch.getRegion(),
             branch.getManagerName()
         );
+        dataVersions.bump(databaseType, DataVersions.Table.BRANCHES);
+        return created;
     }
 } 
\ No newline at end of file
@@ -1,6 +1,8 @@
 package io.synthesized.sample.bank.repository;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import io.synthesized.sample.bank.model.Customer;
+import io.synthesized.sample.bank.model.CustomerSummaryFilter;
 import io.synthesized.sample.bank.model.DatabaseType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -12,23 +14,57 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Repository
 public class CustomerRepository {
+    // Sort fields served by the customer summary's (field, customer_id) indexes
+    private static final Set<String> SUMMARY_SORT_COLUMNS = Set.of("account_count", "total_balance", "last_transaction_date");
+    private static final Set<String> SORTABLE_COLUMNS = Set.of(
+        "customer_id", "first_name", "last_name", "email", "phone", "customer_type", "created_at",
+        "account_count", "total_balance", "last_transaction_date");
+
+    // The fields of Customer, in its JSON order; the rest as selected by the listing query
+    private static final List<JsonRowWriter.Column> CUSTOMER_JSON_COLUMNS = List.of(
+        JsonRowWriter.Column.of("customer_id", "customerId", JsonRowWriter.Kind.LONG),
+        JsonRowWriter.Column.of("first_name", "firstName", JsonRowWriter.Kind.TEXT),
+        JsonRowWriter.Column.of("last_name", "lastName", JsonRowWriter.Kind.TEXT),
+        JsonRowWriter.Column.of("email", "email", JsonRowWriter.Kind.TEXT),
+        JsonRowWriter.Column.of("phone", "phone", JsonRowWriter.Kind.TEXT),
+        JsonRowWriter.Column.of("customer_type", "customerType", JsonRowWriter.Kind.ENUM),
+        JsonRowWriter.Column.of("created_at", "createdAt", JsonRowWriter.Kind.TIMESTAMP),
+        JsonRowWriter.Column.of("account_ids", "accountIds", JsonRowWriter.Kind.INT_ARRAY),
+        JsonRowWriter.Column.of("account_count", "accountCount", JsonRowWriter.Kind.INT),
+        JsonRowWriter.Column.of("total_balance", "totalBalance", JsonRowWriter.Kind.NUMERIC),
+        JsonRowWriter.Column.of("last_transaction_date", "lastTransactionDate", JsonRowWriter.Kind.TIMESTAMP));
 
     private final JdbcTemplate seedJdbcTemplate;
     private final JdbcTemplate testingJdbcTemplate;
     private final JdbcTemplate prodJdbcTemplate;
+    private final TransactionRollupRepository rollupRepository;
+    private final CustomerSummaryRepository customerSummaryRepository;
+    private final DataVersions dataVersions;
 
     @Autowired
     public CustomerRepository(
             @Qualifier("seedJdbcTemplate") JdbcTemplate seedJdbcTemplate,
             @Qualifier("testingJdbcTemplate") JdbcTemplate testingJdbcTemplate,
-            @Qualifier("prodJdbcTemplate") JdbcTemplate prodJdbcTemplate) {
+            @Qualifier("prodJdbcTemplate") JdbcTemplate prodJdbcTemplate,
+            TransactionRollupRepository rollupRepository,
+            CustomerSummaryRepository customerSummaryRepository,
+            DataVersions dataVersions) {
         this.seedJdbcTemplate = seedJdbcTemplate;
         this.testingJdbcTemplate = testingJdbcTemplate;
         this.prodJdbcTemplate = prodJdbcTemplate;
+        this.rollupRepository = rollupRepository;
+        this.customerSummaryRepository = customerSummaryRepository;
+        this.dataVersions = dataVersions;
     }
 
     private JdbcTemplate getJdbcTemplate(DatabaseType databaseType) {
@@ -51,62 +87,115 @@ public class CustomerRepository {
         return customer;
     };
 
+    // For queries selecting c.* plus array_agg(account_id) AS account_ids
+    private final RowMapper<Customer> customerWithAccountsRowMapper = (rs, rowNum) -> {
+        Customer customer = customerRowMapper.mapRow(rs, rowNum);
+        Array accountIdsArray = rs.getArray("account_ids");
+        if (accountIdsArray != null) {
+            Integer[] accountIds = (Integer[]) accountIdsArray.getArray();
+            customer.setAccountIds(Arrays.stream(accountIds)
+                .filter(id -> id != null)
+                .map(Integer::longValue)
+                .collect(Collectors.toList()));
+        } else {
+            customer.setAccountIds(new ArrayList<>());
+        }
+        return customer;
+    };
+
+    // For the listing query, which adds the customer summary columns
+    private final RowMapper<Customer> customerWithSummaryRowMapper = (rs, rowNum) -> {
+        Customer customer = customerWithAccountsRowMapper.mapRow(rs, rowNum);
+        int accountCount = rs.getInt("account_count");
+        customer.setAccountCount(rs.wasNull() ? null : accountCount);
+        customer.setTotalBalance(rs.getBigDecimal("total_balance"));
+        Timestamp lastTransactionDate = rs.getTimestamp("last_transaction_date");
+        customer.setLastTransactionDate(lastTransactionDate != null ? lastTransactionDate.toLocalDateTime() : null);
+        return customer;
+    };
+
     public List<Customer> findAll(String database, int page, int size, String sortBy, String sortOrder,
-                                String customerType, String searchQuery, String customerId) {
+                                String customerType, String searchQuery, String customerId,
+                                CustomerSummaryFilter summaryFilter) {
         DatabaseType databaseType = DatabaseType.valueOf(database.toUpperCase());
-        StringBuilder sql = new StringBuilder(
-            "SELECT c.*, array_agg(ca.account_id) as account_ids " +
-            "FROM bank.customers c " +
-            "LEFT JOIN bank.accounts ca ON c.customer_id = ca.customer_id " +
-            "WHERE 1=1 "
-        );
         List<Object> params = new ArrayList<>();
+        String sql = pageQuery(page, size, sortBy, sortOrder, customerType, searchQuery, customerId, summaryFilter, params);
+        return getJdbcTemplate(databaseType).query(sql, customerWithSummaryRowMapper, params.toArray());
+    }
 
-        if (customerType != null && !customerType.isEmpty()) {
-            sql.append(" AND c.customer_type = ?::bank.customer_type_enum");
-            params.add(customerType);
+    /**
+     * Writes the page {@link #findAll} would return into {@code generator} as
+     * a sequence of JSON objects, one per row, without mapping the rows to
+     * {@link Customer}s first.
+     */
+    public void writeAll(String database, int page, int size, String sortBy, String sortOrder,
+                         String customerType, String searchQuery, String customerId,
+                         CustomerSummaryFilter summaryFilter, JsonGenerator generator) {
+        DatabaseType databaseType = DatabaseType.valueOf(database.toUpperCase());
+        List<Object> params = new ArrayList<>();
+        String sql = pageQuery(page, size, sortBy, sortOrder, customerType, searchQuery, customerId, summaryFilter, params);
+        getJdbcTemplate(databaseType).query(sql, new JsonRowWriter(generator, CUSTOMER_JSON_COLUMNS), params.toArray());
+    }
+
+    /**
+     * The listing query. Per-customer totals come from bank_ops.customer_summary
+     * and account IDs from an indexed subquery, so there is no GROUP BY and
+     * ORDER BY ... LIMIT can walk an index. Sorting or filtering on a summary
+     * field drives the query from the summary table; customers without a
+     * summary row (loaded in bulk since the last rebuild) are then left out,
+     * by {@link #count} as well.
+     */
+    private static String pageQuery(int page, int size, String sortBy, String sortOrder,
+                                    String customerType, String searchQuery, String customerId,
+                                    CustomerSummaryFilter summaryFilter, List<Object> params) {
+        validateSort(sortBy, sortOrder);
+        boolean bySummary = SUMMARY_SORT_COLUMNS.contains(sortBy);
+        String sortColumn = sortBy != null && !sortBy.isEmpty() ? sortBy : "customer_id";
+        String direction = "desc".equalsIgnoreCase(sortOrder) ? "DESC" : "ASC";
+        StringBuilder sql = new StringBuilder(
+            "SELECT c.*, s.account_count, s.total_balance, s.last_transaction_date, " +
+            "ARRAY(SELECT ca.account_id FROM bank.accounts ca WHERE ca.customer_id = c.customer_id ORDER BY ca.account_id) AS account_ids "
+        );
+        if (isDrivenBySummary(sortBy, summaryFilter)) {
+            sql.append("FROM bank_ops.customer_summary s JOIN bank.customers c ON c.customer_id = s.customer_id ");
+        } else {
+            sql.append("FROM bank.customers c LEFT JOIN bank_ops.customer_summary s ON s.customer_id = c.customer_id ");
         }
-        if (customerId != null && !customerId.isEmpty()) {
-            sql.append(" AND c.customer_id = ?");
-            params.add(Long.parseLong(customerId));
-        } else if (searchQuery != null && !searchQuery.isEmpty()) {
-            sql.append(" AND (LOWER(c.first_name) LIKE LOWER(?) OR LOWER(c.last_name) LIKE LOWER(?) OR LOWER(c.email) LIKE LOWER(?))");
-            String q = "%" + searchQuery + "%";
-            params.add(q);
-            params.add(q);
-            params.add(q);
+        sql.append("WHERE 1=1 ");
+        appendFilters(sql, params, customerType, searchQuery, customerId, summaryFilter);
+        if (bySummary) {
+            // The customer_id tie-break keeps pages stable and matches the (field, customer_id) index
+            sql.append(" ORDER BY s.").append(sortColumn).append(" ").append(direction)
+                .append(", s.customer_id ").append(direction);
+        } else {
+            sql.append(" ORDER BY c.").append(sortColumn).append(" ").append(direction);
         }
-        sql.append(" GROUP BY c.customer_id, c.first_name, c.last_name, c.email, c.phone, c.customer_type, c.created_at");
-        sql.append(" ORDER BY c.").append(sortBy).append(" ").append(sortOrder);
         sql.append(" LIMIT ? OFFSET ?");
         params.add(size);
         params.add(page * size);
+        return sql.toString();
+    }
 
-        return getJdbcTemplate(databaseType).query(sql.toString(), (rs, rowNum) -> {
-            Customer customer = customerRowMapper.mapRow(rs, rowNum);
-            Array accountIdsArray = rs.getArray("account_ids");
-            if (accountIdsArray != null) {
-                Integer[] accountIds = (Integer[]) accountIdsArray.getArray();
-                customer.setAccountIds(Arrays.stream(accountIds)
-                    .filter(id -> id != null)
-                    .map(Integer::longValue)
-                    .collect(Collectors.toList()));
-            } else {
-                customer.setAccountIds(new ArrayList<>());
-            }
-            return customer;
-        }, params.toArray());
+    /**
+     * Rejects a sort field or order the listing does not support. Both end up
+     * in the ORDER BY clause, so only known columns and asc/desc get through.
+     */
+    public static void validateSort(String sortBy, String sortOrder) {
+        if (sortBy != null && !sortBy.isEmpty() && !SORTABLE_COLUMNS.contains(sortBy)) {
+            throw new IllegalArgumentException("Invalid sort field: " + sortBy);
+        }
+        if (sortOrder != null && !"asc".equalsIgnoreCase(sortOrder) && !"desc".equalsIgnoreCase(sortOrder)) {
+            throw new IllegalArgumentException("Invalid sort order: " + sortOrder + " (use asc or desc)");
+        }
     }
 
-    public int count(String database, String customerType, String searchQuery, String customerId) {
-        DatabaseType databaseType = DatabaseType.valueOf(database.toUpperCase());
-        StringBuilder sql = new StringBuilder(
-            "SELECT COUNT(DISTINCT c.customer_id) " +
-            "FROM bank.customers c " +
-            "WHERE 1=1 "
-        );
-        List<Object> params = new ArrayList<>();
+    /** Whether a listing only includes customers with a summary row. */
+    public static boolean isDrivenBySummary(String sortBy, CustomerSummaryFilter summaryFilter) {
+        return SUMMARY_SORT_COLUMNS.contains(sortBy) || !summaryFilter.isEmpty();
+    }
 
+    private static void appendFilters(StringBuilder sql, List<Object> params, String customerType, String searchQuery,
+                                      String customerId, CustomerSummaryFilter summaryFilter) {
         if (customerType != null && !customerType.isEmpty()) {
             sql.append(" AND c.customer_type = ?::bank.customer_type_enum");
             params.add(customerType);
@@ -121,6 +210,43 @@ public class CustomerRepository {
             params.add(q);
             params.add(q);
         }
+        if (summaryFilter.minAccounts() != null) {
+            sql.append(" AND s.account_count >= ?");
+            params.add(summaryFilter.minAccounts());
+        }
+        if (summaryFilter.maxAccounts() != null) {
+            sql.append(" AND s.account_count <= ?");
+            params.add(summaryFilter.maxAccounts());
+        }
+        if (summaryFilter.minBalance() != null) {
+            sql.append(" AND s.total_balance >= ?");
+            params.add(summaryFilter.minBalance());
+        }
+        if (summaryFilter.maxBalance() != null) {
+            sql.append(" AND s.total_balance <= ?");
+            params.add(summaryFilter.maxBalance());
+        }
+        if (summaryFilter.lastTransactionFrom() != null) {
+            sql.append(" AND s.last_transaction_date >= ?");
+            params.add(Timestamp.valueOf(summaryFilter.lastTransactionFrom()));
+        }
+        if (summaryFilter.lastTransactionTo() != null) {
+            sql.append(" AND s.last_transaction_date <= ?");
+            params.add(Timestamp.valueOf(summaryFilter.lastTransactionTo()));
+        }
+    }
+
+    /** Counts the customers the listing with the same sort and filters pages through. */
+    public int count(String database, String sortBy, String customerType, String searchQuery, String customerId,
+                     CustomerSummaryFilter summaryFilter) {
+        DatabaseType databaseType = DatabaseType.valueOf(database.toUpperCase());
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM bank.customers c ");
+        if (isDrivenBySummary(sortBy, summaryFilter)) {
+            sql.append("JOIN bank_ops.customer_summary s ON s.customer_id = c.customer_id ");
+        }
+        sql.append("WHERE 1=1 ");
+        List<Object> params = new ArrayList<>();
+        appendFilters(sql, params, customerType, searchQuery, customerId, summaryFilter);
 
         return getJdbcTemplate(databaseType).queryForObject(sql.toString(), params.toArray(), Integer.class);
     }
@@ -134,33 +260,73 @@ public class CustomerRepository {
             "WHERE c.customer_id = ? " +
             "GROUP BY c.customer_id, c.first_name, c.last_name, c.email, c.phone, c.customer_type, c.created_at";
         
-        return getJdbcTemplate(databaseType).queryForObject(sql, (rs, rowNum) -> {
-            Customer customer = customerRowMapper.mapRow(rs, rowNum);
-            Array accountIdsArray = rs.getArray("account_ids");
-            if (accountIdsArray != null) {
-                Integer[] accountIds = (Integer[]) accountIdsArray.getArray();
-                customer.setAccountIds(Arrays.stream(accountIds)
-                    .filter(id -> id != null)
-                    .map(Integer::longValue)
-                    .collect(Collectors.toList()));
-            } else {
-                customer.setAccountIds(new ArrayList<>());
-            }
-            return customer;
-        }, customerId);
+        return getJdbcTemplate(databaseType).queryForObject(sql, customerWithAccountsRowMapper, customerId);
+    }
+
+    /** Loads the given customers with a single {@code = ANY(?)} query; IDs that do not exist are simply absent. */
+    public List<Customer> findByIds(DatabaseType databaseType, List<Long> customerIds) {
+        String sql =
+            "SELECT c.*, array_agg(ca.account_id) as account_ids " +
+            "FROM bank.customers c " +
+            "LEFT JOIN bank.accounts ca ON c.customer_id = ca.customer_id " +
+            "WHERE c.customer_id = ANY(?) " +
+            "GROUP BY c.customer_id, c.first_name, c.last_name, c.email, c.phone, c.customer_type, c.created_at";
+
+        return getJdbcTemplate(databaseType).query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setArray(1, connection.createArrayOf("int8", customerIds.toArray()));
+            return ps;
+        }, customerWithAccountsRowMapper);
     }
 
     public Customer create(String database, Customer customer) {
-        DatabaseType databaseType = DatabaseType.valueOf(database.toUpperCase());
-        String sql = "INSERT INTO bank.customers (first_name, last_name, email, phone, customer_type) " +
-                "VALUES (?, ?, ?, ?, ?::bank.customer_type_enum) RETURNING *";
-        
-        return getJdbcTemplate(databaseType).queryForObject(sql, customerRowMapper,
-                customer.getFirstName(),
-                customer.getLastName(),
-                customer.getEmail(),
-                customer.getPhone(),
-                customer.getCustomerType());
+        return createBatch(List.of(customer), DatabaseType.valueOf(database.toUpperCase())).get(0);
+    }
+
+    /**
+     * Inserts the customers as one JDBC batch in one commit and returns them,
+     * in the same order, with the IDs and creation times the database assigned.
+     */
+    public List<Customer> createBatch(List<Customer> customers, DatabaseType databaseType) {
+        List<Customer> created = getJdbcTemplate(databaseType).execute((Connection connection) -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO bank.customers (first_name, last_name, email, phone, customer_type) " +
+                    "VALUES (?, ?, ?, ?, ?::bank.customer_type_enum)",
+                    new String[] {"customer_id", "created_at"})) {
+                for (Customer customer : customers) {
+                    ps.setString(1, customer.getFirstName());
+                    ps.setString(2, customer.getLastName());
+                    ps.setString(3, customer.getEmail());
+                    ps.setString(4, customer.getPhone());
+                    ps.setString(5, customer.getCustomerType());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                // Keys come back in batch order
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (Customer customer : customers) {
+                        if (!keys.next()) {
+                            throw new SQLException("Fewer generated keys than inserted customers");
+                        }
+                        customer.setCustomerId(keys.getLong("customer_id"));
+                        customer.setCreatedAt(keys.getTimestamp("created_at").toLocalDateTime());
+                    }
+                }
+                customerSummaryRepository.addCustomers(connection,
+                    customers.stream().map(Customer::getCustomerId).toArray(Long[]::new));
+                connection.commit();
+                return customers;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+        dataVersions.bump(databaseType, DataVersions.Table.CUSTOMERS);
+        return created;
     }
 
     public void deleteById(String database, Long customerId) {
@@ -177,11 +343,12 @@ public class CustomerRepository {
                 "DELETE FROM bank.transaction_metadata WHERE transaction_id IN (SELECT transaction_id FROM bank.transactions WHERE account_id = ?)",
                 accountId
             );
-            // Delete related transactions
-            getJdbcTemplate(databaseType).update(
-                "DELETE FROM bank.transactions WHERE account_id = ?",
+            // Delete related transactions, feeding the removed rows into the rollups
+            rollupRepository.recording(databaseType, () -> getJdbcTemplate(databaseType).query(
+                "DELETE FROM bank.transactions WHERE account_id = ? RETURNING transaction_date, transaction_type, channel, currency, amount",
+                rollupRepository.removalRecorder(databaseType),
                 accountId
-            );
+            ));
             // Delete the account
             getJdbcTemplate(databaseType).update(
                 "DELETE FROM bank.accounts WHERE account_id = ?",
@@ -193,5 +360,8 @@ public class CustomerRepository {
             "DELETE FROM bank.customers WHERE customer_id = ?",
             customerId
         );
+        customerSummaryRepository.refreshCustomers(databaseType, List.of(customerId));
+        dataVersions.bump(databaseType, DataVersions.Table.CUSTOMERS, DataVersions.Table.ACCOUNTS,
+            DataVersions.Table.TRANSACTIONS);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,255 @@
+package io.synthesized.sample.bank.repository;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * The per-customer read model in bank_ops.customer_summary: account count,
+ * total balance and latest transaction date, so that the customer list can
+ * sort and filter on them without aggregating accounts and transactions.
+ *
+ * <p>Inserts (customers, accounts, postings) apply deltas inside the
+ * writer's own database transaction via the {@code Connection} methods.
+ * Deletes recompute the affected customers with {@link #refreshCustomers} or
+ * {@link #refreshAccounts}, since a removed transaction may have been the
+ * latest one. {@link #rebuild} recomputes the whole table after bulk loads.
+ */
+@Repository
+public class CustomerSummaryRepository {
+    private final JdbcTemplate seedJdbcTemplate;
+    private final JdbcTemplate testingJdbcTemplate;
+    private final JdbcTemplate prodJdbcTemplate;
+    private final DataVersions dataVersions;
+
+    @Autowired
+    public CustomerSummaryRepository(
+            @Qualifier("seedJdbcTemplate") JdbcTemplate seedJdbcTemplate,
+            @Qualifier("testingJdbcTemplate") JdbcTemplate testingJdbcTemplate,
+            @Qualifier("prodJdbcTemplate") JdbcTemplate prodJdbcTemplate,
+            DataVersions dataVersions) {
+        this.seedJdbcTemplate = seedJdbcTemplate;
+        this.testingJdbcTemplate = testingJdbcTemplate;
+        this.prodJdbcTemplate = prodJdbcTemplate;
+        this.dataVersions = dataVersions;
+    }
+
+    private JdbcTemplate getJdbcTemplate(DatabaseType databaseType) {
+        return switch (databaseType) {
+            case SEED -> seedJdbcTemplate;
+            case TESTING -> testingJdbcTemplate;
+            case PROD -> prodJdbcTemplate;
+        };
+    }
+
+    /** Adds empty summaries for newly inserted customers. */
+    public void addCustomers(Connection connection, Long[] customerIds) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                """
+                INSERT INTO bank_ops.customer_summary (customer_id)
+                SELECT unnest(?::int8[])
+                ON CONFLICT (customer_id) DO NOTHING
+                """)) {
+            ps.setArray(1, connection.createArrayOf("int8", customerIds));
+            ps.executeUpdate();
+        }
+    }
+
+    /** Counts newly inserted accounts, given as parallel arrays, towards their customers. */
+    public void addAccounts(Connection connection, Integer[] customerIds, BigDecimal[] balances) throws SQLException {
+        // Customer rows are touched in ascending order so concurrent writers cannot deadlock on them
+        try (PreparedStatement ps = connection.prepareStatement(
+                """
+                INSERT INTO bank_ops.customer_summary AS s (customer_id, account_count, total_balance)
+                SELECT customer_id, COUNT(*), SUM(balance)
+                FROM unnest(?::int8[], ?::numeric[]) AS a(customer_id, balance)
+                GROUP BY customer_id
+                ORDER BY customer_id
+                ON CONFLICT (customer_id) DO UPDATE SET
+                    account_count = s.account_count + EXCLUDED.account_count,
+                    total_balance = s.total_balance + EXCLUDED.total_balance
+                """)) {
+            ps.setArray(1, connection.createArrayOf("int8", customerIds));
+            ps.setArray(2, connection.createArrayOf("numeric", balances));
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Applies posted transactions, given as parallel arrays: each moves its
+     * account's balance by its amount and may be the customer's latest.
+     */
+    public void addPostings(Connection connection, Integer[] accountIds, BigDecimal[] amounts, Timestamp[] dates)
+            throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                """
+                INSERT INTO bank_ops.customer_summary AS s (customer_id, total_balance, last_transaction_date)
+                SELECT a.customer_id, SUM(p.amount), MAX(p.transaction_date)
+                FROM unnest(?::int4[], ?::numeric[], ?::timestamp[]) AS p(account_id, amount, transaction_date)
+                JOIN bank.accounts a ON a.account_id = p.account_id
+                GROUP BY a.customer_id
+                ORDER BY a.customer_id
+                ON CONFLICT (customer_id) DO UPDATE SET
+                    total_balance = s.total_balance + EXCLUDED.total_balance,
+                    last_transaction_date = GREATEST(s.last_transaction_date, EXCLUDED.last_transaction_date)
+                """)) {
+            ps.setArray(1, connection.createArrayOf("int4", accountIds));
+            ps.setArray(2, connection.createArrayOf("numeric", amounts));
+            ps.setArray(3, connection.createArrayOf("timestamp", dates));
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Recomputes the summaries of the given customers, dropping those of
+     * customers that no longer exist.
+     *
+     * <p>The summary rows are locked before aggregating. A posting that
+     * commits first is then visible to the aggregate. A posting that comes
+     * later waits for the lock and applies its delta on top of the recomputed
+     * values, instead of being overwritten by them.
+     */
+    public void refreshCustomers(DatabaseType databaseType, Collection<Long> customerIds) {
+        if (customerIds.isEmpty()) {
+            return;
+        }
+        getJdbcTemplate(databaseType).execute((Connection connection) -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                Array ids = connection.createArrayOf("int8", customerIds.toArray());
+                // Same ascending order as the writers, so this cannot deadlock with them
+                try (PreparedStatement lock = connection.prepareStatement(
+                        """
+                        SELECT customer_id FROM bank_ops.customer_summary
+                        WHERE customer_id = ANY(?)
+                        ORDER BY customer_id
+                        FOR UPDATE
+                        """)) {
+                    lock.setArray(1, ids);
+                    lock.executeQuery().close();
+                }
+                try (PreparedStatement ps = connection.prepareStatement(
+                        """
+                        WITH ids AS (
+                            SELECT DISTINCT unnest(?::int8[]) AS customer_id
+                        ), removed AS (
+                            DELETE FROM bank_ops.customer_summary s
+                            USING ids
+                            WHERE s.customer_id = ids.customer_id
+                              AND NOT EXISTS (SELECT 1 FROM bank.customers c WHERE c.customer_id = ids.customer_id)
+                        )
+                        INSERT INTO bank_ops.customer_summary AS s (customer_id, account_count, total_balance, last_transaction_date)
+                        SELECT c.customer_id,
+                               (SELECT COUNT(*) FROM bank.accounts a WHERE a.customer_id = c.customer_id),
+                               (SELECT COALESCE(SUM(a.balance), 0) FROM bank.accounts a WHERE a.customer_id = c.customer_id),
+                               (SELECT MAX(t.transaction_date)
+                                FROM bank.accounts a
+                                JOIN bank.transactions t ON t.account_id = a.account_id
+                                WHERE a.customer_id = c.customer_id)
+                        FROM bank.customers c
+                        JOIN ids ON ids.customer_id = c.customer_id
+                        ORDER BY c.customer_id
+                        ON CONFLICT (customer_id) DO UPDATE SET
+                            account_count = EXCLUDED.account_count,
+                            total_balance = EXCLUDED.total_balance,
+                            last_transaction_date = EXCLUDED.last_transaction_date
+                        """)) {
+                    ps.setArray(1, ids);
+                    ps.executeUpdate();
+                }
+                connection.commit();
+                return null;
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    /** Recomputes the summaries of the customers owning the given accounts. */
+    public void refreshAccounts(DatabaseType databaseType, Collection<Integer> accountIds) {
+        if (accountIds.isEmpty()) {
+            return;
+        }
+        refreshCustomers(databaseType, getJdbcTemplate(databaseType).query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                "SELECT DISTINCT customer_id FROM bank.accounts WHERE account_id = ANY(?)");
+            ps.setArray(1, connection.createArrayOf("int4", accountIds.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getLong("customer_id")));
+    }
+
+    /** Recomputes the whole table from bank.customers, bank.accounts and bank.transactions in one database transaction. */
+    public void rebuild(DatabaseType databaseType) {
+        getJdbcTemplate(databaseType).execute((Connection connection) -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (var statement = connection.createStatement()) {
+                statement.execute("DELETE FROM bank_ops.customer_summary");
+                statement.execute(
+                    """
+                    INSERT INTO bank_ops.customer_summary (customer_id, account_count, total_balance, last_transaction_date)
+                    SELECT c.customer_id, COALESCE(a.account_count, 0), COALESCE(a.total_balance, 0), a.last_transaction_date
+                    FROM bank.customers c
+                    LEFT JOIN (
+                        SELECT a.customer_id, COUNT(*) AS account_count, SUM(a.balance) AS total_balance,
+                               MAX(t.last_transaction_date) AS last_transaction_date
+                        FROM bank.accounts a
+                        LEFT JOIN (
+                            SELECT account_id, MAX(transaction_date) AS last_transaction_date
+                            FROM bank.transactions
+                            GROUP BY account_id
+                        ) t ON t.account_id = a.account_id
+                        GROUP BY a.customer_id
+                    ) a ON a.customer_id = c.customer_id
+                    """
+                );
+                connection.commit();
+                return null;
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+        // The customer list reads the summary
+        dataVersions.bump(databaseType, DataVersions.Table.CUSTOMERS);
+    }
+
+    /**
+     * Cheap consistency check for the catch-up job: customer count, account
+     * count, balance total and latest transaction date, once as summarized and
+     * once from the bank tables. Keys: customers, accounts, balance, last_transaction.
+     */
+    public Map<String, Object> totals(DatabaseType databaseType, boolean fromSummary) {
+        return getJdbcTemplate(databaseType).queryForMap(fromSummary
+            ? """
+              SELECT COUNT(*) AS customers, COALESCE(SUM(account_count), 0) AS accounts,
+                     COALESCE(SUM(total_balance), 0) AS balance, MAX(last_transaction_date) AS last_transaction
+              FROM bank_ops.customer_summary
+              """
+            : """
+              SELECT (SELECT COUNT(*) FROM bank.customers) AS customers,
+                     (SELECT COUNT(*) FROM bank.accounts a WHERE EXISTS (
+                         SELECT 1 FROM bank.customers c WHERE c.customer_id = a.customer_id)) AS accounts,
+                     (SELECT COALESCE(SUM(a.balance), 0) FROM bank.accounts a WHERE EXISTS (
+                         SELECT 1 FROM bank.customers c WHERE c.customer_id = a.customer_id)) AS balance,
+                     (SELECT MAX(transaction_date) FROM bank.transactions) AS last_transaction
+              """);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,79 @@
+package io.synthesized.sample.bank.repository;
+
+import io.synthesized.sample.bank.model.DataChangeEvent;
+import io.synthesized.sample.bank.model.DatabaseResetEvent;
+import io.synthesized.sample.bank.model.DatabaseType;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-database data versions of the bank tables, bumped by the repository
+ * write paths once their change is committed. Caches of query results tag
+ * each entry with {@link #version} of the tables it read and drop it once
+ * that no longer matches, so a write only invalidates results of the tables
+ * it touched.
+ *
+ * <p>Changes committed by other backend instances or made outside the
+ * backend (Synthesized workflows, SQL scripts) bump the versions when their
+ * change notification arrives as a {@link DataChangeEvent}.
+ */
+@Component
+public class DataVersions {
+
+    public enum Table {
+        CUSTOMERS, ACCOUNTS, TRANSACTIONS, BRANCHES;
+
+        /** The bank table this stands for, as named in change notifications. */
+        public String tableName() {
+            return name().toLowerCase();
+        }
+    }
+
+    // Versions come from one clock, so the highest version of a set of tables changes whenever any of them is bumped
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<DatabaseType, AtomicLongArray> versions = new EnumMap<>(DatabaseType.class);
+
+    public DataVersions() {
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            versions.put(databaseType, new AtomicLongArray(Table.values().length));
+        }
+    }
+
+    /** The combined version of {@code tables}; it changes whenever one of them is bumped. */
+    public long version(DatabaseType databaseType, Table... tables) {
+        AtomicLongArray tableVersions = versions.get(databaseType);
+        long version = 0;
+        for (Table table : tables) {
+            version = Math.max(version, tableVersions.get(table.ordinal()));
+        }
+        return version;
+    }
+
+    /** Marks {@code tables} as changed; call after the change is committed. */
+    public void bump(DatabaseType databaseType, Table... tables) {
+        AtomicLongArray tableVersions = versions.get(databaseType);
+        long version = clock.incrementAndGet();
+        for (Table table : tables) {
+            tableVersions.accumulateAndGet(table.ordinal(), version, Math::max);
+        }
+    }
+
+    @EventListener
+    public void onDatabaseReset(DatabaseResetEvent event) {
+        bump(event.databaseType(), Table.values());
+    }
+
+    @EventListener
+    public void onDataChange(DataChangeEvent event) {
+        for (Table table : Table.values()) {
+            if (event.affects(table.tableName())) {
+                bump(event.databaseType(), table);
+            }
+        }
+    }
+} 
\ No newline at end of file
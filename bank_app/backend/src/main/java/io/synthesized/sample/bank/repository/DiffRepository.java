@@ -0,0 +1,123 @@
+package io.synthesized.sample.bank.repository;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Computes row checksums for comparing a bank table between two databases.
+ * All hashing happens inside PostgreSQL, so only per-range aggregates (and,
+ * for small leaf ranges, one key/hash pair per row) cross the wire.
+ */
+@Repository
+public class DiffRepository {
+    /** Comparable tables and their single-column integer primary keys, in dependency order. */
+    public static final Map<String, String> TABLE_KEYS;
+
+    static {
+        Map<String, String> keys = new LinkedHashMap<>();
+        keys.put("branches", "branch_id");
+        keys.put("customers", "customer_id");
+        keys.put("accounts", "account_id");
+        keys.put("transactions", "transaction_id");
+        keys.put("transaction_metadata", "transaction_id");
+        TABLE_KEYS = Collections.unmodifiableMap(keys);
+    }
+
+    private final JdbcTemplate seedJdbcTemplate;
+    private final JdbcTemplate testingJdbcTemplate;
+    private final JdbcTemplate prodJdbcTemplate;
+
+    @Autowired
+    public DiffRepository(
+            @Qualifier("seedJdbcTemplate") JdbcTemplate seedJdbcTemplate,
+            @Qualifier("testingJdbcTemplate") JdbcTemplate testingJdbcTemplate,
+            @Qualifier("prodJdbcTemplate") JdbcTemplate prodJdbcTemplate) {
+        this.seedJdbcTemplate = seedJdbcTemplate;
+        this.testingJdbcTemplate = testingJdbcTemplate;
+        this.prodJdbcTemplate = prodJdbcTemplate;
+    }
+
+    private JdbcTemplate getJdbcTemplate(DatabaseType databaseType) {
+        return switch (databaseType) {
+            case SEED -> seedJdbcTemplate;
+            case TESTING -> testingJdbcTemplate;
+            case PROD -> prodJdbcTemplate;
+        };
+    }
+
+    /** Key range and row count of a table; min and max are null for an empty table. */
+    public record KeyRange(Long min, Long max, long count) {
+    }
+
+    /** Row count and hash sum of one key range. */
+    public record Checksum(long count, BigDecimal hashSum) {
+    }
+
+    /** Key and content hash of a single row. */
+    public record RowHash(long key, long hash) {
+    }
+
+    public KeyRange keyRange(DatabaseType databaseType, String table) {
+        String key = keyColumn(table);
+        return getJdbcTemplate(databaseType).queryForObject(
+            "SELECT MIN(" + key + "), MAX(" + key + "), COUNT(*) FROM bank." + table,
+            (rs, rowNum) -> new KeyRange(
+                rs.getObject(1, Long.class),
+                rs.getObject(2, Long.class),
+                rs.getLong(3))
+        );
+    }
+
+    /**
+     * Checksums of the keys in [from, to], grouped into buckets of
+     * {@code width} consecutive keys. Bucket n covers keys
+     * from + n * width .. from + (n + 1) * width - 1; buckets without rows are
+     * absent from the result.
+     */
+    public Map<Long, Checksum> bucketChecksums(DatabaseType databaseType, String table, long from, long to, long width) {
+        String key = keyColumn(table);
+        Map<Long, Checksum> checksums = new TreeMap<>();
+        getJdbcTemplate(databaseType).query(
+            "SELECT (r." + key + "::bigint - ?) / ? AS bucket, COUNT(*), SUM(hashtextextended(r::text, 0))"
+                + " FROM bank." + table + " r"
+                + " WHERE r." + key + " BETWEEN ? AND ?"
+                + " GROUP BY 1",
+            rs -> {
+                checksums.put(rs.getLong(1), new Checksum(rs.getLong(2), rs.getBigDecimal(3)));
+            },
+            from, width, from, to
+        );
+        return checksums;
+    }
+
+    /** Per-row hashes of the keys in [from, to], in key order. */
+    public List<RowHash> rowHashes(DatabaseType databaseType, String table, long from, long to) {
+        String key = keyColumn(table);
+        return getJdbcTemplate(databaseType).query(
+            "SELECT r." + key + ", hashtextextended(r::text, 0)"
+                + " FROM bank." + table + " r"
+                + " WHERE r." + key + " BETWEEN ? AND ?"
+                + " ORDER BY r." + key,
+            (rs, rowNum) -> new RowHash(rs.getLong(1), rs.getLong(2)),
+            from, to
+        );
+    }
+
+    private static String keyColumn(String table) {
+        String key = TABLE_KEYS.get(table);
+        if (key == null) {
+            throw new IllegalArgumentException("Unknown table: " + table + ". Allowed values: " + String.join(", ", TABLE_KEYS.keySet()));
+        }
+        return key;
+    }
+}
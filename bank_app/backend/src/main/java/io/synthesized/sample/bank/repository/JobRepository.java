@@ -0,0 +1,215 @@
+package io.synthesized.sample.bank.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.Job;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Job state in bank_ops.jobs. Each database records the jobs run against it.
+ */
+@Repository
+public class JobRepository {
+    private static final TypeReference<Map<String, String>> PARAMETERS_TYPE = new TypeReference<>() {
+    };
+
+    private final JdbcTemplate seedJdbcTemplate;
+    private final JdbcTemplate testingJdbcTemplate;
+    private final JdbcTemplate prodJdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public JobRepository(
+            @Qualifier("seedJdbcTemplate") JdbcTemplate seedJdbcTemplate,
+            @Qualifier("testingJdbcTemplate") JdbcTemplate testingJdbcTemplate,
+            @Qualifier("prodJdbcTemplate") JdbcTemplate prodJdbcTemplate,
+            ObjectMapper objectMapper) {
+        this.seedJdbcTemplate = seedJdbcTemplate;
+        this.testingJdbcTemplate = testingJdbcTemplate;
+        this.prodJdbcTemplate = prodJdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    private JdbcTemplate getJdbcTemplate(DatabaseType databaseType) {
+        return switch (databaseType) {
+            case SEED -> seedJdbcTemplate;
+            case TESTING -> testingJdbcTemplate;
+            case PROD -> prodJdbcTemplate;
+        };
+    }
+
+    private RowMapper<Job> jobRowMapper(DatabaseType databaseType) {
+        return (rs, rowNum) -> {
+            Job job = new Job();
+            job.setJobId(rs.getObject("job_id", UUID.class));
+            job.setDatabase(databaseType);
+            job.setType(rs.getString("job_type"));
+            job.setStatus(Job.Status.valueOf(rs.getString("status")));
+            job.setParameters(readParameters(rs.getString("parameters")));
+            long total = rs.getLong("total_items");
+            job.setTotalItems(rs.wasNull() ? null : total);
+            job.setProcessedItems(rs.getLong("processed_items"));
+            job.setFailedItems(rs.getLong("failed_items"));
+            job.setMessage(rs.getString("message"));
+            job.setResultFile(rs.getString("result_file"));
+            job.setCancelRequested(rs.getBoolean("cancel_requested"));
+            job.setOwner(rs.getString("owner"));
+            job.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+            job.setStartedAt(toLocalDateTime(rs.getTimestamp("started_at")));
+            job.setFinishedAt(toLocalDateTime(rs.getTimestamp("finished_at")));
+            return job;
+        };
+    }
+
+    /**
+     * Inserts or overwrites the row of a job and renews its heartbeat. Jobs
+     * that replace their own database (restores, clones) rely on the upsert
+     * to write their final state into the new copy of the table.
+     *
+     * @return whether cancellation has been requested, possibly through
+     *         another backend instance
+     */
+    public boolean save(Job job) {
+        Boolean cancelRequested = getJdbcTemplate(job.getDatabase()).queryForObject(
+            """
+            INSERT INTO bank_ops.jobs (job_id, job_type, status, parameters, total_items, processed_items, failed_items,
+                                       message, result_file, cancel_requested, owner, heartbeat_at,
+                                       created_at, started_at, finished_at)
+            VALUES (?, ?, ?, ?::jsonb, ?, ?, ?, ?, ?, ?, ?, LOCALTIMESTAMP, ?, ?, ?)
+            ON CONFLICT (job_id) DO UPDATE SET
+                status = EXCLUDED.status,
+                total_items = EXCLUDED.total_items,
+                processed_items = EXCLUDED.processed_items,
+                failed_items = EXCLUDED.failed_items,
+                message = EXCLUDED.message,
+                result_file = EXCLUDED.result_file,
+                cancel_requested = bank_ops.jobs.cancel_requested OR EXCLUDED.cancel_requested,
+                owner = EXCLUDED.owner,
+                heartbeat_at = EXCLUDED.heartbeat_at,
+                started_at = EXCLUDED.started_at,
+                finished_at = EXCLUDED.finished_at
+            RETURNING cancel_requested
+            """,
+            Boolean.class,
+            job.getJobId(),
+            job.getType(),
+            job.getStatus().name(),
+            writeParameters(job.getParameters()),
+            job.getTotalItems(),
+            job.getProcessedItems(),
+            job.getFailedItems(),
+            job.getMessage(),
+            job.getResultFile(),
+            job.isCancelRequested(),
+            job.getOwner(),
+            toTimestamp(job.getCreatedAt()),
+            toTimestamp(job.getStartedAt()),
+            toTimestamp(job.getFinishedAt())
+        );
+        return Boolean.TRUE.equals(cancelRequested);
+    }
+
+    public Optional<Job> findById(DatabaseType databaseType, UUID jobId) {
+        return getJdbcTemplate(databaseType).query(
+            "SELECT * FROM bank_ops.jobs WHERE job_id = ?",
+            jobRowMapper(databaseType),
+            jobId
+        ).stream().findFirst();
+    }
+
+    public List<Job> findRecent(DatabaseType databaseType, int limit) {
+        return getJdbcTemplate(databaseType).query(
+            "SELECT * FROM bank_ops.jobs ORDER BY created_at DESC LIMIT ?",
+            jobRowMapper(databaseType),
+            limit
+        );
+    }
+
+    /**
+     * Requests cancellation of a job running in another backend instance,
+     * which sees the flag with its next save or heartbeat. Returns false if
+     * the job is unknown or finished.
+     */
+    public boolean requestCancel(DatabaseType databaseType, UUID jobId) {
+        return getJdbcTemplate(databaseType).update(
+            """
+            UPDATE bank_ops.jobs
+            SET cancel_requested = TRUE
+            WHERE job_id = ? AND status IN ('QUEUED', 'RUNNING')
+            """,
+            jobId
+        ) > 0;
+    }
+
+    /**
+     * Marks a queued or running job as failed once no instance has renewed
+     * its heartbeat for {@code staleAfterMs}, i.e. it was lost with its
+     * instance or came back with a restored snapshot. Returns false if the
+     * job has finished or is still alive on some instance.
+     */
+    public boolean markInterrupted(DatabaseType databaseType, UUID jobId, String message, LocalDateTime now,
+                                   long staleAfterMs) {
+        return getJdbcTemplate(databaseType).update(
+            """
+            UPDATE bank_ops.jobs
+            SET status = 'FAILED', message = ?, finished_at = ?
+            WHERE job_id = ? AND status IN ('QUEUED', 'RUNNING')
+              AND (heartbeat_at IS NULL OR heartbeat_at < LOCALTIMESTAMP - make_interval(secs => ?))
+            """,
+            message,
+            Timestamp.valueOf(now),
+            jobId,
+            staleAfterMs / 1000.0
+        ) > 0;
+    }
+
+    /** Deletes finished jobs created before {@code cutoff} and returns their result files. */
+    public List<String> deleteFinishedBefore(DatabaseType databaseType, LocalDateTime cutoff) {
+        return getJdbcTemplate(databaseType).query(
+            """
+            DELETE FROM bank_ops.jobs
+            WHERE created_at < ? AND status IN ('SUCCEEDED', 'FAILED', 'CANCELLED')
+            RETURNING result_file
+            """,
+            (rs, rowNum) -> rs.getString("result_file"),
+            Timestamp.valueOf(cutoff)
+        );
+    }
+
+    private Map<String, String> readParameters(String json) {
+        try {
+            return json == null ? Map.of() : objectMapper.readValue(json, PARAMETERS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid job parameters: " + json, e);
+        }
+    }
+
+    private String writeParameters(Map<String, String> parameters) {
+        try {
+            return objectMapper.writeValueAsString(parameters == null ? Map.of() : parameters);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid job parameters: " + parameters, e);
+        }
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp value) {
+        return value != null ? value.toLocalDateTime() : null;
+    }
+}
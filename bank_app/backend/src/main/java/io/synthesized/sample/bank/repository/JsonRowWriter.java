@@ -0,0 +1,193 @@
+package io.synthesized.sample.bank.repository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Writes each row of a result set as a JSON object straight into a
+ * {@link JsonGenerator}, without building model objects first. Field names
+ * are encoded once per column list and enum labels once per process, so a
+ * row costs little more than its column values. The output matches what
+ * Jackson writes for the corresponding model class, provided the columns
+ * are listed in the model's field order.
+ */
+public final class JsonRowWriter implements RowCallbackHandler {
+    /** How a column is read and written. */
+    public enum Kind {
+        /** {@code int4}; NULL is written as null */
+        INT,
+        /** {@code int8}; NULL is written as null */
+        LONG,
+        /** Free text */
+        TEXT,
+        /** A Postgres enum; its labels are few, so they are encoded once and reused */
+        ENUM,
+        /** {@code numeric}, written from its text form exactly as a BigDecimal would be */
+        NUMERIC,
+        /** {@code timestamp}, written as an ISO-8601 local date-time */
+        TIMESTAMP,
+        /** An integer array, e.g. from {@code array_agg}; NULL elements are dropped */
+        INT_ARRAY
+    }
+
+    public record Column(String label, SerializedString field, Kind kind) {
+        public static Column of(String label, String field, Kind kind) {
+            return new Column(label, new SerializedString(field), kind);
+        }
+    }
+
+    // Enum labels are a small closed set; the cap only guards against misuse with free text
+    private static final int MAX_ENUM_LABELS = 1024;
+    private static final ConcurrentMap<String, SerializedString> ENUM_LABELS = new ConcurrentHashMap<>();
+
+    private final JsonGenerator generator;
+    private final List<Column> columns;
+    private final char[] timestamp = new char[32];
+    private int[] indexes;
+    private int rowCount;
+
+    public JsonRowWriter(JsonGenerator generator, List<Column> columns) {
+        this.generator = generator;
+        this.columns = columns;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        if (indexes == null) {
+            indexes = new int[columns.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = rs.findColumn(columns.get(i).label());
+            }
+        }
+        try {
+            generator.writeStartObject();
+            for (int i = 0; i < indexes.length; i++) {
+                Column column = columns.get(i);
+                generator.writeFieldName(column.field());
+                writeValue(rs, indexes[i], column.kind());
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rowCount++;
+    }
+
+    private void writeValue(ResultSet rs, int index, Kind kind) throws SQLException, IOException {
+        switch (kind) {
+            case INT -> {
+                int value = rs.getInt(index);
+                if (rs.wasNull()) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(value);
+                }
+            }
+            case LONG -> {
+                long value = rs.getLong(index);
+                if (rs.wasNull()) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(value);
+                }
+            }
+            case TEXT -> writeNullable(rs.getString(index));
+            case ENUM -> {
+                String label = rs.getString(index);
+                if (label == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeString(encodedLabel(label));
+                }
+            }
+            case NUMERIC -> {
+                String value = rs.getString(index);
+                if (value == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(value);
+                }
+            }
+            case TIMESTAMP -> writeTimestamp(rs, index);
+            case INT_ARRAY -> writeIntArray(rs.getArray(index));
+        }
+    }
+
+    private void writeNullable(String value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value);
+        }
+    }
+
+    /**
+     * Postgres prints a timestamp as {@code 2024-05-01 12:00:00.5}, which is
+     * ISO-8601 apart from the separator, with trailing fraction zeros already
+     * trimmed as Java does. Anything else (BC dates, infinity, years past
+     * 9999) goes through Jackson's own LocalDateTime serializer.
+     */
+    private void writeTimestamp(ResultSet rs, int index) throws SQLException, IOException {
+        String value = rs.getString(index);
+        if (value == null) {
+            generator.writeNull();
+        } else if (isPlainTimestamp(value)) {
+            value.getChars(0, value.length(), timestamp, 0);
+            timestamp[10] = 'T';
+            generator.writeString(timestamp, 0, value.length());
+        } else {
+            generator.writeObject(rs.getObject(index, LocalDateTime.class));
+        }
+    }
+
+    private boolean isPlainTimestamp(String value) {
+        int length = value.length();
+        if (length < 19 || length > timestamp.length || value.charAt(4) != '-' || value.charAt(10) != ' ') {
+            return false;
+        }
+        for (int i = 19; i < length; i++) {
+            char c = value.charAt(i);
+            if (c != '.' && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeIntArray(Array array) throws SQLException, IOException {
+        generator.writeStartArray();
+        if (array != null) {
+            for (Object element : (Object[]) array.getArray()) {
+                if (element instanceof Number number) {
+                    generator.writeNumber(number.longValue());
+                }
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private static SerializedString encodedLabel(String label) {
+        SerializedString encoded = ENUM_LABELS.get(label);
+        if (encoded == null) {
+            encoded = new SerializedString(label);
+            if (ENUM_LABELS.size() < MAX_ENUM_LABELS) {
+                ENUM_LABELS.putIfAbsent(label, encoded);
+            }
+        }
+        return encoded;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,345 @@
+package io.synthesized.sample.bank.repository;
+
+import io.synthesized.sample.bank.model.DatabaseResetEvent;
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Applies batches of postings (transaction + metadata + balance change) to
+ * bank.accounts and bank.transactions inside a single database transaction.
+ */
+@Repository
+public class PostingRepository {
+    private static final Set<String> NON_POSTABLE_STATUSES = Set.of("Closed", "Frozen");
+
+    private final JdbcTemplate seedJdbcTemplate;
+    private final JdbcTemplate testingJdbcTemplate;
+    private final JdbcTemplate prodJdbcTemplate;
+    private final TransactionRollupRepository rollupRepository;
+    private final CustomerSummaryRepository customerSummaryRepository;
+    private final DataVersions dataVersions;
+
+    // Prod and seed data are loaded with explicit IDs, so the SERIAL sequence
+    // has to be moved past MAX(transaction_id) before we rely on it.
+    private final Map<DatabaseType, Boolean> sequenceSynced = new EnumMap<>(DatabaseType.class);
+
+    @Autowired
+    public PostingRepository(
+            @Qualifier("seedJdbcTemplate") JdbcTemplate seedJdbcTemplate,
+            @Qualifier("testingJdbcTemplate") JdbcTemplate testingJdbcTemplate,
+            @Qualifier("prodJdbcTemplate") JdbcTemplate prodJdbcTemplate,
+            TransactionRollupRepository rollupRepository,
+            CustomerSummaryRepository customerSummaryRepository,
+            DataVersions dataVersions) {
+        this.seedJdbcTemplate = seedJdbcTemplate;
+        this.testingJdbcTemplate = testingJdbcTemplate;
+        this.prodJdbcTemplate = prodJdbcTemplate;
+        this.rollupRepository = rollupRepository;
+        this.customerSummaryRepository = customerSummaryRepository;
+        this.dataVersions = dataVersions;
+    }
+
+    private JdbcTemplate getJdbcTemplate(DatabaseType databaseType) {
+        return switch (databaseType) {
+            case SEED -> seedJdbcTemplate;
+            case TESTING -> testingJdbcTemplate;
+            case PROD -> prodJdbcTemplate;
+        };
+    }
+
+    /**
+     * Outcome of a single posting within a batch. Exactly one of
+     * {@code transaction} and {@code rejection} is set.
+     */
+    public record PostingOutcome(Transaction transaction, String rejection) {
+        static PostingOutcome posted(Transaction transaction) {
+            return new PostingOutcome(transaction, null);
+        }
+
+        static PostingOutcome rejected(String reason) {
+            return new PostingOutcome(null, reason);
+        }
+
+        public boolean isPosted() {
+            return rejection == null;
+        }
+    }
+
+    /**
+     * Posts all transactions in one commit. Accounts are locked in ascending
+     * account_id order so concurrent batches can never deadlock each other.
+     * Postings against missing, closed or frozen accounts are rejected
+     * individually; any SQL failure rolls back the whole batch.
+     */
+    public List<PostingOutcome> postBatch(List<Transaction> postings, DatabaseType databaseType) {
+        ensureSequenceSynced(databaseType);
+        List<PostingOutcome> outcomes = rollupRepository.recording(databaseType, () -> {
+            List<PostingOutcome> committed = getJdbcTemplate(databaseType).execute((Connection connection) -> {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    List<PostingOutcome> batchOutcomes = postBatch(connection, postings);
+                    connection.commit();
+                    return batchOutcomes;
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            });
+            for (PostingOutcome outcome : committed) {
+                if (outcome.isPosted()) {
+                    Transaction t = outcome.transaction();
+                    rollupRepository.record(databaseType, t.getTransactionDate(), t.getTransactionType(),
+                        t.getChannel(), t.getCurrency(), t.getAmount(), 1);
+                }
+            }
+            return committed;
+        });
+
+        boolean posted = outcomes.stream().anyMatch(PostingOutcome::isPosted);
+        if (posted) {
+            dataVersions.bump(databaseType, DataVersions.Table.TRANSACTIONS, DataVersions.Table.ACCOUNTS);
+        }
+        return outcomes;
+    }
+
+    /**
+     * Forces the transaction_id sequence to be re-synchronised on the next
+     * batch, e.g. after a duplicate key caused by rows loaded with explicit IDs.
+     */
+    public void invalidateSequence(DatabaseType databaseType) {
+        synchronized (sequenceSynced) {
+            sequenceSynced.remove(databaseType);
+        }
+    }
+
+    @EventListener
+    public void onDatabaseReset(DatabaseResetEvent event) {
+        invalidateSequence(event.databaseType());
+    }
+
+    private void ensureSequenceSynced(DatabaseType databaseType) {
+        synchronized (sequenceSynced) {
+            if (sequenceSynced.containsKey(databaseType)) {
+                return;
+            }
+            // GREATEST with nextval() keeps the sequence from ever moving backwards
+            getJdbcTemplate(databaseType).queryForObject(
+                """
+                SELECT setval(
+                    pg_get_serial_sequence('bank.transactions', 'transaction_id'),
+                    GREATEST(
+                        (SELECT COALESCE(MAX(transaction_id), 0) + 1 FROM bank.transactions),
+                        nextval(pg_get_serial_sequence('bank.transactions', 'transaction_id'))
+                    ),
+                    false
+                )
+                """,
+                Long.class
+            );
+            sequenceSynced.put(databaseType, Boolean.TRUE);
+        }
+    }
+
+    private List<PostingOutcome> postBatch(Connection connection, List<Transaction> postings) throws SQLException {
+        Map<Integer, String> lockedAccounts = lockAccounts(connection, postings);
+
+        List<PostingOutcome> outcomes = new ArrayList<>(postings.size());
+        List<Transaction> accepted = new ArrayList<>(postings.size());
+        Map<Integer, BigDecimal> balanceDeltas = new TreeMap<>();
+        for (Transaction posting : postings) {
+            String status = lockedAccounts.get(posting.getAccountId());
+            if (status == null) {
+                outcomes.add(PostingOutcome.rejected("Account not found with ID: " + posting.getAccountId()));
+            } else if (NON_POSTABLE_STATUSES.contains(status)) {
+                outcomes.add(PostingOutcome.rejected("Account " + posting.getAccountId() + " is " + status + " and cannot be posted to"));
+            } else {
+                accepted.add(posting);
+                balanceDeltas.merge(posting.getAccountId(), posting.getAmount(), BigDecimal::add);
+                outcomes.add(PostingOutcome.posted(posting));
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            updateBalances(connection, balanceDeltas);
+            assignTransactionIds(connection, accepted);
+            insertTransactions(connection, accepted);
+            insertMetadata(connection, accepted);
+            updateCustomerSummaries(connection, accepted);
+        }
+        return outcomes;
+    }
+
+    private Map<Integer, String> lockAccounts(Connection connection, List<Transaction> postings) throws SQLException {
+        Integer[] accountIds = postings.stream()
+            .map(Transaction::getAccountId)
+            .distinct()
+            .sorted()
+            .toArray(Integer[]::new);
+
+        Map<Integer, String> statuses = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                """
+                SELECT account_id, status
+                FROM bank.accounts
+                WHERE account_id = ANY(?)
+                ORDER BY account_id
+                FOR UPDATE
+                """)) {
+            ps.setArray(1, connection.createArrayOf("int4", accountIds));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    statuses.put(rs.getInt("account_id"), rs.getString("status"));
+                }
+            }
+        }
+        return statuses;
+    }
+
+    private void updateBalances(Connection connection, Map<Integer, BigDecimal> balanceDeltas) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                """
+                UPDATE bank.accounts a
+                SET balance = a.balance + d.delta
+                FROM unnest(?::int[], ?::numeric[]) AS d(account_id, delta)
+                WHERE a.account_id = d.account_id
+                """)) {
+            ps.setArray(1, connection.createArrayOf("int4", balanceDeltas.keySet().toArray(new Integer[0])));
+            ps.setArray(2, connection.createArrayOf("numeric", balanceDeltas.values().toArray(new BigDecimal[0])));
+            ps.executeUpdate();
+        }
+    }
+
+    private void assignTransactionIds(Connection connection, List<Transaction> accepted) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                """
+                SELECT nextval(pg_get_serial_sequence('bank.transactions', 'transaction_id'))
+                FROM generate_series(1, ?)
+                """)) {
+            ps.setInt(1, accepted.size());
+            try (ResultSet rs = ps.executeQuery()) {
+                int i = 0;
+                while (rs.next()) {
+                    accepted.get(i++).setTransactionId(rs.getInt(1));
+                }
+            }
+        }
+    }
+
+    private void insertTransactions(Connection connection, List<Transaction> accepted) throws SQLException {
+        int n = accepted.size();
+        Integer[] ids = new Integer[n];
+        Integer[] accountIds = new Integer[n];
+        String[] types = new String[n];
+        Timestamp[] dates = new Timestamp[n];
+        BigDecimal[] amounts = new BigDecimal[n];
+        String[] currencies = new String[n];
+        String[] channels = new String[n];
+        for (int i = 0; i < n; i++) {
+            Transaction t = accepted.get(i);
+            ids[i] = t.getTransactionId();
+            accountIds[i] = t.getAccountId();
+            types[i] = t.getTransactionType();
+            dates[i] = Timestamp.valueOf(t.getTransactionDate());
+            amounts[i] = t.getAmount();
+            currencies[i] = t.getCurrency();
+            channels[i] = t.getChannel();
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                """
+                INSERT INTO bank.transactions (
+                    transaction_id, account_id, transaction_type, transaction_date,
+                    amount, currency, channel
+                )
+                SELECT id, account_id, transaction_type::bank.transaction_type_enum, transaction_date,
+                       amount, currency::bank.currency_enum, channel::bank.channel_enum
+                FROM unnest(?::int[], ?::int[], ?::text[], ?::timestamp[], ?::numeric[], ?::text[], ?::text[])
+                    AS p(id, account_id, transaction_type, transaction_date, amount, currency, channel)
+                """)) {
+            ps.setArray(1, array(connection, "int4", ids));
+            ps.setArray(2, array(connection, "int4", accountIds));
+            ps.setArray(3, array(connection, "text", types));
+            ps.setArray(4, array(connection, "timestamp", dates));
+            ps.setArray(5, array(connection, "numeric", amounts));
+            ps.setArray(6, array(connection, "text", currencies));
+            ps.setArray(7, array(connection, "text", channels));
+            ps.executeUpdate();
+        }
+    }
+
+    private void insertMetadata(Connection connection, List<Transaction> accepted) throws SQLException {
+        int n = accepted.size();
+        Integer[] ids = new Integer[n];
+        String[] channelDetails = new String[n];
+        String[] locations = new String[n];
+        String[] deviceTypes = new String[n];
+        String[] authMethods = new String[n];
+        for (int i = 0; i < n; i++) {
+            Transaction t = accepted.get(i);
+            ids[i] = t.getTransactionId();
+            channelDetails[i] = t.getChannelDetails();
+            locations[i] = t.getLocation();
+            deviceTypes[i] = t.getDeviceType();
+            authMethods[i] = t.getAuthMethod();
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                """
+                INSERT INTO bank.transaction_metadata (
+                    transaction_id, channel_details, location, device_type, auth_method
+                )
+                SELECT id, channel_details, location,
+                       device_type::bank.device_type_enum, auth_method::bank.auth_method_enum
+                FROM unnest(?::int[], ?::text[], ?::text[], ?::text[], ?::text[])
+                    AS m(id, channel_details, location, device_type, auth_method)
+                """)) {
+            ps.setArray(1, array(connection, "int4", ids));
+            ps.setArray(2, array(connection, "text", channelDetails));
+            ps.setArray(3, array(connection, "text", locations));
+            ps.setArray(4, array(connection, "text", deviceTypes));
+            ps.setArray(5, array(connection, "text", authMethods));
+            ps.executeUpdate();
+        }
+    }
+
+    private void updateCustomerSummaries(Connection connection, List<Transaction> accepted) throws SQLException {
+        int n = accepted.size();
+        Integer[] accountIds = new Integer[n];
+        BigDecimal[] amounts = new BigDecimal[n];
+        Timestamp[] dates = new Timestamp[n];
+        for (int i = 0; i < n; i++) {
+            Transaction t = accepted.get(i);
+            accountIds[i] = t.getAccountId();
+            amounts[i] = t.getAmount();
+            dates[i] = Timestamp.valueOf(t.getTransactionDate());
+        }
+        customerSummaryRepository.addPostings(connection, accountIds, amounts, dates);
+    }
+
+    private static Array array(Connection connection, String typeName, Object[] values) throws SQLException {
+        return connection.createArrayOf(typeName, values);
+    }
+}
@@ -0,0 +1,152 @@
+package io.synthesized.sample.bank.repository;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Maintains the monthly range partitions of bank.transactions when the
+ * database was set up with database/sql/partition_transactions.sql.
+ * Partitions are named transactions_pYYYYMM and cover one calendar month.
+ */
+@Repository
+public class TransactionPartitionRepository {
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String DEFAULT_PARTITION = "transactions_default";
+
+    private final JdbcTemplate seedJdbcTemplate;
+    private final JdbcTemplate testingJdbcTemplate;
+    private final JdbcTemplate prodJdbcTemplate;
+    private final DataVersions dataVersions;
+
+    @Autowired
+    public TransactionPartitionRepository(
+            @Qualifier("seedJdbcTemplate") JdbcTemplate seedJdbcTemplate,
+            @Qualifier("testingJdbcTemplate") JdbcTemplate testingJdbcTemplate,
+            @Qualifier("prodJdbcTemplate") JdbcTemplate prodJdbcTemplate,
+            DataVersions dataVersions) {
+        this.seedJdbcTemplate = seedJdbcTemplate;
+        this.testingJdbcTemplate = testingJdbcTemplate;
+        this.prodJdbcTemplate = prodJdbcTemplate;
+        this.dataVersions = dataVersions;
+    }
+
+    private JdbcTemplate getJdbcTemplate(DatabaseType databaseType) {
+        return switch (databaseType) {
+            case SEED -> seedJdbcTemplate;
+            case TESTING -> testingJdbcTemplate;
+            case PROD -> prodJdbcTemplate;
+        };
+    }
+
+    public static String partitionName(LocalDate month) {
+        return "transactions_p" + month.format(PARTITION_SUFFIX);
+    }
+
+    public boolean isPartitioned(DatabaseType databaseType) {
+        Boolean partitioned = getJdbcTemplate(databaseType).queryForObject(
+            """
+            SELECT EXISTS (
+                SELECT 1
+                FROM pg_class c
+                JOIN pg_namespace n ON n.oid = c.relnamespace
+                WHERE n.nspname = 'bank' AND c.relname = 'transactions' AND c.relkind = 'p'
+            )
+            """,
+            Boolean.class
+        );
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    /**
+     * Names of the monthly partitions currently attached to bank.transactions,
+     * in ascending order. The default partition is not included.
+     */
+    public List<String> findMonthlyPartitions(DatabaseType databaseType) {
+        return getJdbcTemplate(databaseType).queryForList(
+            """
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'bank.transactions'::regclass
+              AND c.relname ~ '^transactions_p[0-9]{6}$'
+            ORDER BY c.relname
+            """,
+            String.class
+        );
+    }
+
+    /**
+     * Creates the partition for the month starting at {@code month}. Rows
+     * already sitting in the default partition for that month are moved into
+     * the new partition before it is attached; otherwise the attach would
+     * fail on the default partition's implicit constraint.
+     *
+     * @return the number of rows moved out of the default partition
+     */
+    public int createMonthlyPartition(DatabaseType databaseType, LocalDate month) {
+        String partition = partitionName(month);
+        Timestamp from = Timestamp.valueOf(month.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atStartOfDay());
+
+        return getJdbcTemplate(databaseType).execute((Connection connection) -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("CREATE TABLE bank." + partition
+                        + " (LIKE bank.transactions INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+                }
+
+                int moved;
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "WITH moved AS ("
+                        + " DELETE FROM bank." + DEFAULT_PARTITION
+                        + " WHERE transaction_date >= ? AND transaction_date < ?"
+                        + " RETURNING *"
+                        + ") INSERT INTO bank." + partition + " SELECT * FROM moved")) {
+                    ps.setTimestamp(1, from);
+                    ps.setTimestamp(2, to);
+                    moved = ps.executeUpdate();
+                }
+
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("ALTER TABLE bank.transactions ATTACH PARTITION bank." + partition
+                        + " FOR VALUES FROM ('" + month + "') TO ('" + month.plusMonths(1) + "')");
+                }
+                connection.commit();
+                return moved;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    /**
+     * Detaches a monthly partition. The table is kept (and its metadata rows
+     * with it) so it can be archived, dropped or re-attached by hand.
+     */
+    public void detachPartition(DatabaseType databaseType, String partition) {
+        if (!partition.matches("transactions_p[0-9]{6}")) {
+            throw new IllegalArgumentException("Not a monthly transactions partition: " + partition);
+        }
+        getJdbcTemplate(databaseType).execute(
+            "ALTER TABLE bank.transactions DETACH PARTITION bank." + partition
+        );
+        dataVersions.bump(databaseType, DataVersions.Table.TRANSACTIONS);
+    }
+}
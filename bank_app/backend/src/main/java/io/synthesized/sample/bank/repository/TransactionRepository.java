@@ -1,30 +1,67 @@
 package io.synthesized.sample.bank.repository;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import io.synthesized.sample.bank.model.Transaction;
 import io.synthesized.sample.bank.model.DatabaseType;
 import io.synthesized.sample.bank.model.TransactionResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
 
 @Repository
 public class TransactionRepository {
+    private static final Set<String> SORTABLE_COLUMNS = Set.of(
+        "transaction_id", "account_id", "transaction_type", "transaction_date", "amount", "channel", "currency");
+
+    // The fields of Transaction, in its JSON order
+    private static final List<JsonRowWriter.Column> TRANSACTION_JSON_COLUMNS = List.of(
+        JsonRowWriter.Column.of("transaction_id", "transactionId", JsonRowWriter.Kind.INT),
+        JsonRowWriter.Column.of("account_id", "accountId", JsonRowWriter.Kind.INT),
+        JsonRowWriter.Column.of("transaction_type", "transactionType", JsonRowWriter.Kind.ENUM),
+        JsonRowWriter.Column.of("transaction_date", "transactionDate", JsonRowWriter.Kind.TIMESTAMP),
+        JsonRowWriter.Column.of("amount", "amount", JsonRowWriter.Kind.NUMERIC),
+        JsonRowWriter.Column.of("channel", "channel", JsonRowWriter.Kind.ENUM),
+        JsonRowWriter.Column.of("currency", "currency", JsonRowWriter.Kind.ENUM),
+        JsonRowWriter.Column.of("channel_details", "channelDetails", JsonRowWriter.Kind.TEXT),
+        JsonRowWriter.Column.of("location", "location", JsonRowWriter.Kind.TEXT),
+        JsonRowWriter.Column.of("device_type", "deviceType", JsonRowWriter.Kind.ENUM),
+        JsonRowWriter.Column.of("auth_method", "authMethod", JsonRowWriter.Kind.ENUM));
+
+    /** The count and page queries of a filtered listing; the page query takes two more parameters, LIMIT and OFFSET. */
+    private record FilterQuery(String countSql, String pageSql, List<Object> params, List<Object> pageParams) {
+    }
+
     private final JdbcTemplate seedJdbcTemplate;
     private final JdbcTemplate testingJdbcTemplate;
     private final JdbcTemplate prodJdbcTemplate;
+    private final TransactionRollupRepository rollupRepository;
+    private final CustomerSummaryRepository customerSummaryRepository;
+    private final DataVersions dataVersions;
 
     @Autowired
     public TransactionRepository(
             @Qualifier("seedJdbcTemplate") JdbcTemplate seedJdbcTemplate,
             @Qualifier("testingJdbcTemplate") JdbcTemplate testingJdbcTemplate,
-            @Qualifier("prodJdbcTemplate") JdbcTemplate prodJdbcTemplate) {
+            @Qualifier("prodJdbcTemplate") JdbcTemplate prodJdbcTemplate,
+            TransactionRollupRepository rollupRepository,
+            CustomerSummaryRepository customerSummaryRepository,
+            DataVersions dataVersions) {
         this.seedJdbcTemplate = seedJdbcTemplate;
         this.testingJdbcTemplate = testingJdbcTemplate;
         this.prodJdbcTemplate = prodJdbcTemplate;
+        this.rollupRepository = rollupRepository;
+        this.customerSummaryRepository = customerSummaryRepository;
+        this.dataVersions = dataVersions;
     }
 
     private JdbcTemplate getJdbcTemplate(DatabaseType databaseType) {
@@ -63,6 +100,70 @@ public class TransactionRepository {
         );
     }
 
+    /** Loads the given transactions with a single {@code = ANY(?)} query; IDs that do not exist are simply absent. */
+    public List<Transaction> findByIds(List<Long> transactionIds, DatabaseType databaseType) {
+        return getJdbcTemplate(databaseType).query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                """
+                SELECT t.*, tm.channel_details, tm.location, tm.device_type, tm.auth_method
+                FROM bank.transactions t
+                LEFT JOIN bank.transaction_metadata tm ON t.transaction_id = tm.transaction_id
+                WHERE t.transaction_id = ANY(?)
+                """);
+            ps.setArray(1, connection.createArrayOf("int8", transactionIds.toArray()));
+            return ps;
+        }, transactionRowMapper);
+    }
+
+    /**
+     * Loads the latest {@code limit} transactions of each given account with
+     * one query: a LATERAL top-N per account, each answered by a short scan
+     * of transactions_account_recent_idx. Rows come grouped by account,
+     * newest first.
+     */
+    public List<Transaction> findRecentByAccountIds(List<Long> accountIds, int limit, DatabaseType databaseType) {
+        return getJdbcTemplate(databaseType).query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                """
+                SELECT t.*, tm.channel_details, tm.location, tm.device_type, tm.auth_method
+                FROM unnest(?::int8[]) AS a(account_id)
+                CROSS JOIN LATERAL (
+                    SELECT *
+                    FROM bank.transactions
+                    WHERE account_id = a.account_id
+                    ORDER BY transaction_date DESC, transaction_id DESC
+                    LIMIT ?
+                ) t
+                LEFT JOIN bank.transaction_metadata tm ON t.transaction_id = tm.transaction_id
+                ORDER BY t.account_id, t.transaction_date DESC, t.transaction_id DESC
+                """);
+            ps.setArray(1, connection.createArrayOf("int8", accountIds.toArray()));
+            ps.setInt(2, limit);
+            return ps;
+        }, transactionRowMapper);
+    }
+
+    /**
+     * Streams the account, date, channel, device type and amount of every
+     * transaction of the given types dated at or after {@code since}.
+     */
+    public void forEachSince(DatabaseType databaseType, LocalDateTime since, List<String> transactionTypes,
+                             RowCallbackHandler handler) {
+        getJdbcTemplate(databaseType).query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                """
+                SELECT t.account_id, t.transaction_date, t.channel, t.amount, tm.device_type
+                FROM bank.transactions t
+                LEFT JOIN bank.transaction_metadata tm ON t.transaction_id = tm.transaction_id
+                WHERE t.transaction_date >= ?
+                  AND t.transaction_type::text = ANY(?)
+                """);
+            ps.setTimestamp(1, Timestamp.valueOf(since));
+            ps.setArray(2, connection.createArrayOf("text", transactionTypes.toArray()));
+            return ps;
+        }, handler);
+    }
+
     public TransactionResponse findByFilters(
             DatabaseType databaseType,
             String transactionType,
@@ -72,166 +173,169 @@ public class TransactionRepository {
             String sortOrder,
             int page,
             int size,
-            String accountIds) {
+            String accountIds,
+            LocalDateTime dateFrom,
+            LocalDateTime dateTo) {
+        FilterQuery query = filterQuery(transactionType, transactionId, search, sortBy, sortOrder, page, size,
+            accountIds, dateFrom, dateTo);
         
-        StringBuilder countQuery = new StringBuilder(
-            """
-            SELECT COUNT(*)
-            FROM bank.transactions t
-            LEFT JOIN bank.transaction_metadata tm ON t.transaction_id = tm.transaction_id
-            WHERE 1=1
-            """
+        // Get total count
+        int totalCount = getJdbcTemplate(databaseType).queryForObject(
+            query.countSql(),
+            Integer.class,
+            query.params().toArray()
         );
         
-        StringBuilder dataQuery = new StringBuilder(
-            """
-            SELECT t.*, tm.channel_details, tm.location, tm.device_type, tm.auth_method
-            FROM bank.transactions t
-            LEFT JOIN bank.transaction_metadata tm ON t.transaction_id = tm.transaction_id
-            WHERE 1=1
-            """
+        // Get paginated data
+        List<Transaction> transactions = getJdbcTemplate(databaseType).query(
+            query.pageSql(),
+            transactionRowMapper,
+            query.pageParams().toArray()
         );
         
+        return new TransactionResponse(transactions, totalCount);
+    }
+
+    /** The total count that {@link #findByFilters} would report for these filters. */
+    public int countByFilters(
+            DatabaseType databaseType,
+            String transactionType,
+            String transactionId,
+            String search,
+            String accountIds,
+            LocalDateTime dateFrom,
+            LocalDateTime dateTo) {
+        FilterQuery query = filterQuery(transactionType, transactionId, search, null, null, 0, 0,
+            accountIds, dateFrom, dateTo);
+        return getJdbcTemplate(databaseType).queryForObject(query.countSql(), Integer.class, query.params().toArray());
+    }
+
+    /**
+     * Writes the page {@link #findByFilters} would return into {@code generator}
+     * as a sequence of JSON objects, one per row, without mapping the rows to
+     * {@link Transaction}s first.
+     */
+    public void writeByFilters(
+            DatabaseType databaseType,
+            String transactionType,
+            String transactionId,
+            String search,
+            String sortBy,
+            String sortOrder,
+            int page,
+            int size,
+            String accountIds,
+            LocalDateTime dateFrom,
+            LocalDateTime dateTo,
+            JsonGenerator generator) {
+        FilterQuery query = filterQuery(transactionType, transactionId, search, sortBy, sortOrder, page, size,
+            accountIds, dateFrom, dateTo);
+        getJdbcTemplate(databaseType).query(
+            query.pageSql(),
+            new JsonRowWriter(generator, TRANSACTION_JSON_COLUMNS),
+            query.pageParams().toArray()
+        );
+    }
+
+    private FilterQuery filterQuery(
+            String transactionType,
+            String transactionId,
+            String search,
+            String sortBy,
+            String sortOrder,
+            int page,
+            int size,
+            String accountIds,
+            LocalDateTime dateFrom,
+            LocalDateTime dateTo) {
+        StringBuilder where = new StringBuilder(" WHERE 1=1");
         List<Object> params = new ArrayList<>();
         
         if (transactionType != null && !transactionType.isEmpty()) {
-            countQuery.append(" AND t.transaction_type = ?::bank.transaction_type_enum");
-            dataQuery.append(" AND t.transaction_type = ?::bank.transaction_type_enum");
+            where.append(" AND t.transaction_type = ?::bank.transaction_type_enum");
             params.add(transactionType);
         }
         
         if (transactionId != null && !transactionId.isEmpty()) {
-            countQuery.append(" AND t.transaction_id = ?");
-            dataQuery.append(" AND t.transaction_id = ?");
+            where.append(" AND t.transaction_id = ?");
             params.add(Integer.parseInt(transactionId));
         }
 
+        // Plain range predicates on the bare column so the planner can prune
+        // transaction_date partitions and use the date index
+        if (dateFrom != null) {
+            where.append(" AND t.transaction_date >= ?");
+            params.add(Timestamp.valueOf(dateFrom));
+        }
+        if (dateTo != null) {
+            where.append(" AND t.transaction_date < ?");
+            params.add(Timestamp.valueOf(dateTo));
+        }
+
         if (accountIds != null && !accountIds.isEmpty()) {
             String[] ids = accountIds.split(",");
             if (ids.length > 0) {
-                countQuery.append(" AND t.account_id IN (");
-                dataQuery.append(" AND t.account_id IN (");
+                where.append(" AND t.account_id IN (");
                 for (int i = 0; i < ids.length; i++) {
                     if (i > 0) {
-                        countQuery.append(",");
-                        dataQuery.append(",");
+                        where.append(",");
                     }
-                    countQuery.append("?");
-                    dataQuery.append("?");
+                    where.append("?");
                     params.add(Integer.parseInt(ids[i].trim()));
                 }
-                countQuery.append(")");
-                dataQuery.append(")");
+                where.append(")");
             }
         }
         
+        boolean searchesMetadata = false;
         if (search != null && !search.isEmpty()) {
             // Try to parse as transaction ID first
             try {
                 Integer searchId = Integer.parseInt(search);
-                countQuery.append(" AND t.transaction_id = ?");
-                dataQuery.append(" AND t.transaction_id = ?");
+                where.append(" AND t.transaction_id = ?");
                 params.add(searchId);
             } catch (NumberFormatException e) {
                 // If not a number, search in other fields
                 String searchPattern = "%" + search.toLowerCase() + "%";
-                countQuery.append(" AND (LOWER(t.transaction_type::text) LIKE ? OR LOWER(CAST(t.amount AS TEXT)) LIKE ? OR LOWER(t.channel::text) LIKE ? OR LOWER(t.currency::text) LIKE ? OR LOWER(tm.location) LIKE ? OR LOWER(tm.device_type::text) LIKE ? OR LOWER(tm.auth_method::text) LIKE ?)");
-                dataQuery.append(" AND (LOWER(t.transaction_type::text) LIKE ? OR LOWER(CAST(t.amount AS TEXT)) LIKE ? OR LOWER(t.channel::text) LIKE ? OR LOWER(t.currency::text) LIKE ? OR LOWER(tm.location) LIKE ? OR LOWER(tm.device_type::text) LIKE ? OR LOWER(tm.auth_method::text) LIKE ?)");
+                where.append(" AND (LOWER(t.transaction_type::text) LIKE ? OR LOWER(CAST(t.amount AS TEXT)) LIKE ? OR LOWER(t.channel::text) LIKE ? OR LOWER(t.currency::text) LIKE ? OR LOWER(tm.location) LIKE ? OR LOWER(tm.device_type::text) LIKE ? OR LOWER(tm.auth_method::text) LIKE ?)");
                 // Add search pattern for each field
                 for (int i = 0; i < 7; i++) {
                     params.add(searchPattern);
                 }
+                searchesMetadata = true;
             }
         }
         
+        // transaction_metadata is 1:1 with transactions, so the count only
+        // needs the join when the search looks at metadata columns
+        String countQuery = "SELECT COUNT(*) FROM bank.transactions t"
+            + (searchesMetadata ? " LEFT JOIN bank.transaction_metadata tm ON t.transaction_id = tm.transaction_id" : "")
+            + where;
+        
+        StringBuilder dataQuery = new StringBuilder(
+            """
+            SELECT t.*, tm.channel_details, tm.location, tm.device_type, tm.auth_method
+            FROM bank.transactions t
+            LEFT JOIN bank.transaction_metadata tm ON t.transaction_id = tm.transaction_id
+            """
+        ).append(where);
+        
         // Add sorting
-        if (sortBy != null && !sortBy.isEmpty()) {
-            dataQuery.append(" ORDER BY t.").append(sortBy).append(" ").append(sortOrder);
-        } else {
-            dataQuery.append(" ORDER BY t.transaction_id ").append(sortOrder);
+        String direction = "desc".equalsIgnoreCase(sortOrder) ? "DESC" : "ASC";
+        String sortColumn = sortBy != null && SORTABLE_COLUMNS.contains(sortBy) ? sortBy : "transaction_id";
+        dataQuery.append(" ORDER BY t.").append(sortColumn).append(" ").append(direction);
+        if (!"transaction_id".equals(sortColumn)) {
+            // Deterministic paging across equal sort keys
+            dataQuery.append(", t.transaction_id ").append(direction);
         }
         
         // Add pagination
         dataQuery.append(" LIMIT ? OFFSET ?");
-        params.add(size);
-        params.add(page * size);
-        
-        // Get total count
-        int totalCount;
-        if (params.isEmpty()) {
-            totalCount = getJdbcTemplate(databaseType).queryForObject(countQuery.toString(), Integer.class);
-        } else {
-            totalCount = getJdbcTemplate(databaseType).queryForObject(
-                countQuery.toString(), 
-                Integer.class, 
-                params.subList(0, params.size() - 2).toArray()
-            );
-        }
+        List<Object> pageParams = new ArrayList<>(params);
+        pageParams.add(size);
+        pageParams.add(page * size);
         
-        // Get paginated data
-        List<Transaction> transactions = getJdbcTemplate(databaseType).query(
-            dataQuery.toString(),
-            transactionRowMapper,
-            params.toArray()
-        );
-        
-        return new TransactionResponse(transactions, totalCount);
-    }
-
-    public Transaction create(Transaction transaction, DatabaseType databaseType) {
-        // Validate required fields
-        if (transaction.getAccountId() == null) {
-            throw new IllegalArgumentException("Account ID is required");
-        }
-        if (transaction.getTransactionType() == null || transaction.getTransactionType().trim().isEmpty()) {
-            throw new IllegalArgumentException("Transaction Type is required");
-        }
-        if (transaction.getAmount() == null) {
-            throw new IllegalArgumentException("Amount is required");
-        }
-
-        // Get the next available transaction ID
-        Integer nextId = getJdbcTemplate(databaseType).queryForObject(
-            """
-            SELECT COALESCE(MAX(transaction_id), 0) + 1
-            FROM bank.transactions
-            """,
-            Integer.class
-        );
-
-        // Insert into transactions table with the generated ID
-        getJdbcTemplate(databaseType).update(
-            """
-            INSERT INTO bank.transactions (
-                transaction_id, account_id, transaction_type, transaction_date, 
-                amount, currency, channel
-            ) VALUES (?, ?, ?::bank.transaction_type_enum, ?, ?, ?::bank.currency_enum, ?::bank.channel_enum)
-            """,
-            nextId,
-            transaction.getAccountId(),
-            transaction.getTransactionType(),
-            transaction.getTransactionDate(),
-            transaction.getAmount(),
-            transaction.getCurrency() != null ? transaction.getCurrency() : "USD",
-            transaction.getChannel()
-        );
-
-        transaction.setTransactionId(nextId);
-
-        // Insert into transaction_metadata table
-        getJdbcTemplate(databaseType).update(
-            """
-            INSERT INTO bank.transaction_metadata (
-                transaction_id, location, device_type, auth_method
-            ) VALUES (?, ?, ?::bank.device_type_enum, ?::bank.auth_method_enum)
-            """,
-            nextId,
-            transaction.getLocation(),
-            transaction.getDeviceType(),
-            transaction.getAuthMethod()
-        );
-
-        return transaction;
+        return new FilterQuery(countQuery, dataQuery.toString(), params, pageParams);
     }
 
     public void deleteById(int transactionId, DatabaseType databaseType) {
@@ -240,10 +344,95 @@ public class TransactionRepository {
             "DELETE FROM bank.transaction_metadata WHERE transaction_id = ?",
             transactionId
         );
-        // Then delete from transactions
-        getJdbcTemplate(databaseType).update(
-            "DELETE FROM bank.transactions WHERE transaction_id = ?",
+        // Then delete from transactions, feeding the removed row into the rollups
+        RowCallbackHandler removalRecorder = rollupRepository.removalRecorder(databaseType);
+        Set<Integer> accountIds = new HashSet<>();
+        rollupRepository.recording(databaseType, () -> getJdbcTemplate(databaseType).query(
+            "DELETE FROM bank.transactions WHERE transaction_id = ? RETURNING account_id, transaction_date, transaction_type, channel, currency, amount",
+            rs -> {
+                removalRecorder.processRow(rs);
+                accountIds.add(rs.getInt("account_id"));
+            },
             transactionId
+        ));
+        customerSummaryRepository.refreshAccounts(databaseType, accountIds);
+        dataVersions.bump(databaseType, DataVersions.Table.TRANSACTIONS);
+    }
+
+    /** Counts the transactions selected by a bulk job; null criteria do not restrict. */
+    public long countForBulk(DatabaseType databaseType, LocalDateTime before, String transactionType, Integer accountId) {
+        StringBuilder where = new StringBuilder(" WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        appendBulkCriteria(where, params, before, transactionType, accountId);
+        Long count = getJdbcTemplate(databaseType).queryForObject(
+            "SELECT COUNT(*) FROM bank.transactions t" + where, Long.class, params.toArray());
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Deletes up to {@code batchSize} of the selected transactions, lowest
+     * IDs first, and returns how many were deleted. Small batches keep each
+     * statement's locks and WAL short; metadata rows go with ON DELETE CASCADE.
+     */
+    public int deleteBatch(DatabaseType databaseType, LocalDateTime before, String transactionType, Integer accountId,
+                           int batchSize) {
+        StringBuilder where = new StringBuilder(" WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        appendBulkCriteria(where, params, before, transactionType, accountId);
+        params.add(batchSize);
+        RowCallbackHandler removalRecorder = rollupRepository.removalRecorder(databaseType);
+        Set<Integer> accountIds = new HashSet<>();
+        int[] deleted = {0};
+        rollupRepository.recording(databaseType, () -> getJdbcTemplate(databaseType).query(
+            "DELETE FROM bank.transactions WHERE transaction_id IN ("
+                + "SELECT t.transaction_id FROM bank.transactions t" + where + " ORDER BY t.transaction_id LIMIT ?) "
+                + "RETURNING account_id, transaction_date, transaction_type, channel, currency, amount",
+            rs -> {
+                removalRecorder.processRow(rs);
+                accountIds.add(rs.getInt("account_id"));
+                deleted[0]++;
+            },
+            params.toArray()
+        ));
+        customerSummaryRepository.refreshAccounts(databaseType, accountIds);
+        if (deleted[0] > 0) {
+            dataVersions.bump(databaseType, DataVersions.Table.TRANSACTIONS);
+        }
+        return deleted[0];
+    }
+
+    /** Returns the next {@code limit} selected transactions with an ID above {@code afterId}, in ID order. */
+    public List<Transaction> findBatchAfter(DatabaseType databaseType, int afterId, LocalDateTime before,
+                                            String transactionType, Integer accountId, int limit) {
+        StringBuilder where = new StringBuilder(" WHERE t.transaction_id > ?");
+        List<Object> params = new ArrayList<>();
+        params.add(afterId);
+        appendBulkCriteria(where, params, before, transactionType, accountId);
+        params.add(limit);
+        return getJdbcTemplate(databaseType).query(
+            """
+            SELECT t.*, tm.channel_details, tm.location, tm.device_type, tm.auth_method
+            FROM bank.transactions t
+            LEFT JOIN bank.transaction_metadata tm ON t.transaction_id = tm.transaction_id
+            """ + where + " ORDER BY t.transaction_id LIMIT ?",
+            transactionRowMapper,
+            params.toArray()
         );
     }
+
+    private static void appendBulkCriteria(StringBuilder where, List<Object> params, LocalDateTime before,
+                                           String transactionType, Integer accountId) {
+        if (before != null) {
+            where.append(" AND t.transaction_date < ?");
+            params.add(Timestamp.valueOf(before));
+        }
+        if (transactionType != null && !transactionType.isEmpty()) {
+            where.append(" AND t.transaction_type = ?::bank.transaction_type_enum");
+            params.add(transactionType);
+        }
+        if (accountId != null) {
+            where.append(" AND t.account_id = ?");
+            params.add(accountId);
+        }
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,423 @@
+package io.synthesized.sample.bank.repository;
+
+import io.synthesized.sample.bank.model.DatabaseResetEvent;
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.TimeSeriesPoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Hourly and daily transaction volume rollups in bank_ops.transaction_rollups.
+ *
+ * <p>Write paths record deltas in memory with {@link #record}; the deltas are
+ * merged into the rollup table by {@link #flush}. {@link #rebuild} recomputes
+ * the table from bank.transactions and is used to catch up after bulk loads.
+ *
+ * <p>Writes to bank.transactions commit and record inside {@link #recording}, so
+ * {@link #rebuild} can take its snapshot between them: each write is then either
+ * in the snapshot or has its deltas still pending, never both or neither.
+ */
+@Repository
+public class TransactionRollupRepository {
+    public static final String HOUR = "hour";
+    public static final String DAY = "day";
+
+    private static final Map<String, String> GROUP_BY_COLUMNS = Map.of(
+        "transactionType", "transaction_type",
+        "channel", "channel",
+        "currency", "currency"
+    );
+
+    private final JdbcTemplate seedJdbcTemplate;
+    private final JdbcTemplate testingJdbcTemplate;
+    private final JdbcTemplate prodJdbcTemplate;
+
+    private final Map<DatabaseType, ConcurrentHashMap<RollupKey, Delta>> pending = new EnumMap<>(DatabaseType.class);
+    private final Map<DatabaseType, ReadWriteLock> snapshotLocks = new EnumMap<>(DatabaseType.class);
+
+    @Autowired
+    public TransactionRollupRepository(
+            @Qualifier("seedJdbcTemplate") JdbcTemplate seedJdbcTemplate,
+            @Qualifier("testingJdbcTemplate") JdbcTemplate testingJdbcTemplate,
+            @Qualifier("prodJdbcTemplate") JdbcTemplate prodJdbcTemplate) {
+        this.seedJdbcTemplate = seedJdbcTemplate;
+        this.testingJdbcTemplate = testingJdbcTemplate;
+        this.prodJdbcTemplate = prodJdbcTemplate;
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            pending.put(databaseType, new ConcurrentHashMap<>());
+            snapshotLocks.put(databaseType, new ReentrantReadWriteLock());
+        }
+    }
+
+    private JdbcTemplate getJdbcTemplate(DatabaseType databaseType) {
+        return switch (databaseType) {
+            case SEED -> seedJdbcTemplate;
+            case TESTING -> testingJdbcTemplate;
+            case PROD -> prodJdbcTemplate;
+        };
+    }
+
+    private record RollupKey(LocalDateTime hour, String transactionType, String channel, String currency) {
+    }
+
+    private record Delta(long count, long amountCents) {
+        Delta plus(Delta other) {
+            return new Delta(count + other.count, amountCents + other.amountCents);
+        }
+    }
+
+    /**
+     * Runs a write to bank.transactions that commits and then calls
+     * {@link #record} or a {@link #removalRecorder}. Writes run concurrently
+     * with each other; only a rebuild taking its snapshot waits for them.
+     */
+    public <T> T recording(DatabaseType databaseType, Supplier<T> write) {
+        Lock lock = snapshotLocks.get(databaseType).readLock();
+        lock.lock();
+        try {
+            return write.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recording(DatabaseType databaseType, Runnable write) {
+        recording(databaseType, () -> {
+            write.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records a transaction that was inserted ({@code sign = 1}) or deleted
+     * ({@code sign = -1}). Cheap and lock-free; the database is only touched
+     * on the next flush.
+     */
+    public void record(DatabaseType databaseType, LocalDateTime transactionDate, String transactionType,
+                       String channel, String currency, BigDecimal amount, int sign) {
+        if (transactionDate == null) {
+            return;
+        }
+        RollupKey key = new RollupKey(transactionDate.truncatedTo(ChronoUnit.HOURS), transactionType, channel, currency);
+        long cents = amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+        pending.get(databaseType).merge(key, new Delta(sign, sign * cents), Delta::plus);
+    }
+
+    /**
+     * Returns a handler that records every row of a
+     * {@code DELETE FROM bank.transactions ... RETURNING transaction_date,
+     * transaction_type, channel, currency, amount} as a removal.
+     */
+    public RowCallbackHandler removalRecorder(DatabaseType databaseType) {
+        return rs -> {
+            Timestamp date = rs.getTimestamp("transaction_date");
+            record(
+                databaseType,
+                date != null ? date.toLocalDateTime() : null,
+                rs.getString("transaction_type"),
+                rs.getString("channel"),
+                rs.getString("currency"),
+                rs.getBigDecimal("amount"),
+                -1
+            );
+        };
+    }
+
+    /**
+     * Merges pending deltas into the hourly and daily rollups. On failure the
+     * drained deltas are put back so they are retried on the next flush.
+     * Drain and commit count as one write, so a rebuild never discards deltas
+     * that are drained but not yet in the table.
+     */
+    public int flush(DatabaseType databaseType) {
+        return recording(databaseType, () -> flushPending(databaseType));
+    }
+
+    private int flushPending(DatabaseType databaseType) {
+        ConcurrentHashMap<RollupKey, Delta> deltas = pending.get(databaseType);
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        Map<RollupKey, Delta> drained = new HashMap<>();
+        for (RollupKey key : deltas.keySet()) {
+            Delta delta = deltas.remove(key);
+            if (delta != null) {
+                drained.put(key, delta);
+            }
+        }
+
+        Map<RollupKey, Delta> daily = new HashMap<>();
+        drained.forEach((key, delta) -> daily.merge(
+            new RollupKey(key.hour().truncatedTo(ChronoUnit.DAYS), key.transactionType(), key.channel(), key.currency()),
+            delta,
+            Delta::plus
+        ));
+
+        try {
+            getJdbcTemplate(databaseType).execute((Connection connection) -> {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    upsert(connection, HOUR, drained);
+                    upsert(connection, DAY, daily);
+                    connection.commit();
+                    return null;
+                } catch (Exception e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            });
+        } catch (RuntimeException e) {
+            drained.forEach((key, delta) -> deltas.merge(key, delta, Delta::plus));
+            throw e;
+        }
+        return drained.size();
+    }
+
+    private void upsert(Connection connection, String granularity, Map<RollupKey, Delta> deltas) throws SQLException {
+        int n = deltas.size();
+        String[] granularities = new String[n];
+        Timestamp[] buckets = new Timestamp[n];
+        String[] types = new String[n];
+        String[] channels = new String[n];
+        String[] currencies = new String[n];
+        Long[] counts = new Long[n];
+        BigDecimal[] amounts = new BigDecimal[n];
+        int i = 0;
+        for (Map.Entry<RollupKey, Delta> entry : deltas.entrySet()) {
+            granularities[i] = granularity;
+            buckets[i] = Timestamp.valueOf(entry.getKey().hour());
+            types[i] = entry.getKey().transactionType();
+            channels[i] = entry.getKey().channel();
+            currencies[i] = entry.getKey().currency();
+            counts[i] = entry.getValue().count();
+            amounts[i] = BigDecimal.valueOf(entry.getValue().amountCents(), 2);
+            i++;
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                """
+                INSERT INTO bank_ops.transaction_rollups (
+                    granularity, bucket_start, transaction_type, channel, currency,
+                    transaction_count, amount_sum
+                )
+                SELECT * FROM unnest(?::text[], ?::timestamp[], ?::text[], ?::text[], ?::text[], ?::bigint[], ?::numeric[])
+                ON CONFLICT (granularity, bucket_start, transaction_type, channel, currency)
+                DO UPDATE SET
+                    transaction_count = transaction_rollups.transaction_count + EXCLUDED.transaction_count,
+                    amount_sum = transaction_rollups.amount_sum + EXCLUDED.amount_sum
+                """)) {
+            ps.setArray(1, connection.createArrayOf("text", granularities));
+            ps.setArray(2, connection.createArrayOf("timestamp", buckets));
+            ps.setArray(3, connection.createArrayOf("text", types));
+            ps.setArray(4, connection.createArrayOf("text", channels));
+            ps.setArray(5, connection.createArrayOf("text", currencies));
+            ps.setArray(6, connection.createArrayOf("int8", counts));
+            ps.setArray(7, connection.createArrayOf("numeric", amounts));
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * A restored or cloned database brings its own rollups; deltas recorded
+     * against the old contents no longer apply.
+     */
+    @EventListener
+    public void onDatabaseReset(DatabaseResetEvent event) {
+        pending.get(event.databaseType()).clear();
+    }
+
+    /**
+     * Recomputes both granularities from bank.transactions in one REPEATABLE
+     * READ transaction. Its snapshot is taken while no write is between commit
+     * and record, and the pending deltas are discarded at that point: they
+     * belong to rows the snapshot already contains. Deltas recorded afterwards
+     * are kept and flushed on top of the rebuilt rollups.
+     */
+    public void rebuild(DatabaseType databaseType) {
+        getJdbcTemplate(databaseType).execute((Connection connection) -> {
+            boolean autoCommit = connection.getAutoCommit();
+            int isolation = connection.getTransactionIsolation();
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try (var statement = connection.createStatement()) {
+                Lock lock = snapshotLocks.get(databaseType).writeLock();
+                lock.lock();
+                try {
+                    // Flushes commit after us instead of conflicting with the snapshot;
+                    // LOCK TABLE takes no snapshot, the DELETE is the first statement that does
+                    statement.execute("LOCK TABLE bank_ops.transaction_rollups IN EXCLUSIVE MODE");
+                    statement.execute("DELETE FROM bank_ops.transaction_rollups");
+                    pending.get(databaseType).clear();
+                } finally {
+                    lock.unlock();
+                }
+                statement.execute(
+                    """
+                    INSERT INTO bank_ops.transaction_rollups (
+                        granularity, bucket_start, transaction_type, channel, currency,
+                        transaction_count, amount_sum
+                    )
+                    SELECT 'hour', date_trunc('hour', transaction_date), transaction_type::text,
+                           channel::text, currency::text, COUNT(*), SUM(amount)
+                    FROM bank.transactions
+                    WHERE transaction_date IS NOT NULL
+                    GROUP BY 2, 3, 4, 5
+                    """
+                );
+                statement.execute(
+                    """
+                    INSERT INTO bank_ops.transaction_rollups (
+                        granularity, bucket_start, transaction_type, channel, currency,
+                        transaction_count, amount_sum
+                    )
+                    SELECT 'day', date_trunc('day', bucket_start), transaction_type, channel, currency,
+                           SUM(transaction_count), SUM(amount_sum)
+                    FROM bank_ops.transaction_rollups
+                    WHERE granularity = 'hour'
+                    GROUP BY 2, 3, 4, 5
+                    """
+                );
+                connection.commit();
+                return null;
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setTransactionIsolation(isolation);
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    /** Transaction count and amount total of a table, compared by the catch-up job. */
+    public record Totals(long count, BigDecimal amount) {
+        public boolean matches(Totals other) {
+            return count == other.count && amount.compareTo(other.amount) == 0;
+        }
+    }
+
+    public Totals findRolledUpTotals(DatabaseType databaseType) {
+        return getJdbcTemplate(databaseType).queryForObject(
+            """
+            SELECT COALESCE(SUM(transaction_count), 0) AS transaction_count, COALESCE(SUM(amount_sum), 0) AS amount_sum
+            FROM bank_ops.transaction_rollups
+            WHERE granularity = 'day'
+            """,
+            (rs, rowNum) -> new Totals(rs.getLong("transaction_count"), rs.getBigDecimal("amount_sum"))
+        );
+    }
+
+    public Totals findTransactionTotals(DatabaseType databaseType) {
+        return getJdbcTemplate(databaseType).queryForObject(
+            """
+            SELECT COUNT(*) AS transaction_count, COALESCE(SUM(amount), 0) AS amount_sum
+            FROM bank.transactions
+            WHERE transaction_date IS NOT NULL
+            """,
+            (rs, rowNum) -> new Totals(rs.getLong("transaction_count"), rs.getBigDecimal("amount_sum"))
+        );
+    }
+
+    public List<TimeSeriesPoint> findSeries(
+            DatabaseType databaseType,
+            String granularity,
+            LocalDateTime from,
+            LocalDateTime to,
+            List<String> groupBy,
+            String transactionType,
+            String channel,
+            String currency) {
+        List<String> groupColumns = new ArrayList<>();
+        for (String dimension : groupBy) {
+            String column = GROUP_BY_COLUMNS.get(dimension);
+            if (column == null) {
+                throw new IllegalArgumentException("Invalid groupBy dimension: " + dimension
+                    + ". Allowed values: transactionType, channel, currency");
+            }
+            if (!groupColumns.contains(column)) {
+                groupColumns.add(column);
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT bucket_start");
+        for (String column : groupColumns) {
+            sql.append(", ").append(column);
+        }
+        sql.append(
+            """
+             , SUM(transaction_count) AS transaction_count, SUM(amount_sum) AS amount_sum
+            FROM bank_ops.transaction_rollups
+            WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ?
+            """
+        );
+        List<Object> params = new ArrayList<>();
+        params.add(granularity);
+        params.add(Timestamp.valueOf(from));
+        params.add(Timestamp.valueOf(to));
+
+        if (transactionType != null && !transactionType.isEmpty()) {
+            sql.append(" AND transaction_type = ?");
+            params.add(transactionType);
+        }
+        if (channel != null && !channel.isEmpty()) {
+            sql.append(" AND channel = ?");
+            params.add(channel);
+        }
+        if (currency != null && !currency.isEmpty()) {
+            sql.append(" AND currency = ?");
+            params.add(currency);
+        }
+
+        sql.append(" GROUP BY bucket_start");
+        for (String column : groupColumns) {
+            sql.append(", ").append(column);
+        }
+        sql.append(" ORDER BY bucket_start");
+        for (String column : groupColumns) {
+            sql.append(", ").append(column);
+        }
+
+        return getJdbcTemplate(databaseType).query(sql.toString(), (rs, rowNum) -> {
+            TimeSeriesPoint point = new TimeSeriesPoint();
+            point.setBucketStart(rs.getTimestamp("bucket_start").toLocalDateTime());
+            if (groupColumns.contains("transaction_type")) {
+                point.setTransactionType(rs.getString("transaction_type"));
+            }
+            if (groupColumns.contains("channel")) {
+                point.setChannel(rs.getString("channel"));
+            }
+            if (groupColumns.contains("currency")) {
+                point.setCurrency(rs.getString("currency"));
+            }
+            point.setTransactionCount(rs.getLong("transaction_count"));
+            point.setAmount(rs.getBigDecimal("amount_sum"));
+            return point;
+        }, params.toArray());
+    }
+}
@@ -2,19 +2,66 @@ package io.synthesized.sample.bank.service;
 
 import io.synthesized.sample.bank.model.Account;
 import io.synthesized.sample.bank.model.AccountResponse;
+import io.synthesized.sample.bank.model.AccountStatusChangeRequest;
+import io.synthesized.sample.bank.model.AccountStatusChangeResult;
+import io.synthesized.sample.bank.model.AccountStatusOutcome;
 import io.synthesized.sample.bank.model.DatabaseType;
 import io.synthesized.sample.bank.repository.AccountRepository;
+import io.synthesized.sample.bank.repository.DataVersions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class AccountService {
+    private static final Logger logger = LoggerFactory.getLogger(AccountService.class);
+    private static final DataVersions.Table[] LIST_TABLES = {DataVersions.Table.ACCOUNTS};
+
     private final AccountRepository accountRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final EntityCache entityCache;
+    private final BatchLookup batchLookup;
+    private final PageStreamer pageStreamer;
+    private final PageCache pageCache;
+    private final int statusChangeBatchSize;
+    private final int statusChangeMaxAccounts;
+    private final GroupCommitBatcher<Account> accountInserts;
 
     @Autowired
-    public AccountService(AccountRepository accountRepository) {
+    public AccountService(AccountRepository accountRepository, ReferenceDataCache referenceDataCache, EntityCache entityCache,
+                          BatchLookup batchLookup, PageStreamer pageStreamer, PageCache pageCache, GroupCommit groupCommit,
+                          @Value("${bank.account-status.batch-size:1000}") int statusChangeBatchSize,
+                          @Value("${bank.account-status.max-accounts:10000}") int statusChangeMaxAccounts) {
         this.accountRepository = accountRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.entityCache = entityCache;
+        this.batchLookup = batchLookup;
+        this.pageStreamer = pageStreamer;
+        this.pageCache = pageCache;
+        this.statusChangeBatchSize = statusChangeBatchSize;
+        this.statusChangeMaxAccounts = statusChangeMaxAccounts;
+        this.accountInserts = groupCommit.batcher("accounts", accountRepository::createBatch);
+    }
+
+    public Account getAccount(Integer accountId, DatabaseType databaseType) {
+        return entityCache.getAccount(databaseType, accountId, () -> accountRepository.findById(accountId, databaseType));
+    }
+
+    /** Multi-get: cached accounts are served from memory, the rest are loaded with one query. */
+    public BatchLookup.Result<Account> getAccountsByIds(List<Long> accountIds, DatabaseType databaseType) {
+        return batchLookup.resolve(accountIds, ids -> entityCache.getAccounts(databaseType, ids,
+            misses -> accountRepository.findByIds(misses, databaseType).stream()
+                .collect(Collectors.toMap(account -> account.getAccountId().longValue(), Function.identity()))));
     }
 
     public AccountResponse getAccountsByFilters(
@@ -27,11 +74,77 @@ public class AccountService {
             String status,
             String accountId,
             String search) {
-        return accountRepository.findByFilters(databaseType, page, size, sortBy, sortOrder, accountType, status, accountId, search);
+        referenceDataCache.validateEnum(databaseType, "account_type_enum", "account type", accountType);
+        referenceDataCache.validateEnum(databaseType, "account_status_enum", "status", status);
+        AccountRepository.validateSort(sortBy, sortOrder);
+        AccountResponse response = loadPage(databaseType, page, size, sortBy, sortOrder, accountType, status, accountId, search);
+        if ((long) (page + 1) * size < response.getTotalCount()) {
+            // Users mostly page forward; have the next page ready when they do
+            pageCache.prefetch(databaseType, pageKey(databaseType, page + 1, size, sortBy, sortOrder, accountType, status,
+                    accountId, search), LIST_TABLES,
+                (AccountResponse next) -> next.getAccounts().size(),
+                () -> accountRepository.findByFilters(databaseType, page + 1, size, sortBy, sortOrder, accountType, status,
+                    accountId, search));
+        }
+        return response;
+    }
+
+    private AccountResponse loadPage(DatabaseType databaseType, int page, int size, String sortBy, String sortOrder,
+                                     String accountType, String status, String accountId, String search) {
+        // Pages seen before come from memory; identical page requests arriving
+        // together (e.g. many users opening the accounts page) share one count + data query
+        return pageCache.get(databaseType,
+            pageKey(databaseType, page, size, sortBy, sortOrder, accountType, status, accountId, search),
+            LIST_TABLES, response -> response.getAccounts().size(),
+            () -> accountRepository.findByFilters(databaseType, page, size, sortBy, sortOrder, accountType, status, accountId, search));
+    }
+
+    private static List<Object> pageKey(DatabaseType databaseType, int page, int size, String sortBy, String sortOrder,
+                                        String accountType, String status, String accountId, String search) {
+        return SingleFlight.key("accounts", databaseType, page, size, sortBy, sortOrder, accountType, status, accountId, search);
+    }
+
+    /** Whether a page of {@code size} accounts is served by {@link #streamAccountsByFilters}. */
+    public boolean isStreamed(int size) {
+        return pageStreamer.isStreamed(size);
+    }
+
+    /**
+     * The page {@link #getAccountsByFilters} returns, written straight from
+     * the result set to the response. The count runs now; the page query
+     * runs when the body is written.
+     */
+    public StreamingResponseBody streamAccountsByFilters(
+            DatabaseType databaseType,
+            int page,
+            int size,
+            String sortBy,
+            String sortOrder,
+            String accountType,
+            String status,
+            String accountId,
+            String search) {
+        referenceDataCache.validateEnum(databaseType, "account_type_enum", "account type", accountType);
+        referenceDataCache.validateEnum(databaseType, "account_status_enum", "status", status);
+        // Fail before the response starts rather than inside the streamed body
+        AccountRepository.validateSort(sortBy, sortOrder);
+        int totalCount = pageCache.get(databaseType,
+            SingleFlight.key("account-count", databaseType, accountType, status, accountId, search),
+            LIST_TABLES, count -> 0,
+            () -> accountRepository.countByFilters(databaseType, accountType, status, accountId, search));
+        return pageStreamer.page("accounts", totalCount, generator -> accountRepository.writeByFilters(
+            databaseType, page, size, sortBy, sortOrder, accountType, status, accountId, search, generator));
     }
 
     public Account createAccount(Account account, DatabaseType databaseType) {
-        return accountRepository.create(account, databaseType);
+        referenceDataCache.validateEnum(databaseType, "account_type_enum", "account type", account.getAccountType());
+        referenceDataCache.validateEnum(databaseType, "account_status_enum", "status", account.getStatus());
+        AccountRepository.validateNew(account);
+        // Concurrent creates share one batch and one commit
+        Account created = accountInserts.insert(account, databaseType);
+        // The owner's cached account list is now stale
+        entityCache.invalidateCustomer(databaseType, created.getCustomerId());
+        return created;
     }
 
     public Account updateAccountStatus(Integer accountId, String status, DatabaseType databaseType) {
@@ -39,11 +152,88 @@ public class AccountService {
         if (status == null || status.trim().isEmpty()) {
             throw new IllegalArgumentException("Status is required");
         }
+        referenceDataCache.validateEnum(databaseType, "account_status_enum", "status", status);
 
         // Additional business logic validation can be added here
         // For example, you might want to prevent certain status changes based on account type or current status
 
-        return accountRepository.updateStatus(accountId, status, databaseType);
+        Account updated = accountRepository.updateStatus(accountId, status, databaseType);
+        // Invalidate rather than put: a posting that commits after the update may
+        // already have invalidated the entry, and putting this copy would undo that
+        entityCache.invalidateAccount(databaseType, accountId);
+        return updated;
+    }
+
+    /**
+     * Changes the status of many accounts at once, given by ID or by filter,
+     * in one database transaction: either every selected account gets the
+     * new status or none does.
+     */
+    public AccountStatusChangeResult changeAccountStatuses(AccountStatusChangeRequest request, DatabaseType databaseType) {
+        String status = request.getStatus();
+        if (status == null || status.trim().isEmpty()) {
+            throw new IllegalArgumentException("Status is required");
+        }
+        referenceDataCache.validateEnum(databaseType, "account_status_enum", "status", status);
+        referenceDataCache.validateEnum(databaseType, "account_type_enum", "account type", request.getAccountType());
+        referenceDataCache.validateEnum(databaseType, "account_status_enum", "current status", request.getCurrentStatus());
+        boolean hasFilter = (request.getAccountType() != null && !request.getAccountType().isEmpty())
+            || (request.getCurrentStatus() != null && !request.getCurrentStatus().isEmpty())
+            || request.getCustomerId() != null;
+        List<Integer> accountIds = request.getAccountIds();
+
+        List<AccountStatusOutcome> results = new ArrayList<>();
+        List<AccountRepository.StatusChange> changes;
+        if (accountIds != null && !accountIds.isEmpty()) {
+            if (hasFilter) {
+                throw new IllegalArgumentException("Give either accountIds or filter criteria, not both");
+            }
+            Set<Integer> distinctIds = new LinkedHashSet<>(accountIds);
+            if (distinctIds.contains(null)) {
+                throw new IllegalArgumentException("Account IDs must not be null");
+            }
+            if (distinctIds.size() > statusChangeMaxAccounts) {
+                throw new IllegalArgumentException("At most " + statusChangeMaxAccounts + " accounts can be changed at once");
+            }
+            changes = accountRepository.updateStatuses(List.copyOf(distinctIds), status, statusChangeBatchSize, databaseType);
+            Map<Integer, AccountRepository.StatusChange> changesById = changes.stream()
+                .collect(Collectors.toMap(change -> change.account().getAccountId(), Function.identity()));
+            for (Integer accountId : distinctIds) {
+                AccountRepository.StatusChange change = changesById.get(accountId);
+                results.add(change != null ? outcome(change)
+                    : new AccountStatusOutcome(accountId, AccountStatusOutcome.NOT_FOUND, null));
+            }
+        } else if (hasFilter) {
+            changes = accountRepository.updateStatusesWhere(request.getAccountType(), request.getCurrentStatus(),
+                request.getCustomerId(), status, statusChangeBatchSize, statusChangeMaxAccounts, databaseType);
+            for (AccountRepository.StatusChange change : changes) {
+                results.add(outcome(change));
+            }
+        } else {
+            throw new IllegalArgumentException("Give accountIds or at least one filter criterion (accountType, currentStatus, customerId)");
+        }
+
+        AccountStatusChangeResult result = new AccountStatusChangeResult();
+        result.setStatus(status);
+        result.setResults(results);
+        for (AccountRepository.StatusChange change : changes) {
+            // The rows were fresh only at commit time, so drop them and let the next read reload
+            entityCache.invalidateAccount(databaseType, change.account().getAccountId());
+            if (change.changed()) {
+                result.setUpdated(result.getUpdated() + 1);
+            } else {
+                result.setUnchanged(result.getUnchanged() + 1);
+            }
+        }
+        result.setNotFound(results.size() - changes.size());
+        logger.info("Changed {} accounts in {} to {} ({} unchanged, {} not found)",
+            result.getUpdated(), databaseType, status, result.getUnchanged(), result.getNotFound());
+        return result;
+    }
+
+    private static AccountStatusOutcome outcome(AccountRepository.StatusChange change) {
+        return new AccountStatusOutcome(change.account().getAccountId(),
+            change.changed() ? AccountStatusOutcome.UPDATED : AccountStatusOutcome.UNCHANGED, change.previousStatus());
     }
 
     public java.util.Map<String, Integer> getAccountStatusCounts(DatabaseType databaseType) {
@@ -51,6 +241,10 @@ public class AccountService {
     }
 
     public void deleteAccount(int accountId, DatabaseType databaseType) {
-        accountRepository.deleteById(accountId, databaseType);
+        Integer customerId = accountRepository.deleteById(accountId, databaseType);
+        entityCache.invalidateAccount(databaseType, accountId);
+        if (customerId != null) {
+            entityCache.invalidateCustomer(databaseType, customerId);
+        }
     }
 } 
\ No newline at end of file
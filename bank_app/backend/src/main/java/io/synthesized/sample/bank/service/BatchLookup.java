@@ -0,0 +1,55 @@
+package io.synthesized.sample.bank.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Resolves multi-get requests: validates the ID list, hands the distinct IDs
+ * to a loader that fetches them in one query, and puts the results back in
+ * request order together with the IDs that were not found.
+ */
+@Component
+public class BatchLookup {
+
+    /** Entities in request order (duplicates collapsed) and the requested IDs that do not exist. */
+    public record Result<T>(List<T> found, List<Long> missingIds) {
+    }
+
+    private final int maxIds;
+
+    public BatchLookup(@Value("${bank.batch.max-ids:500}") int maxIds) {
+        this.maxIds = maxIds;
+    }
+
+    public <T> Result<T> resolve(List<Long> ids, Function<Set<Long>, Map<Long, T>> loader) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one ID is required");
+        }
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        if (distinctIds.contains(null)) {
+            throw new IllegalArgumentException("IDs must not be null");
+        }
+        if (distinctIds.size() > maxIds) {
+            throw new IllegalArgumentException("At most " + maxIds + " IDs can be requested at once");
+        }
+        Map<Long, T> loaded = loader.apply(distinctIds);
+        List<T> found = new ArrayList<>(loaded.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : distinctIds) {
+            T entity = loaded.get(id);
+            if (entity != null) {
+                found.add(entity);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new Result<>(found, missingIds);
+    }
+} 
\ No newline at end of file
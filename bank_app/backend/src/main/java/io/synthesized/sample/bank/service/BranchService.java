@@ -15,13 +15,15 @@ public class BranchService {
     private static final Logger logger = LoggerFactory.getLogger(BranchService.class);
     
     private final BranchRepository branchRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     public List<Branch> getAllBranches(DatabaseType databaseType) {
-        return branchRepository.findAll(databaseType);
+        return referenceDataCache.getBranches(databaseType);
     }
 
     public Branch updateBranchManager(Integer branchId, String managerName, DatabaseType databaseType) {
         branchRepository.updateManager(databaseType, branchId.longValue(), managerName);
+        referenceDataCache.invalidate(databaseType);
         return getAllBranches(databaseType).stream()
             .filter(b -> b.getBranchId().equals(branchId))
             .findFirst()
@@ -30,9 +32,13 @@ public class BranchService {
 
     public void deleteBranch(Integer branchId, DatabaseType databaseType) {
         branchRepository.deleteById(databaseType, branchId);
+        referenceDataCache.invalidate(databaseType);
     }
 
     public Branch createBranch(Branch branch, DatabaseType databaseType) {
-        return branchRepository.create(databaseType, branch);
+        referenceDataCache.validateEnum(databaseType, "region_enum", "region", branch.getRegion());
+        Branch created = branchRepository.create(databaseType, branch);
+        referenceDataCache.invalidate(databaseType);
+        return created;
     }
 } 
\ No newline at end of file
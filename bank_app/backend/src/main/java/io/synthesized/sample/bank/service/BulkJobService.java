@@ -0,0 +1,215 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.Job;
+import io.synthesized.sample.bank.model.Transaction;
+import io.synthesized.sample.bank.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The operations that can be run as jobs through {@link JobService}. Bulk
+ * operations on transactions work in chunks of {@code bank.jobs.chunk-size}
+ * rows, reporting progress and checking for cancellation after each chunk.
+ */
+@Service
+public class BulkJobService {
+    public static final String DELETE_TRANSACTIONS = "delete-transactions";
+    public static final String EXPORT_TRANSACTIONS = "export-transactions";
+    public static final String RESTORE_SNAPSHOT = "restore-snapshot";
+    public static final String CLONE_DATABASE = "clone-database";
+    public static final String REBUILD_ROLLUPS = "rebuild-rollups";
+    public static final String REBUILD_CUSTOMER_SUMMARY = "rebuild-customer-summary";
+
+    private static final String CSV_HEADER = "transaction_id,account_id,transaction_type,transaction_date,amount,channel,currency,"
+        + "channel_details,location,device_type,auth_method";
+
+    private final JobService jobService;
+    private final TransactionRepository transactionRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final DatabaseSnapshotService snapshotService;
+    private final TransactionRollupService rollupService;
+    private final CustomerSummaryService customerSummaryService;
+    private final int chunkSize;
+
+    public BulkJobService(
+            JobService jobService,
+            TransactionRepository transactionRepository,
+            ReferenceDataCache referenceDataCache,
+            DatabaseSnapshotService snapshotService,
+            TransactionRollupService rollupService,
+            CustomerSummaryService customerSummaryService,
+            @Value("${bank.jobs.chunk-size:5000}") int chunkSize) {
+        this.jobService = jobService;
+        this.transactionRepository = transactionRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.snapshotService = snapshotService;
+        this.rollupService = rollupService;
+        this.customerSummaryService = customerSummaryService;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /** Deletes the transactions dated before {@code before}, optionally only of one type and/or account. */
+    public Job deleteTransactions(DatabaseType databaseType, LocalDateTime before, String transactionType, Integer accountId) {
+        if (before == null) {
+            throw new IllegalArgumentException("before is required for bulk deletes");
+        }
+        referenceDataCache.validateEnum(databaseType, "transaction_type_enum", "transaction type", transactionType);
+        return jobService.submit(databaseType, DELETE_TRANSACTIONS, parameters(before, transactionType, accountId), progress -> {
+            progress.total(transactionRepository.countForBulk(databaseType, before, transactionType, accountId));
+            long deleted = 0;
+            while (true) {
+                progress.checkCancelled();
+                int batch = transactionRepository.deleteBatch(databaseType, before, transactionType, accountId, chunkSize);
+                if (batch == 0) {
+                    break;
+                }
+                deleted += batch;
+                progress.advance(batch, 0);
+            }
+            return "Deleted " + deleted + " transactions";
+        });
+    }
+
+    /**
+     * Writes the selected transactions to a CSV file, downloadable once the
+     * job has succeeded. Rows are read by keyset pagination on
+     * transaction_id, so every chunk is an index range scan.
+     */
+    public Job exportTransactions(DatabaseType databaseType, LocalDateTime before, String transactionType, Integer accountId) {
+        referenceDataCache.validateEnum(databaseType, "transaction_type_enum", "transaction type", transactionType);
+        return jobService.submit(databaseType, EXPORT_TRANSACTIONS, parameters(before, transactionType, accountId), progress -> {
+            progress.total(transactionRepository.countForBulk(databaseType, before, transactionType, accountId));
+            String fileName = "transactions-" + databaseType.name().toLowerCase() + "-" + progress.getJob().getJobId() + ".csv";
+            Path directory = jobService.getResultDirectory();
+            Files.createDirectories(directory);
+            Path scratch = directory.resolve(fileName + ".part");
+            long exported = 0;
+            try {
+                try (BufferedWriter out = Files.newBufferedWriter(scratch, StandardCharsets.UTF_8)) {
+                    out.write(CSV_HEADER);
+                    out.newLine();
+                    int afterId = Integer.MIN_VALUE;
+                    while (true) {
+                        progress.checkCancelled();
+                        List<Transaction> batch = transactionRepository.findBatchAfter(
+                            databaseType, afterId, before, transactionType, accountId, chunkSize);
+                        if (batch.isEmpty()) {
+                            break;
+                        }
+                        for (Transaction transaction : batch) {
+                            writeCsvRow(out, transaction);
+                        }
+                        afterId = batch.get(batch.size() - 1).getTransactionId();
+                        exported += batch.size();
+                        progress.advance(batch.size(), 0);
+                    }
+                }
+                Files.move(scratch, directory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(scratch);
+            }
+            progress.resultFile(fileName);
+            return "Exported " + exported + " transactions";
+        });
+    }
+
+    public Job restoreSnapshot(DatabaseType databaseType, String name) {
+        return jobService.submit(databaseType, RESTORE_SNAPSHOT, Map.of("name", name), progress -> {
+            progress.total(1);
+            snapshotService.restoreSnapshot(databaseType, name);
+            progress.advance(1, 0);
+            return "Restored snapshot " + name;
+        });
+    }
+
+    /** Replaces {@code target} with a copy of {@code source}; the job is recorded in the target database. */
+    public Job cloneDatabase(DatabaseType source, DatabaseType target) {
+        if (source == target) {
+            throw new IllegalArgumentException("Source and target databases must differ");
+        }
+        return jobService.submit(target, CLONE_DATABASE, Map.of("source", source.name(), "target", target.name()), progress -> {
+            progress.total(1);
+            snapshotService.cloneDatabase(source, target);
+            progress.advance(1, 0);
+            return "Cloned " + source + " into " + target;
+        });
+    }
+
+    /** Recounts the transaction rollups from bank.transactions. */
+    public Job rebuildRollups(DatabaseType databaseType) {
+        return jobService.submit(databaseType, REBUILD_ROLLUPS, Map.of(), progress -> {
+            progress.total(1);
+            rollupService.rebuild(databaseType);
+            progress.advance(1, 0);
+            return "Rebuilt transaction rollups";
+        });
+    }
+
+    /** Recomputes the customer summary read model, e.g. after a bulk Synthesized run. */
+    public Job rebuildCustomerSummary(DatabaseType databaseType) {
+        return jobService.submit(databaseType, REBUILD_CUSTOMER_SUMMARY, Map.of(), progress -> {
+            progress.total(1);
+            customerSummaryService.rebuild(databaseType);
+            progress.advance(1, 0);
+            return "Rebuilt customer summary";
+        });
+    }
+
+    private static Map<String, String> parameters(LocalDateTime before, String transactionType, Integer accountId) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (before != null) {
+            parameters.put("before", before.toString());
+        }
+        if (transactionType != null && !transactionType.isEmpty()) {
+            parameters.put("transactionType", transactionType);
+        }
+        if (accountId != null) {
+            parameters.put("accountId", accountId.toString());
+        }
+        return parameters;
+    }
+
+    private static void writeCsvRow(BufferedWriter out, Transaction transaction) throws IOException {
+        Object[] values = {
+            transaction.getTransactionId(),
+            transaction.getAccountId(),
+            transaction.getTransactionType(),
+            transaction.getTransactionDate(),
+            transaction.getAmount(),
+            transaction.getChannel(),
+            transaction.getCurrency(),
+            transaction.getChannelDetails(),
+            transaction.getLocation(),
+            transaction.getDeviceType(),
+            transaction.getAuthMethod()
+        };
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            if (values[i] != null) {
+                String value = values[i].toString();
+                if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                    line.append('"').append(value.replace("\"", "\"\"")).append('"');
+                } else {
+                    line.append(value);
+                }
+            }
+        }
+        out.write(line.toString());
+        out.newLine();
+    }
+}
@@ -0,0 +1,71 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds how stale the in-process caches can be when several backend
+ * instances share a database.
+ *
+ * <p>Every committed change reaches every instance as a NOTIFY on the
+ * change feed channel, which {@link ChangeFeedService} turns into
+ * {@link io.synthesized.sample.bank.model.DataChangeEvent}s that the caches
+ * act on. Its listener confirms every {@code ping-interval-ms} that the
+ * connection is alive and all notifications sent before the ping have been
+ * applied. The entity and page caches are only used while the last
+ * confirmation is at most {@code max-staleness-ms} old; while the listener
+ * is down they are bypassed, and all caches are flushed when it reconnects.
+ * The reference data cache keeps its own {@code ttl-ms} bound instead.
+ *
+ * <p>With {@code bank.cache-coherence.enabled=false} (a single instance and
+ * no writers outside the backend) caches rely on their expiry alone.
+ */
+@Component
+public class CacheCoherence {
+    private final boolean enabled;
+    private final long pingIntervalMs;
+    private final long maxStalenessNanos;
+    // System.nanoTime() of the last confirmation; 0 while the listener is down
+    private final Map<DatabaseType, AtomicLong> confirmedAt = new EnumMap<>(DatabaseType.class);
+
+    public CacheCoherence(
+            @Value("${bank.cache-coherence.enabled:true}") boolean enabled,
+            @Value("${bank.cache-coherence.ping-interval-ms:2000}") long pingIntervalMs,
+            @Value("${bank.cache-coherence.max-staleness-ms:10000}") long maxStalenessMs) {
+        this.enabled = enabled;
+        this.pingIntervalMs = Math.max(100, pingIntervalMs);
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(this.pingIntervalMs, maxStalenessMs));
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            confirmedAt.put(databaseType, new AtomicLong());
+        }
+    }
+
+    /** Whether cached data of the database may be served. */
+    public boolean allowsCaching(DatabaseType databaseType) {
+        if (!enabled) {
+            return true;
+        }
+        long confirmed = confirmedAt.get(databaseType).get();
+        return confirmed != 0 && System.nanoTime() - confirmed <= maxStalenessNanos;
+    }
+
+    /** The listener has applied every notification sent before now. */
+    public void confirmed(DatabaseType databaseType) {
+        confirmedAt.get(databaseType).set(System.nanoTime());
+    }
+
+    /** The listener lost its connection; notifications may be missed until it reconnects. */
+    public void lost(DatabaseType databaseType) {
+        confirmedAt.get(databaseType).set(0);
+    }
+
+    public long getPingIntervalMs() {
+        return pingIntervalMs;
+    }
+}
@@ -0,0 +1,258 @@
+package io.synthesized.sample.bank.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.synthesized.sample.bank.config.ResettableDataSource;
+import io.synthesized.sample.bank.model.ChangeNotification;
+import io.synthesized.sample.bank.model.DataChangeEvent;
+import io.synthesized.sample.bank.model.DatabaseResetEvent;
+import io.synthesized.sample.bank.model.DatabaseType;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Streams the change notifications of each database to Server-Sent Events
+ * subscribers.
+ *
+ * <p>Triggers on the bank tables (db/ops/03_change_notifications.sql) NOTIFY
+ * channel {@value #CHANNEL} once per statement. One listener thread per
+ * database holds a single unpooled connection that LISTENs on the channel and
+ * forwards each payload unchanged as a {@code change} event to every
+ * subscriber of that database, so the database sees one connection however
+ * many browsers are watching. Subscribers get a {@code resync} event whenever
+ * notifications may have been missed (listener reconnected, database reset)
+ * and should reload what they show.
+ *
+ * <p>Each notification is also published in-process as a
+ * {@link DataChangeEvent}, so caches drop what writes by other backend
+ * instances or tools made stale (see {@link CacheCoherence}). On every
+ * (re)connect a {@link DataChangeEvent#everything} is published instead, and
+ * the listener pings its connection every
+ * {@code bank.cache-coherence.ping-interval-ms} to confirm it is current.
+ */
+@Service
+public class ChangeFeedService implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedService.class);
+    public static final String CHANNEL = "bank_changes";
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final Map<DatabaseType, ResettableDataSource> dataSources = new EnumMap<>(DatabaseType.class);
+    private final Map<DatabaseType, List<SseEmitter>> subscribers = new EnumMap<>(DatabaseType.class);
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final CacheCoherence cacheCoherence;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final long heartbeatMs;
+    private final long emitterTimeoutMs;
+    private final int maxSubscribers;
+    private volatile boolean shutdown;
+
+    public ChangeFeedService(
+            @Qualifier("seedDataSource") ResettableDataSource seedDataSource,
+            @Qualifier("testingDataSource") ResettableDataSource testingDataSource,
+            @Qualifier("prodDataSource") ResettableDataSource prodDataSource,
+            CacheCoherence cacheCoherence,
+            ApplicationEventPublisher eventPublisher,
+            ObjectMapper objectMapper,
+            @Value("${bank.changes.heartbeat-ms:15000}") long heartbeatMs,
+            @Value("${bank.changes.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+            @Value("${bank.changes.max-subscribers:500}") int maxSubscribers) {
+        dataSources.put(DatabaseType.SEED, seedDataSource);
+        dataSources.put(DatabaseType.TESTING, testingDataSource);
+        dataSources.put(DatabaseType.PROD, prodDataSource);
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            subscribers.put(databaseType, new CopyOnWriteArrayList<>());
+        }
+        this.cacheCoherence = cacheCoherence;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.heartbeatMs = Math.max(1000, heartbeatMs);
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            Thread thread = new Thread(() -> listen(databaseType), "change-feed-" + databaseType.name().toLowerCase());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        shutdown = true;
+        for (List<SseEmitter> emitters : subscribers.values()) {
+            emitters.forEach(SseEmitter::complete);
+            emitters.clear();
+        }
+    }
+
+    /**
+     * Registers a subscriber for the changes of one database.
+     *
+     * @throws IllegalStateException if bank.changes.max-subscribers streams are already open
+     */
+    public SseEmitter subscribe(DatabaseType databaseType) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many change feed subscribers, try again later");
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        List<SseEmitter> emitters = subscribers.get(databaseType);
+        emitters.add(emitter);
+        Runnable remove = () -> {
+            if (emitters.remove(emitter)) {
+                subscriberCount.decrementAndGet();
+            }
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        try {
+            emitter.send(SseEmitter.event().name("ready").data("{}").reconnectTime(3000));
+        } catch (IOException e) {
+            remove.run();
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    @EventListener
+    public void onDatabaseReset(DatabaseResetEvent event) {
+        broadcast(event.databaseType(), () -> SseEmitter.event().name("resync").data("{}"));
+    }
+
+    private void listen(DatabaseType databaseType) {
+        ResettableDataSource dataSource = dataSources.get(databaseType);
+        long backoffMs = 1000;
+        boolean reconnecting = false;
+        while (!shutdown) {
+            // Outside the pool, so a reset draining the pool never waits for it
+            try (Connection connection = dataSource.openConnectionTo(dataSource.getDatabaseName())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                logger.info("Listening for changes in database {}", databaseType);
+                if (reconnecting) {
+                    broadcast(databaseType, () -> SseEmitter.event().name("resync").data("{}"));
+                }
+                reconnecting = true;
+                backoffMs = 1000;
+                // Whatever was cached before LISTEN took effect may have missed notifications
+                eventPublisher.publishEvent(DataChangeEvent.everything(databaseType));
+                cacheCoherence.confirmed(databaseType);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                long pingIntervalMs = cacheCoherence.getPingIntervalMs();
+                long lastHeartbeat = System.nanoTime();
+                long lastPing = System.nanoTime();
+                while (!shutdown) {
+                    dispatch(databaseType, pgConnection.getNotifications((int) Math.min(heartbeatMs, pingIntervalMs)));
+                    if (System.nanoTime() - lastPing >= TimeUnit.MILLISECONDS.toNanos(pingIntervalMs)) {
+                        // A round trip proves the connection alive; notifications sent before it arrive ahead of its result
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        dispatch(databaseType, pgConnection.getNotifications());
+                        cacheCoherence.confirmed(databaseType);
+                        lastPing = System.nanoTime();
+                    }
+                    if (System.nanoTime() - lastHeartbeat >= TimeUnit.MILLISECONDS.toNanos(heartbeatMs)) {
+                        // Keeps proxies from closing idle streams and finds dead subscribers
+                        broadcast(databaseType, () -> SseEmitter.event().comment("heartbeat"));
+                        lastHeartbeat = System.nanoTime();
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                // A failed cache listener is handled like a lost connection: caches are bypassed
+                // until the reconnect flushes them, and the listener thread survives
+                cacheCoherence.lost(databaseType);
+                if (shutdown) {
+                    return;
+                }
+                logger.warn("Change listener for database {} disconnected, retrying in {} ms: {}", databaseType, backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    private void dispatch(DatabaseType databaseType, PGNotification[] notifications) {
+        if (notifications == null) {
+            return;
+        }
+        RuntimeException failure = null;
+        for (PGNotification notification : notifications) {
+            broadcast(databaseType, () -> SseEmitter.event().name("change").data(notification.getParameter()));
+            try {
+                eventPublisher.publishEvent(toEvent(databaseType, notification.getParameter()));
+            } catch (RuntimeException e) {
+                // The remaining notifications are still delivered; the listener restarts afterwards
+                logger.error("Change listener failed on notification {} from database {}",
+                    notification.getParameter(), databaseType, e);
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private DataChangeEvent toEvent(DatabaseType databaseType, String payload) {
+        try {
+            ChangeNotification change = objectMapper.readValue(payload, ChangeNotification.class);
+            return new DataChangeEvent(databaseType, change.entity(),
+                change.ids() != null ? change.ids() : List.of(),
+                change.customerIds() != null ? change.customerIds() : List.of(),
+                change.truncated() || change.ids() == null);
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Unreadable change notification from database {}, dropping all cached data: {}", databaseType, e.getMessage());
+            return DataChangeEvent.everything(databaseType);
+        }
+    }
+
+    // Event builders accumulate state when built, so each subscriber gets a fresh one
+    private void broadcast(DatabaseType databaseType, Supplier<SseEmitter.SseEventBuilder> event) {
+        List<SseEmitter> emitters = subscribers.get(databaseType);
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(event.get());
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the completion callback unregisters it
+                emitter.completeWithError(e);
+                if (emitters.remove(emitter)) {
+                    subscriberCount.decrementAndGet();
+                }
+            }
+        }
+    }
+}
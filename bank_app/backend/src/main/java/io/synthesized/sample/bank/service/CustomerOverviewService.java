@@ -0,0 +1,108 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.Account;
+import io.synthesized.sample.bank.model.AccountOverview;
+import io.synthesized.sample.bank.model.Customer;
+import io.synthesized.sample.bank.model.CustomerOverview;
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.Transaction;
+import io.synthesized.sample.bank.repository.AccountRepository;
+import io.synthesized.sample.bank.repository.CustomerRepository;
+import io.synthesized.sample.bank.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Assembles customer overviews (customer, accounts, latest transactions per
+ * account) in the manner of a DataLoader: each level is fetched for all
+ * parents at once, so an overview costs one query per entity type however
+ * many accounts the customers have.
+ */
+@Service
+public class CustomerOverviewService {
+
+    private final CustomerRepository customerRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final EntityCache entityCache;
+    private final int maxTransactionsPerAccount;
+
+    public CustomerOverviewService(
+            CustomerRepository customerRepository,
+            AccountRepository accountRepository,
+            TransactionRepository transactionRepository,
+            EntityCache entityCache,
+            @Value("${bank.customer-overview.max-transactions-per-account:50}") int maxTransactionsPerAccount) {
+        this.customerRepository = customerRepository;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.entityCache = entityCache;
+        this.maxTransactionsPerAccount = maxTransactionsPerAccount;
+    }
+
+    /** Returns the overview of one customer, or null if the customer does not exist. */
+    public CustomerOverview getOverview(DatabaseType databaseType, long customerId, int transactionsPerAccount) {
+        List<CustomerOverview> overviews = getOverviews(databaseType, List.of(customerId), transactionsPerAccount);
+        return overviews.isEmpty() ? null : overviews.get(0);
+    }
+
+    /**
+     * Returns the overviews of the customers that exist, in request order,
+     * using three queries in total: customers (cache misses only), their
+     * accounts, and a LATERAL top-N over the transactions of those accounts.
+     */
+    public List<CustomerOverview> getOverviews(DatabaseType databaseType, List<Long> customerIds, int transactionsPerAccount) {
+        if (transactionsPerAccount < 0 || transactionsPerAccount > maxTransactionsPerAccount) {
+            throw new IllegalArgumentException("transactions must be between 0 and " + maxTransactionsPerAccount);
+        }
+        Map<Long, Customer> customers = entityCache.getCustomers(databaseType, customerIds,
+            misses -> customerRepository.findByIds(databaseType, misses).stream()
+                .collect(Collectors.toMap(Customer::getCustomerId, Function.identity())));
+        if (customers.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<Account>> accountsByCustomer = accountRepository
+            .findByCustomerIds(List.copyOf(customers.keySet()), databaseType).stream()
+            .collect(Collectors.groupingBy(account -> account.getCustomerId().longValue()));
+
+        Map<Long, List<Transaction>> transactionsByAccount = Map.of();
+        List<Long> accountIds = accountsByCustomer.values().stream()
+            .flatMap(List::stream)
+            .map(account -> account.getAccountId().longValue())
+            .toList();
+        if (transactionsPerAccount > 0 && !accountIds.isEmpty()) {
+            transactionsByAccount = transactionRepository
+                .findRecentByAccountIds(accountIds, transactionsPerAccount, databaseType).stream()
+                .collect(Collectors.groupingBy(transaction -> transaction.getAccountId().longValue()));
+        }
+
+        List<CustomerOverview> overviews = new ArrayList<>();
+        for (Long customerId : customerIds) {
+            Customer customer = customers.get(customerId);
+            if (customer == null) {
+                continue;
+            }
+            List<AccountOverview> accounts = new ArrayList<>();
+            for (Account account : accountsByCustomer.getOrDefault(customerId, List.of())) {
+                AccountOverview accountOverview = new AccountOverview();
+                accountOverview.setAccount(account);
+                accountOverview.setRecentTransactions(
+                    transactionsByAccount.getOrDefault(account.getAccountId().longValue(), List.of()));
+                accounts.add(accountOverview);
+            }
+            CustomerOverview overview = new CustomerOverview();
+            overview.setCustomer(customer);
+            overview.setAccounts(accounts);
+            overview.setTransactionsPerAccount(transactionsPerAccount);
+            overviews.add(overview);
+        }
+        return overviews;
+    }
+} 
\ No newline at end of file
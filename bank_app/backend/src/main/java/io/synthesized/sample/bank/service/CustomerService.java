@@ -1,28 +1,56 @@
 package io.synthesized.sample.bank.service;
 
 import io.synthesized.sample.bank.model.Customer;
+import io.synthesized.sample.bank.model.CustomerSummaryFilter;
+import io.synthesized.sample.bank.model.DatabaseType;
 import io.synthesized.sample.bank.repository.CustomerRepository;
+import io.synthesized.sample.bank.repository.DataVersions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class CustomerService {
+    // Listed customers carry their account IDs and the summary, which postings update
+    private static final DataVersions.Table[] LIST_TABLES = {
+        DataVersions.Table.CUSTOMERS, DataVersions.Table.ACCOUNTS, DataVersions.Table.TRANSACTIONS};
 
     private final CustomerRepository customerRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final EntityCache entityCache;
+    private final BatchLookup batchLookup;
+    private final PageStreamer pageStreamer;
+    private final PageCache pageCache;
+    private final GroupCommitBatcher<Customer> customerInserts;
 
     @Autowired
-    public CustomerService(CustomerRepository customerRepository) {
+    public CustomerService(CustomerRepository customerRepository, ReferenceDataCache referenceDataCache, EntityCache entityCache,
+                           BatchLookup batchLookup, PageStreamer pageStreamer, PageCache pageCache, GroupCommit groupCommit) {
         this.customerRepository = customerRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.entityCache = entityCache;
+        this.batchLookup = batchLookup;
+        this.pageStreamer = pageStreamer;
+        this.pageCache = pageCache;
+        this.customerInserts = groupCommit.batcher("customers", customerRepository::createBatch);
+    }
+
+    private void validateCustomerType(String database, String customerType) {
+        referenceDataCache.validateEnum(DatabaseType.valueOf(database.toUpperCase()), "customer_type_enum", "customer type", customerType);
     }
 
     public Map<String, Object> getCustomers(String database, int page, int size, String sortBy, String sortOrder,
                                           String customerType, String searchQuery) {
-        List<Customer> customers = customerRepository.findAll(database, page, size, sortBy, sortOrder, customerType, searchQuery, null);
-        int totalCount = customerRepository.count(database, customerType, searchQuery, null);
+        validateCustomerType(database, customerType);
+        List<Customer> customers = getCustomers(database, page, size, sortBy, sortOrder, customerType, searchQuery, null,
+            CustomerSummaryFilter.NONE);
+        int totalCount = count(database, sortBy, customerType, searchQuery, null, CustomerSummaryFilter.NONE);
         
         Map<String, Object> result = new HashMap<>();
         result.put("customers", customers);
@@ -31,27 +59,97 @@ public class CustomerService {
     }
 
     public Customer getCustomer(String database, Long customerId) {
-        return customerRepository.findById(database, customerId);
+        return entityCache.getCustomer(DatabaseType.valueOf(database.toUpperCase()), customerId,
+            () -> customerRepository.findById(database, customerId));
+    }
+
+    /** Multi-get: cached customers are served from memory, the rest are loaded with one query. */
+    public BatchLookup.Result<Customer> getCustomersByIds(String database, List<Long> customerIds) {
+        DatabaseType databaseType = DatabaseType.valueOf(database.toUpperCase());
+        return batchLookup.resolve(customerIds, ids -> entityCache.getCustomers(databaseType, ids,
+            misses -> customerRepository.findByIds(databaseType, misses).stream()
+                .collect(Collectors.toMap(Customer::getCustomerId, Function.identity()))));
     }
 
     public Customer createCustomer(String database, Customer customer) {
-        return customerRepository.create(database, customer);
+        validateCustomerType(database, customer.getCustomerType());
+        // Concurrent creates share one batch and one commit
+        return customerInserts.insert(customer, DatabaseType.valueOf(database.toUpperCase()));
     }
 
     public List<Customer> getCustomers(String database, int page, int size, String sortBy, String sortOrder,
-                                     String customerType, String searchQuery, String customerId) {
-        return customerRepository.findAll(database, page, size, sortBy, sortOrder, customerType, searchQuery, customerId);
+                                     String customerType, String searchQuery, String customerId,
+                                     CustomerSummaryFilter summaryFilter) {
+        validateCustomerType(database, customerType);
+        CustomerRepository.validateSort(sortBy, sortOrder);
+        List<Customer> customers = loadPage(database, page, size, sortBy, sortOrder, customerType, searchQuery, customerId,
+            summaryFilter);
+        if (customers.size() == size) {
+            // A full page may have a next one; have it ready when the user pages forward
+            pageCache.prefetch(DatabaseType.valueOf(database.toUpperCase()),
+                pageKey(database, page + 1, size, sortBy, sortOrder, customerType, searchQuery, customerId, summaryFilter),
+                LIST_TABLES, List::size,
+                () -> customerRepository.findAll(database, page + 1, size, sortBy, sortOrder, customerType, searchQuery,
+                    customerId, summaryFilter));
+        }
+        return customers;
+    }
+
+    private List<Customer> loadPage(String database, int page, int size, String sortBy, String sortOrder,
+                                    String customerType, String searchQuery, String customerId,
+                                    CustomerSummaryFilter summaryFilter) {
+        // Pages seen before come from memory; identical page requests arriving together share one query
+        return pageCache.get(DatabaseType.valueOf(database.toUpperCase()),
+            pageKey(database, page, size, sortBy, sortOrder, customerType, searchQuery, customerId, summaryFilter),
+            LIST_TABLES, List::size,
+            () -> customerRepository.findAll(database, page, size, sortBy, sortOrder, customerType, searchQuery, customerId,
+                summaryFilter));
+    }
+
+    private static List<Object> pageKey(String database, int page, int size, String sortBy, String sortOrder,
+                                        String customerType, String searchQuery, String customerId,
+                                        CustomerSummaryFilter summaryFilter) {
+        return SingleFlight.key("customers", database.toUpperCase(), page, size, sortBy, sortOrder, customerType,
+            searchQuery, customerId, summaryFilter);
+    }
+
+    public int count(String database, String sortBy, String customerType, String searchQuery, String customerId,
+                     CustomerSummaryFilter summaryFilter) {
+        validateCustomerType(database, customerType);
+        // The sort only matters through whether customers without a summary row are counted
+        return pageCache.get(DatabaseType.valueOf(database.toUpperCase()),
+            SingleFlight.key("customer-count", database.toUpperCase(), CustomerRepository.isDrivenBySummary(sortBy, summaryFilter),
+                customerType, searchQuery, customerId, summaryFilter),
+            LIST_TABLES, count -> 0,
+            () -> customerRepository.count(database, sortBy, customerType, searchQuery, customerId, summaryFilter));
+    }
+
+    /** Whether a page of {@code size} customers is served by {@link #streamCustomers}. */
+    public boolean isStreamed(int size) {
+        return pageStreamer.isStreamed(size);
     }
 
-    public int count(String database, String customerType, String searchQuery, String customerId) {
-        return customerRepository.count(database, customerType, searchQuery, customerId);
+    /**
+     * The page {@link #getCustomers} returns, with its total count, written
+     * straight from the result set to the response. The count runs now; the
+     * page query runs when the body is written.
+     */
+    public StreamingResponseBody streamCustomers(String database, int page, int size, String sortBy, String sortOrder,
+                                                 String customerType, String searchQuery, String customerId,
+                                                 CustomerSummaryFilter summaryFilter) {
+        // Fail before the response starts rather than inside the streamed body
+        CustomerRepository.validateSort(sortBy, sortOrder);
+        int totalCount = count(database, sortBy, customerType, searchQuery, customerId, summaryFilter);
+        return pageStreamer.page("customers", totalCount, generator -> customerRepository.writeAll(
+            database, page, size, sortBy, sortOrder, customerType, searchQuery, customerId, summaryFilter, generator));
     }
 
     public Customer getCustomerById(String database, Long customerId) {
-        return customerRepository.findById(database, customerId);
+        return getCustomer(database, customerId);
     }
 
     public void deleteCustomer(String database, Long customerId) {
         customerRepository.deleteById(database, customerId);
+        entityCache.invalidateCustomerAndAccounts(DatabaseType.valueOf(database.toUpperCase()), customerId);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,68 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.repository.CustomerSummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Objects;
+
+@Service
+public class CustomerSummaryService {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSummaryService.class);
+
+    private final CustomerSummaryRepository customerSummaryRepository;
+
+    public CustomerSummaryService(CustomerSummaryRepository customerSummaryRepository) {
+        this.customerSummaryRepository = customerSummaryRepository;
+    }
+
+    public void rebuild(DatabaseType databaseType) {
+        logger.info("Rebuilding customer summary for database {}", databaseType);
+        long started = System.currentTimeMillis();
+        customerSummaryRepository.rebuild(databaseType);
+        logger.info("Rebuilt customer summary for database {} in {} ms", databaseType, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Catch-up job: bulk loads bypass the repository write paths, so compare
+     * the summarized totals with the bank tables and rebuild when they
+     * disagree. Per-customer drift that cancels out in the totals is not
+     * detected; run the rebuild job after such loads.
+     */
+    @Scheduled(
+        initialDelayString = "${bank.customer-summary.catch-up-initial-delay-ms:30000}",
+        fixedDelayString = "${bank.customer-summary.catch-up-interval-ms:300000}"
+    )
+    public void catchUpAll() {
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            try {
+                Map<String, Object> summarized = customerSummaryRepository.totals(databaseType, true);
+                Map<String, Object> actual = customerSummaryRepository.totals(databaseType, false);
+                if (!matches(summarized, actual)) {
+                    logger.info("Customer summary for {} is out of date (summarized {}, in tables {})",
+                        databaseType, summarized, actual);
+                    rebuild(databaseType);
+                }
+            } catch (Exception e) {
+                logger.warn("Customer summary catch-up failed for database {}: {}", databaseType, e.getMessage());
+            }
+        }
+    }
+
+    private static boolean matches(Map<String, Object> summarized, Map<String, Object> actual) {
+        return number(summarized, "customers").longValue() == number(actual, "customers").longValue()
+            && number(summarized, "accounts").longValue() == number(actual, "accounts").longValue()
+            && new BigDecimal(number(summarized, "balance").toString())
+                .compareTo(new BigDecimal(number(actual, "balance").toString())) == 0
+            && Objects.equals(summarized.get("last_transaction"), actual.get("last_transaction"));
+    }
+
+    private static Number number(Map<String, Object> totals, String key) {
+        return (Number) totals.get(key);
+    }
+}
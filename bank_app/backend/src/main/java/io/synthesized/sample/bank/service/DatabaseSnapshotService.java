@@ -0,0 +1,230 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.config.ResettableDataSource;
+import io.synthesized.sample.bank.model.DatabaseResetEvent;
+import io.synthesized.sample.bank.model.DatabaseSnapshot;
+import io.synthesized.sample.bank.model.DatabaseType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Snapshots, restores and clones whole bank databases using
+ * {@code CREATE DATABASE ... TEMPLATE}, which copies the database files
+ * directly and takes seconds even for prod-sized data.
+ *
+ * <p>PostgreSQL requires that nobody is connected to the template or the
+ * database being dropped, so the affected connection pools are drained and
+ * closed for the duration and other sessions on those databases are
+ * terminated.
+ */
+@Service
+public class DatabaseSnapshotService {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseSnapshotService.class);
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("[a-z0-9_]{1,32}");
+    private static final String SNAPSHOT_SEPARATOR = "_snap_";
+
+    private final ResettableDataSource seedDataSource;
+    private final ResettableDataSource testingDataSource;
+    private final ResettableDataSource prodDataSource;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String maintenanceDatabase;
+    private final Duration drainTimeout;
+    private final boolean allowProdReset;
+
+    public DatabaseSnapshotService(
+            @Qualifier("seedDataSource") ResettableDataSource seedDataSource,
+            @Qualifier("testingDataSource") ResettableDataSource testingDataSource,
+            @Qualifier("prodDataSource") ResettableDataSource prodDataSource,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${bank.admin.maintenance-database:postgres}") String maintenanceDatabase,
+            @Value("${bank.admin.drain-timeout-ms:5000}") long drainTimeoutMs,
+            @Value("${bank.admin.allow-prod-reset:false}") boolean allowProdReset) {
+        this.seedDataSource = seedDataSource;
+        this.testingDataSource = testingDataSource;
+        this.prodDataSource = prodDataSource;
+        this.eventPublisher = eventPublisher;
+        this.maintenanceDatabase = maintenanceDatabase;
+        this.drainTimeout = Duration.ofMillis(drainTimeoutMs);
+        this.allowProdReset = allowProdReset;
+    }
+
+    private ResettableDataSource getDataSource(DatabaseType databaseType) {
+        return switch (databaseType) {
+            case SEED -> seedDataSource;
+            case TESTING -> testingDataSource;
+            case PROD -> prodDataSource;
+        };
+    }
+
+    public List<DatabaseSnapshot> listSnapshots(DatabaseType databaseType) {
+        ResettableDataSource dataSource = getDataSource(databaseType);
+        String prefix = dataSource.getDatabaseName() + SNAPSHOT_SEPARATOR;
+        return withMaintenanceConnection(dataSource, connection -> {
+            List<DatabaseSnapshot> snapshots = new ArrayList<>();
+            try (PreparedStatement ps = connection.prepareStatement(
+                    """
+                    SELECT datname, pg_database_size(datname)
+                    FROM pg_database
+                    WHERE starts_with(datname, ?)
+                    ORDER BY datname
+                    """)) {
+                ps.setString(1, prefix);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        DatabaseSnapshot snapshot = new DatabaseSnapshot();
+                        snapshot.setDatabase(databaseType);
+                        snapshot.setDatabaseName(rs.getString(1));
+                        snapshot.setName(rs.getString(1).substring(prefix.length()));
+                        snapshot.setSizeBytes(rs.getLong(2));
+                        snapshots.add(snapshot);
+                    }
+                }
+            }
+            return snapshots;
+        });
+    }
+
+    /** Copies the current contents of a database into a snapshot, replacing an existing snapshot of that name. */
+    public DatabaseSnapshot createSnapshot(DatabaseType databaseType, String name) {
+        checkResettable(databaseType, "snapshot");
+        ResettableDataSource dataSource = getDataSource(databaseType);
+        String source = dataSource.getDatabaseName();
+        String snapshot = snapshotDatabaseName(source, name);
+
+        long started = System.currentTimeMillis();
+        dataSource.withPoolClosed(drainTimeout, () -> withMaintenanceConnection(dataSource, connection -> {
+            terminateSessions(connection, source);
+            execute(connection, "DROP DATABASE IF EXISTS " + quote(snapshot) + " WITH (FORCE)");
+            execute(connection, "CREATE DATABASE " + quote(snapshot) + " TEMPLATE " + quote(source));
+            return null;
+        }));
+        logger.info("Created snapshot {} of {} in {} ms", snapshot, source, System.currentTimeMillis() - started);
+
+        return listSnapshots(databaseType).stream()
+            .filter(s -> s.getName().equals(name))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("Snapshot " + snapshot + " was not created"));
+    }
+
+    /** Replaces a database with the contents of one of its snapshots. The snapshot is kept. */
+    public void restoreSnapshot(DatabaseType databaseType, String name) {
+        checkResettable(databaseType, "restore");
+        ResettableDataSource dataSource = getDataSource(databaseType);
+        String target = dataSource.getDatabaseName();
+        String snapshot = snapshotDatabaseName(target, name);
+        if (listSnapshots(databaseType).stream().noneMatch(s -> s.getName().equals(name))) {
+            throw new IllegalArgumentException("Snapshot not found: " + name);
+        }
+
+        long started = System.currentTimeMillis();
+        dataSource.withPoolClosed(drainTimeout, () -> withMaintenanceConnection(dataSource, connection -> {
+            execute(connection, "DROP DATABASE IF EXISTS " + quote(target) + " WITH (FORCE)");
+            execute(connection, "CREATE DATABASE " + quote(target) + " TEMPLATE " + quote(snapshot));
+            return null;
+        }));
+        logger.info("Restored {} from snapshot {} in {} ms", target, snapshot, System.currentTimeMillis() - started);
+        eventPublisher.publishEvent(new DatabaseResetEvent(databaseType));
+    }
+
+    public void deleteSnapshot(DatabaseType databaseType, String name) {
+        ResettableDataSource dataSource = getDataSource(databaseType);
+        String snapshot = snapshotDatabaseName(dataSource.getDatabaseName(), name);
+        withMaintenanceConnection(dataSource, connection -> {
+            execute(connection, "DROP DATABASE IF EXISTS " + quote(snapshot) + " WITH (FORCE)");
+            return null;
+        });
+        logger.info("Deleted snapshot {}", snapshot);
+    }
+
+    /**
+     * Replaces {@code target} with a copy of {@code source}, e.g. to reset
+     * TESTING from PROD without running a Synthesized workflow. Both pools
+     * are closed and the source's other sessions terminated while the copy
+     * is made, so PROD is only accepted as either side when resetting it is
+     * allowed.
+     */
+    public void cloneDatabase(DatabaseType source, DatabaseType target) {
+        if (source == target) {
+            throw new IllegalArgumentException("Source and target databases must differ");
+        }
+        checkResettable(source, "clone from");
+        checkResettable(target, "clone into");
+        ResettableDataSource sourceDataSource = getDataSource(source);
+        ResettableDataSource targetDataSource = getDataSource(target);
+        String sourceName = sourceDataSource.getDatabaseName();
+        String targetName = targetDataSource.getDatabaseName();
+
+        long started = System.currentTimeMillis();
+        sourceDataSource.withPoolClosed(drainTimeout, () ->
+            targetDataSource.withPoolClosed(drainTimeout, () -> withMaintenanceConnection(targetDataSource, connection -> {
+                terminateSessions(connection, sourceName);
+                execute(connection, "DROP DATABASE IF EXISTS " + quote(targetName) + " WITH (FORCE)");
+                execute(connection, "CREATE DATABASE " + quote(targetName) + " TEMPLATE " + quote(sourceName));
+                return null;
+            })));
+        logger.info("Cloned {} into {} in {} ms", sourceName, targetName, System.currentTimeMillis() - started);
+        eventPublisher.publishEvent(new DatabaseResetEvent(target));
+    }
+
+    private void checkResettable(DatabaseType databaseType, String operation) {
+        // Every operation here disconnects the database it touches
+        if (databaseType == DatabaseType.PROD && !allowProdReset) {
+            throw new IllegalStateException("Cannot " + operation + " PROD unless bank.admin.allow-prod-reset is enabled");
+        }
+    }
+
+    private static String snapshotDatabaseName(String database, String name) {
+        if (name == null || !SNAPSHOT_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid snapshot name: " + name
+                + ". Use 1-32 lowercase letters, digits or underscores");
+        }
+        return database + SNAPSHOT_SEPARATOR + name;
+    }
+
+    private static void terminateSessions(Connection connection, String database) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE datname = ? AND pid <> pg_backend_pid()")) {
+            ps.setString(1, database);
+            ps.executeQuery().close();
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private interface ConnectionWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    // CREATE/DROP DATABASE cannot run inside a transaction block, so these use
+    // a plain auto-commit connection to the maintenance database
+    private <T> T withMaintenanceConnection(ResettableDataSource dataSource, ConnectionWork<T> work) {
+        try (Connection connection = dataSource.openConnectionTo(maintenanceDatabase)) {
+            connection.setAutoCommit(true);
+            return work.run(connection);
+        } catch (SQLException e) {
+            throw new RuntimeException("Database administration failed: " + e.getMessage(), e);
+        }
+    }
+}
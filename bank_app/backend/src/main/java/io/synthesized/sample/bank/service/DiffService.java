@@ -0,0 +1,252 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.DiffResult;
+import io.synthesized.sample.bank.model.TableDiff;
+import io.synthesized.sample.bank.repository.DiffRepository;
+import io.synthesized.sample.bank.repository.DiffRepository.Checksum;
+import io.synthesized.sample.bank.repository.DiffRepository.KeyRange;
+import io.synthesized.sample.bank.repository.DiffRepository.RowHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Compares bank tables between two databases Merkle-style: each table's key
+ * space is split into ranges whose row count and hash sum are computed on
+ * both sides in parallel; only ranges whose checksums differ are split
+ * further, down to leaf ranges small enough to compare row by row. Identical
+ * tables therefore cost one aggregate query per side, and memory use is
+ * bounded by the fan-out and leaf size rather than the table size.
+ */
+@Service
+public class DiffService implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(DiffService.class);
+
+    private final DiffRepository diffRepository;
+    private final int topLevelRanges;
+    private final int fanOut;
+    private final int leafSize;
+    private final ExecutorService executor;
+
+    public DiffService(
+            DiffRepository diffRepository,
+            @Value("${bank.diff.top-level-ranges:1024}") int topLevelRanges,
+            @Value("${bank.diff.fan-out:16}") int fanOut,
+            @Value("${bank.diff.leaf-size:256}") int leafSize,
+            @Value("${bank.diff.threads:4}") int threads) {
+        this.diffRepository = diffRepository;
+        this.topLevelRanges = Math.max(2, topLevelRanges);
+        this.fanOut = Math.max(2, fanOut);
+        this.leafSize = Math.max(1, leafSize);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(2, threads), runnable -> {
+            Thread thread = new Thread(runnable, "diff-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public DiffResult diff(DatabaseType left, DatabaseType right, List<String> tables, int maxDifferences) {
+        if (left == right) {
+            throw new IllegalArgumentException("Left and right databases must differ");
+        }
+        if (maxDifferences < 0) {
+            throw new IllegalArgumentException("maxDifferences must not be negative");
+        }
+        List<String> selected = tables == null || tables.isEmpty()
+            ? new ArrayList<>(DiffRepository.TABLE_KEYS.keySet())
+            : tables;
+        for (String table : selected) {
+            if (!DiffRepository.TABLE_KEYS.containsKey(table)) {
+                throw new IllegalArgumentException("Unknown table: " + table + ". Allowed values: "
+                    + String.join(", ", DiffRepository.TABLE_KEYS.keySet()));
+            }
+        }
+
+        long started = System.currentTimeMillis();
+        List<TableDiff> tableDiffs = new ArrayList<>();
+        for (String table : selected) {
+            tableDiffs.add(diffTable(left, right, table, maxDifferences));
+        }
+
+        DiffResult result = new DiffResult();
+        result.setLeft(left);
+        result.setRight(right);
+        result.setTables(tableDiffs);
+        result.setElapsedMs(System.currentTimeMillis() - started);
+        logger.info("Compared {} tables between {} and {} in {} ms", tableDiffs.size(), left, right, result.getElapsedMs());
+        return result;
+    }
+
+    private TableDiff diffTable(DatabaseType left, DatabaseType right, String table, int maxDifferences) {
+        Sides<KeyRange> ranges = onBothSides(left, right, db -> diffRepository.keyRange(db, table));
+
+        TableDiff diff = new TableDiff();
+        diff.setTable(table);
+        diff.setKeyColumn(DiffRepository.TABLE_KEYS.get(table));
+        diff.setLeftRowCount(ranges.left.count());
+        diff.setRightRowCount(ranges.right.count());
+
+        Long min = minOf(ranges.left.min(), ranges.right.min());
+        Long max = maxOf(ranges.left.max(), ranges.right.max());
+        if (min != null) {
+            new TableComparison(left, right, table, diff, maxDifferences).compare(min, max);
+        }
+        diff.setIdentical(diff.getMismatchedRanges() == 0 && diff.getLeftRowCount() == diff.getRightRowCount());
+        return diff;
+    }
+
+    /** State of a single table comparison while drilling down. */
+    private final class TableComparison {
+        private final DatabaseType left;
+        private final DatabaseType right;
+        private final String table;
+        private final TableDiff diff;
+        private final int maxDifferences;
+
+        TableComparison(DatabaseType left, DatabaseType right, String table, TableDiff diff, int maxDifferences) {
+            this.left = left;
+            this.right = right;
+            this.table = table;
+            this.diff = diff;
+            this.maxDifferences = maxDifferences;
+        }
+
+        void compare(long min, long max) {
+            long width = bucketWidth(min, max, topLevelRanges);
+            List<long[]> mismatched = mismatchedBuckets(min, max, width);
+            diff.setMismatchedRanges(mismatched.size());
+            for (long[] range : mismatched) {
+                if (differenceCount() >= maxDifferences) {
+                    diff.setTruncated(true);
+                    return;
+                }
+                drillDown(range[0], range[1]);
+            }
+        }
+
+        private void drillDown(long from, long to) {
+            if (to - from + 1 <= leafSize) {
+                compareRows(from, to);
+                return;
+            }
+            for (long[] range : mismatchedBuckets(from, to, bucketWidth(from, to, fanOut))) {
+                if (differenceCount() >= maxDifferences) {
+                    diff.setTruncated(true);
+                    return;
+                }
+                drillDown(range[0], range[1]);
+            }
+        }
+
+        /** Key ranges [from, to] within the given range whose checksums differ between the sides. */
+        private List<long[]> mismatchedBuckets(long from, long to, long width) {
+            Sides<Map<Long, Checksum>> checksums = onBothSides(left, right,
+                db -> diffRepository.bucketChecksums(db, table, from, to, width));
+
+            TreeSet<Long> buckets = new TreeSet<>(checksums.left.keySet());
+            buckets.addAll(checksums.right.keySet());
+            List<long[]> mismatched = new ArrayList<>();
+            for (Long bucket : buckets) {
+                if (!Objects.equals(checksums.left.get(bucket), checksums.right.get(bucket))) {
+                    long start = from + bucket * width;
+                    mismatched.add(new long[] {start, Math.min(to, start + width - 1)});
+                }
+            }
+            return mismatched;
+        }
+
+        /** Merge-joins the per-row hashes of both sides in key order. */
+        private void compareRows(long from, long to) {
+            Sides<List<RowHash>> rows = onBothSides(left, right, db -> diffRepository.rowHashes(db, table, from, to));
+            int l = 0;
+            int r = 0;
+            while (l < rows.left.size() || r < rows.right.size()) {
+                RowHash leftRow = l < rows.left.size() ? rows.left.get(l) : null;
+                RowHash rightRow = r < rows.right.size() ? rows.right.get(r) : null;
+                if (rightRow == null || (leftRow != null && leftRow.key() < rightRow.key())) {
+                    diff.setMissingInRightCount(diff.getMissingInRightCount() + 1);
+                    sample(diff.getMissingInRight(), leftRow.key());
+                    l++;
+                } else if (leftRow == null || rightRow.key() < leftRow.key()) {
+                    diff.setMissingInLeftCount(diff.getMissingInLeftCount() + 1);
+                    sample(diff.getMissingInLeft(), rightRow.key());
+                    r++;
+                } else {
+                    if (leftRow.hash() != rightRow.hash()) {
+                        diff.setChangedCount(diff.getChangedCount() + 1);
+                        sample(diff.getChanged(), leftRow.key());
+                    }
+                    l++;
+                    r++;
+                }
+            }
+        }
+
+        private void sample(List<Long> keys, long key) {
+            if (diff.getMissingInLeft().size() + diff.getMissingInRight().size() + diff.getChanged().size() < maxDifferences) {
+                keys.add(key);
+            }
+        }
+
+        private long differenceCount() {
+            return diff.getMissingInLeftCount() + diff.getMissingInRightCount() + diff.getChangedCount();
+        }
+    }
+
+    private record Sides<T>(T left, T right) {
+    }
+
+    /** Runs the same query against both databases concurrently. */
+    private <T> Sides<T> onBothSides(DatabaseType left, DatabaseType right, Function<DatabaseType, T> query) {
+        CompletableFuture<T> leftResult = CompletableFuture.supplyAsync(() -> query.apply(left), executor);
+        CompletableFuture<T> rightResult = CompletableFuture.supplyAsync(() -> query.apply(right), executor);
+        try {
+            return new Sides<>(leftResult.join(), rightResult.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static long bucketWidth(long from, long to, int buckets) {
+        long span = to - from + 1;
+        return Math.max(1, (span + buckets - 1) / buckets);
+    }
+
+    private static Long minOf(Long a, Long b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : Math.min(a, b);
+    }
+
+    private static Long maxOf(Long a, Long b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : Math.max(a, b);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
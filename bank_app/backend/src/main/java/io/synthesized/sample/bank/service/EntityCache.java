@@ -0,0 +1,243 @@
+package io.synthesized.sample.bank.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.synthesized.sample.bank.model.Account;
+import io.synthesized.sample.bank.model.CacheStatistics;
+import io.synthesized.sample.bank.model.Customer;
+import io.synthesized.sample.bank.model.DataChangeEvent;
+import io.synthesized.sample.bank.model.DatabaseResetEvent;
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.repository.DataVersions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded cache of customers and accounts by (database, id).
+ *
+ * <p>Backed by Caffeine, whose W-TinyLFU admission keeps frequently requested
+ * entities when the cache is full instead of letting a scan over many
+ * one-off IDs flush them. Customers are weighed by their number of accounts.
+ * Every write path through the backend invalidates the affected entries.
+ * Writes by other backend instances and outside the backend (e.g.
+ * Synthesized workflows) invalidate them when their change notification
+ * arrives, and nothing is served from the cache while notifications may be
+ * missed (see {@link CacheCoherence}); entries also expire after
+ * {@code expire-after-write-ms}.
+ *
+ * <p>Cached objects are copied on the way in and out, so callers are free to
+ * modify what they get.
+ */
+@Service
+public class EntityCache {
+
+    private record Key(DatabaseType databaseType, long id) {
+    }
+
+    private final Cache<Key, Customer> customers;
+    private final Cache<Key, Account> accounts;
+    private final boolean enabled;
+    private final CacheCoherence cacheCoherence;
+    private final DataVersions dataVersions;
+
+    public EntityCache(
+            CacheCoherence cacheCoherence,
+            DataVersions dataVersions,
+            @Value("${bank.entity-cache.enabled:true}") boolean enabled,
+            @Value("${bank.entity-cache.customers.max-weight:50000}") long customersMaxWeight,
+            @Value("${bank.entity-cache.accounts.max-size:50000}") long accountsMaxSize,
+            @Value("${bank.entity-cache.expire-after-write-ms:300000}") long expireAfterWriteMs) {
+        this.enabled = enabled;
+        this.cacheCoherence = cacheCoherence;
+        this.dataVersions = dataVersions;
+        this.customers = Caffeine.newBuilder()
+            .maximumWeight(customersMaxWeight)
+            .weigher((Key key, Customer customer) -> 1 + (customer.getAccountIds() == null ? 0 : customer.getAccountIds().size()))
+            .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+            .recordStats()
+            .build();
+        this.accounts = Caffeine.newBuilder()
+            .maximumSize(accountsMaxSize)
+            .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+            .recordStats()
+            .build();
+    }
+
+    /** Returns the cached customer or loads it; a null result from the loader is not cached. */
+    public Customer getCustomer(DatabaseType databaseType, long customerId, Supplier<Customer> loader) {
+        if (!enabled || !cacheCoherence.allowsCaching(databaseType)) {
+            return loader.get();
+        }
+        Customer customer = customers.get(new Key(databaseType, customerId), key -> copy(loader.get()));
+        return copy(customer);
+    }
+
+    /** Returns the cached account or loads it; a null result from the loader is not cached. */
+    public Account getAccount(DatabaseType databaseType, long accountId, Supplier<Account> loader) {
+        if (!enabled || !cacheCoherence.allowsCaching(databaseType)) {
+            return loader.get();
+        }
+        Account account = accounts.get(new Key(databaseType, accountId), key -> copy(loader.get()));
+        return copy(account);
+    }
+
+    /**
+     * Returns the customers among {@code customerIds} that exist, keyed by ID.
+     * All cache misses are handed to {@code loader} in one call.
+     */
+    public Map<Long, Customer> getCustomers(DatabaseType databaseType, Collection<Long> customerIds,
+                                            Function<List<Long>, Map<Long, Customer>> loader) {
+        return getAll(customers, DataVersions.Table.CUSTOMERS, databaseType, customerIds, loader, EntityCache::copy);
+    }
+
+    /**
+     * Returns the accounts among {@code accountIds} that exist, keyed by ID.
+     * All cache misses are handed to {@code loader} in one call.
+     */
+    public Map<Long, Account> getAccounts(DatabaseType databaseType, Collection<Long> accountIds,
+                                          Function<List<Long>, Map<Long, Account>> loader) {
+        return getAll(accounts, DataVersions.Table.ACCOUNTS, databaseType, accountIds, loader, EntityCache::copy);
+    }
+
+    private <T> Map<Long, T> getAll(Cache<Key, T> cache, DataVersions.Table table, DatabaseType databaseType,
+                                    Collection<Long> ids, Function<List<Long>, Map<Long, T>> loader,
+                                    UnaryOperator<T> copier) {
+        if (!enabled || !cacheCoherence.allowsCaching(databaseType)) {
+            return loader.apply(List.copyOf(ids));
+        }
+        // Rows loaded while a change notification for the table arrives may predate it; those are not cached
+        long version = dataVersions.version(databaseType, table);
+        Map<Long, T> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : ids) {
+            T cached = cache.getIfPresent(new Key(databaseType, id));
+            if (cached != null) {
+                found.put(id, copier.apply(cached));
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            Map<Long, T> loaded = loader.apply(misses);
+            boolean current = dataVersions.version(databaseType, table) == version;
+            loaded.forEach((id, entity) -> {
+                if (current) {
+                    cache.put(new Key(databaseType, id), copier.apply(entity));
+                }
+                found.put(id, entity);
+            });
+        }
+        return found;
+    }
+
+    public void invalidateCustomer(DatabaseType databaseType, long customerId) {
+        customers.invalidate(new Key(databaseType, customerId));
+    }
+
+    public void invalidateAccount(DatabaseType databaseType, long accountId) {
+        accounts.invalidate(new Key(databaseType, accountId));
+    }
+
+    /** Drops a customer together with all of its cached accounts, e.g. after the customer was deleted. */
+    public void invalidateCustomerAndAccounts(DatabaseType databaseType, long customerId) {
+        invalidateCustomer(databaseType, customerId);
+        accounts.asMap().entrySet().removeIf(entry -> entry.getKey().databaseType() == databaseType
+            && entry.getValue().getCustomerId() != null
+            && entry.getValue().getCustomerId() == customerId);
+    }
+
+    public void invalidateAll(DatabaseType databaseType) {
+        customers.asMap().keySet().removeIf(key -> key.databaseType() == databaseType);
+        accounts.asMap().keySet().removeIf(key -> key.databaseType() == databaseType);
+    }
+
+    @EventListener
+    public void onDatabaseReset(DatabaseResetEvent event) {
+        invalidateAll(event.databaseType());
+    }
+
+    @EventListener
+    public void onDataChange(DataChangeEvent event) {
+        DatabaseType databaseType = event.databaseType();
+        if (event.affects("customers")) {
+            if (event.allRows()) {
+                customers.asMap().keySet().removeIf(key -> key.databaseType() == databaseType);
+            } else {
+                event.ids().forEach(id -> invalidateCustomer(databaseType, id));
+            }
+        }
+        if (event.affects("accounts")) {
+            // Cached customers list their account IDs
+            if (event.allRows()) {
+                invalidateAll(databaseType);
+            } else {
+                event.ids().forEach(id -> invalidateAccount(databaseType, id));
+                event.customerIds().forEach(id -> invalidateCustomer(databaseType, id));
+            }
+        }
+    }
+
+    public List<CacheStatistics> getStatistics() {
+        List<CacheStatistics> statistics = new ArrayList<>();
+        statistics.add(statistics("customers", customers));
+        statistics.add(statistics("accounts", accounts));
+        return statistics;
+    }
+
+    private static CacheStatistics statistics(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        CacheStatistics statistics = new CacheStatistics();
+        statistics.setName(name);
+        statistics.setSize(cache.estimatedSize());
+        cache.policy().eviction().ifPresent(eviction -> {
+            statistics.setWeightedSize(eviction.weightedSize().orElse(cache.estimatedSize()));
+            statistics.setMaximumWeight(eviction.getMaximum());
+        });
+        statistics.setHits(stats.hitCount());
+        statistics.setMisses(stats.missCount());
+        statistics.setHitRate(stats.hitRate());
+        statistics.setEvictions(stats.evictionCount());
+        return statistics;
+    }
+
+    private static Customer copy(Customer customer) {
+        if (customer == null) {
+            return null;
+        }
+        Customer copy = new Customer();
+        copy.setCustomerId(customer.getCustomerId());
+        copy.setFirstName(customer.getFirstName());
+        copy.setLastName(customer.getLastName());
+        copy.setEmail(customer.getEmail());
+        copy.setPhone(customer.getPhone());
+        copy.setCustomerType(customer.getCustomerType());
+        copy.setCreatedAt(customer.getCreatedAt());
+        copy.setAccountIds(customer.getAccountIds() == null ? null : new ArrayList<>(customer.getAccountIds()));
+        return copy;
+    }
+
+    private static Account copy(Account account) {
+        if (account == null) {
+            return null;
+        }
+        Account copy = new Account();
+        copy.setAccountId(account.getAccountId());
+        copy.setCustomerId(account.getCustomerId());
+        copy.setAccountType(account.getAccountType());
+        copy.setStatus(account.getStatus());
+        copy.setBalance(account.getBalance());
+        return copy;
+    }
+}
@@ -0,0 +1,177 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.RecordingStatus;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Runs a continuous Java Flight Recorder recording of the backend: the JDK's
+ * {@code default} settings (about 1% overhead) overlaid with
+ * {@code jfr/bank.jfc}, which enables the backend's own query, connection
+ * and serialization events. The recording keeps the last
+ * {@code max-age-minutes} and can be dumped at any time for analysis in JDK
+ * Mission Control or with {@code jfr print}.
+ */
+@Service
+public class FlightRecordingService implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecordingService.class);
+    private static final String RECORDING_NAME = "bank";
+    private static final String SETTINGS = "jfr/bank.jfc";
+    private static final DateTimeFormatter DUMP_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final boolean startOnStartup;
+    private final long maxAgeMinutes;
+    private final long maxSizeBytes;
+    private final Path dumpDir;
+    private final int keepDumps;
+    private Recording recording;
+
+    public FlightRecordingService(
+            @Value("${bank.jfr.start-on-startup:false}") boolean startOnStartup,
+            @Value("${bank.jfr.max-age-minutes:60}") long maxAgeMinutes,
+            @Value("${bank.jfr.max-size-mb:250}") long maxSizeMb,
+            @Value("${bank.jfr.dump-dir:${java.io.tmpdir}/bank-recordings}") String dumpDir,
+            @Value("${bank.jfr.keep-dumps:5}") int keepDumps) {
+        this.startOnStartup = startOnStartup;
+        this.maxAgeMinutes = maxAgeMinutes;
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.dumpDir = Path.of(dumpDir);
+        this.keepDumps = Math.max(1, keepDumps);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnStartup() {
+        if (startOnStartup) {
+            try {
+                start();
+            } catch (RuntimeException e) {
+                logger.warn("Could not start the flight recording: {}", e.getMessage());
+            }
+        }
+    }
+
+    /** Starts the recording; a recording that is already running is left as it is. */
+    public synchronized RecordingStatus start() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return getStatus();
+        }
+        if (!FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("Java Flight Recorder is not available in this JVM");
+        }
+        Recording started = new Recording(settings());
+        started.setName(RECORDING_NAME);
+        started.setToDisk(true);
+        started.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+        started.setMaxSize(maxSizeBytes);
+        started.start();
+        if (recording != null) {
+            recording.close();
+        }
+        recording = started;
+        logger.info("Started flight recording keeping the last {} minutes, at most {} MB", maxAgeMinutes,
+            maxSizeBytes / (1024 * 1024));
+        return getStatus();
+    }
+
+    /** Stops recording; what was recorded can still be dumped until the next start. */
+    public synchronized RecordingStatus stop() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new IllegalStateException("No flight recording is running");
+        }
+        recording.stop();
+        logger.info("Stopped flight recording");
+        return getStatus();
+    }
+
+    public synchronized RecordingStatus getStatus() {
+        RecordingStatus status = new RecordingStatus();
+        status.setName(RECORDING_NAME);
+        status.setMaxAgeMinutes(maxAgeMinutes);
+        status.setMaxSizeBytes(maxSizeBytes);
+        if (recording == null) {
+            status.setState("NONE");
+            return status;
+        }
+        status.setState(recording.getState().name());
+        if (recording.getStartTime() != null) {
+            status.setStartedAt(LocalDateTime.ofInstant(recording.getStartTime(), ZoneId.systemDefault()));
+        }
+        status.setSizeBytes(recording.getSize());
+        return status;
+    }
+
+    /**
+     * Writes what the recording holds to a new file in the dump directory,
+     * of which only the last {@code keep-dumps} files are kept.
+     */
+    public synchronized Path dump() throws IOException {
+        if (recording == null || recording.getState() == RecordingState.CLOSED) {
+            throw new IllegalStateException("No flight recording has been started");
+        }
+        Files.createDirectories(dumpDir);
+        Path file = dumpDir.resolve(RECORDING_NAME + "-" + LocalDateTime.now().format(DUMP_TIMESTAMP) + ".jfr");
+        recording.dump(file);
+        logger.info("Dumped flight recording to {} ({} bytes)", file, Files.size(file));
+        deleteOldDumps();
+        return file;
+    }
+
+    private void deleteOldDumps() throws IOException {
+        List<Path> dumps;
+        try (Stream<Path> files = Files.list(dumpDir)) {
+            dumps = files.filter(file -> file.getFileName().toString().endsWith(".jfr"))
+                .sorted(Comparator.comparing(Path::getFileName).reversed())
+                .toList();
+        }
+        for (Path old : dumps.subList(Math.min(keepDumps, dumps.size()), dumps.size())) {
+            Files.deleteIfExists(old);
+        }
+    }
+
+    private static Map<String, String> settings() {
+        try (Reader reader = new InputStreamReader(new ClassPathResource(SETTINGS).getInputStream(), StandardCharsets.UTF_8)) {
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            settings.putAll(Configuration.create(reader).getSettings());
+            return settings;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the flight recorder settings", e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid flight recorder settings in " + SETTINGS, e);
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+
+/**
+ * Creates the {@link GroupCommitBatcher}s for single-row creates, all with
+ * the {@code bank.group-commit.*} settings, and stops their workers on
+ * shutdown.
+ */
+@Component
+public class GroupCommit implements DisposableBean {
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxWaitMs;
+    private final int queueCapacity;
+    private final long timeoutMs;
+    private final List<GroupCommitBatcher<?>> batchers = new CopyOnWriteArrayList<>();
+
+    public GroupCommit(
+            @Value("${bank.group-commit.enabled:true}") boolean enabled,
+            @Value("${bank.group-commit.max-batch-size:128}") int maxBatchSize,
+            @Value("${bank.group-commit.max-wait-ms:2}") long maxWaitMs,
+            @Value("${bank.group-commit.queue-capacity:10000}") int queueCapacity,
+            @Value("${bank.group-commit.timeout-ms:10000}") long timeoutMs) {
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitMs = maxWaitMs;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * A batcher for one table. {@code writer} inserts a list of rows in one
+     * commit and returns them as stored, in the same order.
+     */
+    public <T> GroupCommitBatcher<T> batcher(String name, BiFunction<List<T>, DatabaseType, List<T>> writer) {
+        GroupCommitBatcher<T> batcher = new GroupCommitBatcher<>(name, enabled, maxBatchSize, maxWaitMs, queueCapacity,
+            timeoutMs, writer);
+        batchers.add(batcher);
+        return batcher;
+    }
+
+    @Override
+    public void destroy() {
+        batchers.forEach(GroupCommitBatcher::shutdown);
+    }
+} 
\ No newline at end of file
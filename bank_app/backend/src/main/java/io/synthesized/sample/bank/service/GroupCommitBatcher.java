@@ -0,0 +1,189 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+
+/**
+ * Group-commits single-row inserts: concurrent callers hand their row to a
+ * worker per database, which drains them into batches of up to
+ * {@code maxBatchSize} rows, waiting at most {@code maxWaitMs} for a batch to
+ * fill, and writes each batch with one call to {@code writer}, i.e. one JDBC
+ * batch and one commit. The writer returns the rows as stored (with their
+ * generated keys) in the order it received them.
+ *
+ * <p>This is the {@link PostingEngine} scheme without per-account striping,
+ * for tables whose inserts do not have to be applied in any particular order.
+ * Instances come from {@link GroupCommit}; when it is disabled, each row is
+ * written on the caller's thread as a batch of one.
+ */
+public class GroupCommitBatcher<T> {
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitBatcher.class);
+
+    private final String name;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final int queueCapacity;
+    private final long timeoutMs;
+    private final BiFunction<List<T>, DatabaseType, List<T>> writer;
+
+    private final Map<DatabaseType, Worker> workers = new EnumMap<>(DatabaseType.class);
+    private volatile boolean shutdown;
+
+    GroupCommitBatcher(String name, boolean enabled, int maxBatchSize, long maxWaitMs, int queueCapacity, long timeoutMs,
+                       BiFunction<List<T>, DatabaseType, List<T>> writer) {
+        this.name = name;
+        this.enabled = enabled;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMs));
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.timeoutMs = timeoutMs;
+        this.writer = writer;
+    }
+
+    /** Inserts a row and waits for the batch containing it to commit; returns the row as stored. */
+    public T insert(T row, DatabaseType databaseType) {
+        if (!enabled) {
+            return writer.apply(List.of(row), databaseType).get(0);
+        }
+        CompletableFuture<T> future = submit(row, databaseType);
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name + " insert to commit", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for " + name + " insert to commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Insert failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    public CompletableFuture<T> submit(T row, DatabaseType databaseType) {
+        if (shutdown) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Group commit of " + name + " is shut down"));
+        }
+        Pending<T> pending = new Pending<>(row, new CompletableFuture<>());
+        Worker worker;
+        synchronized (workers) {
+            worker = workers.computeIfAbsent(databaseType, this::startWorker);
+        }
+        if (!worker.queue.offer(pending)) {
+            return CompletableFuture.failedFuture(
+                new IllegalStateException("Insert queue for " + name + " in " + databaseType + " is full, retry later"));
+        }
+        return pending.future;
+    }
+
+    private Worker startWorker(DatabaseType databaseType) {
+        Worker worker = new Worker(databaseType);
+        worker.thread.start();
+        logger.info("Started group commit of {} for database {}", name, databaseType);
+        return worker;
+    }
+
+    void shutdown() {
+        shutdown = true;
+        synchronized (workers) {
+            for (Worker worker : workers.values()) {
+                worker.thread.interrupt();
+            }
+        }
+    }
+
+    private record Pending<T>(T row, CompletableFuture<T> future) {
+    }
+
+    private final class Worker implements Runnable {
+        private final DatabaseType databaseType;
+        private final BlockingQueue<Pending<T>> queue = new LinkedBlockingQueue<>(queueCapacity);
+        private final Thread thread;
+
+        Worker(DatabaseType databaseType) {
+            this.databaseType = databaseType;
+            this.thread = new Thread(this, "group-commit-" + name + "-" + databaseType.name().toLowerCase());
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Pending<T>> batch = new ArrayList<>(maxBatchSize);
+            try {
+                while (!shutdown) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long deadline = System.nanoTime() + maxWaitNanos;
+                    while (batch.size() < maxBatchSize) {
+                        long remaining = deadline - System.nanoTime();
+                        Pending<T> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                    }
+                    commit(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                RuntimeException stopped = new IllegalStateException("Group commit of " + name + " is shut down");
+                failAll(batch, stopped);
+                List<Pending<T>> remaining = new ArrayList<>();
+                queue.drainTo(remaining);
+                failAll(remaining, stopped);
+            }
+        }
+
+        private void commit(List<Pending<T>> batch) {
+            try {
+                complete(batch, writer.apply(batch.stream().map(Pending::row).toList(), databaseType));
+            } catch (RuntimeException e) {
+                if (batch.size() == 1) {
+                    batch.get(0).future.completeExceptionally(e);
+                    return;
+                }
+                // The batch rolled back as a whole; isolate the offending row
+                logger.warn("Batch of {} {} inserts failed on {}, retrying individually: {}",
+                    batch.size(), name, databaseType, e.getMessage());
+                for (Pending<T> pending : batch) {
+                    try {
+                        complete(List.of(pending), writer.apply(List.of(pending.row), databaseType));
+                    } catch (RuntimeException single) {
+                        pending.future.completeExceptionally(single);
+                    }
+                }
+            }
+        }
+
+        private void complete(List<Pending<T>> batch, List<T> stored) {
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(stored.get(i));
+            }
+        }
+
+        private void failAll(List<Pending<T>> pending, RuntimeException e) {
+            for (Pending<T> p : pending) {
+                p.future.completeExceptionally(e);
+            }
+            pending.clear();
+        }
+    }
+} 
\ No newline at end of file
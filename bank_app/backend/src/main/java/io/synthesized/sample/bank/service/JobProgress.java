@@ -0,0 +1,58 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.Job;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Handle through which a running job reports progress. Jobs work in chunks
+ * and call {@link #advance} after each one; progress is written to
+ * bank_ops.jobs at most once per {@code bank.jobs.progress-interval-ms}.
+ */
+public final class JobProgress {
+    private final JobService jobService;
+    private final Job job;
+
+    JobProgress(JobService jobService, Job job) {
+        this.jobService = jobService;
+        this.job = job;
+    }
+
+    public Job getJob() {
+        return job;
+    }
+
+    public void total(long totalItems) {
+        synchronized (job) {
+            job.setTotalItems(totalItems);
+        }
+        jobService.persistProgress(job, true);
+    }
+
+    public void advance(long processedItems, long failedItems) {
+        synchronized (job) {
+            job.setProcessedItems(job.getProcessedItems() + processedItems);
+            job.setFailedItems(job.getFailedItems() + failedItems);
+        }
+        jobService.persistProgress(job, false);
+    }
+
+    public void resultFile(String fileName) {
+        synchronized (job) {
+            job.setResultFile(fileName);
+        }
+    }
+
+    /** Throws {@link CancellationException} once cancellation has been requested; call between chunks. */
+    public void checkCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException("Job " + job.getJobId() + " was cancelled");
+        }
+    }
+
+    public boolean isCancelled() {
+        synchronized (job) {
+            return job.isCancelRequested();
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.config.QueryContext;
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.Job;
+import io.synthesized.sample.bank.repository.JobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs long operations (bulk deletes, exports, resets, recounts) off the
+ * request path. Submitting returns at once with a job ID; the job runs on a
+ * small bounded pool and its state, progress and outcome are kept in the
+ * bank_ops.jobs table of the database it runs against.
+ *
+ * <p>Jobs run with their own {@link QueryContext} without a statement
+ * timeout, so cancelling a job also cancels the statement it is running.
+ *
+ * <p>Several backend instances may share the table. Each job records the
+ * instance running it, which renews the job's heartbeat every
+ * {@code bank.jobs.heartbeat-interval-ms}; only a queued or running job whose
+ * heartbeat is older than {@code bank.jobs.heartbeat-timeout-ms} is reported
+ * as interrupted. Cancelling a job on another instance sets its
+ * cancel_requested flag, which that instance picks up with its next save.
+ * Result files are written to {@code bank.jobs.result-dir} of the running
+ * instance, so it has to be a shared directory for downloads to work through
+ * any instance.
+ */
+@Service
+public class JobService implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(JobService.class);
+    private static final String INTERRUPTED = "Interrupted: the backend instance running the job stopped reporting";
+
+    /** The work of a job. Returns the message recorded when it succeeds. */
+    @FunctionalInterface
+    public interface Task {
+        String run(JobProgress progress) throws Exception;
+    }
+
+    private record RunningJob(Job job, QueryContext queryContext) {
+    }
+
+    private final JobRepository jobRepository;
+    private final ThreadPoolExecutor executor;
+    private final long progressIntervalNanos;
+    private final int retentionDays;
+    private final Path resultDirectory;
+    private final String instanceId;
+    private final long heartbeatTimeoutMs;
+    private final ConcurrentMap<UUID, RunningJob> active = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Long> lastPersisted = new ConcurrentHashMap<>();
+
+    public JobService(
+            JobRepository jobRepository,
+            @Value("${bank.jobs.threads:2}") int threads,
+            @Value("${bank.jobs.queue-capacity:50}") int queueCapacity,
+            @Value("${bank.jobs.progress-interval-ms:1000}") long progressIntervalMs,
+            @Value("${bank.jobs.retention-days:7}") int retentionDays,
+            @Value("${bank.jobs.result-dir:${java.io.tmpdir}/bank-job-results}") String resultDirectory,
+            @Value("${bank.jobs.instance-id:}") String instanceId,
+            @Value("${bank.jobs.heartbeat-timeout-ms:30000}") long heartbeatTimeoutMs) {
+        this.jobRepository = jobRepository;
+        this.progressIntervalNanos = TimeUnit.MILLISECONDS.toNanos(progressIntervalMs);
+        this.retentionDays = retentionDays;
+        this.resultDirectory = Path.of(resultDirectory);
+        this.instanceId = instanceId.isBlank() ? hostName() + "-" + UUID.randomUUID().toString().substring(0, 8) : instanceId;
+        this.heartbeatTimeoutMs = heartbeatTimeoutMs;
+        AtomicInteger threadNumber = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                Thread thread = new Thread(runnable, "job-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public Path getResultDirectory() {
+        return resultDirectory;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Records a new job as QUEUED and schedules it.
+     *
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public Job submit(DatabaseType databaseType, String type, Map<String, String> parameters, Task task) {
+        Job job = new Job();
+        job.setJobId(UUID.randomUUID());
+        job.setDatabase(databaseType);
+        job.setType(type);
+        job.setStatus(Job.Status.QUEUED);
+        job.setParameters(new HashMap<>(parameters));
+        job.setOwner(instanceId);
+        job.setCreatedAt(LocalDateTime.now());
+
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new RejectedExecutionException("Too many jobs queued, try again later");
+        }
+        active.put(job.getJobId(), new RunningJob(job, new QueryContext(0, "job " + type)));
+        try {
+            jobRepository.save(job);
+        } catch (RuntimeException e) {
+            active.remove(job.getJobId());
+            throw e;
+        }
+        try {
+            executor.execute(() -> run(job.getJobId(), task));
+        } catch (RejectedExecutionException e) {
+            active.remove(job.getJobId());
+            job.setStatus(Job.Status.FAILED);
+            job.setMessage("Rejected: too many jobs queued");
+            job.setFinishedAt(LocalDateTime.now());
+            save(job);
+            throw e;
+        }
+        logger.info("Queued {} job {} for database {}", type, job.getJobId(), databaseType);
+        return copy(job);
+    }
+
+    private void run(UUID jobId, Task task) {
+        RunningJob running = active.get(jobId);
+        if (running == null) {
+            return;
+        }
+        Job job = running.job();
+        synchronized (job) {
+            if (job.isCancelRequested()) {
+                finish(running, Job.Status.CANCELLED, "Cancelled before it started");
+                return;
+            }
+            job.setStatus(Job.Status.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+        }
+        save(job);
+
+        Job.Status status;
+        String message;
+        QueryContext.bind(running.queryContext());
+        try {
+            message = task.run(new JobProgress(this, job));
+            status = Job.Status.SUCCEEDED;
+        } catch (Exception e) {
+            if (e instanceof CancellationException || running.queryContext().isCancelled()) {
+                status = Job.Status.CANCELLED;
+                message = "Cancelled";
+            } else {
+                logger.error("{} job {} failed", job.getType(), jobId, e);
+                status = Job.Status.FAILED;
+                message = e.getMessage();
+            }
+        } finally {
+            QueryContext.unbind();
+        }
+        // Outside the job's context: once cancelled, it would refuse the final save too
+        finish(running, status, message);
+    }
+
+    private void finish(RunningJob running, Job.Status status, String message) {
+        Job job = running.job();
+        synchronized (job) {
+            job.setStatus(status);
+            job.setMessage(message);
+            job.setFinishedAt(LocalDateTime.now());
+        }
+        // Saved before leaving the active set, so readers never see a job
+        // that is neither active nor recorded as finished
+        save(job);
+        active.remove(job.getJobId());
+        lastPersisted.remove(job.getJobId());
+        logger.info("{} job {} for database {} finished as {}: {}", job.getType(), job.getJobId(), job.getDatabase(), status, message);
+    }
+
+    /** Writes progress, at most once per progress interval unless {@code force} is set. */
+    void persistProgress(Job job, boolean force) {
+        long now = System.nanoTime();
+        Long previous = lastPersisted.get(job.getJobId());
+        if (!force && previous != null && now - previous < progressIntervalNanos) {
+            return;
+        }
+        lastPersisted.put(job.getJobId(), now);
+        save(job);
+    }
+
+    private void save(Job job) {
+        Job snapshot;
+        synchronized (job) {
+            snapshot = copy(job);
+        }
+        try {
+            if (jobRepository.save(snapshot) && !snapshot.isCancelRequested() && !snapshot.getStatus().isFinished()) {
+                // Requested through another backend instance
+                RunningJob running = active.get(job.getJobId());
+                if (running != null) {
+                    logger.info("Cancellation requested for job {} through another instance", job.getJobId());
+                    requestCancel(running);
+                }
+            }
+        } catch (Exception e) {
+            // The database may be unavailable, e.g. while the job itself is
+            // resetting it; the in-memory state stays authoritative
+            logger.warn("Could not record state of job {}: {}", job.getJobId(), e.getMessage());
+        }
+    }
+
+    /** Renews the heartbeat of every job queued or running here, and picks up cancellations requested elsewhere. */
+    @Scheduled(fixedDelayString = "${bank.jobs.heartbeat-interval-ms:5000}")
+    public void heartbeat() {
+        for (RunningJob running : active.values()) {
+            save(running.job());
+        }
+    }
+
+    private void requestCancel(RunningJob running) {
+        synchronized (running.job()) {
+            running.job().setCancelRequested(true);
+        }
+        running.queryContext().cancel();
+    }
+
+    public Optional<Job> getJob(DatabaseType databaseType, UUID jobId) {
+        RunningJob running = active.get(jobId);
+        if (running != null && running.job().getDatabase() == databaseType) {
+            synchronized (running.job()) {
+                return Optional.of(copy(running.job()));
+            }
+        }
+        return jobRepository.findById(databaseType, jobId).map(job -> checkInterrupted(databaseType, job));
+    }
+
+    public List<Job> listJobs(DatabaseType databaseType, int limit) {
+        List<Job> jobs = new ArrayList<>();
+        for (Job job : jobRepository.findRecent(databaseType, limit)) {
+            RunningJob running = active.get(job.getJobId());
+            if (running != null) {
+                synchronized (running.job()) {
+                    jobs.add(copy(running.job()));
+                }
+            } else {
+                jobs.add(checkInterrupted(databaseType, job));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Requests cancellation. A running job stops at its next chunk boundary
+     * and its current statement is cancelled.
+     *
+     * @throws IllegalArgumentException if the job does not exist
+     * @throws IllegalStateException if the job has already finished
+     */
+    public Job cancel(DatabaseType databaseType, UUID jobId) {
+        RunningJob running = active.get(jobId);
+        if (running != null && running.job().getDatabase() == databaseType) {
+            requestCancel(running);
+            save(running.job());
+            logger.info("Cancellation requested for job {}", jobId);
+            return getJob(databaseType, jobId).orElseThrow();
+        }
+        Job job = getJob(databaseType, jobId)
+            .orElseThrow(() -> new IllegalArgumentException("Job not found: " + jobId));
+        if (job.getStatus().isFinished()) {
+            throw new IllegalStateException("Job " + jobId + " has already finished as " + job.getStatus());
+        }
+        // Alive on another instance, which stops it once it sees the flag
+        jobRepository.requestCancel(databaseType, jobId);
+        logger.info("Cancellation requested for job {} running on instance {}", jobId, job.getOwner());
+        return getJob(databaseType, jobId).orElseThrow();
+    }
+
+    /** Returns the result file of a finished job. */
+    public Path getResultFile(DatabaseType databaseType, UUID jobId) {
+        Job job = getJob(databaseType, jobId)
+            .orElseThrow(() -> new IllegalArgumentException("Job not found: " + jobId));
+        if (job.getStatus() != Job.Status.SUCCEEDED || job.getResultFile() == null) {
+            throw new IllegalStateException("Job " + jobId + " has no result" + (job.getStatus().isFinished() ? "" : " yet"));
+        }
+        Path file = resultDirectory.resolve(job.getResultFile());
+        if (!Files.isReadable(file)) {
+            if (job.getOwner() != null && !job.getOwner().equals(instanceId)) {
+                throw new IllegalStateException("Result of job " + jobId + " was written by backend instance " + job.getOwner()
+                    + "; point bank.jobs.result-dir of all instances to a shared directory to download it from any of them");
+            }
+            throw new IllegalStateException("Result of job " + jobId + " is no longer available");
+        }
+        return file;
+    }
+
+    /** Deletes finished jobs and their result files once they are older than the retention period. */
+    @Scheduled(fixedDelayString = "${bank.jobs.cleanup-interval-ms:3600000}", initialDelayString = "${bank.jobs.cleanup-interval-ms:3600000}")
+    public void cleanUp() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            try {
+                for (String resultFile : jobRepository.deleteFinishedBefore(databaseType, cutoff)) {
+                    if (resultFile != null) {
+                        Files.deleteIfExists(resultDirectory.resolve(resultFile));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not clean up jobs of database {}: {}", databaseType, e.getMessage());
+            }
+        }
+    }
+
+    private Job checkInterrupted(DatabaseType databaseType, Job job) {
+        if (job.getStatus().isFinished() || active.containsKey(job.getJobId())) {
+            return job;
+        }
+        // Recorded as queued or running but not known here: running on another
+        // instance, lost with its instance, or brought back by restoring a
+        // snapshot taken while it ran. Only the last two stop heartbeating.
+        LocalDateTime now = LocalDateTime.now();
+        if (!jobRepository.markInterrupted(databaseType, job.getJobId(), INTERRUPTED, now, heartbeatTimeoutMs)) {
+            // Alive elsewhere, or finished since the row was read
+            return jobRepository.findById(databaseType, job.getJobId()).orElse(job);
+        }
+        job.setStatus(Job.Status.FAILED);
+        job.setMessage(INTERRUPTED);
+        job.setFinishedAt(now);
+        return job;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "backend";
+        }
+    }
+
+    private static Job copy(Job job) {
+        Job copy = new Job();
+        copy.setJobId(job.getJobId());
+        copy.setDatabase(job.getDatabase());
+        copy.setType(job.getType());
+        copy.setStatus(job.getStatus());
+        copy.setParameters(job.getParameters() != null ? new HashMap<>(job.getParameters()) : null);
+        copy.setTotalItems(job.getTotalItems());
+        copy.setProcessedItems(job.getProcessedItems());
+        copy.setFailedItems(job.getFailedItems());
+        copy.setMessage(job.getMessage());
+        copy.setResultFile(job.getResultFile());
+        copy.setCancelRequested(job.isCancelRequested());
+        copy.setOwner(job.getOwner());
+        copy.setCreatedAt(job.getCreatedAt());
+        copy.setStartedAt(job.getStartedAt());
+        copy.setFinishedAt(job.getFinishedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,196 @@
+package io.synthesized.sample.bank.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.synthesized.sample.bank.config.QueryContext;
+import io.synthesized.sample.bank.model.CacheStatistics;
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.repository.DataVersions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cache of list pages and counts by (database, normalized query), so paging
+ * back and forth through the same filtered results is served from memory.
+ *
+ * <p>Each entry is tagged with the {@link DataVersions} version of the
+ * tables its query reads, taken before the query runs; an entry whose
+ * tables have been written since is treated as a miss. Memory is bounded by
+ * weight, one unit per row. Writes by other backend instances and outside
+ * the backend bump the versions when their change notification arrives, and
+ * nothing is served from the cache while notifications may be missed (see
+ * {@link CacheCoherence}); entries also expire after
+ * {@code expire-after-write-ms}. Misses for the same query and version arriving together share
+ * one load; a load started before a write is never shared with callers
+ * that arrive after it.
+ *
+ * <p>{@link #prefetch} loads a page in the background, e.g. the one after
+ * the page just requested, on a small pool; requests that find its queue full are not prefetched.
+ * Cached values are shared between callers and must not be modified.
+ */
+@Service
+public class PageCache implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(PageCache.class);
+
+    private record Key(DatabaseType databaseType, List<Object> query) {
+    }
+
+    private record Entry(long version, Object value, int weight) {
+    }
+
+    private record Load(Key key, long version) {
+    }
+
+    private final DataVersions dataVersions;
+    private final CacheCoherence cacheCoherence;
+    private final boolean enabled;
+    private final boolean prefetchEnabled;
+    private final Cache<Key, Entry> pages;
+    private final ThreadPoolExecutor prefetcher;
+    private final SingleFlight<Load, Object> loads = new SingleFlight<>();
+    private final Set<Key> prefetching = ConcurrentHashMap.newKeySet();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public PageCache(
+            DataVersions dataVersions,
+            CacheCoherence cacheCoherence,
+            @Value("${bank.page-cache.enabled:true}") boolean enabled,
+            @Value("${bank.page-cache.max-weight:100000}") long maxWeight,
+            @Value("${bank.page-cache.expire-after-write-ms:60000}") long expireAfterWriteMs,
+            @Value("${bank.page-cache.prefetch.enabled:true}") boolean prefetchEnabled,
+            @Value("${bank.page-cache.prefetch.threads:2}") int prefetchThreads,
+            @Value("${bank.page-cache.prefetch.queue-capacity:100}") int prefetchQueueCapacity) {
+        this.dataVersions = dataVersions;
+        this.cacheCoherence = cacheCoherence;
+        this.enabled = enabled;
+        this.prefetchEnabled = enabled && prefetchEnabled;
+        this.pages = Caffeine.newBuilder()
+            .maximumWeight(maxWeight)
+            .weigher((Key key, Entry entry) -> entry.weight())
+            .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+            .recordStats()
+            .build();
+        AtomicInteger threadNumber = new AtomicInteger();
+        int poolSize = Math.max(1, prefetchThreads);
+        this.prefetcher = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, prefetchQueueCapacity)), runnable -> {
+                Thread thread = new Thread(runnable, "page-prefetch-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * Returns the cached result of {@code query} if none of {@code tables}
+     * changed since it was loaded, otherwise runs {@code loader} and caches
+     * its result with a weight of {@code rows} of it.
+     */
+    public <V> V get(DatabaseType databaseType, List<Object> query, DataVersions.Table[] tables,
+                     ToIntFunction<V> rows, Supplier<V> loader) {
+        Key key = new Key(databaseType, query);
+        // Read before the query runs: a write committed meanwhile leaves the entry already stale
+        long version = dataVersions.version(databaseType, tables);
+        if (!enabled || !cacheCoherence.allowsCaching(databaseType)) {
+            return load(key, version, loader);
+        }
+        Entry cached = pages.getIfPresent(key);
+        if (cached != null && cached.version() == version) {
+            hits.incrementAndGet();
+            @SuppressWarnings("unchecked")
+            V value = (V) cached.value();
+            return value;
+        }
+        misses.incrementAndGet();
+        V value = load(key, version, loader);
+        Entry loaded = new Entry(version, value, 1 + Math.max(0, rows.applyAsInt(value)));
+        // A slower load of an older version must not replace a newer entry
+        pages.asMap().merge(key, loaded, (existing, replacement) ->
+            existing.version() > replacement.version() ? existing : replacement);
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> V load(Key key, long version, Supplier<V> loader) {
+        return (V) loads.execute(new Load(key, version), loader::get);
+    }
+
+    /**
+     * Loads {@code query} in the background unless it is cached and current
+     * or already being prefetched. Runs with the statement timeout of the
+     * current request; failures are only logged. {@code loader} must query
+     * the database itself: a loader that goes through {@link #get} for the
+     * same query would wait for its own load.
+     */
+    public <V> void prefetch(DatabaseType databaseType, List<Object> query, DataVersions.Table[] tables,
+                             ToIntFunction<V> rows, Supplier<V> loader) {
+        if (!prefetchEnabled || !cacheCoherence.allowsCaching(databaseType)) {
+            return;
+        }
+        Key key = new Key(databaseType, query);
+        Entry cached = pages.asMap().get(key);
+        if (cached != null && cached.version() == dataVersions.version(databaseType, tables)) {
+            return;
+        }
+        if (!prefetching.add(key)) {
+            return;
+        }
+        QueryContext current = QueryContext.current();
+        int timeoutSeconds = current != null ? current.getTimeoutSeconds() : 0;
+        String endpoint = "prefetch " + query.get(0);
+        try {
+            prefetcher.execute(() -> {
+                QueryContext.bind(new QueryContext(timeoutSeconds, endpoint));
+                try {
+                    get(databaseType, query, tables, rows, loader);
+                } catch (RuntimeException e) {
+                    logger.debug("Prefetch of {} on {} failed: {}", query, databaseType, e.getMessage());
+                } finally {
+                    QueryContext.unbind();
+                    prefetching.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Queue full or shutting down: prefetching is best effort
+            prefetching.remove(key);
+        }
+    }
+
+    public CacheStatistics getStatistics() {
+        CacheStatistics statistics = new CacheStatistics();
+        statistics.setName("pages");
+        statistics.setSize(pages.estimatedSize());
+        pages.policy().eviction().ifPresent(eviction -> {
+            statistics.setWeightedSize(eviction.weightedSize().orElse(pages.estimatedSize()));
+            statistics.setMaximumWeight(eviction.getMaximum());
+        });
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        statistics.setHits(hitCount);
+        statistics.setMisses(missCount);
+        statistics.setHitRate(hitCount + missCount == 0 ? 1.0 : (double) hitCount / (hitCount + missCount));
+        statistics.setEvictions(pages.stats().evictionCount());
+        return statistics;
+    }
+
+    @Override
+    public void destroy() {
+        prefetcher.shutdownNow();
+    }
+}
@@ -0,0 +1,111 @@
+package io.synthesized.sample.bank.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.synthesized.sample.bank.config.QueryContext;
+import io.synthesized.sample.bank.config.ResponseSerializationEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Streams large list pages: instead of a list of model objects that Jackson
+ * then serializes into a buffer, the rows are written from the result set
+ * straight to the response as {@code {"<items>": [...], "totalCount": n}},
+ * the same shape as the in-memory responses.
+ * <p>
+ * The page query runs while the body is written, on an MVC async thread, so
+ * the request's {@link QueryContext} is carried over to keep its statement
+ * timeout and cancellation. Validation and the count query should run
+ * before, on the request thread.
+ * <p>
+ * The opening {@code {"<items>": [} is only written with the first row, and
+ * on failure the generator is neither flushed nor closed, so a query that
+ * fails before any output reached the client still ends in an error status.
+ * Only a failure after the response was committed cuts the body short.
+ */
+@Component
+public class PageStreamer {
+
+    private final ObjectMapper objectMapper;
+    private final int minPageSize;
+
+    public PageStreamer(ObjectMapper objectMapper, @Value("${bank.streaming.min-page-size:200}") int minPageSize) {
+        this.objectMapper = objectMapper;
+        this.minPageSize = minPageSize;
+    }
+
+    /** Whether a page of {@code size} rows is worth streaming; small pages stay on the in-memory path. */
+    public boolean isStreamed(int size) {
+        return minPageSize > 0 && size >= minPageSize;
+    }
+
+    /** A body writing the rows {@code writeRows} produces, followed by {@code totalCount}. */
+    public StreamingResponseBody page(String itemsField, int totalCount, Consumer<JsonGenerator> writeRows) {
+        QueryContext context = QueryContext.current();
+        return out -> {
+            QueryContext.bind(context);
+            ResponseSerializationEvent event = new ResponseSerializationEvent();
+            event.begin();
+            boolean failed = true;
+            try {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                ItemsGenerator items = new ItemsGenerator(generator, itemsField);
+                writeRows.accept(items);
+                items.writeStart();
+                generator.writeEndArray();
+                generator.writeFieldName("totalCount");
+                generator.writeNumber(totalCount);
+                generator.writeEndObject();
+                // Only a complete page is flushed; on failure the buffered output is dropped
+                generator.close();
+                failed = false;
+            } catch (UncheckedIOException e) {
+                // The client went away mid-page
+                throw e.getCause();
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.endpoint = QueryContext.currentEndpoint();
+                    event.type = itemsField;
+                    event.streamed = true;
+                    event.failed = failed;
+                    event.commit();
+                }
+                QueryContext.unbind();
+            }
+        };
+    }
+
+    /** Writes the opening of the page before the first row. Rows are objects, so they start with {@code writeStartObject}. */
+    private static final class ItemsGenerator extends JsonGeneratorDelegate {
+        private final String itemsField;
+        private boolean started;
+
+        ItemsGenerator(JsonGenerator generator, String itemsField) {
+            super(generator);
+            this.itemsField = itemsField;
+        }
+
+        void writeStart() throws IOException {
+            if (!started) {
+                started = true;
+                delegate.writeStartObject();
+                delegate.writeFieldName(itemsField);
+                delegate.writeStartArray();
+            }
+        }
+
+        @Override
+        public void writeStartObject() throws IOException {
+            writeStart();
+            delegate.writeStartObject();
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,229 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.Transaction;
+import io.synthesized.sample.bank.repository.PostingRepository;
+import io.synthesized.sample.bank.repository.PostingRepository.PostingOutcome;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group-commits postings to bank.transactions and bank.accounts.
+ *
+ * <p>Each database gets a fixed number of stripes. A posting is routed to the
+ * stripe owning its account, so postings for one account are applied in order
+ * by a single worker while other stripes keep committing in parallel. Each
+ * worker drains its queue into batches of up to {@code max-batch-size}
+ * postings, waiting at most {@code max-wait-ms} for a batch to fill, and
+ * commits the whole batch in one database transaction.
+ */
+@Service
+public class PostingEngine implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(PostingEngine.class);
+
+    private final PostingRepository postingRepository;
+    private final EntityCache entityCache;
+    private final int stripeCount;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final int queueCapacity;
+    private final long postingTimeoutMs;
+
+    private final Map<DatabaseType, Stripe[]> stripes = new EnumMap<>(DatabaseType.class);
+    private volatile boolean shutdown;
+
+    public PostingEngine(
+            PostingRepository postingRepository,
+            EntityCache entityCache,
+            @Value("${bank.posting.stripes:8}") int stripeCount,
+            @Value("${bank.posting.max-batch-size:256}") int maxBatchSize,
+            @Value("${bank.posting.max-wait-ms:2}") long maxWaitMs,
+            @Value("${bank.posting.queue-capacity:10000}") int queueCapacity,
+            @Value("${bank.posting.timeout-ms:10000}") long postingTimeoutMs) {
+        this.postingRepository = postingRepository;
+        this.entityCache = entityCache;
+        this.stripeCount = Math.max(1, stripeCount);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMs));
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.postingTimeoutMs = postingTimeoutMs;
+    }
+
+    /**
+     * Posts a transaction and waits for the batch containing it to commit.
+     *
+     * @throws IllegalArgumentException if the posting was rejected (unknown,
+     *         closed or frozen account)
+     */
+    public Transaction post(Transaction transaction, DatabaseType databaseType) {
+        CompletableFuture<Transaction> future = submit(transaction, databaseType);
+        try {
+            return future.get(postingTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for posting to commit", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for posting to commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Posting failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    public CompletableFuture<Transaction> submit(Transaction transaction, DatabaseType databaseType) {
+        if (shutdown) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Posting engine is shut down"));
+        }
+        PendingPosting pending = new PendingPosting(transaction, new CompletableFuture<>());
+        Stripe stripe = stripeFor(databaseType, transaction.getAccountId());
+        if (!stripe.queue.offer(pending)) {
+            return CompletableFuture.failedFuture(
+                new IllegalStateException("Posting queue for " + databaseType + " is full, retry later"));
+        }
+        return pending.future;
+    }
+
+    private Stripe stripeFor(DatabaseType databaseType, int accountId) {
+        Stripe[] dbStripes;
+        synchronized (stripes) {
+            dbStripes = stripes.computeIfAbsent(databaseType, this::startStripes);
+        }
+        return dbStripes[Math.floorMod(accountId, dbStripes.length)];
+    }
+
+    private Stripe[] startStripes(DatabaseType databaseType) {
+        Stripe[] dbStripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            dbStripes[i] = new Stripe(databaseType, i);
+            dbStripes[i].worker.start();
+        }
+        logger.info("Started {} posting stripes for database {}", stripeCount, databaseType);
+        return dbStripes;
+    }
+
+    @Override
+    public void destroy() {
+        shutdown = true;
+        synchronized (stripes) {
+            for (Stripe[] dbStripes : stripes.values()) {
+                for (Stripe stripe : dbStripes) {
+                    stripe.worker.interrupt();
+                }
+            }
+        }
+    }
+
+    private record PendingPosting(Transaction transaction, CompletableFuture<Transaction> future) {
+    }
+
+    private final class Stripe implements Runnable {
+        private final DatabaseType databaseType;
+        private final BlockingQueue<PendingPosting> queue = new LinkedBlockingQueue<>(queueCapacity);
+        private final Thread worker;
+
+        Stripe(DatabaseType databaseType, int index) {
+            this.databaseType = databaseType;
+            this.worker = new Thread(this, "posting-" + databaseType.name().toLowerCase() + "-" + index);
+            this.worker.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<PendingPosting> batch = new ArrayList<>(maxBatchSize);
+            try {
+                while (!shutdown) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long deadline = System.nanoTime() + maxWaitNanos;
+                    while (batch.size() < maxBatchSize) {
+                        long remaining = deadline - System.nanoTime();
+                        PendingPosting next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                    }
+                    commit(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                failAll(batch, new IllegalStateException("Posting engine is shut down"));
+                List<PendingPosting> remaining = new ArrayList<>();
+                queue.drainTo(remaining);
+                failAll(remaining, new IllegalStateException("Posting engine is shut down"));
+            }
+        }
+
+        private void commit(List<PendingPosting> batch) {
+            List<Transaction> postings = batch.stream().map(PendingPosting::transaction).toList();
+            try {
+                complete(batch, postBatchWithRetry(postings));
+            } catch (RuntimeException e) {
+                if (batch.size() == 1) {
+                    batch.get(0).future.completeExceptionally(e);
+                    return;
+                }
+                // Isolate the offending posting instead of failing the whole group
+                logger.warn("Batch of {} postings failed on {}, retrying individually: {}",
+                    batch.size(), databaseType, e.getMessage());
+                for (PendingPosting pending : batch) {
+                    try {
+                        complete(List.of(pending), postBatchWithRetry(List.of(pending.transaction)));
+                    } catch (RuntimeException single) {
+                        pending.future.completeExceptionally(single);
+                    }
+                }
+            }
+        }
+
+        private List<PostingOutcome> postBatchWithRetry(List<Transaction> postings) {
+            try {
+                return postingRepository.postBatch(postings, databaseType);
+            } catch (DuplicateKeyException e) {
+                // Rows were written with explicit IDs behind our back; resync and retry once
+                postingRepository.invalidateSequence(databaseType);
+                return postingRepository.postBatch(postings, databaseType);
+            }
+        }
+
+        private void complete(List<PendingPosting> batch, List<PostingOutcome> outcomes) {
+            for (int i = 0; i < batch.size(); i++) {
+                PostingOutcome outcome = outcomes.get(i);
+                if (outcome.isPosted()) {
+                    // The balance moved; drop the cached account before the caller can read it
+                    entityCache.invalidateAccount(databaseType, outcome.transaction().getAccountId());
+                    batch.get(i).future.complete(outcome.transaction());
+                } else {
+                    batch.get(i).future.completeExceptionally(new IllegalArgumentException(outcome.rejection()));
+                }
+            }
+        }
+
+        private void failAll(List<PendingPosting> pending, RuntimeException e) {
+            for (PendingPosting p : pending) {
+                p.future.completeExceptionally(e);
+            }
+            pending.clear();
+        }
+    }
+}
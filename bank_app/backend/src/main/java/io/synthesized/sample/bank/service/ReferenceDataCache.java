@@ -0,0 +1,138 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.Branch;
+import io.synthesized.sample.bank.model.DataChangeEvent;
+import io.synthesized.sample.bank.model.DatabaseResetEvent;
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.repository.BranchRepository;
+import io.synthesized.sample.bank.repository.ReferenceDataRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory copy of the reference data of each database: the branches and
+ * the values of the bank.*_enum types.
+ *
+ * <p>Entries are reloaded when they are older than {@code ttl-ms}, which picks
+ * up enum changes and anything else made outside the backend, or when their
+ * version is bumped. Writes through the backend, database resets and branch
+ * change notifications (writes by other backend instances or Synthesized
+ * workflows) bump the version, so they are visible on the next read.
+ */
+@Service
+public class ReferenceDataCache {
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    private record Entry(long version, long loadedAtNanos, List<Branch> branches, Map<String, List<String>> enums) {
+    }
+
+    private final BranchRepository branchRepository;
+    private final ReferenceDataRepository referenceDataRepository;
+    private final long ttlNanos;
+    private final Map<DatabaseType, AtomicLong> versions = new EnumMap<>(DatabaseType.class);
+    private final Map<DatabaseType, Entry> entries = new EnumMap<>(DatabaseType.class);
+
+    public ReferenceDataCache(
+            BranchRepository branchRepository,
+            ReferenceDataRepository referenceDataRepository,
+            @Value("${bank.reference-data.ttl-ms:60000}") long ttlMs) {
+        this.branchRepository = branchRepository;
+        this.referenceDataRepository = referenceDataRepository;
+        this.ttlNanos = ttlMs * 1_000_000;
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            versions.put(databaseType, new AtomicLong());
+        }
+    }
+
+    public List<Branch> getBranches(DatabaseType databaseType) {
+        return entry(databaseType).branches();
+    }
+
+    /** Values of a bank enum type, e.g. {@code account_type_enum}; empty if the type does not exist. */
+    public List<String> getEnumValues(DatabaseType databaseType, String enumType) {
+        return entry(databaseType).enums().getOrDefault(enumType, List.of());
+    }
+
+    /**
+     * Rejects a value that the enum type does not accept, so that invalid
+     * input fails without a database round trip. Null and empty values are
+     * left to the caller, since most fields are optional filters.
+     *
+     * @throws IllegalArgumentException if the value is not one of the enum's labels
+     */
+    public void validateEnum(DatabaseType databaseType, String enumType, String field, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        List<String> allowed = getEnumValues(databaseType, enumType);
+        // An unknown type (e.g. schema being recreated) is left to PostgreSQL
+        if (!allowed.isEmpty() && !allowed.contains(value)) {
+            throw new IllegalArgumentException("Invalid " + field + " '" + value + "'. Allowed values: " + String.join(", ", allowed));
+        }
+    }
+
+    /** Marks the reference data of a database as stale; it is reloaded on the next read. */
+    public void invalidate(DatabaseType databaseType) {
+        versions.get(databaseType).incrementAndGet();
+    }
+
+    @EventListener
+    public void onDatabaseReset(DatabaseResetEvent event) {
+        invalidate(event.databaseType());
+    }
+
+    @EventListener
+    public void onDataChange(DataChangeEvent event) {
+        if (event.affects("branches")) {
+            invalidate(event.databaseType());
+        }
+    }
+
+    private Entry entry(DatabaseType databaseType) {
+        Entry entry = current(databaseType);
+        if (entry != null) {
+            return entry;
+        }
+        // One loader per database; concurrent readers wait for it instead of
+        // all querying the database at once
+        synchronized (versions.get(databaseType)) {
+            entry = current(databaseType);
+            if (entry != null) {
+                return entry;
+            }
+            long version = versions.get(databaseType).get();
+            entry = new Entry(
+                version,
+                System.nanoTime(),
+                List.copyOf(branchRepository.findAll(databaseType)),
+                Map.copyOf(referenceDataRepository.findEnumValues(databaseType)));
+            synchronized (entries) {
+                entries.put(databaseType, entry);
+            }
+            logger.debug("Loaded reference data of {} (version {}): {} branches, {} enum types",
+                databaseType, version, entry.branches().size(), entry.enums().size());
+            return entry;
+        }
+    }
+
+    private Entry current(DatabaseType databaseType) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(databaseType);
+        }
+        if (entry == null
+                || entry.version() != versions.get(databaseType).get()
+                || System.nanoTime() - entry.loadedAtNanos() > ttlNanos) {
+            return null;
+        }
+        return entry;
+    }
+}
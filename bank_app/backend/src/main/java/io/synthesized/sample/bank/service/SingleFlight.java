@@ -0,0 +1,95 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.config.QueryContext;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with the same key: the first caller runs the
+ * call, callers arriving while it is in flight wait for it and get the same
+ * result (or exception). Nothing is cached; once the call completes the next
+ * caller runs it again.
+ *
+ * <p>Results are shared between callers and must not be modified. If the
+ * shared execution fails because its own request was cancelled (see
+ * {@link QueryContext}), waiting callers run the call themselves instead of
+ * failing with it.
+ */
+public class SingleFlight<K, V> {
+    private record Flight<V>(CompletableFuture<V> future, QueryContext owner) {
+    }
+
+    private final ConcurrentMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public V execute(K key, Supplier<V> call) {
+        Flight<V> flight = new Flight<>(new CompletableFuture<>(), QueryContext.current());
+        Flight<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            try {
+                return join(existing.future());
+            } catch (RuntimeException e) {
+                if (existing.owner() == null || !existing.owner().isCancelled()) {
+                    throw e;
+                }
+                executions.incrementAndGet();
+                return call.get();
+            }
+        }
+        executions.incrementAndGet();
+        try {
+            flight.future().complete(call.get());
+        } catch (RuntimeException | Error e) {
+            flight.future().completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, flight);
+        }
+        return join(flight.future());
+    }
+
+    /**
+     * Builds a key from request parameters. Empty strings are treated like
+     * absent ones, as the repositories do for every optional filter, so that
+     * e.g. {@code ?status=} and no status parameter coalesce.
+     */
+    public static List<Object> key(Object... parts) {
+        Object[] normalized = new Object[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            normalized[i] = parts[i] instanceof String s && s.isEmpty() ? null : parts[i];
+        }
+        return Arrays.asList(normalized);
+    }
+
+    /** Number of calls that actually ran. */
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    /** Number of calls that were served by another caller's execution. */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
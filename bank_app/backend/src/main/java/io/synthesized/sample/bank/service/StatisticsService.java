@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import io.synthesized.sample.bank.model.Statistics;
 import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.repository.DataVersions;
 import io.synthesized.sample.bank.repository.StatisticsRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import io.synthesized.sample.bank.service.AccountService;
@@ -12,16 +13,27 @@ import io.synthesized.sample.bank.service.AccountService;
 @Service
 public class StatisticsService {
     private static final Logger logger = LoggerFactory.getLogger(StatisticsService.class);
+    private static final DataVersions.Table[] STATISTICS_TABLES = {
+        DataVersions.Table.CUSTOMERS, DataVersions.Table.ACCOUNTS, DataVersions.Table.TRANSACTIONS,
+        DataVersions.Table.BRANCHES};
     
     private final StatisticsRepository statisticsRepository;
+    private final PageCache pageCache;
     @Autowired
     private AccountService accountService;
 
-    public StatisticsService(StatisticsRepository statisticsRepository) {
+    public StatisticsService(StatisticsRepository statisticsRepository, PageCache pageCache) {
         this.statisticsRepository = statisticsRepository;
+        this.pageCache = pageCache;
     }
 
+    /** The four table counts, served from memory until one of the tables changes. */
     public Statistics getStatistics(DatabaseType databaseType) {
+        return pageCache.get(databaseType, SingleFlight.key("statistics", databaseType), STATISTICS_TABLES,
+            statistics -> 0, () -> loadStatistics(databaseType));
+    }
+
+    private Statistics loadStatistics(DatabaseType databaseType) {
         try {
             logger.info("Fetching statistics for database type: {}", databaseType);
             
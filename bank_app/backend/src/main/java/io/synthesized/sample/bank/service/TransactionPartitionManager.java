@@ -0,0 +1,83 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.repository.TransactionPartitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps monthly partitions of bank.transactions ahead of the current date and,
+ * when a retention period is configured, detaches partitions that fell out of
+ * it. Databases whose transactions table is not partitioned are left alone.
+ */
+@Service
+public class TransactionPartitionManager {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionPartitionManager.class);
+
+    private final TransactionPartitionRepository partitionRepository;
+    private final int premakeMonths;
+    private final int retentionMonths;
+
+    public TransactionPartitionManager(
+            TransactionPartitionRepository partitionRepository,
+            @Value("${bank.partitions.premake-months:3}") int premakeMonths,
+            @Value("${bank.partitions.retention-months:0}") int retentionMonths) {
+        this.partitionRepository = partitionRepository;
+        this.premakeMonths = Math.max(0, premakeMonths);
+        this.retentionMonths = Math.max(0, retentionMonths);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${bank.partitions.maintenance-cron:0 15 0 * * *}")
+    public void maintainAll() {
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            try {
+                maintain(databaseType);
+            } catch (Exception e) {
+                logger.warn("Partition maintenance failed for database {}: {}", databaseType, e.getMessage());
+            }
+        }
+    }
+
+    public void maintain(DatabaseType databaseType) {
+        if (!partitionRepository.isPartitioned(databaseType)) {
+            return;
+        }
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        Set<String> existing = new HashSet<>(partitionRepository.findMonthlyPartitions(databaseType));
+
+        for (int i = 0; i <= premakeMonths; i++) {
+            LocalDate month = currentMonth.plusMonths(i);
+            String partition = TransactionPartitionRepository.partitionName(month);
+            if (!existing.contains(partition)) {
+                int moved = partitionRepository.createMonthlyPartition(databaseType, month);
+                logger.info("Created partition bank.{} on {} ({} rows moved from the default partition)",
+                    partition, databaseType, moved);
+            }
+        }
+
+        if (retentionMonths > 0) {
+            // Partition names sort chronologically, so compare them as strings
+            String oldestKept = TransactionPartitionRepository.partitionName(currentMonth.minusMonths(retentionMonths));
+            List<String> expired = existing.stream()
+                .filter(partition -> partition.compareTo(oldestKept) < 0)
+                .sorted()
+                .toList();
+            for (String partition : expired) {
+                partitionRepository.detachPartition(databaseType, partition);
+                logger.info("Detached partition bank.{} on {} (retention {} months)",
+                    partition, databaseType, retentionMonths);
+            }
+        }
+    }
+}
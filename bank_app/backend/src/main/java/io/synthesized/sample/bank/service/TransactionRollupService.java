@@ -0,0 +1,123 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.TimeSeriesResponse;
+import io.synthesized.sample.bank.repository.TransactionRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+public class TransactionRollupService {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionRollupService.class);
+
+    private final TransactionRollupRepository rollupRepository;
+
+    public TransactionRollupService(TransactionRollupRepository rollupRepository) {
+        this.rollupRepository = rollupRepository;
+    }
+
+    public TimeSeriesResponse getTimeSeries(
+            DatabaseType databaseType,
+            String from,
+            String to,
+            String granularity,
+            String groupBy,
+            String transactionType,
+            String channel,
+            String currency) {
+        if (!TransactionRollupRepository.HOUR.equals(granularity) && !TransactionRollupRepository.DAY.equals(granularity)) {
+            throw new IllegalArgumentException("Invalid granularity: " + granularity + ". Allowed values: hour, day");
+        }
+        ChronoUnit unit = TransactionRollupRepository.HOUR.equals(granularity) ? ChronoUnit.HOURS : ChronoUnit.DAYS;
+
+        LocalDateTime end = to != null && !to.isEmpty()
+            ? parseDateTime(to, "to")
+            : LocalDateTime.now().truncatedTo(unit).plus(1, unit);
+        LocalDateTime start = from != null && !from.isEmpty()
+            ? parseDateTime(from, "from")
+            : end.minusDays(30);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+
+        List<String> dimensions = groupBy == null || groupBy.isEmpty()
+            ? List.of()
+            : Arrays.stream(groupBy.split(",")).map(String::trim).filter(d -> !d.isEmpty()).toList();
+
+        // Include deltas recorded since the last scheduled flush
+        flushQuietly(databaseType);
+
+        return new TimeSeriesResponse(
+            granularity,
+            start,
+            end,
+            rollupRepository.findSeries(databaseType, granularity, start, end, dimensions, transactionType, channel, currency)
+        );
+    }
+
+    public void rebuild(DatabaseType databaseType) {
+        logger.info("Rebuilding transaction rollups for database {}", databaseType);
+        long started = System.currentTimeMillis();
+        rollupRepository.rebuild(databaseType);
+        logger.info("Rebuilt transaction rollups for database {} in {} ms", databaseType, System.currentTimeMillis() - started);
+    }
+
+    @Scheduled(fixedDelayString = "${bank.rollups.flush-interval-ms:1000}")
+    public void flushAll() {
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            flushQuietly(databaseType);
+        }
+    }
+
+    /**
+     * Catch-up job: bulk loads (Synthesized workflows, SQL dumps) bypass the
+     * repository write paths, so compare the rolled-up count and amount with
+     * the table and rebuild when either disagrees.
+     */
+    @Scheduled(
+        initialDelayString = "${bank.rollups.catch-up-initial-delay-ms:30000}",
+        fixedDelayString = "${bank.rollups.catch-up-interval-ms:300000}"
+    )
+    public void catchUpAll() {
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            try {
+                rollupRepository.flush(databaseType);
+                TransactionRollupRepository.Totals rolledUp = rollupRepository.findRolledUpTotals(databaseType);
+                TransactionRollupRepository.Totals actual = rollupRepository.findTransactionTotals(databaseType);
+                if (!rolledUp.matches(actual)) {
+                    logger.info("Transaction rollups for {} are out of date ({} / {} rolled up, {} / {} in table)",
+                        databaseType, rolledUp.count(), rolledUp.amount(), actual.count(), actual.amount());
+                    rebuild(databaseType);
+                }
+            } catch (Exception e) {
+                logger.warn("Rollup catch-up failed for database {}: {}", databaseType, e.getMessage());
+            }
+        }
+    }
+
+    private void flushQuietly(DatabaseType databaseType) {
+        try {
+            rollupRepository.flush(databaseType);
+        } catch (Exception e) {
+            logger.warn("Could not flush transaction rollups for database {}: {}", databaseType, e.getMessage());
+        }
+    }
+
+    private static LocalDateTime parseDateTime(String value, String name) {
+        try {
+            return value.length() <= 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid '" + name + "' value: " + value
+                + ". Expected yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss");
+        }
+    }
+}
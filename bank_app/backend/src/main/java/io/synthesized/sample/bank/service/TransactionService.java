@@ -3,24 +3,51 @@ package io.synthesized.sample.bank.service;
 import io.synthesized.sample.bank.model.Transaction;
 import io.synthesized.sample.bank.model.DatabaseType;
 import io.synthesized.sample.bank.model.TransactionResponse;
+import io.synthesized.sample.bank.repository.DataVersions;
 import io.synthesized.sample.bank.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class TransactionService {
+    private static final DataVersions.Table[] LIST_TABLES = {DataVersions.Table.TRANSACTIONS};
+
     private final TransactionRepository transactionRepository;
+    private final PostingEngine postingEngine;
+    private final ReferenceDataCache referenceDataCache;
+    private final BatchLookup batchLookup;
+    private final VelocityTracker velocityTracker;
+    private final PageStreamer pageStreamer;
+    private final PageCache pageCache;
 
     @Autowired
-    public TransactionService(TransactionRepository transactionRepository) {
+    public TransactionService(TransactionRepository transactionRepository, PostingEngine postingEngine,
+                              ReferenceDataCache referenceDataCache, BatchLookup batchLookup,
+                              VelocityTracker velocityTracker, PageStreamer pageStreamer, PageCache pageCache) {
         this.transactionRepository = transactionRepository;
+        this.postingEngine = postingEngine;
+        this.referenceDataCache = referenceDataCache;
+        this.batchLookup = batchLookup;
+        this.velocityTracker = velocityTracker;
+        this.pageStreamer = pageStreamer;
+        this.pageCache = pageCache;
     }
 
     public List<Transaction> getAllTransactions(DatabaseType databaseType) {
         return transactionRepository.findAll(databaseType);
     }
 
+    /** Multi-get: all requested transactions are loaded with one query. */
+    public BatchLookup.Result<Transaction> getTransactionsByIds(List<Long> transactionIds, DatabaseType databaseType) {
+        return batchLookup.resolve(transactionIds, ids -> transactionRepository.findByIds(List.copyOf(ids), databaseType).stream()
+            .collect(Collectors.toMap(transaction -> transaction.getTransactionId().longValue(), Function.identity())));
+    }
+
     public TransactionResponse getFilteredTransactions(
             DatabaseType databaseType,
             String transactionType,
@@ -30,21 +57,41 @@ public class TransactionService {
             String sortOrder,
             int page,
             int size) {
-        return transactionRepository.findByFilters(
-            databaseType,
-            transactionType,
-            null,
-            searchQuery,
-            sortBy,
-            sortOrder,
-            page,
-            size,
-            accountId
-        );
+        return getTransactionsByFilters(databaseType, transactionType, null, searchQuery, sortBy, sortOrder, page, size,
+            accountId, null, null);
     }
 
     public Transaction createTransaction(Transaction transaction, DatabaseType databaseType) {
-        return transactionRepository.create(transaction, databaseType);
+        // Validate required fields
+        if (transaction.getAccountId() == null) {
+            throw new IllegalArgumentException("Account ID is required");
+        }
+        if (transaction.getTransactionType() == null || transaction.getTransactionType().trim().isEmpty()) {
+            throw new IllegalArgumentException("Transaction Type is required");
+        }
+        if (transaction.getAmount() == null) {
+            throw new IllegalArgumentException("Amount is required");
+        }
+        if (transaction.getChannel() == null || transaction.getChannel().trim().isEmpty()) {
+            throw new IllegalArgumentException("Channel is required");
+        }
+        if (transaction.getCurrency() == null) {
+            transaction.setCurrency("USD");
+        }
+        if (transaction.getTransactionDate() == null) {
+            transaction.setTransactionDate(LocalDateTime.now());
+        }
+        referenceDataCache.validateEnum(databaseType, "transaction_type_enum", "transaction type", transaction.getTransactionType());
+        referenceDataCache.validateEnum(databaseType, "channel_enum", "channel", transaction.getChannel());
+        referenceDataCache.validateEnum(databaseType, "currency_enum", "currency", transaction.getCurrency());
+
+        velocityTracker.check(transaction, databaseType);
+
+        // Amounts are signed (withdrawals and fees are negative), so the
+        // balance moves by exactly the posted amount.
+        Transaction posted = postingEngine.post(transaction, databaseType);
+        velocityTracker.record(posted, databaseType);
+        return posted;
     }
 
     public TransactionResponse getTransactionsByFilters(
@@ -56,18 +103,84 @@ public class TransactionService {
             String sortOrder,
             int page,
             int size,
-            String accountIds) {
-        return transactionRepository.findByFilters(
-            databaseType,
-            transactionType,
-            transactionId,
-            search,
-            sortBy,
-            sortOrder,
-            page,
-            size,
-            accountIds
-        );
+            String accountIds,
+            LocalDateTime dateFrom,
+            LocalDateTime dateTo) {
+        referenceDataCache.validateEnum(databaseType, "transaction_type_enum", "transaction type", transactionType);
+        TransactionResponse response = loadPage(databaseType, transactionType, transactionId, search, sortBy, sortOrder,
+            page, size, accountIds, dateFrom, dateTo);
+        if ((long) (page + 1) * size < response.getTotalCount()) {
+            // Users mostly page forward; have the next page ready when they do
+            pageCache.prefetch(databaseType, pageKey(databaseType, transactionType, transactionId, search, sortBy,
+                    sortOrder, page + 1, size, accountIds, dateFrom, dateTo), LIST_TABLES,
+                (TransactionResponse next) -> next.getTransactions().size(),
+                () -> transactionRepository.findByFilters(databaseType, transactionType, transactionId, search, sortBy,
+                    sortOrder, page + 1, size, accountIds, dateFrom, dateTo));
+        }
+        return response;
+    }
+
+    private TransactionResponse loadPage(DatabaseType databaseType, String transactionType, String transactionId,
+                                         String search, String sortBy, String sortOrder, int page, int size,
+                                         String accountIds, LocalDateTime dateFrom, LocalDateTime dateTo) {
+        List<Object> key = pageKey(databaseType, transactionType, transactionId, search, sortBy, sortOrder, page, size,
+            accountIds, dateFrom, dateTo);
+        // Pages seen before come from memory; identical requests arriving together share one count + data query
+        return pageCache.get(databaseType, key, LIST_TABLES, response -> response.getTransactions().size(),
+            () -> transactionRepository.findByFilters(
+                databaseType,
+                transactionType,
+                transactionId,
+                search,
+                sortBy,
+                sortOrder,
+                page,
+                size,
+                accountIds,
+                dateFrom,
+                dateTo
+            ));
+    }
+
+    private static List<Object> pageKey(DatabaseType databaseType, String transactionType, String transactionId,
+                                        String search, String sortBy, String sortOrder, int page, int size,
+                                        String accountIds, LocalDateTime dateFrom, LocalDateTime dateTo) {
+        return SingleFlight.key("transactions", databaseType, transactionType, transactionId, search, sortBy, sortOrder,
+            page, size, accountIds, dateFrom, dateTo);
+    }
+
+    /** Whether a page of {@code size} transactions is served by {@link #streamTransactionsByFilters}. */
+    public boolean isStreamed(int size) {
+        return pageStreamer.isStreamed(size);
+    }
+
+    /**
+     * The page {@link #getTransactionsByFilters} returns, written straight
+     * from the result set to the response. The count runs now; the page
+     * query runs when the body is written.
+     */
+    public StreamingResponseBody streamTransactionsByFilters(
+            DatabaseType databaseType,
+            String transactionType,
+            String transactionId,
+            String search,
+            String sortBy,
+            String sortOrder,
+            int page,
+            int size,
+            String accountIds,
+            LocalDateTime dateFrom,
+            LocalDateTime dateTo) {
+        referenceDataCache.validateEnum(databaseType, "transaction_type_enum", "transaction type", transactionType);
+        int totalCount = pageCache.get(databaseType,
+            SingleFlight.key("transaction-count", databaseType, transactionType, transactionId, search, accountIds,
+                dateFrom, dateTo),
+            LIST_TABLES, count -> 0,
+            () -> transactionRepository.countByFilters(databaseType, transactionType, transactionId, search,
+                accountIds, dateFrom, dateTo));
+        return pageStreamer.page("transactions", totalCount, generator -> transactionRepository.writeByFilters(
+            databaseType, transactionType, transactionId, search, sortBy, sortOrder, page, size, accountIds,
+            dateFrom, dateTo, generator));
     }
 
     public void deleteTransaction(int transactionId, DatabaseType databaseType) {
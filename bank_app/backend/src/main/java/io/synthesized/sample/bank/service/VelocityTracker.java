@@ -0,0 +1,399 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.DatabaseResetEvent;
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.Transaction;
+import io.synthesized.sample.bank.model.VelocitySnapshot;
+import io.synthesized.sample.bank.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sliding-window transaction velocity per account, kept in memory so that
+ * bursts of e.g. withdrawals can be flagged (and optionally rejected) as
+ * transactions are created without re-querying bank.transactions.
+ *
+ * <p>Each account has a ring of {@code buckets} time buckets covering
+ * {@code window-seconds}; a bucket holds primitive count and amount counters
+ * for the account as a whole and per channel and device type. An account's
+ * ring is updated inside a map operation on its own entry, so accounts never
+ * contend with each other and eviction, which re-checks each window inside
+ * the same kind of operation, cannot drop a window that is being updated.
+ * Accounts without activity in the window are evicted, and at
+ * most {@code max-accounts} accounts are tracked per database. When a new
+ * account hits the limit, the least recently active accounts are evicted
+ * down to 90% of it in one pass, so the scan is paid once per tenth of the
+ * limit rather than on every new account.
+ *
+ * <p>The windows are fed with committed postings and warmed from the recent
+ * history in the database at start-up and after a reset. Transactions
+ * written around the backend (e.g. by Synthesized workflows) are only seen
+ * by the next warm-up. The rejection check and the recording of a posting
+ * are not atomic, so concurrent postings to one account can overshoot a
+ * limit by the number of postings in flight.
+ */
+@Service
+public class VelocityTracker {
+    private static final Logger logger = LoggerFactory.getLogger(VelocityTracker.class);
+    private static final double TRIM_RATIO = 0.9;
+
+    private final TransactionRepository transactionRepository;
+    private final boolean enabled;
+    private final Set<String> transactionTypes;
+    private final int bucketCount;
+    private final long bucketMillis;
+    private final int maxAccounts;
+    private final long maxCount;
+    private final long maxAmountCents;
+    private final long maxCountPerChannel;
+    private final long maxCountPerDevice;
+    private final boolean rejectOverLimit;
+
+    private final Map<DatabaseType, ConcurrentHashMap<Integer, AccountWindow>> windows = new EnumMap<>(DatabaseType.class);
+
+    public VelocityTracker(
+            TransactionRepository transactionRepository,
+            @Value("${bank.velocity.enabled:true}") boolean enabled,
+            @Value("${bank.velocity.transaction-types:Withdrawal,Transfer}") List<String> transactionTypes,
+            @Value("${bank.velocity.window-seconds:600}") long windowSeconds,
+            @Value("${bank.velocity.buckets:20}") int bucketCount,
+            @Value("${bank.velocity.max-accounts:50000}") int maxAccounts,
+            @Value("${bank.velocity.limits.max-count:20}") long maxCount,
+            @Value("${bank.velocity.limits.max-amount:10000}") BigDecimal maxAmount,
+            @Value("${bank.velocity.limits.max-count-per-channel:15}") long maxCountPerChannel,
+            @Value("${bank.velocity.limits.max-count-per-device:15}") long maxCountPerDevice,
+            @Value("${bank.velocity.reject-over-limit:false}") boolean rejectOverLimit) {
+        this.transactionRepository = transactionRepository;
+        this.enabled = enabled;
+        this.transactionTypes = Set.copyOf(transactionTypes);
+        this.bucketCount = Math.max(1, bucketCount);
+        this.bucketMillis = Math.max(1, windowSeconds * 1000 / this.bucketCount);
+        this.maxAccounts = Math.max(1, maxAccounts);
+        this.maxCount = maxCount;
+        this.maxAmountCents = toCents(maxAmount);
+        this.maxCountPerChannel = maxCountPerChannel;
+        this.maxCountPerDevice = maxCountPerDevice;
+        this.rejectOverLimit = rejectOverLimit;
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            windows.put(databaseType, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Rejects a transaction that would take its account over a limit, if
+     * {@code reject-over-limit} is on.
+     *
+     * @throws IllegalArgumentException if a limit would be exceeded
+     */
+    public void check(Transaction transaction, DatabaseType databaseType) {
+        if (!enabled || !rejectOverLimit || !isTracked(transaction)) {
+            return;
+        }
+        AccountWindow window = windows.get(databaseType).get(transaction.getAccountId());
+        Totals totals = window == null ? Totals.EMPTY : window.totals(currentEpoch());
+        List<String> violations = violations(totals.plus(transaction.getChannel(), transaction.getDeviceType(),
+            toCents(transaction.getAmount())));
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException("Velocity limit exceeded for account " + transaction.getAccountId()
+                + ": " + String.join("; ", violations));
+        }
+    }
+
+    /** Adds a committed transaction to its account's window. */
+    public void record(Transaction transaction, DatabaseType databaseType) {
+        if (!enabled || !isTracked(transaction)) {
+            return;
+        }
+        LocalDateTime date = transaction.getTransactionDate() != null ? transaction.getTransactionDate() : LocalDateTime.now();
+        add(databaseType, transaction.getAccountId(), toMillis(date), transaction.getChannel(),
+            transaction.getDeviceType(), toCents(transaction.getAmount()));
+    }
+
+    public VelocitySnapshot getSnapshot(DatabaseType databaseType, int accountId) {
+        AccountWindow window = windows.get(databaseType).get(accountId);
+        return snapshot(accountId, window == null ? Totals.EMPTY : window.totals(currentEpoch()));
+    }
+
+    /** Accounts currently over a limit, busiest first. */
+    public List<VelocitySnapshot> getFlagged(DatabaseType databaseType, int limit) {
+        long epoch = currentEpoch();
+        List<VelocitySnapshot> flagged = new ArrayList<>();
+        windows.get(databaseType).forEach((accountId, window) -> {
+            Totals totals = window.totals(epoch);
+            if (!violations(totals).isEmpty()) {
+                flagged.add(snapshot(accountId, totals));
+            }
+        });
+        flagged.sort(Comparator.comparingLong(VelocitySnapshot::getCount).reversed());
+        return flagged.size() > limit ? flagged.subList(0, limit) : flagged;
+    }
+
+    public int getTrackedAccounts(DatabaseType databaseType) {
+        return windows.get(databaseType).size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpAll() {
+        for (DatabaseType databaseType : DatabaseType.values()) {
+            warmUp(databaseType);
+        }
+    }
+
+    @EventListener
+    public void onDatabaseReset(DatabaseResetEvent event) {
+        windows.get(event.databaseType()).clear();
+        warmUp(event.databaseType());
+    }
+
+    /** Loads the tracked transactions of the current window from the database. */
+    public void warmUp(DatabaseType databaseType) {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        long since = (currentEpoch() - bucketCount + 1) * bucketMillis;
+        try {
+            long[] loaded = new long[1];
+            transactionRepository.forEachSince(databaseType,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(since), ZoneId.systemDefault()), List.copyOf(transactionTypes),
+                rs -> {
+                    add(databaseType, rs.getInt("account_id"), toMillis(rs.getTimestamp("transaction_date").toLocalDateTime()),
+                        rs.getString("channel"), rs.getString("device_type"), toCents(rs.getBigDecimal("amount")));
+                    loaded[0]++;
+                });
+            logger.info("Warmed velocity windows of {} from {} transactions in {} ms", databaseType, loaded[0],
+                (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            logger.warn("Could not warm velocity windows of {}: {}", databaseType, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bank.velocity.eviction-interval-ms:30000}")
+    public void evictIdle() {
+        for (ConcurrentHashMap<Integer, AccountWindow> accounts : windows.values()) {
+            evictIdle(accounts);
+        }
+    }
+
+    private void evictIdle(ConcurrentHashMap<Integer, AccountWindow> accounts) {
+        long oldestLive = (currentEpoch() - bucketCount + 1) * bucketMillis;
+        evictUpTo(accounts, oldestLive - 1);
+    }
+
+    /** Removes the windows whose last event is at or before {@code cutoff}. */
+    private static void evictUpTo(ConcurrentHashMap<Integer, AccountWindow> accounts, long cutoff) {
+        for (Integer accountId : accounts.keySet()) {
+            // Decided under the entry's lock: an add() in flight either finishes first and keeps the window, or follows
+            accounts.computeIfPresent(accountId, (id, window) -> window.lastEventMillis <= cutoff ? null : window);
+        }
+    }
+
+    private void add(DatabaseType databaseType, int accountId, long eventMillis, String channel, String deviceType, long cents) {
+        long epoch = eventMillis / bucketMillis;
+        if (epoch <= currentEpoch() - bucketCount) {
+            return;
+        }
+        ConcurrentHashMap<Integer, AccountWindow> accounts = windows.get(databaseType);
+        if (accounts.size() >= maxAccounts && !accounts.containsKey(accountId)) {
+            makeRoom(accounts);
+        }
+        // Updated inside compute() so that eviction cannot remove the window between lookup and update
+        accounts.compute(accountId, (id, window) -> {
+            AccountWindow target = window != null ? window : new AccountWindow(bucketCount);
+            target.add(epoch, eventMillis, channel, deviceType, cents);
+            return target;
+        });
+    }
+
+    private void makeRoom(ConcurrentHashMap<Integer, AccountWindow> accounts) {
+        synchronized (accounts) {
+            if (accounts.size() < maxAccounts) {
+                // Another thread made room meanwhile
+                return;
+            }
+            evictIdle(accounts);
+            long[] lastEvents = accounts.values().stream().mapToLong(window -> window.lastEventMillis).toArray();
+            int excess = lastEvents.length - (int) (maxAccounts * TRIM_RATIO);
+            if (excess <= 0) {
+                return;
+            }
+            Arrays.sort(lastEvents);
+            evictUpTo(accounts, lastEvents[excess - 1]);
+        }
+    }
+
+    private boolean isTracked(Transaction transaction) {
+        return transaction.getAccountId() != null && transactionTypes.contains(transaction.getTransactionType());
+    }
+
+    private List<String> violations(Totals totals) {
+        long windowSeconds = bucketCount * bucketMillis / 1000;
+        List<String> violations = new ArrayList<>();
+        if (maxCount > 0 && totals.count() > maxCount) {
+            violations.add(totals.count() + " transactions in " + windowSeconds + " s exceeds " + maxCount);
+        }
+        if (maxAmountCents > 0 && totals.cents() > maxAmountCents) {
+            violations.add("amount " + BigDecimal.valueOf(totals.cents(), 2) + " in " + windowSeconds + " s exceeds "
+                + BigDecimal.valueOf(maxAmountCents, 2));
+        }
+        addViolations(violations, totals.byChannel(), maxCountPerChannel, windowSeconds);
+        addViolations(violations, totals.byDevice(), maxCountPerDevice, windowSeconds);
+        return violations;
+    }
+
+    private static void addViolations(List<String> violations, Map<String, Long> counts, long max, long windowSeconds) {
+        if (max <= 0) {
+            return;
+        }
+        counts.forEach((key, count) -> {
+            if (count > max) {
+                violations.add(count + " " + key + " transactions in " + windowSeconds + " s exceeds " + max);
+            }
+        });
+    }
+
+    private VelocitySnapshot snapshot(int accountId, Totals totals) {
+        VelocitySnapshot snapshot = new VelocitySnapshot();
+        snapshot.setAccountId(accountId);
+        snapshot.setWindowSeconds(bucketCount * bucketMillis / 1000);
+        snapshot.setCount(totals.count());
+        snapshot.setAmount(BigDecimal.valueOf(totals.cents(), 2));
+        snapshot.setByChannel(totals.byChannel());
+        snapshot.setByDevice(totals.byDevice());
+        snapshot.setLastActivity(totals.lastEventMillis() == 0 ? null
+            : LocalDateTime.ofInstant(Instant.ofEpochMilli(totals.lastEventMillis()), ZoneId.systemDefault()));
+        List<String> reasons = violations(totals);
+        snapshot.setFlagged(!reasons.isEmpty());
+        snapshot.setReasons(reasons);
+        return snapshot;
+    }
+
+    private long currentEpoch() {
+        return System.currentTimeMillis() / bucketMillis;
+    }
+
+    private static long toMillis(LocalDateTime date) {
+        return date.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.abs().movePointRight(2).longValue();
+    }
+
+    private record Totals(long count, long cents, Map<String, Long> byChannel, Map<String, Long> byDevice, long lastEventMillis) {
+        static final Totals EMPTY = new Totals(0, 0, Map.of(), Map.of(), 0);
+
+        /** These totals with one more transaction added. */
+        Totals plus(String channel, String deviceType, long amountCents) {
+            Map<String, Long> channels = new TreeMap<>(byChannel);
+            Map<String, Long> devices = new TreeMap<>(byDevice);
+            if (channel != null) {
+                channels.merge(channel, 1L, Long::sum);
+            }
+            if (deviceType != null) {
+                devices.merge(deviceType, 1L, Long::sum);
+            }
+            return new Totals(count + 1, cents + amountCents, channels, devices, lastEventMillis);
+        }
+    }
+
+    /**
+     * Ring of time buckets for one account. Every dimension (the account as a
+     * whole, each channel and each device type) has one array holding a
+     * count and an amount per bucket; a bucket is zeroed in all of them when
+     * the ring wraps around to it.
+     */
+    private static final class AccountWindow {
+        private static final String TOTAL = "";
+        private static final String CHANNEL = "channel:";
+        private static final String DEVICE = "device:";
+
+        private final long[] bucketEpochs;
+        private final Map<String, long[]> counters = new HashMap<>();
+        private volatile long lastEventMillis;
+
+        AccountWindow(int bucketCount) {
+            this.bucketEpochs = new long[bucketCount];
+            Arrays.fill(bucketEpochs, Long.MIN_VALUE);
+        }
+
+        synchronized void add(long epoch, long eventMillis, String channel, String deviceType, long cents) {
+            int slot = (int) Math.floorMod(epoch, (long) bucketEpochs.length);
+            if (bucketEpochs[slot] != epoch) {
+                if (bucketEpochs[slot] > epoch) {
+                    // The slot already holds a newer bucket, so this event is out of the window
+                    return;
+                }
+                bucketEpochs[slot] = epoch;
+                for (long[] values : counters.values()) {
+                    values[2 * slot] = 0;
+                    values[2 * slot + 1] = 0;
+                }
+            }
+            increment(TOTAL, slot, cents);
+            if (channel != null) {
+                increment(CHANNEL + channel, slot, cents);
+            }
+            if (deviceType != null) {
+                increment(DEVICE + deviceType, slot, cents);
+            }
+            if (eventMillis > lastEventMillis) {
+                lastEventMillis = eventMillis;
+            }
+        }
+
+        private void increment(String key, int slot, long cents) {
+            long[] values = counters.computeIfAbsent(key, k -> new long[2 * bucketEpochs.length]);
+            values[2 * slot]++;
+            values[2 * slot + 1] += cents;
+        }
+
+        synchronized Totals totals(long currentEpoch) {
+            long count = 0;
+            long cents = 0;
+            Map<String, Long> byChannel = new TreeMap<>();
+            Map<String, Long> byDevice = new TreeMap<>();
+            for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+                long[] values = entry.getValue();
+                long dimensionCount = 0;
+                long dimensionCents = 0;
+                for (int slot = 0; slot < bucketEpochs.length; slot++) {
+                    if (bucketEpochs[slot] > currentEpoch - bucketEpochs.length && bucketEpochs[slot] <= currentEpoch) {
+                        dimensionCount += values[2 * slot];
+                        dimensionCents += values[2 * slot + 1];
+                    }
+                }
+                String key = entry.getKey();
+                if (key.equals(TOTAL)) {
+                    count = dimensionCount;
+                    cents = dimensionCents;
+                } else if (dimensionCount > 0 && key.startsWith(CHANNEL)) {
+                    byChannel.put(key.substring(CHANNEL.length()), dimensionCount);
+                } else if (dimensionCount > 0 && key.startsWith(DEVICE)) {
+                    byDevice.put(key.substring(DEVICE.length()), dimensionCount);
+                }
+            }
+            return new Totals(count, cents, byChannel, byDevice, count == 0 ? 0 : lastEventMillis);
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,16 @@
+-- Objects owned by the backend live in bank_ops so Synthesized workflows,
+-- which drop and recreate the bank schema, leave them alone.
+CREATE SCHEMA IF NOT EXISTS bank_ops;
+
+-- Pre-aggregated transaction volume. Enum columns are stored as text so the
+-- table survives the bank.*_enum types being recreated.
+CREATE TABLE IF NOT EXISTS bank_ops.transaction_rollups (
+    granularity TEXT NOT NULL CHECK (granularity IN ('hour', 'day')),
+    bucket_start TIMESTAMP NOT NULL,
+    transaction_type TEXT NOT NULL,
+    channel TEXT NOT NULL,
+    currency TEXT NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    amount_sum NUMERIC(20, 2) NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, transaction_type, channel, currency)
+);
@@ -0,0 +1,27 @@
+-- State of asynchronous jobs (bulk deletes, exports, resets, recounts) run
+-- against this database. Rows are upserted by the backend, so a job that
+-- restores or clones this database writes its final state back after the
+-- table has been replaced.
+CREATE TABLE IF NOT EXISTS bank_ops.jobs (
+    job_id UUID PRIMARY KEY,
+    job_type TEXT NOT NULL,
+    status TEXT NOT NULL CHECK (status IN ('QUEUED', 'RUNNING', 'SUCCEEDED', 'FAILED', 'CANCELLED')),
+    parameters JSONB NOT NULL DEFAULT '{}',
+    total_items BIGINT,
+    processed_items BIGINT NOT NULL DEFAULT 0,
+    failed_items BIGINT NOT NULL DEFAULT 0,
+    message TEXT,
+    result_file TEXT,
+    cancel_requested BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP NOT NULL,
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS jobs_created_at_idx ON bank_ops.jobs (created_at DESC);
+
+-- Backend instance running the job and when it last reported in. Several
+-- instances share this table; a queued or running job whose heartbeat is
+-- stale was lost with its instance.
+ALTER TABLE bank_ops.jobs ADD COLUMN IF NOT EXISTS owner TEXT;
+ALTER TABLE bank_ops.jobs ADD COLUMN IF NOT EXISTS heartbeat_at TIMESTAMP;
@@ -0,0 +1,111 @@
+-- Change notifications for the change feed (/api/changes/stream). Statement
+-- level triggers with transition tables send one NOTIFY on channel
+-- bank_changes per statement, however many rows it touched, so writes made
+-- by Synthesized workflows are reported as well as the backend's own.
+--
+-- Payload: {"entity", "operation", "count", "countDelta", "ids", "truncated"}
+-- plus, for accounts, "balanceDelta", "statusDeltas" and the owners of the
+-- sent IDs as "customerIds". At most 100 IDs are sent (NOTIFY payloads are
+-- limited to 8000 bytes); "truncated" tells clients to reload rather than
+-- patch. Backend instances also use the notifications to keep their caches
+-- coherent.
+--
+-- The INSERT trigger still collects every inserted row in a transition table,
+-- which bulk loads would pay for row by row. The dataset generator and the
+-- dump importer therefore disable bank_ops_notify_insert while they COPY and
+-- send one "truncated" notification per table afterwards.
+CREATE OR REPLACE FUNCTION bank_ops.notify_change() RETURNS trigger
+LANGUAGE plpgsql AS $$
+DECLARE
+    id_column TEXT := TG_ARGV[0];
+    direction INT := CASE TG_OP WHEN 'DELETE' THEN -1 ELSE 1 END;
+    changed_count BIGINT;
+    ids JSONB;
+    extra JSONB := '{}';
+    balance_delta NUMERIC;
+    status_deltas JSONB;
+    customer_ids JSONB;
+BEGIN
+    IF TG_OP = 'TRUNCATE' THEN
+        PERFORM pg_notify('bank_changes', jsonb_build_object(
+            'entity', TG_TABLE_NAME, 'operation', TG_OP, 'count', NULL, 'countDelta', NULL,
+            'ids', '[]'::jsonb, 'truncated', TRUE)::text);
+        RETURN NULL;
+    END IF;
+
+    -- Trigger functions are planned per table, so these column references
+    -- only have to resolve for the table the trigger is on
+    SELECT count(*) INTO changed_count FROM changed_rows;
+    IF changed_count = 0 THEN
+        RETURN NULL;
+    END IF;
+    SELECT COALESCE(jsonb_agg(r.id), '[]') INTO ids
+    FROM (SELECT to_jsonb(c) -> id_column AS id FROM changed_rows c LIMIT 100) r;
+
+    IF TG_TABLE_NAME = 'accounts' THEN
+        IF TG_OP = 'UPDATE' THEN
+            SELECT (SELECT COALESCE(sum(balance), 0) FROM changed_rows) - (SELECT COALESCE(sum(balance), 0) FROM old_rows)
+            INTO balance_delta;
+            SELECT jsonb_object_agg(status, delta) INTO status_deltas
+            FROM (
+                SELECT status::text AS status, sum(delta) AS delta
+                FROM (SELECT status, 1 AS delta FROM changed_rows UNION ALL SELECT status, -1 FROM old_rows) s
+                GROUP BY status
+                HAVING sum(delta) <> 0
+            ) d;
+        ELSE
+            SELECT COALESCE(sum(balance), 0) * direction INTO balance_delta FROM changed_rows;
+            SELECT jsonb_object_agg(status, delta) INTO status_deltas
+            FROM (SELECT status::text AS status, count(*) * direction AS delta FROM changed_rows GROUP BY status) d;
+        END IF;
+        SELECT COALESCE(jsonb_agg(DISTINCT c.customer_id), '[]') INTO customer_ids
+        FROM (SELECT customer_id FROM changed_rows LIMIT 100) c;
+        extra := jsonb_build_object('balanceDelta', balance_delta, 'statusDeltas', COALESCE(status_deltas, '{}'),
+            'customerIds', customer_ids);
+    END IF;
+
+    PERFORM pg_notify('bank_changes', (jsonb_build_object(
+        'entity', TG_TABLE_NAME,
+        'operation', TG_OP,
+        'count', changed_count,
+        'countDelta', CASE TG_OP WHEN 'UPDATE' THEN 0 ELSE changed_count * direction END,
+        'ids', ids,
+        'truncated', changed_count > jsonb_array_length(ids)
+    ) || extra)::text);
+    RETURN NULL;
+END;
+$$;
+
+-- The triggers live on the bank tables and disappear when a workflow
+-- recreates the schema; this script re-creates them whenever the ops
+-- scripts run (start-up and after restores/clones). Missing tables are skipped.
+DO $$
+DECLARE
+    target RECORD;
+BEGIN
+    FOR target IN
+        SELECT * FROM (VALUES
+            ('customers', 'customer_id'),
+            ('accounts', 'account_id'),
+            ('transactions', 'transaction_id'),
+            ('branches', 'branch_id')
+        ) AS t(table_name, id_column)
+    LOOP
+        IF to_regclass('bank.' || target.table_name) IS NULL THEN
+            CONTINUE;
+        END IF;
+        EXECUTE format('CREATE OR REPLACE TRIGGER bank_ops_notify_insert AFTER INSERT ON bank.%I '
+            'REFERENCING NEW TABLE AS changed_rows FOR EACH STATEMENT EXECUTE FUNCTION bank_ops.notify_change(%L)',
+            target.table_name, target.id_column);
+        EXECUTE format('CREATE OR REPLACE TRIGGER bank_ops_notify_update AFTER UPDATE ON bank.%I '
+            'REFERENCING OLD TABLE AS old_rows NEW TABLE AS changed_rows FOR EACH STATEMENT EXECUTE FUNCTION bank_ops.notify_change(%L)',
+            target.table_name, target.id_column);
+        EXECUTE format('CREATE OR REPLACE TRIGGER bank_ops_notify_delete AFTER DELETE ON bank.%I '
+            'REFERENCING OLD TABLE AS changed_rows FOR EACH STATEMENT EXECUTE FUNCTION bank_ops.notify_change(%L)',
+            target.table_name, target.id_column);
+        EXECUTE format('CREATE OR REPLACE TRIGGER bank_ops_notify_truncate AFTER TRUNCATE ON bank.%I '
+            'FOR EACH STATEMENT EXECUTE FUNCTION bank_ops.notify_change(%L)',
+            target.table_name, target.id_column);
+    END LOOP;
+END;
+$$;
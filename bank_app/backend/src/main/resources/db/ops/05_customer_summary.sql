@@ -0,0 +1,36 @@
+-- Per-customer read model: number of accounts, total balance and date of the
+-- latest transaction. The API's write paths keep it up to date in the same
+-- database transaction as the change; bulk loads that bypass the API are
+-- caught up by a periodic check or POST /api/jobs/customer-summary/rebuild.
+CREATE TABLE IF NOT EXISTS bank_ops.customer_summary (
+    customer_id BIGINT PRIMARY KEY,
+    account_count INTEGER NOT NULL DEFAULT 0,
+    total_balance NUMERIC(20, 2) NOT NULL DEFAULT 0,
+    last_transaction_date TIMESTAMP
+);
+
+-- Sorting and range filters of the customer list on the derived fields;
+-- customer_id makes the order total for paging
+CREATE INDEX IF NOT EXISTS customer_summary_account_count_idx
+    ON bank_ops.customer_summary (account_count, customer_id);
+CREATE INDEX IF NOT EXISTS customer_summary_total_balance_idx
+    ON bank_ops.customer_summary (total_balance, customer_id);
+CREATE INDEX IF NOT EXISTS customer_summary_last_transaction_idx
+    ON bank_ops.customer_summary (last_transaction_date, customer_id);
+
+-- First start against a database: fill the summary once
+INSERT INTO bank_ops.customer_summary (customer_id, account_count, total_balance, last_transaction_date)
+SELECT c.customer_id, COALESCE(a.account_count, 0), COALESCE(a.total_balance, 0), a.last_transaction_date
+FROM bank.customers c
+LEFT JOIN (
+    SELECT a.customer_id, COUNT(*) AS account_count, SUM(a.balance) AS total_balance,
+           MAX(t.last_transaction_date) AS last_transaction_date
+    FROM bank.accounts a
+    LEFT JOIN (
+        SELECT account_id, MAX(transaction_date) AS last_transaction_date
+        FROM bank.transactions
+        GROUP BY account_id
+    ) t ON t.account_id = a.account_id
+    GROUP BY a.customer_id
+) a ON a.customer_id = c.customer_id
+WHERE NOT EXISTS (SELECT 1 FROM bank_ops.customer_summary);
@@ -0,0 +1,3 @@
+-- Account lookups per customer: the account IDs of each listed customer and
+-- the per-customer refreshes of the customer summary
+CREATE INDEX CONCURRENTLY IF NOT EXISTS accounts_customer_id_idx ON bank.accounts (customer_id);
@@ -0,0 +1,7 @@
+-- Serves the per-account "latest N transactions" lookups of the customer
+-- overview (a LATERAL top-N per account) and the transactions page filtered
+-- by account, straight from the index in date order. The index lives on the
+-- bank table, so it is re-created here after a workflow has recreated the
+-- schema.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS transactions_account_recent_idx
+    ON bank.transactions (account_id, transaction_date DESC, transaction_id DESC);
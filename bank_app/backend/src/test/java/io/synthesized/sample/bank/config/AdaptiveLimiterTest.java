@@ -0,0 +1,132 @@
+package io.synthesized.sample.bank.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    void limitGrowsByAboutOnePerLimitsWorthOfFastCompletions() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 2, 1, 10, 0, 0, 1000, 0.5);
+
+        // Only the first release of each round finds the limit in use: 2 + 1/2 + 1/2.5 is just short of 3
+        fillAndRelease(limiter, 2);
+        assertEquals(2, limiter.getLimit());
+        fillAndRelease(limiter, 2);
+        assertEquals(2, limiter.getLimit());
+        fillAndRelease(limiter, 2);
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    void limitDoesNotGrowWhileMostlyIdle() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 8, 1, 10, 0, 0, 1000, 0.5);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.acquire());
+            limiter.release(FAST, false);
+        }
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void limitStopsGrowingAtTheMaximum() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 4, 1, 5, 0, 0, 1000, 0.5);
+
+        for (int i = 0; i < 50; i++) {
+            fillAndRelease(limiter, limiter.getLimit());
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void slowOrFailedRequestsBackOffOncePerThresholdPeriod() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 8, 2, 10, 0, 0, 60_000, 0.5);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.acquire());
+        }
+        limiter.release(TimeUnit.MINUTES.toNanos(2), false);
+        assertEquals(4, limiter.getLimit());
+        // Admitted together with the first, so the same signal
+        limiter.release(TimeUnit.MINUTES.toNanos(2), false);
+        limiter.release(FAST, true);
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void backoffStopsAtTheMinimum() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 8, 3, 10, 0, 0, 0, 0.5);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.acquire());
+            limiter.release(SLOW, true);
+        }
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    void fullQueueIsRejectedAtOnce() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 1, 1, 1, 0, 60_000, 1000, 0.5);
+
+        assertTrue(limiter.acquire());
+        long started = System.nanoTime();
+        assertFalse(limiter.acquire());
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test
+    void queuedRequestIsRejectedWhenTheQueueTimeoutPasses() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 1, 1, 1, 1, 50, 1000, 0.5);
+
+        assertTrue(limiter.acquire());
+        long started = System.nanoTime();
+        assertFalse(limiter.acquire());
+        assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(1, limiter.getRejected());
+        assertEquals(0, limiter.getQueued());
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void queuedRequestIsAdmittedWhenASlotIsReleased() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 1, 1, 1, 1, 60_000, 1000, 0.5);
+
+        assertTrue(limiter.acquire());
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        while (limiter.getQueued() == 0) {
+            Thread.sleep(1);
+        }
+        limiter.release(FAST, false);
+
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        assertEquals(2, limiter.getAdmitted());
+        assertEquals(0, limiter.getRejected());
+    }
+
+    /** Takes {@code count} slots and returns them all as fast successes. */
+    private static void fillAndRelease(AdaptiveLimiter limiter, int count) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            assertTrue(limiter.acquire());
+        }
+        for (int i = 0; i < count; i++) {
+            limiter.release(FAST, false);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.Account;
+import io.synthesized.sample.bank.model.AccountResponse;
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.repository.AccountRepository;
+import io.synthesized.sample.bank.repository.DataVersions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccountServicePrefetchTest {
+    private static final int PAGE_SIZE = 10;
+
+    private AccountRepository accountRepository;
+    private PageCache pageCache;
+    private AccountService accountService;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        when(accountRepository.findByFilters(eq(DatabaseType.TESTING), anyInt(), eq(PAGE_SIZE), any(), any(), any(), any(),
+                any(), any()))
+            .thenAnswer(invocation -> page(invocation.getArgument(1)));
+        pageCache = new PageCache(new DataVersions(), new CacheCoherence(false, 2000, 10000),
+            true, 1000, 60000, true, 2, 10);
+        accountService = new AccountService(accountRepository, mock(ReferenceDataCache.class), mock(EntityCache.class),
+            new BatchLookup(500), mock(PageStreamer.class), pageCache, mock(GroupCommit.class), 1000, 10000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pageCache.destroy();
+    }
+
+    @Test
+    void pagingForwardTwiceIsServedFromPrefetchedPages() {
+        for (int page = 0; page < 3; page++) {
+            int requested = page;
+            AccountResponse response = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> accountService.getAccountsByFilters(DatabaseType.TESTING, requested, PAGE_SIZE, "account_id", "asc",
+                    null, null, null, null));
+            assertEquals(requested * PAGE_SIZE, response.getAccounts().get(0).getAccountId());
+        }
+
+        // The last page prefetched the next one, and no page was queried twice
+        verify(accountRepository, timeout(5000)).findByFilters(eq(DatabaseType.TESTING), eq(3), eq(PAGE_SIZE), any(), any(),
+            any(), any(), any(), any());
+        for (int page = 0; page <= 3; page++) {
+            verify(accountRepository, times(1)).findByFilters(eq(DatabaseType.TESTING), eq(page), eq(PAGE_SIZE), any(),
+                any(), any(), any(), any(), any());
+        }
+    }
+
+    private static AccountResponse page(int page) {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Account account = new Account();
+            account.setAccountId(page * PAGE_SIZE + i);
+            accounts.add(account);
+        }
+        return new AccountResponse(accounts, 1000);
+    }
+}
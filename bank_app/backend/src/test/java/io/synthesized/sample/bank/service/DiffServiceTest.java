@@ -0,0 +1,166 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.DiffResult;
+import io.synthesized.sample.bank.model.TableDiff;
+import io.synthesized.sample.bank.repository.DiffRepository;
+import io.synthesized.sample.bank.repository.DiffRepository.Checksum;
+import io.synthesized.sample.bank.repository.DiffRepository.KeyRange;
+import io.synthesized.sample.bank.repository.DiffRepository.RowHash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DiffServiceTest {
+    private static final DatabaseType LEFT = DatabaseType.TESTING;
+    private static final DatabaseType RIGHT = DatabaseType.PROD;
+
+    /** Key to row hash, per database. */
+    private final Map<DatabaseType, TreeMap<Long, Long>> rows = new EnumMap<>(DatabaseType.class);
+    private final List<long[]> leafRanges = Collections.synchronizedList(new ArrayList<>());
+    private DiffRepository diffRepository;
+    private DiffService diffService;
+
+    @BeforeEach
+    void setUp() {
+        TreeMap<Long, Long> left = new TreeMap<>();
+        for (long key = 1; key <= 10_000; key++) {
+            left.put(key, key * 31);
+        }
+        rows.put(LEFT, left);
+        rows.put(RIGHT, new TreeMap<>(left));
+
+        diffRepository = mock(DiffRepository.class);
+        when(diffRepository.keyRange(any(), anyString())).thenAnswer(invocation -> {
+            TreeMap<Long, Long> table = rows.get(invocation.<DatabaseType>getArgument(0));
+            return table.isEmpty() ? new KeyRange(null, null, 0)
+                : new KeyRange(table.firstKey(), table.lastKey(), table.size());
+        });
+        when(diffRepository.bucketChecksums(any(), anyString(), anyLong(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            long from = invocation.getArgument(2);
+            long width = invocation.getArgument(4);
+            Map<Long, long[]> sums = new TreeMap<>();
+            rows.get(invocation.<DatabaseType>getArgument(0)).subMap(from, true, invocation.<Long>getArgument(3), true)
+                .forEach((key, hash) -> {
+                    long[] sum = sums.computeIfAbsent((key - from) / width, bucket -> new long[2]);
+                    sum[0]++;
+                    sum[1] += hash;
+                });
+            Map<Long, Checksum> checksums = new TreeMap<>();
+            sums.forEach((bucket, sum) -> checksums.put(bucket, new Checksum(sum[0], BigDecimal.valueOf(sum[1]))));
+            return checksums;
+        });
+        when(diffRepository.rowHashes(any(), anyString(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            long from = invocation.getArgument(2);
+            long to = invocation.getArgument(3);
+            leafRanges.add(new long[] {from, to});
+            List<RowHash> hashes = new ArrayList<>();
+            rows.get(invocation.<DatabaseType>getArgument(0)).subMap(from, true, to, true)
+                .forEach((key, hash) -> hashes.add(new RowHash(key, hash)));
+            return hashes;
+        });
+        diffService = new DiffService(diffRepository, 16, 4, 8, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        diffService.destroy();
+    }
+
+    @Test
+    void identicalTablesCostOneChecksumQueryPerSide() {
+        TableDiff diff = diffCustomers(100);
+
+        assertTrue(diff.isIdentical());
+        assertEquals(10_000, diff.getLeftRowCount());
+        verify(diffRepository, times(1)).bucketChecksums(eq(LEFT), eq("customers"), anyLong(), anyLong(), anyLong());
+        verify(diffRepository, times(1)).bucketChecksums(eq(RIGHT), eq("customers"), anyLong(), anyLong(), anyLong());
+        verify(diffRepository, never()).rowHashes(any(), anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void drillDownOnlyComparesTheLeavesThatDiffer() {
+        rows.get(RIGHT).put(5_000L, 0L);
+        rows.get(RIGHT).remove(7_000L);
+        rows.get(RIGHT).put(10_003L, 1L);
+
+        TableDiff diff = diffCustomers(100);
+
+        assertFalse(diff.isIdentical());
+        assertEquals(List.of(5_000L), diff.getChanged());
+        assertEquals(List.of(7_000L), diff.getMissingInRight());
+        assertEquals(List.of(10_003L), diff.getMissingInLeft());
+        assertEquals(1, diff.getChangedCount());
+        assertEquals(3, diff.getMismatchedRanges());
+        // One leaf per difference and side, none of them wider than the leaf size
+        assertEquals(6, leafRanges.size());
+        for (long[] range : leafRanges) {
+            assertTrue(range[1] - range[0] + 1 <= 8);
+        }
+    }
+
+    @Test
+    void leafMergeReportsEveryKindOfDifference() {
+        // Keys 101 to 103 end up in one leaf
+        rows.get(LEFT).remove(101L);
+        rows.get(RIGHT).remove(102L);
+        rows.get(RIGHT).put(103L, 0L);
+
+        TableDiff diff = diffCustomers(100);
+
+        assertEquals(List.of(101L), diff.getMissingInLeft());
+        assertEquals(List.of(102L), diff.getMissingInRight());
+        assertEquals(List.of(103L), diff.getChanged());
+        assertEquals(1, diff.getMismatchedRanges());
+        assertEquals(2, leafRanges.size());
+        assertEquals(101, leafRanges.get(0)[0]);
+        assertEquals(103, leafRanges.get(0)[1]);
+    }
+
+    @Test
+    void comparisonStopsAtMaxDifferences() {
+        for (long key = 1_000; key < 10_000; key += 1_000) {
+            rows.get(RIGHT).put(key, 0L);
+        }
+
+        TableDiff diff = diffCustomers(3);
+
+        assertTrue(diff.isTruncated());
+        assertEquals(3, diff.getChangedCount());
+        assertEquals(List.of(1_000L, 2_000L, 3_000L), diff.getChanged());
+    }
+
+    @Test
+    void unknownTablesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> diffService.diff(LEFT, RIGHT, List.of("users"), 100));
+        assertThrows(IllegalArgumentException.class, () -> diffService.diff(LEFT, LEFT, List.of("customers"), 100));
+    }
+
+    private TableDiff diffCustomers(int maxDifferences) {
+        DiffResult result = diffService.diff(LEFT, RIGHT, List.of("customers"), maxDifferences);
+        assertEquals(1, result.getTables().size());
+        return result.getTables().get(0);
+    }
+}
@@ -0,0 +1,101 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GroupCommitBatcherTest {
+    private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> threads = Collections.synchronizedList(new ArrayList<>());
+    private GroupCommitBatcher<String> batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    void rowsAreSplitIntoBatchesOfAtMostMaxBatchSize() throws Exception {
+        // A long wait, so every batch but the last one fills up
+        batcher = new GroupCommitBatcher<>("rows", true, 3, 2000, 100, 10000, recordingWriter(null));
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(batcher.submit("row" + i, DatabaseType.TESTING));
+        }
+
+        for (int i = 0; i < 6; i++) {
+            assertEquals("ROW" + i, futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(List.of("row0", "row1", "row2"), List.of("row3", "row4", "row5")), batches);
+    }
+
+    @Test
+    void failingRowIsIsolatedAndTheRestOfItsBatchIsStored() throws Exception {
+        RuntimeException failure = new IllegalArgumentException("bad row");
+        batcher = new GroupCommitBatcher<>("rows", true, 3, 2000, 100, 10000, recordingWriter(failure));
+
+        CompletableFuture<String> first = batcher.submit("row0", DatabaseType.TESTING);
+        CompletableFuture<String> bad = batcher.submit("bad", DatabaseType.TESTING);
+        CompletableFuture<String> last = batcher.submit("row2", DatabaseType.TESTING);
+
+        assertEquals("ROW0", first.get(5, TimeUnit.SECONDS));
+        assertEquals("ROW2", last.get(5, TimeUnit.SECONDS));
+        ExecutionException badFailure = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertSame(failure, badFailure.getCause());
+        // The whole batch first, then each row on its own
+        assertEquals(List.of(List.of("row0", "bad", "row2"), List.of("row0"), List.of("bad"), List.of("row2")), batches);
+    }
+
+    @Test
+    void failureOfASingleRowIsPassedToItsCaller() {
+        RuntimeException failure = new IllegalArgumentException("bad row");
+        batcher = new GroupCommitBatcher<>("rows", true, 3, 0, 100, 10000, recordingWriter(failure));
+
+        assertSame(failure, assertThrows(IllegalArgumentException.class, () -> batcher.insert("bad", DatabaseType.TESTING)));
+        assertEquals(List.of(List.of("bad")), batches);
+    }
+
+    @Test
+    void disabledBatcherWritesOnTheCallersThread() {
+        batcher = new GroupCommitBatcher<>("rows", false, 3, 2000, 100, 10000, recordingWriter(null));
+
+        assertEquals("ROW0", batcher.insert("row0", DatabaseType.TESTING));
+        assertEquals(List.of(List.of("row0")), batches);
+        assertEquals(List.of(Thread.currentThread().getName()), threads);
+    }
+
+    @Test
+    void rowsAreRejectedAfterShutdown() {
+        batcher = new GroupCommitBatcher<>("rows", true, 3, 0, 100, 10000, recordingWriter(null));
+        batcher.shutdown();
+
+        assertThrows(IllegalStateException.class, () -> batcher.insert("row0", DatabaseType.TESTING));
+    }
+
+    /** Stores rows upper-cased; a batch containing "bad" fails with {@code failure}. */
+    private BiFunction<List<String>, DatabaseType, List<String>> recordingWriter(RuntimeException failure) {
+        return (rows, databaseType) -> {
+            batches.add(List.copyOf(rows));
+            threads.add(Thread.currentThread().getName());
+            if (failure != null && rows.contains("bad")) {
+                throw failure;
+            }
+            return rows.stream().map(String::toUpperCase).toList();
+        };
+    }
+}
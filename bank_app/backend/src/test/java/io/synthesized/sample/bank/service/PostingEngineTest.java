@@ -0,0 +1,192 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.Transaction;
+import io.synthesized.sample.bank.repository.PostingRepository;
+import io.synthesized.sample.bank.repository.PostingRepository.PostingOutcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostingEngineTest {
+    private static final int REJECTED_ACCOUNT = 99;
+
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final List<List<Transaction>> batches = Collections.synchronizedList(new ArrayList<>());
+    private final Map<Integer, String> threadByAccount = new ConcurrentHashMap<>();
+    private PostingRepository postingRepository;
+    private EntityCache entityCache;
+    private PostingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        postingRepository = mock(PostingRepository.class);
+        entityCache = mock(EntityCache.class);
+        when(postingRepository.postBatch(anyList(), eq(DatabaseType.TESTING)))
+            .thenAnswer(invocation -> post(invocation.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (engine != null) {
+            engine.destroy();
+        }
+    }
+
+    @Test
+    void postingsForOneAccountAreAppliedInOrderByOneStripe() throws Exception {
+        engine = new PostingEngine(postingRepository, entityCache, 4, 16, 2, 1000, 10000);
+
+        List<CompletableFuture<Transaction>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            futures.add(engine.submit(posting(i % 8, i), DatabaseType.TESTING));
+        }
+        for (CompletableFuture<Transaction> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        List<List<Transaction>> committed;
+        synchronized (batches) {
+            committed = List.copyOf(batches);
+        }
+        List<Integer> order = new ArrayList<>();
+        for (List<Transaction> batch : committed) {
+            // A batch only holds the accounts of one stripe
+            int stripe = Math.floorMod(batch.get(0).getAccountId(), 4);
+            for (Transaction transaction : batch) {
+                assertEquals(stripe, Math.floorMod(transaction.getAccountId(), 4));
+                if (transaction.getAccountId() == 5) {
+                    order.add(transaction.getAmount().intValue());
+                }
+            }
+        }
+        assertEquals(List.of(5, 13, 21, 29, 37), order);
+        // Accounts 1 and 5 share a stripe, so they share its worker
+        assertEquals(threadByAccount.get(1), threadByAccount.get(5));
+        assertNotEquals(threadByAccount.get(1), threadByAccount.get(2));
+    }
+
+    @Test
+    void failedBatchIsRetriedOnePostingAtATime() throws Exception {
+        RuntimeException failure = new IllegalStateException("check constraint violated");
+        doAnswer(invocation -> {
+            List<Transaction> postings = invocation.getArgument(0);
+            if (postings.stream().anyMatch(posting -> posting.getAmount().signum() < 0)) {
+                batches.add(List.copyOf(postings));
+                throw failure;
+            }
+            return post(postings);
+        }).when(postingRepository).postBatch(anyList(), eq(DatabaseType.TESTING));
+        // One stripe and a long wait, so the three postings form one batch
+        engine = new PostingEngine(postingRepository, entityCache, 1, 3, 5000, 1000, 10000);
+
+        CompletableFuture<Transaction> first = engine.submit(posting(1, 10), DatabaseType.TESTING);
+        CompletableFuture<Transaction> bad = engine.submit(posting(2, -10), DatabaseType.TESTING);
+        CompletableFuture<Transaction> last = engine.submit(posting(3, 30), DatabaseType.TESTING);
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).getAccountId());
+        assertEquals(3, last.get(5, TimeUnit.SECONDS).getAccountId());
+        ExecutionException badFailure = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertSame(failure, badFailure.getCause());
+        List<Integer> batchSizes = batches.stream().map(List::size).toList();
+        assertEquals(List.of(3, 1, 1, 1), batchSizes);
+        verify(entityCache).invalidateAccount(DatabaseType.TESTING, 1);
+        verify(entityCache).invalidateAccount(DatabaseType.TESTING, 3);
+        verify(entityCache, never()).invalidateAccount(DatabaseType.TESTING, 2);
+    }
+
+    @Test
+    void rejectedPostingFailsWithItsReasonWhileTheRestOfTheBatchCommits() throws Exception {
+        engine = new PostingEngine(postingRepository, entityCache, 1, 2, 5000, 1000, 10000);
+
+        CompletableFuture<Transaction> rejected = engine.submit(posting(REJECTED_ACCOUNT, 10), DatabaseType.TESTING);
+        CompletableFuture<Transaction> posted = engine.submit(posting(1, 10), DatabaseType.TESTING);
+
+        assertEquals(1, posted.get(5, TimeUnit.SECONDS).getAccountId());
+        ExecutionException rejection = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertTrue(rejection.getCause() instanceof IllegalArgumentException);
+        assertEquals("Account " + REJECTED_ACCOUNT + " is frozen", rejection.getCause().getMessage());
+        // Rejections do not roll the batch back, so there is no per-posting retry
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void duplicateKeyResyncsTheSequenceAndRetriesOnce() {
+        doThrow(new DuplicateKeyException("duplicate key value violates unique constraint \"transactions_pkey\""))
+            .doAnswer(invocation -> post(invocation.getArgument(0)))
+            .when(postingRepository).postBatch(anyList(), eq(DatabaseType.TESTING));
+        engine = new PostingEngine(postingRepository, entityCache, 1, 16, 0, 1000, 10000);
+
+        Transaction posted = engine.post(posting(1, 10), DatabaseType.TESTING);
+
+        assertEquals(1, posted.getAccountId());
+        verify(postingRepository, times(1)).invalidateSequence(DatabaseType.TESTING);
+        verify(postingRepository, times(2)).postBatch(anyList(), eq(DatabaseType.TESTING));
+    }
+
+    @Test
+    void postingsAreRefusedAfterShutdown() {
+        engine = new PostingEngine(postingRepository, entityCache, 1, 16, 0, 1000, 10000);
+        engine.destroy();
+
+        assertThrows(IllegalStateException.class, () -> engine.post(posting(1, 10), DatabaseType.TESTING));
+        verify(postingRepository, never()).postBatch(any(), any());
+        verify(entityCache, never()).invalidateAccount(any(), anyLong());
+    }
+
+    /** Posts every posting except those to {@link #REJECTED_ACCOUNT}, giving each the next ID. */
+    private List<PostingOutcome> post(List<Transaction> postings) {
+        batches.add(List.copyOf(postings));
+        List<PostingOutcome> outcomes = new ArrayList<>();
+        for (Transaction posting : postings) {
+            threadByAccount.putIfAbsent(posting.getAccountId(), Thread.currentThread().getName());
+            if (posting.getAccountId() == REJECTED_ACCOUNT) {
+                outcomes.add(new PostingOutcome(null, "Account " + REJECTED_ACCOUNT + " is frozen"));
+            } else {
+                Transaction stored = new Transaction();
+                stored.setTransactionId(nextId.getAndIncrement());
+                stored.setAccountId(posting.getAccountId());
+                stored.setAmount(posting.getAmount());
+                outcomes.add(new PostingOutcome(stored, null));
+            }
+        }
+        return outcomes;
+    }
+
+    private static Transaction posting(int accountId, int amount) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setTransactionType("Deposit");
+        transaction.setAmount(BigDecimal.valueOf(amount));
+        return transaction;
+    }
+}
@@ -0,0 +1,133 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.config.QueryContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+    private static final List<Object> KEY = SingleFlight.key("accounts", "TESTING", 0, 10);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final SingleFlight<List<Object>, String> singleFlight = new SingleFlight<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneExecution() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CompletableFuture<String> release = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute(KEY, () -> {
+            calls.incrementAndGet();
+            leaderStarted.countDown();
+            return release.join();
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        Future<String> follower = executor.submit(() -> singleFlight.execute(KEY, () -> {
+            calls.incrementAndGet();
+            return "follower's own";
+        }));
+        awaitCoalesced(1);
+        release.complete("shared");
+
+        assertEquals("shared", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("shared", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(1, singleFlight.getExecutions());
+    }
+
+    @Test
+    void followerRunsTheCallItselfWhenTheLeaderIsCancelled() throws Exception {
+        QueryContext leaderContext = new QueryContext(0);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch followerWaiting = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> {
+            QueryContext.bind(leaderContext);
+            try {
+                return singleFlight.execute(KEY, () -> {
+                    leaderStarted.countDown();
+                    await(followerWaiting);
+                    // The leader's client moved on; its query fails with the cancellation
+                    leaderContext.cancel();
+                    throw new IllegalStateException("Query cancelled");
+                });
+            } finally {
+                QueryContext.unbind();
+            }
+        });
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        Future<String> follower = executor.submit(() -> singleFlight.execute(KEY, () -> "follower's own"));
+        awaitCoalesced(1);
+        followerWaiting.countDown();
+
+        assertEquals("follower's own", follower.get(5, TimeUnit.SECONDS));
+        Exception leaderFailure = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertTrue(leaderFailure.getCause() instanceof IllegalStateException);
+        assertEquals(2, singleFlight.getExecutions());
+    }
+
+    @Test
+    void followerSharesTheLeadersFailureWhenNotCancelled() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch followerWaiting = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database down");
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute(KEY, () -> {
+            leaderStarted.countDown();
+            await(followerWaiting);
+            throw failure;
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        Future<String> follower = executor.submit(() -> singleFlight.execute(KEY, () -> "follower's own"));
+        awaitCoalesced(1);
+        followerWaiting.countDown();
+
+        Exception followerFailure = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertSame(failure, followerFailure.getCause());
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertEquals(1, singleFlight.getExecutions());
+    }
+
+    @Test
+    void emptyStringsAndMissingParametersMakeTheSameKey() {
+        assertEquals(SingleFlight.key("accounts", null, 0), SingleFlight.key("accounts", "", 0));
+    }
+
+    private void awaitCoalesced(long expected) {
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (singleFlight.getCoalesced() < expected) {
+                Thread.sleep(1);
+            }
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package io.synthesized.sample.bank.service;
+
+import io.synthesized.sample.bank.model.DatabaseType;
+import io.synthesized.sample.bank.model.Transaction;
+import io.synthesized.sample.bank.model.VelocitySnapshot;
+import io.synthesized.sample.bank.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class VelocityTrackerTest {
+    private static final long HOUR_MILLIS = 3_600_000;
+
+    @Test
+    void ringDropsBucketsThatFallOutOfTheWindow() {
+        // 20 one-hour buckets, so the test never straddles a bucket boundary in practice
+        VelocityTracker tracker = tracker(20 * 3600, 20, 1000, false);
+        long current = System.currentTimeMillis() / HOUR_MILLIS;
+
+        tracker.record(withdrawal(7, bucketStart(current - 20), "50.00"), DatabaseType.TESTING);
+        assertEquals(0, tracker.getSnapshot(DatabaseType.TESTING, 7).getCount());
+        assertEquals(0, tracker.getTrackedAccounts(DatabaseType.TESTING));
+
+        tracker.record(withdrawal(7, bucketStart(current - 19), "50.00"), DatabaseType.TESTING);
+        tracker.record(withdrawal(7, bucketStart(current), "25.00"), DatabaseType.TESTING);
+        VelocitySnapshot snapshot = tracker.getSnapshot(DatabaseType.TESTING, 7);
+        assertEquals(2, snapshot.getCount());
+        assertEquals(new BigDecimal("75.00"), snapshot.getAmount());
+        assertEquals(Map.of("Online", 2L), snapshot.getByChannel());
+
+        // The next bucket wraps around onto the oldest one's slot and clears it
+        tracker.record(withdrawal(7, bucketStart(current + 1), "10.00"), DatabaseType.TESTING);
+        snapshot = tracker.getSnapshot(DatabaseType.TESTING, 7);
+        assertEquals(1, snapshot.getCount());
+        assertEquals(new BigDecimal("25.00"), snapshot.getAmount());
+
+        // A late event for the cleared bucket does not bring it back
+        tracker.record(withdrawal(7, bucketStart(current - 19), "50.00"), DatabaseType.TESTING);
+        assertEquals(1, tracker.getSnapshot(DatabaseType.TESTING, 7).getCount());
+    }
+
+    @Test
+    void untrackedTransactionTypesAreIgnored() {
+        VelocityTracker tracker = tracker(600, 20, 1000, false);
+        Transaction deposit = withdrawal(7, LocalDateTime.now(), "50.00");
+        deposit.setTransactionType("Deposit");
+
+        tracker.record(deposit, DatabaseType.TESTING);
+        assertEquals(0, tracker.getTrackedAccounts(DatabaseType.TESTING));
+    }
+
+    @Test
+    void leastRecentlyActiveAccountsAreEvictedDownTo90PercentAtTheLimit() {
+        VelocityTracker tracker = tracker(20 * 3600, 20, 20, false);
+        long start = (System.currentTimeMillis() / HOUR_MILLIS - 1) * HOUR_MILLIS;
+        for (int accountId = 1; accountId <= 20; accountId++) {
+            tracker.record(withdrawal(accountId, at(start + accountId * 1000L), "1.00"), DatabaseType.TESTING);
+        }
+        assertEquals(20, tracker.getTrackedAccounts(DatabaseType.TESTING));
+
+        tracker.record(withdrawal(21, at(start + 21_000), "1.00"), DatabaseType.TESTING);
+
+        // Down to 18, then the new account
+        assertEquals(19, tracker.getTrackedAccounts(DatabaseType.TESTING));
+        assertEquals(0, tracker.getSnapshot(DatabaseType.TESTING, 1).getCount());
+        assertEquals(0, tracker.getSnapshot(DatabaseType.TESTING, 2).getCount());
+        assertEquals(1, tracker.getSnapshot(DatabaseType.TESTING, 3).getCount());
+        assertEquals(1, tracker.getSnapshot(DatabaseType.TESTING, 21).getCount());
+
+        // Accounts already tracked never trigger an eviction
+        tracker.record(withdrawal(3, at(start + 22_000), "1.00"), DatabaseType.TESTING);
+        assertEquals(19, tracker.getTrackedAccounts(DatabaseType.TESTING));
+        assertEquals(2, tracker.getSnapshot(DatabaseType.TESTING, 3).getCount());
+    }
+
+    @Test
+    void idleAccountsAreEvictedOnceTheirWindowHasPassed() throws InterruptedException {
+        // A single one-second bucket
+        VelocityTracker tracker = tracker(1, 1, 1000, false);
+        // Record early in a second, so that the event is still in the window when it arrives
+        while (System.currentTimeMillis() % 1000 > 500) {
+            Thread.sleep(10);
+        }
+        long recordedSecond = System.currentTimeMillis() / 1000;
+        tracker.record(withdrawal(7, at(recordedSecond * 1000), "1.00"), DatabaseType.TESTING);
+        tracker.evictIdle();
+        assertEquals(1, tracker.getTrackedAccounts(DatabaseType.TESTING));
+
+        while (System.currentTimeMillis() / 1000 == recordedSecond) {
+            Thread.sleep(10);
+        }
+        tracker.evictIdle();
+        assertEquals(0, tracker.getTrackedAccounts(DatabaseType.TESTING));
+    }
+
+    @Test
+    void transactionOverALimitIsRejectedWhenRejectionIsOn() {
+        VelocityTracker tracker = tracker(600, 20, 1000, true);
+        for (int i = 0; i < 3; i++) {
+            Transaction transaction = withdrawal(7, LocalDateTime.now(), "10.00");
+            tracker.check(transaction, DatabaseType.TESTING);
+            tracker.record(transaction, DatabaseType.TESTING);
+        }
+
+        IllegalArgumentException rejection = assertThrows(IllegalArgumentException.class,
+            () -> tracker.check(withdrawal(7, LocalDateTime.now(), "10.00"), DatabaseType.TESTING));
+        assertTrue(rejection.getMessage().contains("4 transactions"));
+        assertFalse(tracker.getSnapshot(DatabaseType.TESTING, 7).isFlagged());
+    }
+
+    /** Limits: 3 transactions, 1000.00 and 10 per channel or device in the window. */
+    private static VelocityTracker tracker(long windowSeconds, int buckets, int maxAccounts, boolean rejectOverLimit) {
+        return new VelocityTracker(mock(TransactionRepository.class), true, List.of("Withdrawal", "Transfer"),
+            windowSeconds, buckets, maxAccounts, 3, new BigDecimal("1000.00"), 10, 10, rejectOverLimit);
+    }
+
+    private static Transaction withdrawal(int accountId, LocalDateTime date, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setTransactionType("Withdrawal");
+        transaction.setTransactionDate(date);
+        transaction.setAmount(new BigDecimal(amount).negate());
+        transaction.setChannel("Online");
+        transaction.setDeviceType("Desktop");
+        return transaction;
+    }
+
+    /** A moment just after the start of the given one-hour bucket. */
+    private static LocalDateTime bucketStart(long hourEpoch) {
+        return at(hourEpoch * HOUR_MILLIS + 1000);
+    }
+
+    private static LocalDateTime at(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
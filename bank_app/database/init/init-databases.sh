@@ -14,11 +14,18 @@ echo "Created databases: bank_seed, bank_testing, bank_prod"
 for DB in bank_seed bank_testing bank_prod; do
     echo "Initializing $DB database..."
     psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" --dbname "$DB" < /docker-entrypoint-initdb.d/sql/init_bank_db.sql
-    if [ "$DB" = "bank_seed" ]; then
+    if [ "${BANK_SKIP_DATA_LOAD:-false}" = "true" ]; then
+        # Data is loaded with COPY by the backend's dump importer instead
+        echo "Skipping data load for $DB"
+    elif [ "$DB" = "bank_seed" ]; then
         psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" --dbname "$DB" < /docker-entrypoint-initdb.d/sql/seed_bank_db.sql
     elif [ "$DB" = "bank_prod" ]; then
         psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" --dbname "$DB" < /docker-entrypoint-initdb.d/sql/prod_bank_db.sql
     fi
+    if [ "${BANK_PARTITION_TRANSACTIONS:-false}" = "true" ]; then
+        echo "Partitioning bank.transactions in $DB..."
+        psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" --dbname "$DB" < /docker-entrypoint-initdb.d/sql/partition_transactions.sql
+    fi
 done
 
 echo "Database initialization completed"
\ No newline at end of file
@@ -0,0 +1,92 @@
+-- Optional: convert bank.transactions into a table range-partitioned by month
+-- on transaction_date. Safe to run on a loaded database and to re-run; it does
+-- nothing if the table is already partitioned.
+--
+-- * The primary key becomes (transaction_id, transaction_date), because a
+--   unique constraint on a partitioned table must include the partition key.
+-- * bank.transaction_metadata stays a plain table keyed by transaction_id and
+--   is joined as before. Its foreign key to bank.transactions cannot be kept
+--   (transaction_id alone is no longer unique at the table level), so a
+--   statement-level trigger takes over the ON DELETE CASCADE.
+-- * Rows outside the pre-created monthly partitions land in
+--   bank.transactions_default. The backend's partition manager creates future
+--   partitions ahead of time and moves matching rows out of the default.
+
+DO $$
+DECLARE
+    first_month DATE;
+    last_month DATE;
+    month DATE;
+BEGIN
+    IF (SELECT c.relkind FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace
+        WHERE n.nspname = 'bank' AND c.relname = 'transactions') = 'p' THEN
+        RAISE NOTICE 'bank.transactions is already partitioned';
+        RETURN;
+    END IF;
+
+    ALTER TABLE bank.transaction_metadata
+        DROP CONSTRAINT IF EXISTS transaction_metadata_transaction_id_fkey;
+
+    ALTER TABLE bank.transactions RENAME TO transactions_unpartitioned;
+    ALTER SEQUENCE bank.transactions_transaction_id_seq OWNED BY NONE;
+
+    CREATE TABLE bank.transactions (
+        transaction_id INT NOT NULL DEFAULT nextval('bank.transactions_transaction_id_seq'),
+        account_id INT NOT NULL REFERENCES bank.accounts(account_id) ON DELETE CASCADE,
+        transaction_type bank.transaction_type_enum NOT NULL,
+        transaction_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+        amount NUMERIC(15, 2) NOT NULL,
+        channel bank.channel_enum NOT NULL,
+        currency bank.currency_enum NOT NULL,
+        PRIMARY KEY (transaction_id, transaction_date)
+    ) PARTITION BY RANGE (transaction_date);
+
+    ALTER SEQUENCE bank.transactions_transaction_id_seq OWNED BY bank.transactions.transaction_id;
+
+    CREATE INDEX transactions_transaction_date_idx ON bank.transactions (transaction_date);
+    CREATE INDEX transactions_account_id_idx ON bank.transactions (account_id);
+
+    CREATE TABLE bank.transactions_default PARTITION OF bank.transactions DEFAULT;
+
+    -- Monthly partitions covering the existing data plus the next three months
+    SELECT date_trunc('month', COALESCE(MIN(transaction_date), CURRENT_TIMESTAMP))::date,
+           date_trunc('month', GREATEST(COALESCE(MAX(transaction_date), CURRENT_TIMESTAMP), CURRENT_TIMESTAMP))::date
+           + INTERVAL '3 months'
+    INTO first_month, last_month
+    FROM bank.transactions_unpartitioned;
+
+    month := first_month;
+    WHILE month <= last_month LOOP
+        EXECUTE format(
+            'CREATE TABLE bank.%I PARTITION OF bank.transactions FOR VALUES FROM (%L) TO (%L)',
+            'transactions_p' || to_char(month, 'YYYYMM'), month, (month + INTERVAL '1 month')::date
+        );
+        month := (month + INTERVAL '1 month')::date;
+    END LOOP;
+
+    INSERT INTO bank.transactions (transaction_id, account_id, transaction_type, transaction_date, amount, channel, currency)
+    SELECT transaction_id, account_id, transaction_type, COALESCE(transaction_date, CURRENT_TIMESTAMP), amount, channel, currency
+    FROM bank.transactions_unpartitioned;
+
+    DROP TABLE bank.transactions_unpartitioned;
+
+    PERFORM setval('bank.transactions_transaction_id_seq',
+                   (SELECT COALESCE(MAX(transaction_id), 0) + 1 FROM bank.transactions), false);
+END $$;
+
+CREATE OR REPLACE FUNCTION bank.delete_transaction_metadata() RETURNS trigger AS $$
+BEGIN
+    DELETE FROM bank.transaction_metadata m
+    USING deleted_transactions d
+    WHERE m.transaction_id = d.transaction_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS transactions_delete_metadata ON bank.transactions;
+CREATE TRIGGER transactions_delete_metadata
+    AFTER DELETE ON bank.transactions
+    REFERENCING OLD TABLE AS deleted_transactions
+    FOR EACH STATEMENT EXECUTE FUNCTION bank.delete_transaction_metadata();
+
+ANALYZE bank.transactions;
@@ -35,6 +35,8 @@ import EditIcon from '@mui/icons-material/Edit';
 import ReceiptIcon from '@mui/icons-material/Receipt';
 import DeleteIcon from '@mui/icons-material/Delete';
 import { useDatabase } from '../context/DatabaseContext';
+import { searchFetch, cancelSearch } from '../utils/searchSlots';
+import { useChangeFeed, affectsPage } from '../utils/changeFeed';
 import { useLocation, useNavigate } from 'react-router-dom';
 
 function Accounts({ refreshTrigger }) {
@@ -52,6 +54,8 @@ function Accounts({ refreshTrigger }) {
     status: ''
   });
   const [rows, setRows] = useState([]);
+  const [liveRefresh, setLiveRefresh] = useState(0);
+  const liveRefreshTimeoutRef = React.useRef(null);
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState(null);
   const [totalCount, setTotalCount] = useState(0);
@@ -173,15 +177,18 @@ function Accounts({ refreshTrigger }) {
       params.append('page', filtersToUse.page);
       params.append('size', filtersToUse.rowsPerPage);
 
-      const response = await fetch(`${backendUrl}/api/accounts?${params.toString()}`);
+      const response = await searchFetch('accounts', `${backendUrl}/api/accounts?${params.toString()}`);
       if (!response.ok) throw new Error('Failed to fetch accounts');
       const data = await response.json();
       setRows(data.accounts);
       setTotalCount(data.totalCount);
+      setLoading(false);
     } catch (err) {
+      // A newer search replaced this one and owns the loading state
+      if (err.name === 'AbortError') return;
       setError('Failed to fetch accounts');
-    } finally {
       setLoading(false);
+    } finally {
       isNavigatingRef.current = false;
       navigationStateRef.current = null;
     }
@@ -210,11 +217,25 @@ function Accounts({ refreshTrigger }) {
         clearTimeout(fetchTimeoutRef.current);
       }
     };
-  }, [selectedDatabase, page, rowsPerPage, orderBy, order, filters, searchQuery, refreshTrigger]);
+  }, [selectedDatabase, page, rowsPerPage, orderBy, order, filters, searchQuery, refreshTrigger, liveRefresh]);
+
+  // Reload the page, at most once a second, when anyone (another user, a job
+  // or a Synthesized workflow) changes rows that are or could be on it
+  useChangeFeed(selectedDatabase, (change) => {
+    if (!liveRefreshTimeoutRef.current && affectsPage(change, 'accounts', rows, 'accountId')) {
+      liveRefreshTimeoutRef.current = setTimeout(() => {
+        liveRefreshTimeoutRef.current = null;
+        setLiveRefresh(prev => prev + 1);
+      }, 1000);
+    }
+  });
 
   // Reset refs when component unmounts
   useEffect(() => {
     return () => {
+      cancelSearch('accounts');
+      clearTimeout(liveRefreshTimeoutRef.current);
+      liveRefreshTimeoutRef.current = null;
       initialLoadRef.current = true;
       isNavigatingRef.current = false;
       hasInitialStateRef.current = false;
@@ -34,7 +34,10 @@ import EditIcon from '@mui/icons-material/Edit';
 import AccountBalanceIcon from '@mui/icons-material/AccountBalance';
 import ReceiptIcon from '@mui/icons-material/Receipt';
 import DeleteIcon from '@mui/icons-material/Delete';
+import VisibilityIcon from '@mui/icons-material/Visibility';
 import { useDatabase } from '../context/DatabaseContext';
+import { searchFetch, cancelSearch } from '../utils/searchSlots';
+import { useChangeFeed, affectsPage } from '../utils/changeFeed';
 import { useLocation, useNavigate } from 'react-router-dom';
 
 function Customers({ refreshTrigger }) {
@@ -52,6 +55,8 @@ function Customers({ refreshTrigger }) {
     customer_type: ''
   });
   const [rows, setRows] = useState([]);
+  const [liveRefresh, setLiveRefresh] = useState(0);
+  const liveRefreshTimeoutRef = React.useRef(null);
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState(null);
   const [totalCount, setTotalCount] = useState(0);
@@ -75,6 +80,7 @@ function Customers({ refreshTrigger }) {
   const [deletingId, setDeletingId] = useState(null);
   const [deleteError, setDeleteError] = useState(null);
   const [confirmDelete, setConfirmDelete] = useState({ open: false, customerId: null });
+  const [overview, setOverview] = useState({ open: false, loading: false, data: null, error: null });
 
   const customerTypes = ['Individual', 'Business', 'VIP', 'Government', 'Nonprofit'];
   const statuses = ['Active', 'Inactive', 'Suspended'];
@@ -146,15 +152,18 @@ function Customers({ refreshTrigger }) {
       params.append('page', filtersToUse.page);
       params.append('size', filtersToUse.rowsPerPage);
 
-      const response = await fetch(`${backendUrl}/api/customers?${params.toString()}`);
+      const response = await searchFetch('customers', `${backendUrl}/api/customers?${params.toString()}`);
       if (!response.ok) throw new Error('Failed to fetch customers');
       const data = await response.json();
       setRows(data.customers);
       setTotalCount(data.totalCount);
+      setLoading(false);
     } catch (err) {
+      // A newer search replaced this one and owns the loading state
+      if (err.name === 'AbortError') return;
       setError('Failed to fetch customers');
-    } finally {
       setLoading(false);
+    } finally {
       isNavigatingRef.current = false;
       navigationStateRef.current = null;
     }
@@ -183,11 +192,25 @@ function Customers({ refreshTrigger }) {
         clearTimeout(fetchTimeoutRef.current);
       }
     };
-  }, [selectedDatabase, page, rowsPerPage, orderBy, order, filters, searchQuery, customerIdSearch, refreshTrigger]);
+  }, [selectedDatabase, page, rowsPerPage, orderBy, order, filters, searchQuery, customerIdSearch, refreshTrigger, liveRefresh]);
+
+  // Reload the page, at most once a second, when anyone (another user, a job
+  // or a Synthesized workflow) changes rows that are or could be on it
+  useChangeFeed(selectedDatabase, (change) => {
+    if (!liveRefreshTimeoutRef.current && affectsPage(change, 'customers', rows, 'customerId')) {
+      liveRefreshTimeoutRef.current = setTimeout(() => {
+        liveRefreshTimeoutRef.current = null;
+        setLiveRefresh(prev => prev + 1);
+      }, 1000);
+    }
+  });
 
   // Reset refs when component unmounts
   useEffect(() => {
     return () => {
+      cancelSearch('customers');
+      clearTimeout(liveRefreshTimeoutRef.current);
+      liveRefreshTimeoutRef.current = null;
       initialLoadRef.current = true;
       isNavigatingRef.current = false;
       hasInitialStateRef.current = false;
@@ -323,6 +346,32 @@ function Customers({ refreshTrigger }) {
     });
   };
 
+  // Customer, accounts and latest transactions in one request
+  const handleViewOverview = async (customerId) => {
+    setOverview({ open: true, loading: true, data: null, error: null });
+    try {
+      const response = await fetch(`${backendUrl}/api/customers/${customerId}/overview?database=${selectedDatabase}&transactions=5`);
+      const data = await response.json();
+      if (!response.ok) {
+        throw new Error(data.error || 'Failed to load customer details');
+      }
+      setOverview({ open: true, loading: false, data, error: null });
+    } catch (err) {
+      setOverview({ open: true, loading: false, data: null, error: err.message || 'Failed to load customer details' });
+    }
+  };
+
+  const handleCloseOverview = () => {
+    setOverview({ open: false, loading: false, data: null, error: null });
+  };
+
+  const formatAmount = (amount, currency) => {
+    return new Intl.NumberFormat('en-US', {
+      style: 'currency',
+      currency: currency || 'USD'
+    }).format(amount);
+  };
+
   const handleDeleteClick = (customerId) => {
     setConfirmDelete({ open: true, customerId });
   };
@@ -501,6 +550,13 @@ function Customers({ refreshTrigger }) {
                       )}
                     </TableCell>
                     <TableCell>
+                      <IconButton
+                        size="small"
+                        onClick={() => handleViewOverview(row.customerId)}
+                        title="View Details"
+                      >
+                        <VisibilityIcon />
+                      </IconButton>
                       <IconButton
                         size="small"
                         onClick={() => handleViewTransactions(row)}
@@ -608,6 +664,70 @@ function Customers({ refreshTrigger }) {
         </DialogActions>
       </Dialog>
 
+      <Dialog open={overview.open} onClose={handleCloseOverview} maxWidth="md" fullWidth>
+        <DialogTitle>
+          {overview.data
+            ? `${overview.data.customer.firstName} ${overview.data.customer.lastName} (#${overview.data.customer.customerId})`
+            : 'Customer Details'}
+        </DialogTitle>
+        <DialogContent>
+          {overview.loading ? (
+            <Box sx={{ display: 'flex', justifyContent: 'center', p: 3 }}>
+              <CircularProgress />
+            </Box>
+          ) : overview.error ? (
+            <Typography color="error">{overview.error}</Typography>
+          ) : overview.data && (
+            <Box>
+              <Typography variant="body2" color="textSecondary" sx={{ mb: 2 }}>
+                {overview.data.customer.customerType} · {overview.data.customer.email} · {overview.data.customer.phone}
+              </Typography>
+              {overview.data.accounts.length === 0 ? (
+                <Typography variant="body2" color="textSecondary">No accounts</Typography>
+              ) : overview.data.accounts.map(({ account, recentTransactions }) => (
+                <Box key={account.accountId} sx={{ mb: 3 }}>
+                  <Typography variant="subtitle1">
+                    Account {account.accountId} · {account.accountType} · {account.status} · {formatAmount(account.balance)}
+                  </Typography>
+                  {recentTransactions.length === 0 ? (
+                    <Typography variant="body2" color="textSecondary">No transactions</Typography>
+                  ) : (
+                    <Table size="small">
+                      <TableHead>
+                        <TableRow>
+                          <TableCell>Transaction ID</TableCell>
+                          <TableCell>Date</TableCell>
+                          <TableCell>Type</TableCell>
+                          <TableCell>Channel</TableCell>
+                          <TableCell align="right">Amount</TableCell>
+                        </TableRow>
+                      </TableHead>
+                      <TableBody>
+                        {recentTransactions.map((transaction) => (
+                          <TableRow key={transaction.transactionId}>
+                            <TableCell>{transaction.transactionId}</TableCell>
+                            <TableCell>{new Date(transaction.transactionDate).toLocaleString()}</TableCell>
+                            <TableCell>{transaction.transactionType}</TableCell>
+                            <TableCell>{transaction.channel}</TableCell>
+                            <TableCell align="right">{formatAmount(transaction.amount, transaction.currency)}</TableCell>
+                          </TableRow>
+                        ))}
+                      </TableBody>
+                    </Table>
+                  )}
+                </Box>
+              ))}
+            </Box>
+          )}
+        </DialogContent>
+        <DialogActions>
+          {overview.data && (
+            <Button onClick={() => handleViewTransactions(overview.data.customer)}>All Transactions</Button>
+          )}
+          <Button onClick={handleCloseOverview}>Close</Button>
+        </DialogActions>
+      </Dialog>
+
       {confirmDelete.open && (
         <Dialog open={confirmDelete.open} onClose={handleDeleteCancel}>
           <DialogTitle>Confirm Delete</DialogTitle>
@@ -12,6 +12,7 @@ import {
   CircularProgress
 } from '@mui/material';
 import { useDatabase } from '../context/DatabaseContext';
+import { useChangeFeed } from '../utils/changeFeed';
 import axios from 'axios';
 import { PieChart, Pie, Cell, Tooltip, Legend, ResponsiveContainer } from 'recharts';
 
@@ -62,6 +63,12 @@ function Home({ isVisible, refreshTrigger }) {
     Closed: '#a4a4a4',
   };
   const STATUS_LABELS = ['Frozen', 'Active', 'Overdrawn', 'Dormant', 'Closed'];
+  const STATISTICS_FIELDS = {
+    transactions: 'totalTransactions',
+    customers: 'totalCustomers',
+    accounts: 'totalAccounts',
+    branches: 'totalBranches'
+  };
 
   const backendUrl = process.env.REACT_APP_BACKEND_URL || 'http://localhost:8085';
 
@@ -101,6 +108,30 @@ function Home({ isVisible, refreshTrigger }) {
     }
   }, [selectedDatabase, isVisible, refreshTrigger]);
 
+  // Keep the counters current from the change feed instead of re-fetching
+  // the statistics after every change
+  useChangeFeed(selectedDatabase, (change) => {
+    if (change.resync || change.operation === 'TRUNCATE') {
+      fetchStatistics();
+      fetchAccountStatusCounts();
+      return;
+    }
+    const field = STATISTICS_FIELDS[change.entity];
+    if (field && change.countDelta) {
+      setStatistics(prev => prev && { ...prev, [field]: prev[field] + change.countDelta });
+    }
+    if (change.entity === 'accounts' && change.statusDeltas && Object.keys(change.statusDeltas).length > 0) {
+      setAccountStatusCounts(prev => {
+        if (!prev) return prev;
+        const next = { ...prev };
+        Object.entries(change.statusDeltas).forEach(([status, delta]) => {
+          next[status] = (next[status] || 0) + delta;
+        });
+        return next;
+      });
+    }
+  }, isVisible);
+
   // Prepare data for recharts
   const pieData = STATUS_LABELS.map(status => ({
     name: status,
@@ -31,6 +31,8 @@ import FilterListIcon from '@mui/icons-material/FilterList';
 import AddIcon from '@mui/icons-material/Add';
 import DeleteIcon from '@mui/icons-material/Delete';
 import { useDatabase } from '../context/DatabaseContext';
+import { searchFetch, cancelSearch } from '../utils/searchSlots';
+import { useChangeFeed, affectsPage } from '../utils/changeFeed';
 import { useNavigate, useLocation } from 'react-router-dom';
 
 function Transactions({ refreshTrigger }) {
@@ -49,6 +51,8 @@ function Transactions({ refreshTrigger }) {
     account_ids: ''
   });
   const [rows, setRows] = useState([]);
+  const [liveRefresh, setLiveRefresh] = useState(0);
+  const liveRefreshTimeoutRef = React.useRef(null);
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState(null);
   const [totalCount, setTotalCount] = useState(0);
@@ -155,15 +159,18 @@ function Transactions({ refreshTrigger }) {
       params.append('page', filtersToUse.page);
       params.append('size', filtersToUse.rowsPerPage);
 
-      const response = await fetch(`${backendUrl}/api/transactions?${params.toString()}`);
+      const response = await searchFetch('transactions', `${backendUrl}/api/transactions?${params.toString()}`);
       if (!response.ok) throw new Error('Failed to fetch transactions');
       const data = await response.json();
       setRows(data.transactions);
       setTotalCount(data.totalCount);
+      setLoading(false);
     } catch (err) {
+      // A newer search replaced this one and owns the loading state
+      if (err.name === 'AbortError') return;
       setError('Failed to fetch transactions');
-    } finally {
       setLoading(false);
+    } finally {
       isNavigatingRef.current = false;
       navigationStateRef.current = null;
     }
@@ -192,11 +199,25 @@ function Transactions({ refreshTrigger }) {
         clearTimeout(fetchTimeoutRef.current);
       }
     };
-  }, [selectedDatabase, page, rowsPerPage, orderBy, order, filters, searchQuery, refreshTrigger]);
+  }, [selectedDatabase, page, rowsPerPage, orderBy, order, filters, searchQuery, refreshTrigger, liveRefresh]);
+
+  // Reload the page, at most once a second, when anyone (another user, a job
+  // or a Synthesized workflow) changes rows that are or could be on it
+  useChangeFeed(selectedDatabase, (change) => {
+    if (!liveRefreshTimeoutRef.current && affectsPage(change, 'transactions', rows, 'transactionId')) {
+      liveRefreshTimeoutRef.current = setTimeout(() => {
+        liveRefreshTimeoutRef.current = null;
+        setLiveRefresh(prev => prev + 1);
+      }, 1000);
+    }
+  });
 
   // Reset refs when component unmounts
   useEffect(() => {
     return () => {
+      cancelSearch('transactions');
+      clearTimeout(liveRefreshTimeoutRef.current);
+      liveRefreshTimeoutRef.current = null;
       initialLoadRef.current = true;
       isNavigatingRef.current = false;
       hasInitialStateRef.current = false;
@@ -0,0 +1,62 @@
+import { useEffect, useRef } from 'react';
+
+// Follows /api/changes/stream. All components watching the same database
+// share one EventSource, and the backend serves every stream from a single
+// LISTEN connection per database.
+const backendUrl = process.env.REACT_APP_BACKEND_URL || 'http://localhost:8085';
+const feeds = {};
+
+const openFeed = (database) => {
+  const feed = {
+    source: new EventSource(`${backendUrl}/api/changes/stream?database=${database}`),
+    listeners: new Set(),
+    opened: false
+  };
+  const notify = (change) => feed.listeners.forEach(listener => listener(change));
+  feed.source.addEventListener('change', (event) => notify(JSON.parse(event.data)));
+  feed.source.addEventListener('resync', () => notify({ resync: true }));
+  feed.source.addEventListener('open', () => {
+    // Changes made while the stream was reconnecting were not delivered
+    if (feed.opened) notify({ resync: true });
+    feed.opened = true;
+  });
+  return feed;
+};
+
+// Calls listener with each change to database ({ entity, operation, count,
+// countDelta, ids, truncated, ... }) or with { resync: true } when changes
+// may have been missed. Returns a function that unsubscribes.
+export const subscribeToChanges = (database, listener) => {
+  if (!feeds[database]) {
+    feeds[database] = openFeed(database);
+  }
+  const feed = feeds[database];
+  feed.listeners.add(listener);
+  return () => {
+    feed.listeners.delete(listener);
+    if (feed.listeners.size === 0) {
+      feed.source.close();
+      delete feeds[database];
+    }
+  };
+};
+
+// React hook around subscribeToChanges; onChange may change between renders.
+export const useChangeFeed = (database, onChange, enabled = true) => {
+  const handlerRef = useRef(onChange);
+  handlerRef.current = onChange;
+  useEffect(() => {
+    if (!enabled) return undefined;
+    return subscribeToChanges(database, change => handlerRef.current(change));
+  }, [database, enabled]);
+};
+
+// Whether a change to entity can alter a page showing rows with the given IDs:
+// inserts and deletes shift the page, updates only matter for rows on it.
+export const affectsPage = (change, entity, rows, idField) => {
+  if (change.resync) return true;
+  if (change.entity !== entity) return false;
+  if (change.operation !== 'UPDATE' || change.truncated) return true;
+  const shown = new Set(rows.map(row => row[idField]));
+  return change.ids.some(id => shown.has(id));
+};
@@ -0,0 +1,50 @@
+// Searches are tagged with a per-tab client ID and a slot name so the backend
+// can cancel the database statements of a search that has been superseded or
+// abandoned (see QueryCancellationInterceptor).
+const backendUrl = process.env.REACT_APP_BACKEND_URL || 'http://localhost:8085';
+const CLIENT_ID_KEY = 'bankSearchClientId';
+const controllers = {};
+
+const getClientId = () => {
+  let clientId = sessionStorage.getItem(CLIENT_ID_KEY);
+  if (!clientId) {
+    clientId = Math.random().toString(36).slice(2) + Date.now().toString(36);
+    sessionStorage.setItem(CLIENT_ID_KEY, clientId);
+  }
+  return clientId;
+};
+
+// Fetches url as the current search of slot, aborting the previous one.
+// Callers should ignore errors named 'AbortError'.
+export const searchFetch = (slot, url) => {
+  if (controllers[slot]) {
+    controllers[slot].abort();
+  }
+  const controller = new AbortController();
+  controllers[slot] = controller;
+  return fetch(url, {
+    signal: controller.signal,
+    headers: {
+      'X-Client-Id': getClientId(),
+      'X-Search-Slot': slot
+    }
+  }).finally(() => {
+    if (controllers[slot] === controller) {
+      delete controllers[slot];
+    }
+  });
+};
+
+// Abandons the running search of slot, e.g. when its page is left. The
+// browser does not tell the backend about aborted requests, so the
+// cancellation is also sent explicitly.
+export const cancelSearch = (slot) => {
+  const controller = controllers[slot];
+  if (!controller) {
+    return;
+  }
+  controller.abort();
+  delete controllers[slot];
+  const params = new URLSearchParams({ clientId: getClientId(), slot });
+  navigator.sendBeacon(`${backendUrl}/api/queries/cancel?${params.toString()}`);
+};